@@ -25,8 +25,8 @@ public class ProjectMain extends Application {
         }
         catch (IOException e){
             Alert errorAlert = new Alert(Alert.AlertType.ERROR);
-            errorAlert.setHeaderText("Error Accessing PDB Server");
-            errorAlert.setContentText("Sorry, we can not reach the PDB Server: " + e.getMessage() + "\n Please check your Internet connection. ");
+            errorAlert.setHeaderText("Error Accessing PDB Files");
+            errorAlert.setContentText("Sorry, the local storage of PDB files can not be accessed: " + e.getMessage() + "\n Please check the permissions of the pdbFiles directory. ");
             errorAlert.showAndWait();
         }
 
@@ -1,38 +1,44 @@
-import javafx.animation.KeyFrame;
-import javafx.animation.KeyValue;
-import javafx.animation.ParallelTransition;
-import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
-import javafx.collections.SetChangeListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.MapChangeListener;
+import javafx.collections.ObservableMap;
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
-import javafx.geometry.Point3D;
 import javafx.scene.chart.CategoryAxis;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.PieChart;
 import javafx.scene.chart.XYChart;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.shape.Rectangle;
-import javafx.scene.shape.Shape3D;
 import javafx.stage.FileChooser;
-import javafx.util.Duration;
-import javafx.util.Pair;
-import model.MoleculeAnalyzer;
 import model.atoms.AtomI;
+import model.molecules.ModelSource;
 import model.molecules.Molecules;
-import model.molecules.Monomer;
-import model.molecules.Polymer;
 import model.molecules.StructureType;
+import model.pdbaccess.EntryIDList;
 import model.pdbaccess.FileParser;
+import model.pdbaccess.PDBDocument;
+import model.pdbaccess.PDBRecordType;
 import model.pdbaccess.PDBWebClient;
 import model.tasks.CreateMoleculeTask;
+import model.tasks.LoadEntriesTask;
 import model.tasks.ReadFileContentTask;
 import model.tasks.SetupVisualizationTask;
 import selection.AtomSelectionModel;
+import selection.SelectionHighlight;
 import selection.SelectionModel;
 import selection.SelectionRectangles;
+import selection.SelectionSummary;
+import view.AtomColoring;
 import view.AtomSphere;
 import view.Window;
+import view.helper.WindowConstants;
 import view.undo.PropertyCommand;
 import view.undo.SimpleCommand;
 import view.undo.UndoRedoManager;
@@ -52,22 +58,31 @@ public class WindowPresenter {
     private Molecules model;
 
     //services
-    private final Service<String> readFileContentService;
+    private final Service<PDBDocument> readFileContentService;
     private final Service<Molecules> createMoleculeService;
     private final Service<HashMap<AtomI, AtomSphere>> setupMoleculeVisualizationService;
+    private final Service<Molecules> selectModelService;                            //shows another model of an ensemble
+    private final Service<Map<String, Molecules>> preloadEntriesService;             //loads all SARS-CoV-2 entries in parallel
+    private final Map<String, Molecules> preloadedMolecules;                        //molecules of all preloaded entries by entry ID
+    private final ObservableMap<String, Double> preloadProgress;                    //progress of the entries, which are preloaded
 
     //properties
     private ListProperty<String> visibleEntryIdListProperty;
+    private final EntryIDList searchedEntryIDs;
     private final BooleanProperty notAllIDsAreShown;
-    private final StringProperty currentFileStringProperty;           //String property of content shown in File text tab
+    private final StringProperty currentFileStringProperty;           //ID of the file shown in File tab, or a message while it is read
+    private final ObjectProperty<PDBDocument> currentDocumentProperty; //lines of the file shown in File tab
     private final StringProperty selectedFileNameProperty;            //last selected filename
     private final BooleanProperty isExploding;
 
     //selection
     private final SelectionModel<AtomI> selectionModel;
     private final SelectionRectangles selectionRectangles;
+    private final SelectionSummary selectionSummary;                  //text of the selected atoms, updated by each change of the selection
+    private final SelectionHighlight selectionHighlight;              //outlines of the selected atoms within the scene
     Function<AtomI, List<AtomSphere>> item2shapesFunction;
     private HashMap<AtomI, AtomSphere> atom2sphere;                   //view - model linkage
+    private boolean spheresAreCreated;                                //false if the molecule was set up for the batched style only
 
     private final UndoRedoManager undoRedoManager;
 
@@ -91,15 +106,17 @@ public class WindowPresenter {
                 System.err.println("No Internet connection to PDB Server: " +  e.getMessage());
             }
         }
-        try {
-            assert pdbWebClient != null;
-            this.visibleEntryIdListProperty = pdbWebClient.allEntryIDsProperty();
-        } catch (IOException e) {
-            System.err.println("Error requesting Entry IDs from PDB server" + e.getMessage());
+        assert this.pdbWebClient != null;
+        //own property, so that showing other IDs does not change the list of all IDs of the web client
+        this.visibleEntryIdListProperty = new SimpleListProperty<>(this.pdbWebClient.allEntryIDsProperty().get());
+        this.searchedEntryIDs = new EntryIDList();
+        if(this.pdbWebClient.getEntryIDIndex() != null){
+            this.searchedEntryIDs.setIndex(this.pdbWebClient.getEntryIDIndex(), null);
         }
 
         //init windowPresenter properties
         this.currentFileStringProperty = new SimpleStringProperty();
+        this.currentDocumentProperty = new SimpleObjectProperty<>();
         this.selectedFileNameProperty = new SimpleStringProperty();
         this.isExploding = new SimpleBooleanProperty(false);
 
@@ -107,30 +124,75 @@ public class WindowPresenter {
 
         this.undoRedoManager = new UndoRedoManager();
         this.selectionModel = new AtomSelectionModel();
+        this.selectionSummary = new SelectionSummary();
         this.item2shapesFunction = atomI -> {
             List<AtomSphere> spheres = new ArrayList<>();
-            spheres.add(atom2sphere.get(atomI));
+            AtomSphere sphere = atom2sphere.get(atomI);
+            if(sphere != null){         //no spheres are created for the batched style
+                spheres.add(sphere);
+            }
             return spheres;
         };
         this.selectionRectangles = new SelectionRectangles(this.view.getController().getSelectionPane(), collectSelectionAffectingProperties());
+        this.selectionHighlight = new SelectionHighlight(this.view.getHighlightGroup());
 
         //createServices and Tasks
         this.readFileContentService = new Service<>() {
             @Override
-            protected Task<String> createTask() {
+            protected Task<PDBDocument> createTask() {
                 return new ReadFileContentTask(selectedFileNameProperty, pdbWebClient);
             }
         };
         this.createMoleculeService = new Service<>() {
             @Override
             protected Task<Molecules> createTask() {
+                Molecules preloaded = preloadedMolecules.get(selectedFileNameProperty.get());
+                if(preloaded != null){
+                    //entry was already parsed by the preloadEntriesService
+                    return new Task<>() {
+                        @Override
+                        protected Molecules call() {
+                            return preloaded;
+                        }
+                    };
+                }
                 return new CreateMoleculeTask(selectedFileNameProperty, fileParser);
             }
         };
         this.setupMoleculeVisualizationService = new Service<>() {
             @Override
             protected Task<HashMap<AtomI, AtomSphere>> createTask() {
-                return new SetupVisualizationTask(model, view, selectionModel);
+                //spheres and cylinders of large molecules are only created once the balls and sticks style is chosen
+                spheresAreCreated = !"Batched Mesh".equals(view.getController().getStyleComboBox().getValue());
+                return new SetupVisualizationTask(model, view, selectionModel, spheresAreCreated);
+            }
+        };
+        this.selectModelService = new Service<>() {
+            @Override
+            protected Task<Molecules> createTask() {
+                Molecules molecules = model;
+                int selectedModel = view.getController().getModelChoiceBox().getSelectionModel().getSelectedIndex();
+                return new Task<>() {
+                    @Override
+                    protected Molecules call() throws IOException {
+                        //coordinates of a model are read from its file when it is shown for the first time
+                        molecules.selectModel(selectedModel);
+                        return molecules;
+                    }
+                };
+            }
+        };
+        this.preloadedMolecules = new HashMap<>();
+        this.preloadProgress = FXCollections.observableHashMap();
+        this.preloadEntriesService = new Service<>() {
+            @Override
+            protected Task<Map<String, Molecules>> createTask() {
+                List<String> entryIDs = new ArrayList<>(pdbWebClient.sarsCovEntryIDsProperty().get());
+                entryIDs.removeAll(preloadedMolecules.keySet());
+                LoadEntriesTask task = new LoadEntriesTask(entryIDs, pdbWebClient);
+                preloadProgress.putAll(task.getEntryProgress());
+                task.getEntryProgress().addListener((MapChangeListener<String, Double>) c -> preloadProgress.put(c.getKey(), c.getValueAdded()));
+                return task;
             }
         };
         this.model = new Molecules("INIT MOLECULE");
@@ -158,9 +220,16 @@ public class WindowPresenter {
      * Create Bindings for control elements where model and more complicated logic is involved.
      */
     private void createBindings() {
-        this.view.getController().getFileOutputTextArea().textProperty().bind(currentFileStringProperty);
+        //the list only creates the lines of the file which are visible
+        Label fileOutputPlaceholder = new Label();
+        fileOutputPlaceholder.textProperty().bind(currentFileStringProperty);
+        this.view.getController().getFileOutputListView().setPlaceholder(fileOutputPlaceholder);
+        this.view.getController().getFileOutputListView().itemsProperty().bind(Bindings.createObjectBinding(() ->
+                currentDocumentProperty.get() != null ? FXCollections.observableList(currentDocumentProperty.get()) : FXCollections.emptyObservableList(), currentDocumentProperty));
+        this.view.getController().getNextRecordButton().disableProperty().bind(currentDocumentProperty.isNull());
         this.view.getController().getClearMI().disableProperty().bind(this.selectionModel.getSelectedItemsSizeProperty().lessThan(1));
-        this.view.getController().getSelectMI().disableProperty().bind(this.view.ribbonsAreVisibleProperty());
+        //no atoms are selected while the polymers are exploded, the outlines of selected atoms are not moved with them
+        this.view.getController().getSelectMI().disableProperty().bind(this.view.ribbonsAreVisibleProperty().or(this.isExploding));
 
         //bindings to disable control elements if no file was selected:
         this.view.getController().getShowBallsCheckbox().disableProperty().bind(currentFileStringProperty.isEmpty().or(currentFileStringProperty.isNull().or(this.view.ribbonsAreVisibleProperty())));
@@ -169,8 +238,11 @@ public class WindowPresenter {
         this.view.getController().getStyleComboBox().disableProperty().bind(currentFileStringProperty.isEmpty().or(currentFileStringProperty.isNull()));
         this.view.getController().getColoringComboBox().disableProperty().bind(currentFileStringProperty.isEmpty().or(currentFileStringProperty.isNull().or(this.view.ribbonsAreVisibleProperty())));
         this.view.getController().getAtomChoiceBox().disableProperty().bind(currentFileStringProperty.isEmpty().or(currentFileStringProperty.isNull().or(this.view.ribbonsAreVisibleProperty())));
-        this.view.getController().getExplosionButton().disableProperty().bind(this.isExploding.or(this.view.ribbonsAreVisibleProperty()).or(currentFileStringProperty.isEmpty().or(currentFileStringProperty.isNull())).or(this.model.numberOfPolymersProperty().greaterThan(1)));
+        this.view.getController().getExplosionButton().disableProperty().bind(this.isExploding.or(currentFileStringProperty.isEmpty().or(currentFileStringProperty.isNull())));
         this.view.getController().getAnimationButton().disableProperty().bind(currentFileStringProperty.isEmpty().or(currentFileStringProperty.isNull()));
+        //only one model is read and shown at a time
+        this.view.getController().getModelChoiceBox().disableProperty().bind(Bindings.size(this.view.getController().getModelChoiceBox().getItems()).lessThan(2)
+                .or(selectModelService.runningProperty()).or(setupMoleculeVisualizationService.runningProperty()));
 
         //List view bound to selected IDs
         this.view.getController().getIdListView().itemsProperty().bind(this.visibleEntryIdListProperty);
@@ -222,6 +294,7 @@ public class WindowPresenter {
             //else no file was selected --> nothing shall happen
         });
         this.view.getController().getClearMI().setOnAction(a -> {
+            this.selectionModel.clearSelection();
             this.view.getRectangleGroup().getChildren().clear();
             this.view.setMoleculeInfo("No Atom is selected.");
         });
@@ -230,30 +303,30 @@ public class WindowPresenter {
         createUndoRedoManagerListener();
 
         //_____________________________________________________________________________________________________SELECTION
-        this.selectionModel.getSelectedItems().addListener((SetChangeListener<AtomI>) c -> {
-            if(this.view.getRectangleGroup() != null && this.view.getRectangleGroup().getChildren() != null) {
-                String selectedText = generateSelectionInfoText();
-                this.view.setMoleculeInfo(selectedText);
-                if (c.wasRemoved()) {
-                    Platform.runLater(() -> {
-                        for (AtomSphere sphere : item2shapesFunction.apply(c.getElementRemoved())) {
-                            this.view.getRectangleGroup().getChildren().remove(selectionRectangles.removeRectangleOfShape(sphere));
-                        }
-                    });
-                }
-                if (c.wasAdded()) {
-                    Platform.runLater(() -> {
-                        for (AtomSphere sphere : item2shapesFunction.apply(c.getElementAdded())) {
-                            Rectangle rectangle = selectionRectangles.createBoundingBoxWithBinding(sphere);
-                            this.view.getRectangleGroup().getChildren().add(rectangle);
-                        }
-                    });
-                }
+        this.selectionModel.addSelectionListener(c -> {
+            c.getRemoved().forEach(this.selectionSummary::remove);
+            c.getAdded().forEach(this.selectionSummary::add);
+            this.view.setMoleculeInfo(this.selectionSummary.getText());
+            this.selectionHighlight.update(c);
+            if(!this.view.getController().getHighlightSelectionMI().isSelected()){
+                updateSelectionRectangles(c.getRemoved(), c.getAdded());
+            }
+        });
+        //selected atoms are either outlined within the scene or marked by rectangles on top of it
+        this.view.getController().getHighlightSelectionMI().selectedProperty().addListener((v, o, n) -> {
+            List<AtomI> selectedAtoms = new ArrayList<>(this.selectionModel.getSelectedItems());
+            if(n){
+                updateSelectionRectangles(selectedAtoms, List.of());
             }
             else{
-                System.err.println("Rectangles can not be added or removed of selection if rectangles group is null or its children.");
+                updateSelectionRectangles(List.of(), selectedAtoms);
             }
         });
+        this.selectionHighlight.setRadiusScale(this.view.getController().getMoleculeSizeSlider().getValue() * 0.01);
+        this.view.getController().getMoleculeSizeSlider().valueProperty().addListener((v, o, n) -> this.selectionHighlight.setRadiusScale(n.doubleValue() * 0.01));
+        this.view.getController().getAtomChoiceBox().valueProperty().addListener((v, o, n) ->
+                this.selectionHighlight.setVisibleAtoms(n == null || n.equals("All") ? null : atom -> n.equals(atom.getName().get())));
+        this.view.getController().getTempFactorSlider().valueProperty().addListener((v, o, n) -> this.selectionHighlight.setMaxTempFactor(n.doubleValue()));
         this.view.isAnimationRunningPropertyProperty().addListener((v, o, n) -> {if(n) selectionModel.clearSelection();});
 
         createIDListListener();
@@ -266,11 +339,20 @@ public class WindowPresenter {
                 this.undoRedoManager.clear();
                 switch (n){
                     case "Balls and Sticks":
+                        this.view.setMeshesAreVisible(false);
                         this.view.setRibbonsAreVisible(false);
+                        if(this.view.getAtomColoring() != null){        //otherwise the molecule is still set up
+                            createMissingSpheres();
+                        }
                         break;
                     case "Ribbon":
+                        this.view.setMeshesAreVisible(false);
                         this.view.setRibbonsAreVisible(true);
                         break;
+                    case "Batched Mesh":
+                        this.view.setMeshesAreVisible(true);
+                        this.view.setRibbonsAreVisible(false);
+                        break;
                     default:
                         this.view.displayInfoMessage("Changing Drawing Style", "Sorry, it seems like a drawing style was selected, which is not yet supported by this program. Please report it.");
                 }
@@ -279,127 +361,43 @@ public class WindowPresenter {
 
         //coloring
         this.view.getController().getColoringComboBox().valueProperty().addListener((v, o, n) -> {
-            StringBuilder type = new StringBuilder();
-            int size = 0;
-            Set<String> groupNames = null;
-            switch (n.trim().toUpperCase()) {
-                case "STRUCTURE TYPES" -> {
-                    Set<StructureType> structures = this.model.getStructureTypes();
-                    for (StructureType structType : structures) {
-                        Set<String> typeNames = this.model.getStructureIDs(structType);
+            AtomColoring.Scheme scheme = AtomColoring.Scheme.of(n);
+            if(n == null || !this.view.drawAtoms(scheme)){
+                return;         //the atoms are colored in their atom colors once the molecule is set up
+            }
+            int size = this.view.getAtomColoring().getNumberOfGroups(scheme);
+            switch (scheme) {
+                case ATOMS -> this.view.setMoleculeInfo("Molecules are drawn with their atoms colored in default colors.");
+                case RAINBOW -> {
+                    //rainbow colors are shown without information
+                }
+                case STRUCTURE_TYPES -> {
+                    StringBuilder type = new StringBuilder();
+                    for (StructureType structType : this.model.getStructureTypes()) {
                         type.append(structType.name()).append(" ");
-                        this.view.drawSpheresForGrouping(typeNames);
                     }
+                    this.view.setMoleculeInfo(String.format("Molecules have %d different structure types which are: %s", size, type));
                 }
-                case "MONOMERS" -> {
-                    groupNames = this.model.getMonomerNames();
-                    type = new StringBuilder("Monomers");
-                }
-                case "NUCLEOTIDES" -> {
-                    Set<String> monosToBeFilteredForNucleotides = this.model.getMonomerNames();
-                    groupNames = new HashSet<>();
-                    for (String monomerName : monosToBeFilteredForNucleotides) {
-                        if (monomerName.length() < 3) {
-                            groupNames.add(monomerName);
-                        }
+                default -> {
+                    if(size > 0){
+                        this.view.setMoleculeInfo(String.format("Molecule has %d different %s.", size, n.trim()));
                     }
-                    type = new StringBuilder("Nucleotides");
-                }
-                case "AMINO ACIDS" -> {
-                    Set<String> monosToBeFilteredForAminos = this.model.getMonomerNames();
-                    groupNames = new HashSet<>();
-                    for (String monomerName : monosToBeFilteredForAminos) {
-                        if (monomerName.length() == 3) {
-                            groupNames.add(monomerName);
-                        }
+                    else{
+                        this.view.setMoleculeInfo("This type is not appearing in the current Molecules.");
                     }
-                    type = new StringBuilder("Amino Acids");
-                }
-                case "SHEETS" -> {
-                    type = new StringBuilder("Sheets");
-                    groupNames = this.model.getStructureIDs(StructureType.SHEET);
                 }
-                case "HELIX" -> {
-                    type = new StringBuilder("Helix");
-                    groupNames = this.model.getStructureIDs(StructureType.HELIX);
-                }
-                case "MOLECULES" -> {
-                    type = new StringBuilder("Molecules");
-                    groupNames = this.model.getChainNames();
-                }
-                case "RAINBOW" -> {
-                    Pair<Point3D, Point3D> minMax = this.model.findRanges();
-                    this.view.drawSpheresInRainbow(minMax.getKey().getX(), minMax.getValue().getX());
-                }
-                default -> {
-                    //includes ATOMS
-                    this.view.drawSpheresInAtomColor();
-                    this.view.setMoleculeInfo("Molecules are drawn with their atoms colored in default colors.");
-                }
-            }
-            if(groupNames != null) {
-                this.view.drawSpheresForGrouping(groupNames);
-                this.view.setMoleculeInfo(String.format("Molecule has %d different %s.", groupNames.size(), type));
-            }
-            else if(n.trim().equalsIgnoreCase("STRUCTURE TYPES")){
-                this.view.setMoleculeInfo(String.format("Molecules have %d different structure types which are: %s", size, type));
             }
-            //case rainbow or atoms/default applied
         });
         //explode
         this.view.getController().getExplosionButton().setOnAction(a ->{
             this.isExploding.set(true);
             this.selectionModel.clearSelection();
             this.undoRedoManager.clear();
-            boolean bonsWereVisible = this.view.getController().getShowBondsCheckbox().selectedProperty().get();
-            if(bonsWereVisible){this.view.getController().getShowBondsCheckbox().setSelected(false);}
-
-            Set<String> polyNames = this.model.getChainNames();
-            ParallelTransition allExplosions = new ParallelTransition();
-
-            for(String polyName : polyNames){
-                List<AtomSphere> polySpheres = this.view.getSpheresReferences().get(polyName);
-                Point3D polyCenter = MoleculeAnalyzer.getCenterOfSubMolecules(polySpheres);
-                for(AtomSphere sphere : polySpheres) {
-                    Timeline sphereExploding = createExplosionKeyFrame(sphere, polyCenter.normalize());
-                    allExplosions.getChildren().add(sphereExploding);
-                }
-                /* //this somehow did not seem to move the bonds.
-                List<Cylinder> polyCylinders = this.view.getPolymersCylinder().get(polyName);
-                for(Cylinder cylinder : polyCylinders){
-                    Timeline cylinderExploding = createExplosionKeyFrame(cylinder, polyCenter.normalize());
-                    allExplosions.getChildren().add(cylinderExploding);
-                }*/
-            }
-            allExplosions.setOnFinished(e -> {
-                if(bonsWereVisible){this.view.getController().getShowBondsCheckbox().setSelected(true);}
-                this.isExploding.set(false);
-            });
-            allExplosions.play();
+            //each polymer is moved as a whole, including its bonds and meshes
+            this.view.explodePolymers(() -> this.isExploding.set(false));
         });
     }
 
-    /**
-     * Create an Explosion Timeline which moves given shape by double the given translation
-     * @param shape shape to be moved
-     * @param translation translation vector, which is given as point. shape will be moved by twice its value.
-     * @return the resulting Timeline for that shapes translation.
-     */
-    private Timeline createExplosionKeyFrame(Shape3D shape, Point3D translation){
-        if(shape != null && translation != null) {
-            KeyFrame explodeMove = new KeyFrame(Duration.seconds(3),
-                    new KeyValue(shape.translateXProperty(), shape.translateXProperty().get() + 2*translation.getX()),
-                    new KeyValue(shape.translateYProperty(), shape.translateYProperty().get() + 2*translation.getY()),
-                    new KeyValue(shape.translateZProperty(), shape.translateZProperty().get() + 2*translation.getZ())
-            );
-            Timeline polymerTimeline = new Timeline(explodeMove);
-            polymerTimeline.setAutoReverse(true);
-            polymerTimeline.setCycleCount(2);
-            return polymerTimeline;
-        }
-        return null;
-    }
-
     /**
      * Create listener needed for the UndoRedoManager
      */
@@ -415,7 +413,7 @@ public class WindowPresenter {
         this.view.getController().getMoleculeSizeSlider().valueProperty().addListener((v, o, n) -> undoRedoManager.add(new PropertyCommand<>("atoms radius", (DoubleProperty)v, o, n)));
         this.view.getController().getBondsSizeSlider().valueProperty().addListener((v, o, n) -> undoRedoManager.add(new PropertyCommand<>("bonds size", (DoubleProperty)v, o, n)));
         this.view.getController().getColoringComboBox().valueProperty().addListener((v, o, n) ->
-                undoRedoManager.add(new SimpleCommand("coloring", ()-> this.view.getController().getStyleComboBox().setValue(o), ()-> this.view.getController().getStyleComboBox().setValue(n))));
+                undoRedoManager.add(new SimpleCommand("coloring", ()-> this.view.getController().getColoringComboBox().setValue(o), ()-> this.view.getController().getColoringComboBox().setValue(n))));
         this.view.getController().getStyleComboBox().valueProperty().addListener((v, o, n) ->
                 undoRedoManager.add(new SimpleCommand("drawing style", ()-> this.view.getController().getStyleComboBox().setValue(o), ()-> this.view.getController().getStyleComboBox().setValue(n))));
         this.view.getController().getShowBallsCheckbox().selectedProperty().addListener((v, o, n) -> undoRedoManager.add(new PropertyCommand<>("balls", (BooleanProperty)v, o, n)));
@@ -445,36 +443,16 @@ public class WindowPresenter {
         //add listener to listen for changes in search field
         this.view.getController().getSearchTextField().textProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
-                List<String> searchedIDs = new ArrayList<>();
-                int allIDsSize;
-                try {
-                    allIDsSize = pdbWebClient.allEntryIDsProperty().size();
-                    if (visibleEntryIdListProperty.size() < allIDsSize) {
-                        //we want to search in all IDs
-                        visibleEntryIdListProperty.set(pdbWebClient.allEntryIDsProperty().get());
-                        notAllIDsAreShown.set(false);
-                    }
-                } catch (IOException e) {
-                    this.view.displayErrorMessage("Error requesting PDB IDs", e.getMessage());
-                }
-
                 if (newValue.isBlank()) {
                     //all values shall be shown again.
-                    searchedIDs = new ArrayList<>(visibleEntryIdListProperty);
-
+                    visibleEntryIdListProperty.set(pdbWebClient.allEntryIDsProperty().get());
+                    notAllIDsAreShown.set(false);
                 } else {
-                    //ignore spaces and if upper or lower case
-                    String searchTerm = newValue.toUpperCase().trim();
-
-                    for (int i = 0; i < visibleEntryIdListProperty.getSize(); i++) {
-                        if (visibleEntryIdListProperty.get(i).contains(searchTerm)) {
-                            searchedIDs.add(visibleEntryIdListProperty.get(i));
-                        }
-                        //if current ID does not contain search term, check next ID
-                    }
+                    //the index finds the IDs within a millisecond, the list only creates the strings of the visible cells
+                    searchedEntryIDs.setFilter(newValue);
+                    visibleEntryIdListProperty.set(searchedEntryIDs);
+                    notAllIDsAreShown.set(true);
                 }
-                visibleEntryIdListProperty.setAll(searchedIDs);
-                notAllIDsAreShown.set(true);
             } else {
                 System.err.println("Search Text Fields new value was null, which is invalid and therefore is ignored. ");
             }
@@ -482,27 +460,68 @@ public class WindowPresenter {
 
         //add listener for selected list view: sars-cov2 or all:
         this.view.getController().getListAllButton().setOnAction(a -> {
-            try {
-                pdbWebClient.requestAllPDBIDs();
-                ListProperty<String> allIDs = new SimpleListProperty<>();
-                if(this.currentFileStringProperty.get() != null && !this.currentFileStringProperty.get().isBlank()){
-                    allIDs.add(this.currentFileStringProperty.get());               //ensure, if there was a selection, this will still be shown on top.
-                }
-                allIDs.addAll(pdbWebClient.allEntryIDsProperty().get());
-                this.visibleEntryIdListProperty.set(allIDs);
-                this.notAllIDsAreShown.set(false);
-            } catch (IOException e) {
-                this.view.displayErrorMessage("Error loading all PDB IDs", "An error occurred when requesting all PDB IDs from the server. List will not be updated, sorry.");
+            //the list of all IDs is updated in the background, changed IDs will appear in the list when the server answered
+            pdbWebClient.refreshEntryIDs();
+            this.visibleEntryIdListProperty.set(pdbWebClient.allEntryIDsProperty().get());
+            this.notAllIDsAreShown.set(false);
+            if(this.currentFileStringProperty.get() != null && !this.currentFileStringProperty.get().isBlank()){
+                this.view.getController().getIdListView().scrollTo(this.currentFileStringProperty.get());     //ensure, if there was a selection, this will still be visible.
+            }
+        });
+        //searched IDs are searched again in the new index when the IDs on the server changed
+        this.pdbWebClient.allEntryIDsProperty().addListener((ListChangeListener<String>) c -> {
+            if(pdbWebClient.getEntryIDIndex() != null){
+                this.searchedEntryIDs.setIndex(pdbWebClient.getEntryIDIndex(), null);
+            }
+        });
+        this.pdbWebClient.entryIDsErrorProperty().addListener((v, o, n) -> {
+            if(n != null && pdbWebClient.allEntryIDsProperty().isEmpty()){
+                this.view.displayErrorMessage("Error loading all PDB IDs", "An error occurred when requesting all PDB IDs from the server. List will not be updated, sorry.\n\n" + n);
             }
         });
         this.view.getController().getSarsCovButton().setOnAction(a -> {
-            ListProperty<String> sarsCovPlusSelected = new SimpleListProperty<>();
-            if(this.currentFileStringProperty.get() != null && !this.currentFileStringProperty.get().isBlank()){
-                sarsCovPlusSelected.add(this.currentFileStringProperty.get());               //ensure, if there was a selection, this will still be shown on top.
+            ListProperty<String> sarsCovPlusSelected = new SimpleListProperty<>(FXCollections.observableArrayList());
+            String selected = this.selectedFileNameProperty.get();
+            if(selected != null && !selected.isBlank() && !pdbWebClient.sarsCovEntryIDsProperty().contains(selected)){
+                sarsCovPlusSelected.add(selected);               //ensure, if there was a selection, this will still be shown on top.
             }
             sarsCovPlusSelected.addAll(pdbWebClient.sarsCovEntryIDsProperty().get());
             this.visibleEntryIdListProperty.set(sarsCovPlusSelected);
             this.notAllIDsAreShown.set(true);
+            //download and parse all SARS-CoV-2 entries in the background, so they are shown at once when they are selected
+            if(!this.preloadEntriesService.isRunning() && !this.preloadedMolecules.keySet().containsAll(pdbWebClient.sarsCovEntryIDsProperty())){
+                this.preloadEntriesService.restart();
+            }
+        });
+        //entries which are preloaded show their progress next to their ID
+        this.view.getController().getIdListView().setCellFactory(listView -> new ListCell<>() {
+            @Override
+            protected void updateItem(String id, boolean empty) {
+                super.updateItem(id, empty);
+                setText(empty ? null : id);
+                Double progress = empty || id == null ? null : preloadProgress.get(id);
+                if(progress != null && progress < 1){
+                    ProgressBar bar = new ProgressBar(progress);
+                    bar.setPrefWidth(60);
+                    setGraphic(bar);
+                    setContentDisplay(ContentDisplay.RIGHT);
+                }
+                else {
+                    setGraphic(null);
+                }
+            }
+        });
+        this.preloadProgress.addListener((MapChangeListener<String, Double>) c -> this.view.getController().getIdListView().refresh());
+        this.preloadEntriesService.setOnSucceeded(s -> {
+            this.preloadedMolecules.putAll(this.preloadEntriesService.getValue());
+            this.preloadProgress.clear();
+            this.view.setMoleculeInfo(this.preloadEntriesService.getMessage());
+            this.preloadEntriesService.reset();
+        });
+        this.preloadEntriesService.setOnFailed(s -> {
+            this.preloadProgress.clear();
+            this.view.setMoleculeInfo("SARS-CoV-2 entries could not be loaded: " + this.preloadEntriesService.getException().getMessage());
+            this.preloadEntriesService.reset();
         });
     }
 
@@ -518,9 +537,13 @@ public class WindowPresenter {
             this.readFileContentService.restart();
         });
 
-        this.readFileContentService.setOnScheduled(s -> this.currentFileStringProperty.setValue("Reading file..."));
+        this.readFileContentService.setOnScheduled(s -> {
+            this.currentDocumentProperty.set(null);
+            this.currentFileStringProperty.setValue("Reading file...");
+        });
         this.readFileContentService.setOnSucceeded(success -> {
-            this.currentFileStringProperty.setValue(readFileContentService.getValue());
+            this.currentDocumentProperty.set(readFileContentService.getValue());
+            this.currentFileStringProperty.setValue(this.selectedFileNameProperty.get());
             createMoleculeService.restart();
             this.view.setMoleculeInfo("Creating Molecules from file...");
             readFileContentService.reset();//otherwise service never finishes...
@@ -528,6 +551,8 @@ public class WindowPresenter {
 
         this.createMoleculeService.setOnSucceeded(s -> {
             model = createMoleculeService.getValue();
+            showModelsOfMolecules();
+            prepareMoleculeView();
             setupMoleculeVisualizationService.restart();
             view.getController().getMoleculeNameLabel().setText(model.getName());
             createMoleculeService.reset();//otherwise service never finishes...
@@ -537,6 +562,39 @@ public class WindowPresenter {
         this.setupMoleculeVisualizationService.setOnSucceeded(s->{
             finishSettingUp();
             setupMoleculeVisualizationService.reset();//otherwise service never finishes...
+            createMissingSpheres();     //the style might have been changed while the molecule was set up
+        });
+
+        this.view.getController().getModelChoiceBox().getSelectionModel().selectedIndexProperty().addListener((v, o, n) -> {
+            if(n.intValue() >= 0 && n.intValue() != model.getCurrentModel()){
+                this.view.setMoleculeInfo("Reading model " + this.view.getController().getModelChoiceBox().getValue() + "...");
+                this.selectModelService.restart();
+            }
+        });
+        this.selectModelService.setOnSucceeded(s -> {
+            prepareMoleculeView();
+            setupMoleculeVisualizationService.restart();
+            selectModelService.reset();
+        });
+        this.selectModelService.setOnFailed(s -> {
+            view.displayErrorMessage("Error reading model", selectModelService.getException().getMessage());
+            this.view.getController().getModelChoiceBox().getSelectionModel().select(model.getCurrentModel());
+            selectModelService.reset();
+        });
+
+        this.view.getController().getNextRecordButton().setOnAction(a -> {
+            PDBDocument document = this.currentDocumentProperty.get();
+            PDBRecordType type = this.view.getController().getRecordTypeChoiceBox().getValue();
+            if(document != null && type != null){
+                int next = document.findNext(type, this.view.getController().getFileOutputListView().getSelectionModel().getSelectedIndex());
+                if(next >= 0){
+                    this.view.getController().getFileOutputListView().getSelectionModel().clearAndSelect(next);
+                    this.view.getController().getFileOutputListView().scrollTo(next);
+                }
+                else {
+                    this.view.setMoleculeInfo("File contains no " + type + " records.");
+                }
+            }
         });
 
         this.readFileContentService.exceptionProperty().addListener((v, o, n) -> {
@@ -557,70 +615,84 @@ public class WindowPresenter {
     }
 
     /**
-     * Propagate the results of setupMoleculeVisualizationService to WindowPresenter and draw charts
+     * Show the numbers of the models of the current molecules in the model choice box and select the model which is shown.
      */
-    private void finishSettingUp() {
-        view.setMoleculeInfo("Setting up Molecules view...");
-        atom2sphere = setupMoleculeVisualizationService.getValue();
-        view.setMoleculeInfo(model.getPolymers().size() + " Polymers with " + model.getNumberOfAtoms() +" atoms in total are shown.");
-        setupCharts();
+    private void showModelsOfMolecules() {
+        List<Integer> modelNumbers = new ArrayList<>();
+        ModelSource models = model.getModels();
+        for(int m = 0; m < model.getNumberOfModels(); m++){
+            modelNumbers.add(models != null ? models.getModelNumber(m) : 1);
+        }
+        this.view.getController().getModelChoiceBox().getItems().setAll(modelNumbers);
+        this.view.getController().getModelChoiceBox().getSelectionModel().select(model.getCurrentModel());
     }
 
     /**
-     * Generates the text to report on the current selection and returns it.
-     * The resulting text will contain all currently selected atoms together with their monomer and polymer names as long as the resulting string has a length smaller than or equal to 100.
-     * Otherwise, the text will be shortened from the right.
-     * When several Atoms of the same monomer in the same Polymer are selected, those will be reported together.
-     * @return the resulting text of selected atoms.
+     * Remove the rectangles of the unselected atoms and add rectangles around the newly selected atoms. The rectangles of all atoms are added and removed at once.
+     * @param removed atoms which are no longer selected
+     * @param added atoms which were selected
      */
-    private String generateSelectionInfoText() {
-        Set<AtomI> selectedAtoms = this.selectionModel.getSelectedItems();
-        String starting = "Selected atoms: ";
-        StringBuilder selectionText = new StringBuilder();
-
-        if(selectedAtoms.size()>0) {
-            for (AtomI atom : selectedAtoms) {
-                List<Polymer> polymers = this.model.getPolymers();
-                for (Polymer p : polymers) {
-                    List<Monomer> monomers = p.getMonomers();
-                    for (Monomer m : monomers) {
-                        if (m.getAtoms().contains(atom)) {
-                            // found matching monomer
-                            String location = " in " + m.getType().name() + " (Polymer " + p.getUnitID() + ") ";
-                            if(selectionText.toString().contains(location)){
-                                //atom from same monomer is already selected --> combine report on those:
-                                String[] selectTextParts = selectionText.toString().split(location, 0); //should give exactly two Strings
-                                if(selectTextParts.length == 2) {
-                                    selectionText = new StringBuilder(selectTextParts[0] + ", " + atom.getName().get() + location + "; " + selectTextParts[1]); //insert newly selected atom Name
-                                    break;
-                                }
-                                else{
-                                    //only one other atom was selected by now --> location is at end, so size is only 1
-                                    selectionText = new StringBuilder(atom.getName().get() + ", " + selectTextParts[0]);
-                                    break;
-                                }
-                            }
-                            else{
-                                if(!selectionText.toString().isBlank()){
-                                    selectionText.append("; ");
-                                }
-                                selectionText.append(atom.getName().get()).append(location);
-                                break;
-                            }
+    private void updateSelectionRectangles(Collection<AtomI> removed, Collection<AtomI> added) {
+        if(this.view.getRectangleGroup() != null && this.view.getRectangleGroup().getChildren() != null) {
+            Platform.runLater(() -> {
+                Set<Rectangle> removedRectangles = new HashSet<>();
+                for (AtomI atom : removed) {
+                    for (AtomSphere sphere : item2shapesFunction.apply(atom)) {
+                        removedRectangles.add(selectionRectangles.removeRectangleOfShape(sphere));
+                    }
+                }
+                List<Rectangle> addedRectangles = new ArrayList<>();
+                for (AtomI atom : added) {
+                    for (AtomSphere sphere : item2shapesFunction.apply(atom)) {
+                        Rectangle rectangle = selectionRectangles.createBoundingBoxWithBinding(sphere);
+                        if(rectangle != null){
+                            addedRectangles.add(rectangle);
                         }
                     }
                 }
-            }
-            while(selectionText.length() > 100){
-                //remove last reporting, which ends with closing bracket after polymer unit ID
-                selectionText = new StringBuilder(selectionText.substring(0, selectionText.lastIndexOf("; ") + 1));
-            }
-            selectionText.insert(0, starting);
+                this.view.getRectangleGroup().getChildren().removeAll(removedRectangles);
+                this.view.getRectangleGroup().getChildren().addAll(addedRectangles);
+            });
         }
         else{
-            return "All atoms are unselected.";
+            System.err.println("Rectangles can not be added or removed of selection if rectangles group is null or its children.");
+        }
+    }
+
+    /**
+     * Reset the view before the visualization of the current molecules is set up. As the polymers are shown one by one while they are set up,
+     * the drawing style is chosen before: large molecules are shown in the batched style right away.
+     */
+    private void prepareMoleculeView() {
+        view.resetMoleculeView();
+        if(model.getNumberOfAtoms() > WindowConstants.getBatchedMeshAtomLimit()){
+            //too many nodes to rotate single spheres fluently
+            view.getController().getStyleComboBox().setValue("Batched Mesh");
+        }
+    }
+
+    /**
+     * Set up the visualization again if the balls and sticks style is chosen, but the molecule was set up without spheres and cylinders for the batched style.
+     */
+    private void createMissingSpheres() {
+        if(!spheresAreCreated && "Balls and Sticks".equals(view.getController().getStyleComboBox().getValue())){
+            view.setMoleculeInfo("Creating spheres and cylinders...");
+            setupMoleculeVisualizationService.restart();
         }
-        return selectionText.toString();
+    }
+
+    /**
+     * Propagate the results of setupMoleculeVisualizationService to WindowPresenter and draw charts
+     */
+    private void finishSettingUp() {
+        view.setMoleculeInfo("Setting up Molecules view...");
+        atom2sphere = setupMoleculeVisualizationService.getValue();
+        selectionSummary.setOwners(model.getAtomOwners());
+        selectionModel.getSelectedItems().forEach(selectionSummary::add);
+        selectionHighlight.setAtoms(selectionModel.getSelectedItems());     //atoms might have been moved to another model
+        view.drawAtoms(AtomColoring.Scheme.of(view.getController().getColoringComboBox().getValue()));     //e.g. spheres which were created later
+        view.setMoleculeInfo(model.getPolymers().size() + " Polymers with " + model.getNumberOfAtoms() +" atoms in total are shown.");
+        setupCharts();
     }
 
     /**
@@ -628,14 +700,19 @@ public class WindowPresenter {
      */
     private void setupCharts() {
         this.view.getController().getChartsTitle().setText(this.model.getName());
-
-        Set<String> monomerNames = this.model.getMonomerNames();
+        //the molecule might be set up again, e.g. when the spheres are created later
+        this.view.getController().getAminoAcidsPieChart().getData().clear();
+        this.view.getController().getNucleotidesPieChart().getData().clear();
+        this.view.getController().getAtomsPerChainStructBarChart().getData().clear();
+        this.view.getController().getAtomsBarChart().getData().clear();
+
+        //counted from the model, as there are no spheres in the batched style
+        Map<String, Integer> atomsPerMonomer = this.model.getAtomNumbersOfMonomers();
         boolean hasAminos = false, hasNucleotides = false;
-        for(String monoName : monomerNames){
+        for(String monoName : atomsPerMonomer.keySet()){
             if(this.view.getController() != null){
-                List<AtomSphere> monosSpheres = this.view.getSpheresReferences().get(monoName);
-                if(monosSpheres != null){
-                    int numberOfAtoms = monosSpheres.size();
+                Integer numberOfAtoms = atomsPerMonomer.get(monoName);
+                if(numberOfAtoms != null){
                     if(monoName.length() == 3) {
                         this.view.getController().getAminoAcidsPieChart().getData().add(new PieChart.Data(monoName, numberOfAtoms));
                         hasAminos = true;
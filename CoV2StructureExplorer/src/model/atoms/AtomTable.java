@@ -0,0 +1,339 @@
+package model.atoms;
+
+import javafx.geometry.Point3D;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class stores the atoms of a molecule column by column in primitive arrays instead of one object per atom.
+ * Each atom is identified by its index in this table. Coordinates are stored as x, y and z floats one after the other,
+ * elements and carbon positions as byte codes and atom names as codes into a table of distinct names, as there are only few different names.
+ * Each atom also stores the index of the residue (monomer) it belongs to.
+ * Atoms can be viewed as AtomI by getAtom, which creates a small TableAtom reading its values from this table.
+ */
+public class AtomTable {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_NAMES = 1 << 16;       //name codes are stored as unsigned short
+    private static final CarbonPosition[] POSITIONS = CarbonPosition.values();
+
+    private float[] coordinates;
+    private float[] tempFactors;
+    private byte[] elements;
+    private byte[] carbonPositions;
+    private short[] nameCodes;
+    private int[] residues;
+    private int size;
+    private int numberOfResidues;
+
+    private final List<String> names;
+    private final Map<String, Integer> codesOfNames;
+
+    public AtomTable(){
+        this.coordinates = new float[INITIAL_CAPACITY * 3];
+        this.tempFactors = new float[INITIAL_CAPACITY];
+        this.elements = new byte[INITIAL_CAPACITY];
+        this.carbonPositions = new byte[INITIAL_CAPACITY];
+        this.nameCodes = new short[INITIAL_CAPACITY];
+        this.residues = new int[INITIAL_CAPACITY];
+        this.names = new ArrayList<>();
+        this.codesOfNames = new HashMap<>();
+    }
+
+    /**
+     * Register a new residue, which atoms of this table can belong to.
+     * @return the index of the new residue
+     */
+    public int addResidue(){
+        return this.numberOfResidues++;
+    }
+
+    public int getNumberOfResidues(){
+        return this.numberOfResidues;
+    }
+
+    /**
+     * Add a new atom to this table.
+     * @param element element of the atom; GENERIC if null
+     * @param name name of the atom as given in the PDB file, e.g. CA; might be null
+     * @param position position of the atom in ribbon representation, only relevant for carbons; RESIDUE if null
+     * @param x x coordinate of the atom
+     * @param y y coordinate of the atom
+     * @param z z coordinate of the atom
+     * @param tempFactor temperature factor of the atom
+     * @param residue index of the residue the atom belongs to, -1 if not known yet.
+     * @return the index of the new atom within this table
+     */
+    public int addAtom(Element element, String name, CarbonPosition position, double x, double y, double z, double tempFactor, int residue){
+        if(this.size == this.elements.length){
+            grow();
+        }
+        int index = this.size++;
+        this.coordinates[index * 3] = (float) x;
+        this.coordinates[index * 3 + 1] = (float) y;
+        this.coordinates[index * 3 + 2] = (float) z;
+        this.tempFactors[index] = (float) tempFactor;
+        this.elements[index] = (byte) (element != null ? element : Element.GENERIC).ordinal();
+        this.carbonPositions[index] = (byte) (position != null ? position : CarbonPosition.RESIDUE).ordinal();
+        this.nameCodes[index] = (short) codeOf(name);
+        this.residues[index] = residue;
+        return index;
+    }
+
+    /**
+     * Add a copy of the given atom to this table. The element is derived from the class of the atom,
+     * atoms of unknown classes are added as GENERIC atoms.
+     * @param atom the atom to copy; not null
+     * @param residue index of the residue the atom belongs to, -1 if not known yet.
+     * @return the index of the new atom within this table
+     */
+    public int addAtom(AtomI atom, int residue){
+        if(atom == null){
+            throw new IllegalArgumentException("Atom table can not add an atom which is null.");
+        }
+        Element element;
+        CarbonPosition position = CarbonPosition.RESIDUE;
+        String name = atom.getLetter().get();
+        if(atom instanceof TableAtom tableAtom){
+            element = tableAtom.getElement();
+            position = tableAtom.getPosition();
+            name = tableAtom.getTable().getAtomName(tableAtom.getIndex());
+        }
+        else if(atom instanceof Carbon carbon){
+            element = Element.CARBON;
+            position = carbon.getPosition();
+        }
+        else if(atom instanceof Nitrogen){
+            element = Element.NITROGEN;
+        }
+        else if(atom instanceof Oxygen){
+            element = Element.OXYGEN;
+        }
+        else if(atom instanceof Hydrogen){
+            element = Element.HYDROGEN;
+        }
+        else if(atom instanceof Sulfur){
+            element = Element.SULFUR;
+        }
+        else if(atom instanceof Phosphor){
+            element = Element.PHOSPHOR;
+        }
+        else{
+            element = Element.GENERIC;
+            name = atom.getName().get();
+        }
+        Point3D location = atom.getLocation().getValue();
+        return addAtom(element, name, position, location.getX(), location.getY(), location.getZ(), atom.getTempFactor(), residue);
+    }
+
+    /**
+     * Get the number of atoms in this table
+     * @return the number of atoms
+     */
+    public int size(){
+        return this.size;
+    }
+
+    /**
+     * Get a view of the atom with the given index.
+     * @param index index of the atom within this table
+     * @return the atom, which reads its values from this table
+     */
+    public TableAtom getAtom(int index){
+        checkIndex(index);
+        return new TableAtom(this, index);
+    }
+
+    public double getX(int index){
+        checkIndex(index);
+        return this.coordinates[index * 3];
+    }
+
+    public double getY(int index){
+        checkIndex(index);
+        return this.coordinates[index * 3 + 1];
+    }
+
+    public double getZ(int index){
+        checkIndex(index);
+        return this.coordinates[index * 3 + 2];
+    }
+
+    public Point3D getLocation(int index){
+        checkIndex(index);
+        return new Point3D(this.coordinates[index * 3], this.coordinates[index * 3 + 1], this.coordinates[index * 3 + 2]);
+    }
+
+    public void setLocation(int index, double x, double y, double z){
+        checkIndex(index);
+        this.coordinates[index * 3] = (float) x;
+        this.coordinates[index * 3 + 1] = (float) y;
+        this.coordinates[index * 3 + 2] = (float) z;
+    }
+
+    /**
+     * Get a copy of the coordinates of all atoms, x, y and z of each atom one after the other.
+     * @return the coordinates, three values for each atom of this table
+     */
+    public float[] getCoordinates(){
+        return Arrays.copyOf(this.coordinates, this.size * 3);
+    }
+
+    /**
+     * Replace the coordinates of all atoms at once, e.g. by the coordinates of another model of the same molecules.
+     * @param coordinates x, y and z of each atom one after the other, in the order of this table; not null
+     * @throws IllegalArgumentException if there are not exactly three coordinates for each atom of this table
+     */
+    public void setCoordinates(float[] coordinates){
+        if(coordinates == null || coordinates.length != this.size * 3){
+            throw new IllegalArgumentException("Coordinates can only be set for all " + this.size + " atoms of the table at once.");
+        }
+        System.arraycopy(coordinates, 0, this.coordinates, 0, coordinates.length);
+    }
+
+    public Element getElement(int index){
+        checkIndex(index);
+        return Element.get(this.elements[index]);
+    }
+
+    public CarbonPosition getCarbonPosition(int index){
+        checkIndex(index);
+        return POSITIONS[this.carbonPositions[index]];
+    }
+
+    /**
+     * Get the name of the atom as given in the PDB file, e.g. CA
+     * @param index index of the atom
+     * @return the name of the atom, might be null
+     */
+    public String getAtomName(int index){
+        checkIndex(index);
+        return this.names.get(Short.toUnsignedInt(this.nameCodes[index]));
+    }
+
+    public double getTempFactor(int index){
+        checkIndex(index);
+        return this.tempFactors[index];
+    }
+
+    public int getResidue(int index){
+        checkIndex(index);
+        return this.residues[index];
+    }
+
+    public void setResidue(int index, int residue){
+        checkIndex(index);
+        this.residues[index] = residue;
+    }
+
+    /**
+     * Get the code of the given name, names which were not used yet get a new code.
+     */
+    private int codeOf(String name){
+        Integer code = this.codesOfNames.get(name);
+        if(code == null){
+            if(this.names.size() == MAX_NAMES){
+                throw new IllegalStateException("Atom table can not store more than " + MAX_NAMES + " different atom names.");
+            }
+            code = this.names.size();
+            this.names.add(name);
+            this.codesOfNames.put(name, code);
+        }
+        return code;
+    }
+
+    /**
+     * Write all atoms of this table to the given stream, e.g. for a snapshot of parsed molecules. Each column is written as one block,
+     * so readFrom can read it with one bulk read. Residue indices are not written, they are assigned again when the atoms are added to their monomers.
+     * @param out the stream to write to; not null
+     * @throws IOException if an error occurs writing
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(this.size);
+        out.writeInt(this.names.size());
+        for (String name : this.names) {
+            out.writeBoolean(name != null);
+            if(name != null){
+                out.writeUTF(name);
+            }
+        }
+        ByteBuffer columns = ByteBuffer.allocate(this.size * 20);       //coordinates and temperature factors as float, elements and positions as byte, names as short
+        columns.asFloatBuffer().put(this.coordinates, 0, this.size * 3).put(this.tempFactors, 0, this.size);
+        columns.position(this.size * 16);
+        columns.put(this.elements, 0, this.size).put(this.carbonPositions, 0, this.size);
+        columns.asShortBuffer().put(this.nameCodes, 0, this.size);
+        out.write(columns.array());
+    }
+
+    /**
+     * Read a table which was written by writeTo. All residue indices are -1.
+     * @param in the stream to read from; not null
+     * @return the read table
+     * @throws IOException if an error occurs reading or the stream does not contain a valid table
+     */
+    public static AtomTable readFrom(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        int numberOfNames = in.readInt();
+        if(size < 0 || size > Integer.MAX_VALUE / 20 || numberOfNames < 0 || numberOfNames > MAX_NAMES){
+            throw new IOException("Atom table of " + size + " atoms with " + numberOfNames + " names is invalid.");
+        }
+        AtomTable table = new AtomTable();
+        for (int i = 0; i < numberOfNames; i++) {
+            String name = in.readBoolean() ? in.readUTF() : null;
+            table.names.add(name);
+            table.codesOfNames.put(name, i);
+        }
+        byte[] bytes = new byte[size * 20];
+        in.readFully(bytes);
+        ByteBuffer columns = ByteBuffer.wrap(bytes);
+        table.resize(Math.max(size, 1));
+        columns.asFloatBuffer().get(table.coordinates, 0, size * 3).get(table.tempFactors, 0, size);
+        columns.position(size * 16);
+        columns.get(table.elements, 0, size).get(table.carbonPositions, 0, size);
+        columns.asShortBuffer().get(table.nameCodes, 0, size);
+        Arrays.fill(table.residues, -1);
+        table.size = size;
+        int numberOfElements = Element.values().length;
+        for (int i = 0; i < size; i++) {
+            if(table.elements[i] < 0 || table.elements[i] >= numberOfElements || table.carbonPositions[i] < 0 || table.carbonPositions[i] >= POSITIONS.length
+                    || Short.toUnsignedInt(table.nameCodes[i]) >= numberOfNames){
+                throw new IOException("Atom " + i + " of atom table is invalid.");
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Release the memory which was reserved for further atoms. Should be called once all atoms were added.
+     */
+    public void trimToSize(){
+        resize(Math.max(this.size, 1));
+    }
+
+    private void grow(){
+        resize(this.elements.length * 2);
+    }
+
+    private void resize(int capacity){
+        this.coordinates = Arrays.copyOf(this.coordinates, capacity * 3);
+        this.tempFactors = Arrays.copyOf(this.tempFactors, capacity);
+        this.elements = Arrays.copyOf(this.elements, capacity);
+        this.carbonPositions = Arrays.copyOf(this.carbonPositions, capacity);
+        this.nameCodes = Arrays.copyOf(this.nameCodes, capacity);
+        this.residues = Arrays.copyOf(this.residues, capacity);
+    }
+
+    private void checkIndex(int index){
+        if(index < 0 || index >= this.size){
+            throw new IndexOutOfBoundsException("Atom " + index + " is not part of this atom table with " + this.size + " atoms.");
+        }
+    }
+}
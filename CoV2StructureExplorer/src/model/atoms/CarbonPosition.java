@@ -30,4 +30,18 @@ public enum CarbonPosition {
         }
         return RESIDUE;
     }
+
+    /**
+     * Get the position of a carbon atom in ribbon representation by its name, e.g. CA is the guide carbon of an amino acid.
+     * @param atomName name of the carbon atom as given in the ATOM records of a PDB or mmCIF file
+     * @return the position of this carbon, RESIDUE if the name does not belong to a special position
+     */
+    public static CarbonPosition ofCarbon(String atomName) {
+        return switch (atomName) {
+            case "CA", "C5'" -> GUIDE;          //for amino acids and nucleotides
+            case "CB", "C1'" -> TWIST;          //for amino acids and nucleotides
+            case "CO" -> OPPOSITE;
+            default -> RESIDUE;
+        };
+    }
 }
@@ -0,0 +1,97 @@
+package model.atoms;
+
+import javafx.scene.paint.Color;
+
+/**
+ * The chemical elements which are distinguished when atoms are parsed. Each element defines the default values
+ * which every atom of this element shares, so they do not need to be stored per atom.
+ * Atoms of any other element are GENERIC, their name and letter are the name of the atom.
+ */
+public enum Element {
+
+    CARBON("Carbon", "C", 67, Color.GRAY),
+    NITROGEN("Nitrogen", "N", 55, Color.BLUE),
+    OXYGEN("Oxygen", "O", 66, Color.RED),
+    HYDROGEN("Hydrogen", "H", 31, Color.WHITE),
+    SULFUR("Sulfur", "S", 88, Color.YELLOW),
+    PHOSPHOR("Phosphorus", "P", 98, Color.ORANGE),
+    GENERIC(null, null, 45, Color.GREEN);
+
+    private static final Element[] VALUES = values();
+
+    private final String name;
+    private final String letter;
+    private final int radiusPM;
+    private final Color color;
+
+    Element(String name, String letter, int radiusPM, Color color) {
+        this.name = name;
+        this.letter = letter;
+        this.radiusPM = radiusPM;
+        this.color = color;
+    }
+
+    /**
+     * Get the name of this element, e.g. Carbon
+     * @return the name of this element, null for GENERIC
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the letter of this element, e.g. C
+     * @return the letter of this element, null for GENERIC
+     */
+    public String getLetter() {
+        return letter;
+    }
+
+    public int getRadiusPM() {
+        return radiusPM;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * Get the element of an atom by the first letter of its name in the ATOM section of a PDB file.
+     * @param firstLetter first letter of the atom name
+     * @return the element of this atom, GENERIC if the letter does not belong to one of the distinguished elements.
+     */
+    public static Element get(char firstLetter) {
+        return switch (firstLetter) {
+            case 'C' -> CARBON;
+            case 'N' -> NITROGEN;
+            case 'O' -> OXYGEN;
+            case 'H' -> HYDROGEN;
+            case 'S' -> SULFUR;
+            case 'P' -> PHOSPHOR;
+            default -> GENERIC;
+        };
+    }
+
+    /**
+     * Get the element of an atom by its element symbol, e.g. C, as given in the element columns of PDB files or the type symbols of mmCIF files.
+     * The symbol is needed for atoms of ligands, whose names do not start with their element, e.g. calcium CA is no carbon.
+     * @param symbol element symbol of the atom, might be empty if the file does not contain it
+     * @param atomName name of the atom, which gives the element by its first letter if the symbol is empty
+     * @return the element of this atom, GENERIC for elements with symbols of two letters, e.g. CL
+     */
+    public static Element get(String symbol, String atomName) {
+        if(symbol == null || symbol.isEmpty()){
+            return atomName == null || atomName.isEmpty() ? GENERIC : get(atomName.charAt(0));
+        }
+        return symbol.length() == 1 ? get(Character.toUpperCase(symbol.charAt(0))) : GENERIC;
+    }
+
+    /**
+     * Get the element with the given code, as it is stored in an AtomTable.
+     * @param code the ordinal of the element
+     * @return the element with this code
+     */
+    static Element get(byte code) {
+        return VALUES[code];
+    }
+}
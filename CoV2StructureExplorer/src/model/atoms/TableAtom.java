@@ -0,0 +1,103 @@
+package model.atoms;
+
+import javafx.beans.property.*;
+import javafx.geometry.Point3D;
+import javafx.scene.paint.Color;
+
+/**
+ * An atom which is stored in an AtomTable. This object only holds the table and the index of the atom,
+ * all values are read from the table, so it can be created whenever an atom is needed as AtomI and thrown away afterwards.
+ * Two table atoms are equal if they refer to the same atom of the same table.
+ * The properties returned by this atom are new properties holding the current values of the table,
+ * therefore the location of this atom can only be changed by setLocation.
+ */
+public final class TableAtom implements AtomI {
+
+    private final AtomTable table;
+    private final int index;
+
+    TableAtom(AtomTable table, int index) {
+        this.table = table;
+        this.index = index;
+    }
+
+    public AtomTable getTable() {
+        return table;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Element getElement() {
+        return this.table.getElement(this.index);
+    }
+
+    /**
+     * Get the position of this atom in ribbon representation, which is only relevant if this atom is a carbon.
+     * @return the position of this atom, RESIDUE for all atoms which are no carbons
+     */
+    public CarbonPosition getPosition() {
+        return this.table.getCarbonPosition(this.index);
+    }
+
+    @Override
+    public StringProperty getName() {
+        Element element = getElement();
+        return new SimpleStringProperty(element == Element.GENERIC ? this.table.getAtomName(this.index) : element.getName());
+    }
+
+    @Override
+    public StringProperty getLetter() {
+        Element element = getElement();
+        if(element == Element.GENERIC){
+            return new SimpleStringProperty(this.table.getAtomName(this.index));
+        }
+        if(element == Element.CARBON){
+            //carbons are named by their position, e.g. CA
+            String atomName = this.table.getAtomName(this.index);
+            return new SimpleStringProperty(atomName != null && !atomName.isBlank() ? atomName : element.getLetter());
+        }
+        return new SimpleStringProperty(element.getLetter());
+    }
+
+    @Override
+    public IntegerProperty getRadiusPM() {
+        return new SimpleIntegerProperty(getElement().getRadiusPM());
+    }
+
+    @Override
+    public Property<Point3D> getLocation() {
+        return new SimpleObjectProperty<>(this.table.getLocation(this.index));
+    }
+
+    @Override
+    public Color getColor() {
+        return getElement().getColor();
+    }
+
+    @Override
+    public double getTempFactor() {
+        return this.table.getTempFactor(this.index);
+    }
+
+    @Override
+    public void setLocation(Point3D newPoint) {
+        if(newPoint != null){
+            this.table.setLocation(this.index, newPoint.getX(), newPoint.getY(), newPoint.getZ());
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TableAtom)) return false;
+        TableAtom other = (TableAtom) o;
+        return this.table == other.table && this.index == other.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(this.table) + this.index;
+    }
+}
@@ -50,13 +50,52 @@ public enum AminoAcid_Nucleotide {
         return this.getName();
     }
 
+    /**
+     * Get the amino acid or nucleotide with the given name. The name is found by a switch over the hash codes of all names,
+     * which are cached by each String, instead of comparing it with every name.
+     * @param name name of the residue as given in the file, e.g. ALA; upper case names are found fastest
+     * @return the amino acid or nucleotide, OTHER if the name is none of them
+     */
     public static AminoAcid_Nucleotide get(String name) {
-        for(AminoAcid_Nucleotide monomerName : values()) {
-            if (monomerName.getName().equalsIgnoreCase(name)) {
-                return monomerName;
-            }
+        if(name == null){
+            return OTHER;
         }
-        return OTHER;
+        return switch (name) {
+            case "ALA" -> ALA;
+            case "ARG" -> ARG;
+            case "ASN" -> ASN;
+            case "ASP" -> ASP;
+            case "CYS" -> CYS;
+            case "GLN" -> GLN;
+            case "GLU" -> GLU;
+            case "GLY" -> GLY;
+            case "HIS" -> HIS;
+            case "ILE" -> ILE;
+            case "LEU" -> LEU;
+            case "LYS" -> LYS;
+            case "MET" -> MET;
+            case "PHE" -> PHE;
+            case "PRO" -> PRO;
+            case "SER" -> SER;
+            case "THR" -> THR;
+            case "TRP" -> TRP;
+            case "TYR" -> TYR;
+            case "VAL" -> VAL;
+            case "G" -> G;
+            case "A" -> A;
+            case "C" -> C;
+            case "T" -> T;
+            case "U" -> U;
+            case "DA" -> DA;
+            case "DC" -> DC;
+            case "DG" -> DG;
+            case "DT" -> DT;
+            case "DI" -> DI;
+            default -> {
+                String upperCase = name.toUpperCase();
+                yield upperCase.equals(name) ? OTHER : get(upperCase);
+            }
+        };
     }
 
 }
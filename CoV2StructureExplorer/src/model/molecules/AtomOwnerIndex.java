@@ -0,0 +1,78 @@
+package model.molecules;
+
+import model.atoms.AtomI;
+import model.atoms.AtomTable;
+import model.atoms.TableAtom;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The AtomOwnerIndex finds the monomer and polymer an atom belongs to without searching the atoms of all monomers.
+ * Each monomer is stored as residue of its atom table, so the residue of an atom within its table leads to its monomer,
+ * and each monomer leads to its polymer. The index is built once for all polymers of a molecules and does not change afterwards.
+ * If a monomer is part of more than one polymer, it is owned by the first of them.
+ */
+public final class AtomOwnerIndex {
+
+    private final Map<AtomTable, Monomer[]> monomersOfResidues;
+    private final Map<Monomer, Polymer> polymersOfMonomers;
+
+    /**
+     * Build the index of the monomers of the given polymers.
+     * @param polymers the polymers whose atoms are indexed; not null
+     */
+    public AtomOwnerIndex(List<Polymer> polymers) {
+        if(polymers == null){
+            throw new IllegalArgumentException("Atom owner index can not be built of polymers which are null.");
+        }
+        this.monomersOfResidues = new IdentityHashMap<>();
+        this.polymersOfMonomers = new IdentityHashMap<>();
+        for (Polymer polymer : polymers) {
+            for (Monomer monomer : polymer.getMonomers()) {
+                if(this.polymersOfMonomers.putIfAbsent(monomer, polymer) == null && monomer.getAtomTable() != null){
+                    AtomTable table = monomer.getAtomTable();
+                    Monomer[] monomers = this.monomersOfResidues.computeIfAbsent(table, t -> new Monomer[t.getNumberOfResidues()]);
+                    monomers[monomer.getResidueIndex()] = monomer;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the monomer the given atom belongs to.
+     * @param atom the atom; can be null
+     * @return the monomer of this atom, null if the atom does not belong to any indexed monomer
+     */
+    public Monomer getMonomer(AtomI atom) {
+        if(atom instanceof TableAtom tableAtom){
+            Monomer[] monomers = this.monomersOfResidues.get(tableAtom.getTable());
+            if(monomers != null){
+                int residue = tableAtom.getTable().getResidue(tableAtom.getIndex());
+                if(residue >= 0 && residue < monomers.length){
+                    return monomers[residue];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the polymer the given monomer belongs to.
+     * @param monomer the monomer; can be null
+     * @return the polymer of this monomer, null if the monomer is not indexed
+     */
+    public Polymer getPolymer(Monomer monomer) {
+        return monomer != null ? this.polymersOfMonomers.get(monomer) : null;
+    }
+
+    /**
+     * Get the polymer the given atom belongs to.
+     * @param atom the atom; can be null
+     * @return the polymer of this atom, null if the atom does not belong to any indexed monomer
+     */
+    public Polymer getPolymer(AtomI atom) {
+        return getPolymer(getMonomer(atom));
+    }
+}
@@ -0,0 +1,237 @@
+package model.molecules;
+
+import javafx.geometry.Point3D;
+import model.atoms.AtomI;
+import model.atoms.AtomTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class finds bonds between atoms by their distance. Two atoms are bonded, if their distance is at most the sum of
+ * their radii multiplied by Molecules.TOLERANCE.
+ * Instead of comparing all pairs of atoms, atoms are sorted into a uniform grid of cells, which are as big as the longest possible bond.
+ * Therefore only atoms in the same or in one of the 26 neighbouring cells need to be compared and the expected time is linear in the number of atoms.
+ * As all atoms of a Molecules are searched together, bonds between monomers like peptide bonds, disulfide bridges or
+ * phosphodiester bonds are found as well.
+ * <p>
+ * Bonds of monomers whose component has a BondTemplate are taken from the template instead, see detectResidueBonds.
+ */
+public class BondDetector {
+
+    /**
+     * Find all bonds between the given atoms.
+     * @param atoms the atoms between which bonds shall be found; not null
+     * @return the table of all found bonds, where each bond is only contained once with the smaller atom index first.
+     */
+    public static BondTable detectBonds(List<AtomI> atoms){
+        int numberOfAtoms = atoms.size();
+        if(numberOfAtoms < 2){
+            return new BondTable(atoms, new int[0], new int[0]);
+        }
+        double[] x = new double[numberOfAtoms];
+        double[] y = new double[numberOfAtoms];
+        double[] z = new double[numberOfAtoms];
+        double[] reach = new double[numberOfAtoms];              //radius of each atom multiplied with the tolerance
+        for(int i = 0; i < numberOfAtoms; i++){
+            AtomI atom = atoms.get(i);
+            Point3D location = atom.getLocation().getValue();
+            x[i] = location.getX();
+            y[i] = location.getY();
+            z[i] = location.getZ();
+            reach[i] = atom.getRadiusPM().get() * Molecules.TOLERANCE;
+        }
+        Bonds bonds = new Bonds(numberOfAtoms * 2);
+        addBondsByDistance(x, y, z, reach, null, null, null, bonds);
+        return bonds.toTable(atoms);
+    }
+
+    /**
+     * Find all bonds between the atoms of the given monomers. Bonds within a monomer whose component has a bond template are taken from the template:
+     * each atom is looked up once by its name, so these bonds are found in linear time and also if the residue is strained.
+     * Distances are only compared for the atoms which are not part of a template, e.g. hydrogens or atoms of unknown residues, and for the linking atoms
+     * of the templates, which find bonds to other residues like peptide bonds and disulfide bridges. Pairs of atoms of one template are never compared.
+     * @param monomers the monomers whose atoms shall be bonded; not null
+     * @return the table of all found bonds, where each bond is only contained once with the smaller atom index first.
+     *         The atom indices refer to the atoms of all monomers one after the other, in the order of the given list.
+     */
+    public static BondTable detectResidueBonds(List<Monomer> monomers){
+        int numberOfAtoms = 0;
+        for (Monomer monomer : monomers) {
+            numberOfAtoms += monomer.getAtoms().size();
+        }
+        List<AtomI> atoms = new ArrayList<>(numberOfAtoms);
+        double[] x = new double[numberOfAtoms];
+        double[] y = new double[numberOfAtoms];
+        double[] z = new double[numberOfAtoms];
+        double[] reach = new double[numberOfAtoms];
+        boolean[] searched = new boolean[numberOfAtoms];        //atoms whose bonds are searched by distance
+        int[] residues = new int[numberOfAtoms];                 //position of the monomer of each atom
+        int[] slots = new int[numberOfAtoms];                    //slot of each atom in the template of its monomer, -1 if it has none
+        Bonds bonds = new Bonds(numberOfAtoms * 2);
+
+        int atom = 0;
+        for (int m = 0; m < monomers.size(); m++) {
+            Monomer monomer = monomers.get(m);
+            List<AtomI> monomerAtoms = monomer.getAtoms();
+            if(monomerAtoms.isEmpty()){
+                continue;
+            }
+            atoms.addAll(monomerAtoms);
+            AtomTable table = monomer.getAtomTable();
+            int[] indices = monomer.getAtomIndices();
+            BondTemplate template = monomer.getComponent().getBondTemplate();
+            int[] atomOfSlot = null;
+            if(template != null){
+                atomOfSlot = new int[template.getNumberOfSlots()];
+                Arrays.fill(atomOfSlot, -1);
+            }
+            for (int index : indices) {
+                x[atom] = table.getX(index);
+                y[atom] = table.getY(index);
+                z[atom] = table.getZ(index);
+                reach[atom] = table.getElement(index).getRadiusPM() * Molecules.TOLERANCE;
+                residues[atom] = m;
+                int slot = template != null ? template.getSlot(table.getAtomName(index)) : -1;
+                if(slot >= 0 && atomOfSlot[slot] < 0){
+                    atomOfSlot[slot] = atom;
+                    slots[atom] = slot;
+                    searched[atom] = template.isLinkingSlot(slot);
+                }
+                else {
+                    //atoms which are not part of the template, or a second atom of the same name
+                    slots[atom] = -1;
+                    searched[atom] = true;
+                }
+                atom++;
+            }
+            if(template != null){
+                for (int b = 0; b < template.size(); b++) {
+                    int first = atomOfSlot[template.getFirstSlot(b)];
+                    int second = atomOfSlot[template.getSecondSlot(b)];
+                    if(first >= 0 && second >= 0){
+                        bonds.add(first, second);
+                    }
+                }
+            }
+        }
+        if(numberOfAtoms > 1){
+            addBondsByDistance(x, y, z, reach, searched, residues, slots, bonds);
+        }
+        return bonds.toTable(atoms);
+    }
+
+    /**
+     * Add the bonds between atoms which are close enough to each other.
+     * @param searched atoms whose bonds are searched, pairs of two other atoms are not compared; all atoms if null
+     * @param residues residue of each atom, null if there are no templates
+     * @param slots slot of each atom in the template of its residue, pairs of atoms of one residue which both have a slot are not compared; null if there are no templates
+     */
+    private static void addBondsByDistance(double[] x, double[] y, double[] z, double[] reach, boolean[] searched, int[] residues, int[] slots, Bonds bonds){
+        int numberOfAtoms = x.length;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+        double maxReach = 0;
+        for(int i = 0; i < numberOfAtoms; i++){
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            minZ = Math.min(minZ, z[i]);
+            maxReach = Math.max(maxReach, reach[i]);
+        }
+        double cellSize = Math.max(2 * maxReach, 0.1);
+
+        //sort atoms into cells, cells are hashed into buckets so that big but sparse molecules do not need huge arrays
+        int buckets = Integer.highestOneBit(numberOfAtoms) << 1;
+        int mask = buckets - 1;
+        int[] cellX = new int[numberOfAtoms];
+        int[] cellY = new int[numberOfAtoms];
+        int[] cellZ = new int[numberOfAtoms];
+        int[] bucketStart = new int[buckets + 1];
+        for(int i = 0; i < numberOfAtoms; i++){
+            cellX[i] = (int) ((x[i] - minX) / cellSize);
+            cellY[i] = (int) ((y[i] - minY) / cellSize);
+            cellZ[i] = (int) ((z[i] - minZ) / cellSize);
+            bucketStart[bucketOf(cellX[i], cellY[i], cellZ[i], mask) + 1]++;
+        }
+        for(int b = 0; b < buckets; b++){
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        int[] atomsOfBuckets = new int[numberOfAtoms];
+        int[] nextInBucket = Arrays.copyOf(bucketStart, buckets);
+        for(int i = 0; i < numberOfAtoms; i++){
+            atomsOfBuckets[nextInBucket[bucketOf(cellX[i], cellY[i], cellZ[i], mask)]++] = i;
+        }
+
+        //compare each searched atom with the atoms in the neighbouring cells
+        for(int i = 0; i < numberOfAtoms; i++){
+            if(searched != null && !searched[i]){
+                continue;
+            }
+            for(int dx = -1; dx <= 1; dx++){
+                for(int dy = -1; dy <= 1; dy++){
+                    for(int dz = -1; dz <= 1; dz++){
+                        int cx = cellX[i] + dx, cy = cellY[i] + dy, cz = cellZ[i] + dz;
+                        if(cx < 0 || cy < 0 || cz < 0){
+                            continue;   //there are no atoms below the minimum
+                        }
+                        int bucket = bucketOf(cx, cy, cz, mask);
+                        for(int k = bucketStart[bucket]; k < bucketStart[bucket + 1]; k++){
+                            int j = atomsOfBuckets[k];
+                            //each pair of searched atoms is only checked once and atoms of other cells in the same bucket are skipped
+                            if((j <= i && (searched == null || searched[j])) || j == i || cellX[j] != cx || cellY[j] != cy || cellZ[j] != cz){
+                                continue;
+                            }
+                            if(slots != null && residues[i] == residues[j] && slots[i] >= 0 && slots[j] >= 0){
+                                continue;   //bonds within a template are known
+                            }
+                            double threshold = reach[i] + reach[j];
+                            double distX = x[i] - x[j], distY = y[i] - y[j], distZ = z[i] - z[j];
+                            if(distX * distX + distY * distY + distZ * distZ <= threshold * threshold){
+                                bonds.add(i, j);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the bucket of the cell with the given grid coordinates.
+     */
+    private static int bucketOf(int cellX, int cellY, int cellZ, int mask){
+        return ((cellX * 73856093) ^ (cellY * 19349663) ^ (cellZ * 83492791)) & mask;
+    }
+
+    /**
+     * Growing arrays of the atoms of found bonds.
+     */
+    private static final class Bonds {
+
+        private int[] firstAtoms;
+        private int[] secondAtoms;
+        private int size;
+
+        private Bonds(int capacity){
+            this.firstAtoms = new int[Math.max(capacity, 1)];
+            this.secondAtoms = new int[this.firstAtoms.length];
+        }
+
+        /**
+         * Add the bond between the two atoms, with the smaller atom index first.
+         */
+        private void add(int atom, int otherAtom){
+            if(this.size == this.firstAtoms.length){
+                this.firstAtoms = Arrays.copyOf(this.firstAtoms, this.size * 2);
+                this.secondAtoms = Arrays.copyOf(this.secondAtoms, this.size * 2);
+            }
+            this.firstAtoms[this.size] = Math.min(atom, otherAtom);
+            this.secondAtoms[this.size] = Math.max(atom, otherAtom);
+            this.size++;
+        }
+
+        private BondTable toTable(List<AtomI> atoms){
+            return new BondTable(atoms, Arrays.copyOf(this.firstAtoms, this.size), Arrays.copyOf(this.secondAtoms, this.size));
+        }
+    }
+}
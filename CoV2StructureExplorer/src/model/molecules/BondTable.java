@@ -0,0 +1,59 @@
+package model.molecules;
+
+import model.atoms.AtomI;
+
+import java.util.List;
+
+/**
+ * This class holds bonds between atoms as primitive index arrays. Bond number b connects the atoms at position
+ * getFirstAtomIndex(b) and getSecondAtomIndex(b) of the list of atoms, this table was created for.
+ */
+public class BondTable {
+
+    private final List<AtomI> atoms;
+    private final int[] firstAtoms;
+    private final int[] secondAtoms;
+
+    /**
+     * Create a table of bonds between the given atoms.
+     * @param atoms all atoms which are referenced by the indices of the bonds; not null
+     * @param firstAtoms index of the first atom of each bond; not null
+     * @param secondAtoms index of the second atom of each bond; not null and of the same length as firstAtoms
+     */
+    public BondTable(List<AtomI> atoms, int[] firstAtoms, int[] secondAtoms){
+        if(atoms == null || firstAtoms == null || secondAtoms == null || firstAtoms.length != secondAtoms.length){
+            throw new IllegalArgumentException("Bond table needs atoms and two index arrays of the same length.");
+        }
+        this.atoms = atoms;
+        this.firstAtoms = firstAtoms;
+        this.secondAtoms = secondAtoms;
+    }
+
+    /**
+     * Get the number of bonds in this table
+     * @return the number of bonds
+     */
+    public int size(){
+        return this.firstAtoms.length;
+    }
+
+    public List<AtomI> getAtoms() {
+        return atoms;
+    }
+
+    public int getFirstAtomIndex(int bond){
+        return this.firstAtoms[bond];
+    }
+
+    public int getSecondAtomIndex(int bond){
+        return this.secondAtoms[bond];
+    }
+
+    public AtomI getFirstAtom(int bond){
+        return this.atoms.get(this.firstAtoms[bond]);
+    }
+
+    public AtomI getSecondAtom(int bond){
+        return this.atoms.get(this.secondAtoms[bond]);
+    }
+}
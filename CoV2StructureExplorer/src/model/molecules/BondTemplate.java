@@ -0,0 +1,135 @@
+package model.molecules;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A BondTemplate lists the bonds within one residue of a chemical component by the names of the bonded atoms, e.g. CA and CB.
+ * Every residue of this component contains atoms of these names, so its bonds can be found by the names of its atoms instead of their distances.
+ * Templates can not be changed after they were created, so they can be shared by all residues of a component.
+ * <p>
+ * Each distinct atom name of a template has a slot. The bonds are compiled into pairs of slots, so the atoms of a residue only need to be looked up
+ * once by their name and the bonds are then given by the slots. Names with ' are also found with *, as in older PDB files, e.g. C1* for C1'.
+ */
+public final class BondTemplate {
+
+    private final String[] firstAtomNames;
+    private final String[] secondAtomNames;
+    private final Map<String, Integer> slotsOfNames;
+    private final int[] firstSlots;
+    private final int[] secondSlots;
+    private final boolean[] linkingSlots;      //atoms which can bond to atoms of other residues
+
+    /**
+     * Create the template of the given bonds. Any atom of the template might bond to atoms of other residues, e.g. a ligand to an amino acid.
+     * @param firstAtomNames name of the first atom of each bond; not null
+     * @param secondAtomNames name of the second atom of each bond; not null and of the same length as firstAtomNames
+     */
+    public BondTemplate(String[] firstAtomNames, String[] secondAtomNames) {
+        this(firstAtomNames, secondAtomNames, null);
+    }
+
+    /**
+     * Create the template of the given bonds, where only the given atoms can bond to atoms of other residues,
+     * e.g. N and C of amino acids, which form the peptide bonds.
+     * @param firstAtomNames name of the first atom of each bond; not null
+     * @param secondAtomNames name of the second atom of each bond; not null and of the same length as firstAtomNames
+     * @param linkingAtomNames names of the atoms which can bond to other residues; all atoms if null
+     */
+    public BondTemplate(String[] firstAtomNames, String[] secondAtomNames, String[] linkingAtomNames) {
+        if(firstAtomNames == null || secondAtomNames == null || firstAtomNames.length != secondAtomNames.length){
+            throw new IllegalArgumentException("Bond template needs two atom names for each bond.");
+        }
+        this.firstAtomNames = firstAtomNames.clone();
+        this.secondAtomNames = secondAtomNames.clone();
+        this.slotsOfNames = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        this.firstSlots = new int[firstAtomNames.length];
+        this.secondSlots = new int[firstAtomNames.length];
+        for (int b = 0; b < firstAtomNames.length; b++) {
+            this.firstSlots[b] = slotOf(firstAtomNames[b], names);
+            this.secondSlots[b] = slotOf(secondAtomNames[b], names);
+        }
+        this.linkingSlots = new boolean[names.size()];
+        for (int slot = 0; slot < names.size(); slot++) {
+            this.linkingSlots[slot] = linkingAtomNames == null;
+        }
+        if(linkingAtomNames != null){
+            for (String name : linkingAtomNames) {
+                Integer slot = this.slotsOfNames.get(name);
+                if(slot != null){
+                    this.linkingSlots[slot] = true;
+                }
+            }
+        }
+    }
+
+    private int slotOf(String name, List<String> names){
+        if(name == null){
+            throw new IllegalArgumentException("Bond template can not contain atoms without name.");
+        }
+        Integer slot = this.slotsOfNames.get(name);
+        if(slot == null){
+            slot = names.size();
+            names.add(name);
+            this.slotsOfNames.put(name, slot);
+            if(name.indexOf('\'') >= 0){
+                this.slotsOfNames.putIfAbsent(name.replace('\'', '*'), slot);
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Get the number of bonds of this template
+     * @return the number of bonds
+     */
+    public int size() {
+        return this.firstAtomNames.length;
+    }
+
+    public String getFirstAtomName(int bond) {
+        return this.firstAtomNames[bond];
+    }
+
+    public String getSecondAtomName(int bond) {
+        return this.secondAtomNames[bond];
+    }
+
+    /**
+     * Get the number of distinct atoms of this template
+     * @return the number of slots
+     */
+    public int getNumberOfSlots() {
+        return this.linkingSlots.length;
+    }
+
+    /**
+     * Get the slot of the atom with the given name.
+     * @param atomName name of the atom as given in the file, e.g. CA
+     * @return the slot of this atom, -1 if the template does not contain an atom of this name, e.g. for hydrogens
+     */
+    public int getSlot(String atomName) {
+        Integer slot = atomName != null ? this.slotsOfNames.get(atomName) : null;
+        return slot != null ? slot : -1;
+    }
+
+    public int getFirstSlot(int bond) {
+        return this.firstSlots[bond];
+    }
+
+    public int getSecondSlot(int bond) {
+        return this.secondSlots[bond];
+    }
+
+    /**
+     * Check if the atom of the given slot can bond to atoms of other residues, e.g. the C of a peptide bond.
+     * @param slot slot of the atom
+     * @return true if bonds of this atom to other residues need to be searched
+     */
+    public boolean isLinkingSlot(int slot) {
+        return this.linkingSlots[slot];
+    }
+}
@@ -0,0 +1,119 @@
+package model.molecules;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A ChemicalComponent is the type of a residue as it is named in PDB and mmCIF files, e.g. the amino acid ALA, the nucleotide DA or the ligand NAG.
+ * Components are interned: there is only one instance for each name, so the residues of a file are compared by their component instead of their names.
+ * Standard amino acids and nucleotides are found by the switch of AminoAcid_Nucleotide.get. All other components are kept in a registry,
+ * which is shared by all parsers, e.g. of all entries which are loaded at once. The registry also keeps the bond template of each component,
+ * as soon as it is known from one file, e.g. from the CONECT records of a ligand.
+ */
+public final class ChemicalComponent {
+
+    private static final Set<String> WATER_NAMES = Set.of("HOH", "DOD", "WAT", "H2O");
+    private static final ChemicalComponent[] STANDARD_COMPONENTS;                  //by ordinal of their type
+    private static final Map<String, ChemicalComponent> OTHER_COMPONENTS = new ConcurrentHashMap<>();
+
+    static {
+        AminoAcid_Nucleotide[] types = AminoAcid_Nucleotide.values();
+        STANDARD_COMPONENTS = new ChemicalComponent[types.length];
+        for (AminoAcid_Nucleotide type : types) {
+            STANDARD_COMPONENTS[type.ordinal()] = new ChemicalComponent(type.getName(), type);
+        }
+    }
+
+    private final String id;
+    private final AminoAcid_Nucleotide type;
+    private volatile BondTemplate bondTemplate;
+
+    private ChemicalComponent(String id, AminoAcid_Nucleotide type) {
+        this.id = id;
+        this.type = type;
+        this.bondTemplate = ResidueTopology.get(type);
+    }
+
+    /**
+     * Get the component with the given name.
+     * @param name name of the residue as given in the file, e.g. ALA or NAG
+     * @return the component of this name, the component of OTHER if the name is null or blank
+     */
+    public static ChemicalComponent of(String name) {
+        AminoAcid_Nucleotide type = AminoAcid_Nucleotide.get(name);
+        if(type != AminoAcid_Nucleotide.OTHER || name == null || name.isBlank() || name.equals(type.getName())){
+            return STANDARD_COMPONENTS[type.ordinal()];
+        }
+        ChemicalComponent component = OTHER_COMPONENTS.get(name);
+        if(component == null){
+            component = OTHER_COMPONENTS.computeIfAbsent(name.trim().toUpperCase(), id -> new ChemicalComponent(id, AminoAcid_Nucleotide.OTHER));
+            OTHER_COMPONENTS.putIfAbsent(name, component);
+        }
+        return component;
+    }
+
+    /**
+     * Get the component of the given amino acid or nucleotide.
+     * @param type the amino acid or nucleotide; not null
+     * @return the component of this type
+     */
+    public static ChemicalComponent of(AminoAcid_Nucleotide type) {
+        return STANDARD_COMPONENTS[type.ordinal()];
+    }
+
+    /**
+     * Get the name of this component, e.g. NAG
+     * @return the name as given in the files
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Get the amino acid or nucleotide of this component
+     * @return the type of this component, OTHER for all non-standard components like ligands
+     */
+    public AminoAcid_Nucleotide getType() {
+        return type;
+    }
+
+    public boolean isStandard() {
+        return this.type != AminoAcid_Nucleotide.OTHER;
+    }
+
+    public boolean isWater() {
+        return WATER_NAMES.contains(this.id);
+    }
+
+    /**
+     * Get the bonds between the atoms of each residue of this component. Amino acids and nucleotides have the templates of ResidueTopology,
+     * templates of other components are known once they were set by setBondTemplateIfAbsent.
+     * @return the bond template, null if it is not known yet
+     */
+    public BondTemplate getBondTemplate() {
+        return bondTemplate;
+    }
+
+    /**
+     * Keep the given bond template for this component, unless a template is already known. Templates of one component
+     * from different files describe the same bonds, so the first one is kept for all residues of this component.
+     * @param template the bonds of one residue of this component; not null
+     * @return true if the template was kept, false if there was a template before
+     */
+    public synchronized boolean setBondTemplateIfAbsent(BondTemplate template) {
+        if(template == null){
+            throw new IllegalArgumentException("Bond template of component " + this.id + " can not be null.");
+        }
+        if(this.bondTemplate != null){
+            return false;
+        }
+        this.bondTemplate = template;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return this.id;
+    }
+}
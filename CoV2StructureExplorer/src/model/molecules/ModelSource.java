@@ -0,0 +1,42 @@
+package model.molecules;
+
+import model.atoms.AtomTable;
+
+import java.io.IOException;
+
+/**
+ * A ModelSource provides the coordinates of the models of an ensemble, e.g. the models of an NMR structure, which all share the
+ * topology of the first model: the same atoms in the same residues and chains. Only the coordinates of the first model are parsed
+ * together with the topology, the coordinates of the other models are read when they are needed.
+ */
+public interface ModelSource {
+
+    /**
+     * Get the number of models, including the first model.
+     * @return number of models
+     */
+    int size();
+
+    /**
+     * Get the number of the model as given in the file, e.g. the serial number of a MODEL record.
+     * @param model position of the model, starting at 0 for the first model
+     * @return the number of the model
+     */
+    int getModelNumber(int model);
+
+    /**
+     * Get the position of the model within its file, which allows to read the model without searching for it again.
+     * @param model position of the model, starting at 0 for the first model
+     * @return position of the model within its file
+     */
+    long getPosition(int model);
+
+    /**
+     * Read the coordinates of all atoms of the given model.
+     * @param model position of the model, starting at 0 for the first model
+     * @param table atom table of the first model, the coordinates are returned in the order of its atoms; not null
+     * @return x, y and z of each atom one after the other, as in the file
+     * @throws IOException if the model can not be read or its atoms differ from the atoms of the table
+     */
+    float[] readCoordinates(int model, AtomTable table) throws IOException;
+}
@@ -0,0 +1,108 @@
+package model.molecules;
+
+import javafx.geometry.Point3D;
+
+/**
+ * This class holds the bounding box and the center of a set of atoms, e.g. of all atoms of a Molecules.
+ * Bounds are collected by adding the coordinates of atoms one after the other and by merging bounds of different parts of a molecule,
+ * so that all values are computed in one pass over the atoms.
+ */
+public class MoleculeBounds {
+
+    private double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+    private double sumX, sumY, sumZ;
+    private int numberOfAtoms;
+
+    /**
+     * Create empty bounds, which do not contain any atom yet.
+     */
+    MoleculeBounds(){
+    }
+
+    /**
+     * Add the coordinates of one atom to these bounds.
+     */
+    void add(double x, double y, double z){
+        this.minX = Math.min(this.minX, x);
+        this.minY = Math.min(this.minY, y);
+        this.minZ = Math.min(this.minZ, z);
+        this.maxX = Math.max(this.maxX, x);
+        this.maxY = Math.max(this.maxY, y);
+        this.maxZ = Math.max(this.maxZ, z);
+        this.sumX += x;
+        this.sumY += y;
+        this.sumZ += z;
+        this.numberOfAtoms++;
+    }
+
+    /**
+     * Add all atoms of the other bounds to these bounds.
+     * @param other the bounds to merge into these bounds; not null
+     * @return these bounds
+     */
+    MoleculeBounds merge(MoleculeBounds other){
+        this.minX = Math.min(this.minX, other.minX);
+        this.minY = Math.min(this.minY, other.minY);
+        this.minZ = Math.min(this.minZ, other.minZ);
+        this.maxX = Math.max(this.maxX, other.maxX);
+        this.maxY = Math.max(this.maxY, other.maxY);
+        this.maxZ = Math.max(this.maxZ, other.maxZ);
+        this.sumX += other.sumX;
+        this.sumY += other.sumY;
+        this.sumZ += other.sumZ;
+        this.numberOfAtoms += other.numberOfAtoms;
+        return this;
+    }
+
+    /**
+     * Get the bounds of the same atoms after they were all moved by the given distances.
+     * @return new bounds which are moved by the given distances
+     */
+    MoleculeBounds translate(double dx, double dy, double dz){
+        MoleculeBounds moved = new MoleculeBounds();
+        moved.minX = this.minX + dx;
+        moved.minY = this.minY + dy;
+        moved.minZ = this.minZ + dz;
+        moved.maxX = this.maxX + dx;
+        moved.maxY = this.maxY + dy;
+        moved.maxZ = this.maxZ + dz;
+        moved.sumX = this.sumX + dx * this.numberOfAtoms;
+        moved.sumY = this.sumY + dy * this.numberOfAtoms;
+        moved.sumZ = this.sumZ + dz * this.numberOfAtoms;
+        moved.numberOfAtoms = this.numberOfAtoms;
+        return moved;
+    }
+
+    public boolean isEmpty(){
+        return this.numberOfAtoms == 0;
+    }
+
+    public int getNumberOfAtoms() {
+        return numberOfAtoms;
+    }
+
+    /**
+     * Get the minimum values of all atoms in each direction
+     * @return the minimum values, the origin if there are no atoms.
+     */
+    public Point3D getMin(){
+        return isEmpty() ? Point3D.ZERO : new Point3D(this.minX, this.minY, this.minZ);
+    }
+
+    /**
+     * Get the maximum values of all atoms in each direction
+     * @return the maximum values, the origin if there are no atoms.
+     */
+    public Point3D getMax(){
+        return isEmpty() ? Point3D.ZERO : new Point3D(this.maxX, this.maxY, this.maxZ);
+    }
+
+    /**
+     * Get the mean location of all atoms
+     * @return the center of all atoms, the origin if there are no atoms.
+     */
+    public Point3D getCenter(){
+        return isEmpty() ? Point3D.ZERO : new Point3D(this.sumX / this.numberOfAtoms, this.sumY / this.numberOfAtoms, this.sumZ / this.numberOfAtoms);
+    }
+}
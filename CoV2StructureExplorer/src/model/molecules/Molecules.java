@@ -7,8 +7,12 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.geometry.Point3D;
 import javafx.util.Pair;
 import model.atoms.AtomI;
+import model.atoms.AtomTable;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
 public class Molecules {
     public static final double TOLERANCE = 0.015;
@@ -16,10 +20,18 @@ public class Molecules {
     private final String name;
     private List<Polymer> polymers;
     private boolean isCentralized;
+    private Point3D translation;                //distance the atoms were moved by centerAtOrigin
     private IntegerProperty numberOfAtoms;
     private BooleanProperty hasHelix;
     private BooleanProperty hasSheets;
     private IntegerProperty numberOfPolymers;
+    private BondTable bonds;
+    private MoleculeBounds bounds;
+    private AtomOwnerIndex owners;
+    private ModelSource models;                 //null if there is only one model
+    private AtomTable modelTable;               //atom table whose coordinates are replaced when another model is shown
+    private float[][] modelCoordinates;         //coordinates of each model which was shown already, null for the others
+    private int currentModel;
 
     /**
      * Constructor of the class MoleculesList to create a new instance of this class.
@@ -37,6 +49,7 @@ public class Molecules {
         this.numberOfAtoms = new SimpleIntegerProperty(0);
         this.polymers = new ArrayList<>();
         this.isCentralized = false;
+        this.translation = Point3D.ZERO;
         this.hasHelix = new SimpleBooleanProperty(false);
         this.hasSheets = new SimpleBooleanProperty(false);
         this.numberOfPolymers = new SimpleIntegerProperty(0);
@@ -58,6 +71,15 @@ public class Molecules {
     public void setPolymers(List<Polymer> polymers){
         if(polymers != null){
             this.polymers = polymers;
+            this.bonds = null;
+            this.bounds = null;
+            this.owners = null;
+            this.isCentralized = false;
+            this.translation = Point3D.ZERO;
+            this.models = null;
+            this.modelTable = null;
+            this.modelCoordinates = null;
+            this.currentModel = 0;
             int size = 0;
             for(int i = 0; i< polymers.size(); i++){
                 size += this.polymers.get(i).getMonomers().stream().mapToInt(mono -> mono.getAtoms().size()).sum();
@@ -80,6 +102,184 @@ public class Molecules {
         }
         return allAtoms;
     }
+
+    /**
+     * Get all bonds between the atoms of this molecules. Bonds are only detected once, for all atoms together, so that bonds between
+     * monomers and polymers are found as well. Each bond is then also assigned to the monomer of its first atom.
+     * Bonds within amino acids, nucleotides and known ligands are taken from their bond templates, all other bonds are detected by the distance of atoms,
+     * so this should be called after the molecules were moved, e.g. by centerAtOrigin.
+     * @return the table of all bonds, where the atom indices refer to the list of atoms in the same order as given by getAtoms.
+     */
+    public BondTable getBonds(){
+        if(this.bonds == null){
+            List<Monomer> allMonomers = new ArrayList<>();
+            for (Polymer polymer : this.polymers) {
+                allMonomers.addAll(polymer.getMonomers());
+            }
+            assignBonds(BondDetector.detectResidueBonds(allMonomers));
+        }
+        return this.bonds;
+    }
+
+    /**
+     * Get the index of the monomer and polymer of each atom of this molecules. The index is built once for the current polymers,
+     * so it should be requested while the molecules are loaded, before atoms are looked up, e.g. for the selection.
+     * @return the index of the owners of all atoms
+     */
+    public AtomOwnerIndex getAtomOwners(){
+        if(this.owners == null){
+            this.owners = new AtomOwnerIndex(this.polymers);
+        }
+        return this.owners;
+    }
+
+    /**
+     * Set the bonds of this molecules, which were detected before, e.g. when restoring a snapshot, instead of detecting them again.
+     * @param firstAtoms index of the first atom of each bond within the list of atoms given by getAtoms
+     * @param secondAtoms index of the second atom of each bond
+     */
+    void setBonds(int[] firstAtoms, int[] secondAtoms){
+        assignBonds(new BondTable(getAtoms(), firstAtoms, secondAtoms));
+    }
+
+    /**
+     * Keep the given bonds and assign each bond to the monomer of its first atom.
+     */
+    private void assignBonds(BondTable bondTable){
+        this.bonds = bondTable;
+        List<Monomer> allMonomers = new ArrayList<>();
+        List<Integer> monomerEnds = new ArrayList<>();  //position after the last atom of each monomer
+        int numberOfAtoms = 0;
+        for (Polymer polymer : this.polymers) {
+            for (Monomer monomer : polymer.getMonomers()) {
+                numberOfAtoms += monomer.getAtoms().size();
+                allMonomers.add(monomer);
+                monomerEnds.add(numberOfAtoms);
+            }
+        }
+        int[] monomerOfAtom = new int[numberOfAtoms];
+        int atomPos = 0;
+        for(int m = 0; m < allMonomers.size(); m++){
+            while(atomPos < monomerEnds.get(m)){
+                monomerOfAtom[atomPos++] = m;
+            }
+        }
+        int[] bondStart = new int[allMonomers.size() + 1];
+        for(int b = 0; b < this.bonds.size(); b++){
+            bondStart[monomerOfAtom[this.bonds.getFirstAtomIndex(b)] + 1]++;
+        }
+        for(int m = 0; m < allMonomers.size(); m++){
+            bondStart[m + 1] += bondStart[m];
+        }
+        int[] bondsOfMonomers = new int[this.bonds.size()];
+        int[] nextBond = Arrays.copyOf(bondStart, allMonomers.size());
+        for(int b = 0; b < this.bonds.size(); b++){
+            bondsOfMonomers[nextBond[monomerOfAtom[this.bonds.getFirstAtomIndex(b)]]++] = b;
+        }
+        for(int m = 0; m < allMonomers.size(); m++){
+            allMonomers.get(m).setBonds(this.bonds, Arrays.copyOfRange(bondsOfMonomers, bondStart[m], bondStart[m + 1]));
+        }
+    }
+
+    /**
+     * Check if this molecule was centralized by centerAtOrigin
+     * @return true if the coordinates of this molecule are around the origin
+     */
+    public boolean isCentralized() {
+        return isCentralized;
+    }
+
+    /**
+     * Mark the coordinates of this molecules as centralized, e.g. when restoring a snapshot of centralized molecules.
+     * @param centralized true if the atoms were moved to the origin
+     * @param translation distance by which the atoms were moved; not null
+     */
+    void setCentralized(boolean centralized, Point3D translation) {
+        this.isCentralized = centralized;
+        this.translation = translation;
+    }
+
+    /**
+     * Get the distance by which the atoms were moved when this molecules was centralized.
+     * @return the distance, zero if the molecules was not moved
+     */
+    public Point3D getTranslation() {
+        return translation;
+    }
+
+    //_______________________________________________________________________________________MODELS
+
+    /**
+     * Set the models of this molecules, e.g. of an NMR ensemble, which all consist of the atoms of the current polymers.
+     * The current coordinates are the coordinates of the first model.
+     * @param models source of the coordinates of all models; not null
+     * @param table atom table of the atoms of all polymers, whose coordinates are replaced when another model is shown; not null
+     */
+    public void setModels(ModelSource models, AtomTable table){
+        if(models == null || table == null){
+            throw new IllegalArgumentException("Models can not be set from a source or atom table which is null.");
+        }
+        this.models = models;
+        this.modelTable = table;
+        this.modelCoordinates = new float[models.size()][];
+        this.currentModel = 0;
+    }
+
+    /**
+     * Get the source of the models of this molecules.
+     * @return the models, null if this molecules has only one model
+     */
+    public ModelSource getModels() {
+        return models;
+    }
+
+    public int getNumberOfModels() {
+        return this.models != null ? this.models.size() : 1;
+    }
+
+    /**
+     * Get the position of the model which is currently shown
+     * @return position of the current model, 0 for the first model
+     */
+    public int getCurrentModel() {
+        return currentModel;
+    }
+
+    /**
+     * Show the model at the given position: the coordinates of all atoms are replaced by the coordinates of this model.
+     * The coordinates of a model are read when it is shown for the first time and are kept afterwards. They are moved like the first model
+     * was moved by centerAtOrigin, so all models keep their position relative to each other. Bonds of the first model are kept, as all models have the same atoms.
+     * @param model position of the model, starting at 0 for the first model
+     * @throws IOException if the coordinates of the model can not be read
+     * @throws IllegalArgumentException if there is no model at this position
+     */
+    public void selectModel(int model) throws IOException {
+        if(model < 0 || model >= getNumberOfModels()){
+            throw new IllegalArgumentException("There is no model at position " + model + ", molecules " + this.name + " contains " + getNumberOfModels() + " models.");
+        }
+        if(model == this.currentModel){
+            return;
+        }
+        if(this.modelCoordinates[this.currentModel] == null){
+            this.modelCoordinates[this.currentModel] = this.modelTable.getCoordinates();
+        }
+        float[] coordinates = this.modelCoordinates[model];
+        if(coordinates == null){
+            coordinates = this.models.readCoordinates(model, this.modelTable);
+            float dx = (float) this.translation.getX();
+            float dy = (float) this.translation.getY();
+            float dz = (float) this.translation.getZ();
+            for (int i = 0; i < coordinates.length; i += 3) {
+                coordinates[i] += dx;
+                coordinates[i + 1] += dy;
+                coordinates[i + 2] += dz;
+            }
+            this.modelCoordinates[model] = coordinates;
+        }
+        this.modelTable.setCoordinates(coordinates);
+        this.bounds = null;
+        this.currentModel = model;
+    }
     //_______________________________________________________________________________________PROPERTY GETTER
 
     public int getNumberOfAtoms() {
@@ -112,73 +312,121 @@ public class Molecules {
     }
 
     /**
-     * Centralize this molecule so that its coordinates are around the origin of the coordinate system and
-     * simultaneously scale the position by 100 so that atoms are not too close to each other.
+     * Get the bounding box and center of all atoms of this molecules. Bounds are computed once in one parallel pass over all polymers
+     * and are kept afterwards, as atoms are only moved by centerAtOrigin, which updates the bounds without another pass,
+     * and by selectModel, after which they are computed again.
+     * @return the bounds of all atoms of this molecules
+     */
+    public MoleculeBounds getBounds(){
+        if(this.bounds == null){
+            this.bounds = new BoundsTask(this.polymers, 0, this.polymers.size()).invoke();
+        }
+        return this.bounds;
+    }
+
+    /**
+     * Centralize this molecule so that its coordinates are around the origin of the coordinate system.
+     * The atoms of all polymers are moved in parallel directly within their atom table.
      */
     public void centerAtOrigin(){
         if(!isCentralized) {
-            int numberOfAtoms = this.numberOfAtoms.getValue(); //saves requests if it is already hold locally
-
-            Point3D sumPoint = new Point3D(0,0,0);
-            for (Polymer polymer : polymers) {
-                for (Point3D location : polymer.getLocations()) {
-                    sumPoint = sumPoint.add(location);
-                }
-            }
-            if(!(sumPoint.getX() == 0 && sumPoint.getY() == 0 && sumPoint.getZ() == 0)) { //otherwise no units are stored
-                //calculate mean
-                Point3D centerOfMolecule= new Point3D(sumPoint.getX()/numberOfAtoms, sumPoint.getY()/numberOfAtoms, sumPoint.getZ()/numberOfAtoms);
-
-                for (Polymer polymer : polymers) {
-                    for (Monomer monomer : polymer.getMonomers()) {
-                        for (AtomI atom : monomer.getAtoms()) {
-                            Point3D newCenter = atom.getLocation().getValue();
-                            atom.setLocation(newCenter.subtract(centerOfMolecule));
-                        }
-                    }
-                }
+            MoleculeBounds currentBounds = getBounds();
+            if(!currentBounds.isEmpty()) { //otherwise no units are stored
+                Point3D centerOfMolecule = currentBounds.getCenter();
+                this.translation = centerOfMolecule.multiply(-1);
+                new TranslationTask(this.polymers, 0, this.polymers.size(), this.translation).invoke();
+                this.bounds = currentBounds.translate(-centerOfMolecule.getX(), -centerOfMolecule.getY(), -centerOfMolecule.getZ());
             }
+            this.isCentralized = true;
         }
         //if already centralized, nothing to do
     }
 
     /**
-     * Find the ranges of this Molecule in each direction
+     * Find the ranges of this Molecule in each direction. The ranges always contain the origin. The cached bounds are used, so no atoms are visited.
      * @return a pair of point3D where the key of the pair gives the minimum values in each direction for this molecules
      *         and the value of the pair gives the maximum values in each direction for this molecules
      */
     public Pair<Point3D, Point3D> findRanges(){
-        double minX = 0, minY = 0, minZ = 0;
-        double maxX = 0, maxY = 0, maxZ = 0;
-        List<Point3D> locations;
-
-        for (Polymer chain : polymers) {
-            locations = chain.getLocations();
-
-            //calculate min and max values of all locations per axis
-            for (Point3D currentLocation : locations) {
-                //find minimums
-                if (currentLocation.getX() < minX) {
-                    minX = currentLocation.getX();
-                }
-                if (currentLocation.getY() < minY) {
-                    minY = currentLocation.getY();
-                }
-                if (currentLocation.getZ() < minZ) {
-                    minZ = currentLocation.getZ();
-                }
-                if (currentLocation.getX() > maxX) {
-                    maxX = currentLocation.getX();
-                }
-                if (currentLocation.getY() > maxY) {
-                    maxY = currentLocation.getY();
+        MoleculeBounds currentBounds = getBounds();
+        Point3D min = currentBounds.getMin();
+        Point3D max = currentBounds.getMax();
+        return new Pair<>(new Point3D(Math.min(min.getX(), 0), Math.min(min.getY(), 0), Math.min(min.getZ(), 0)),
+                new Point3D(Math.max(max.getX(), 0), Math.max(max.getY(), 0), Math.max(max.getZ(), 0)));
+    }
+
+    /**
+     * Get the monomers of the given polymer, where monomers which are part of more than one structure are only contained once.
+     */
+    private static Collection<Monomer> distinctMonomers(Polymer polymer){
+        Set<Monomer> monomers = Collections.newSetFromMap(new IdentityHashMap<>());
+        monomers.addAll(polymer.getMonomers());
+        return monomers;
+    }
+
+    /**
+     * Fork join task which computes the bounds of a range of polymers by splitting the range until single polymers are left.
+     */
+    private static class BoundsTask extends RecursiveTask<MoleculeBounds> {
+        private static final long serialVersionUID = 1L;
+        private final List<Polymer> polymers;
+        private final int from;
+        private final int to;
+
+        BoundsTask(List<Polymer> polymers, int from, int to){
+            this.polymers = polymers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected MoleculeBounds compute() {
+            if(this.to - this.from > 1){
+                int middle = (this.from + this.to) >>> 1;
+                BoundsTask second = new BoundsTask(this.polymers, middle, this.to);
+                second.fork();
+                MoleculeBounds first = new BoundsTask(this.polymers, this.from, middle).compute();
+                return first.merge(second.join());
+            }
+            MoleculeBounds polymerBounds = new MoleculeBounds();
+            if(this.to > this.from){
+                for (Monomer monomer : distinctMonomers(this.polymers.get(this.from))) {
+                    monomer.addLocationsTo(polymerBounds);
                 }
-                if (currentLocation.getZ() > maxZ) {
-                    maxZ = currentLocation.getZ();
+            }
+            return polymerBounds;
+        }
+    }
+
+    /**
+     * Fork join task which moves all atoms of a range of polymers by the given distance.
+     */
+    private static class TranslationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<Polymer> polymers;
+        private final int from;
+        private final int to;
+        private final Point3D distance;
+
+        TranslationTask(List<Polymer> polymers, int from, int to, Point3D distance){
+            this.polymers = polymers;
+            this.from = from;
+            this.to = to;
+            this.distance = distance;
+        }
+
+        @Override
+        protected void compute() {
+            if(this.to - this.from > 1){
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new TranslationTask(this.polymers, this.from, middle, this.distance), new TranslationTask(this.polymers, middle, this.to, this.distance));
+            }
+            else if(this.to > this.from){
+                for (Monomer monomer : distinctMonomers(this.polymers.get(this.from))) {
+                    monomer.translate(this.distance.getX(), this.distance.getY(), this.distance.getZ());
                 }
             }
         }
-        return new Pair<>(new Point3D(minX, minY, minZ), new Point3D(maxX, maxY, maxZ));
     }
     //_________________________________________________________________________________METHODS TO GET STRUCTURE INFO
     /**
@@ -251,6 +499,22 @@ public class Molecules {
         return monomerNames;
     }
 
+    /**
+     * Get the number of atoms of each kind of monomer in this molecules object, e.g. for charts of a molecule which is shown without spheres.
+     * @return a HashMap where the keys are the names of monomers as given by getMonomerNames and the values are the number of atoms of all these monomers.
+     */
+    public Map<String, Integer> getAtomNumbersOfMonomers(){
+        Map<String, Integer> atomsPerMonomer = new HashMap<>();
+        for (Polymer polymer : polymers) {
+            for (Structure structure : polymer.getStructures()) {
+                for (Monomer monomer : structure.getMonomers()) {
+                    atomsPerMonomer.merge(monomer.getType().name(), monomer.getAtoms().size(), Integer::sum);
+                }
+            }
+        }
+        return atomsPerMonomer;
+    }
+
     /**
      * Get the number of each kind of atoms of the chain with given chain ID
      * @param chainID ID of the chain for which the number of atoms is requested; shall not be null or blank.
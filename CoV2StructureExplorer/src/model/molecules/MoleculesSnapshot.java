@@ -0,0 +1,265 @@
+package model.molecules;
+
+import javafx.geometry.Point3D;
+import model.atoms.AtomTable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * MoleculesSnapshot writes and reads a compact binary copy of fully created Molecules: polymers, structures, monomers, their atoms
+ * including the carbon positions which guide the ribbons, and the detected bonds. Reading a snapshot is much faster than parsing a file,
+ * as atoms and bonds are read with bulk reads into primitive arrays and neither centering nor bond detection is needed again.
+ * Of molecules with several models only the first model is written together with the positions of all models, their coordinates are read from the file when they are shown.
+ * Each snapshot starts with a version and the stamp of the file it was created from, snapshots of other versions or of a changed file are not read.
+ */
+public final class MoleculesSnapshot {
+
+    private static final int MAGIC = 0x4D4F4C53;           //MOLS
+    private static final int VERSION = 4;
+
+    private MoleculesSnapshot() {
+    }
+
+    /**
+     * Write a snapshot of the given molecules to the given stream.
+     * @param molecules the molecules to write, showing their first model; not null
+     * @param sourceStamp identifies the content of the file the molecules were created from, e.g. its size and modification time; not null
+     * @param output the stream to write to, is not closed; not null
+     * @throws IOException if an error occurs writing
+     */
+    public static void write(Molecules molecules, String sourceStamp, OutputStream output) throws IOException {
+        if(molecules == null || sourceStamp == null || output == null){
+            throw new IllegalArgumentException("Snapshot can not be written for molecules, stamp or stream which are null.");
+        }
+        if(molecules.getCurrentModel() != 0){
+            throw new IllegalArgumentException("Snapshot can only be written while the first model of the molecules is shown.");
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(sourceStamp);
+        out.writeUTF(molecules.getName());
+        out.writeBoolean(molecules.isCentralized());
+        out.writeDouble(molecules.getTranslation().getX());
+        out.writeDouble(molecules.getTranslation().getY());
+        out.writeDouble(molecules.getTranslation().getZ());
+
+        //all atom tables and monomers, which might be shared by structures, are written once and referenced by their position
+        List<AtomTable> tables = new ArrayList<>();
+        Map<AtomTable, Integer> tableIndices = new IdentityHashMap<>();
+        List<Monomer> monomers = new ArrayList<>();
+        Map<Monomer, Integer> monomerIndices = new IdentityHashMap<>();
+        for (Polymer polymer : molecules.getPolymers()) {
+            for (Structure structure : polymer.getStructures()) {
+                for (Monomer monomer : structure.getMonomers()) {
+                    if(monomerIndices.putIfAbsent(monomer, monomers.size()) == null){
+                        monomers.add(monomer);
+                        AtomTable table = monomer.getAtomTable();
+                        if(table != null && tableIndices.putIfAbsent(table, tables.size()) == null){
+                            tables.add(table);
+                        }
+                    }
+                }
+            }
+        }
+        out.writeInt(tables.size());
+        for (AtomTable table : tables) {
+            table.writeTo(out);
+        }
+        out.writeInt(monomers.size());
+        for (Monomer monomer : monomers) {
+            out.writeInt(monomer.getSequenceNumber());
+            out.writeUTF(monomer.getComponent().getId());
+            out.writeInt(monomer.getAtomTable() != null ? tableIndices.get(monomer.getAtomTable()) : -1);
+            writeInts(out, monomer.getAtomIndices());
+        }
+        out.writeInt(molecules.getPolymers().size());
+        for (Polymer polymer : molecules.getPolymers()) {
+            out.writeUTF(polymer.getUnitID());
+            out.writeInt(polymer.getStructures().size());
+            for (Structure structure : polymer.getStructures()) {
+                out.writeUTF(structure.getId());
+                out.writeShort(structure.getStructureType().ordinal());
+                int[] indices = new int[structure.getMonomers().size()];
+                for (int i = 0; i < indices.length; i++) {
+                    indices[i] = monomerIndices.get(structure.getMonomers().get(i));
+                }
+                writeInts(out, indices);
+            }
+        }
+        BondTable bonds = molecules.getBonds();
+        int[] firstAtoms = new int[bonds.size()];
+        int[] secondAtoms = new int[bonds.size()];
+        for (int b = 0; b < bonds.size(); b++) {
+            firstAtoms[b] = bonds.getFirstAtomIndex(b);
+            secondAtoms[b] = bonds.getSecondAtomIndex(b);
+        }
+        writeInts(out, firstAtoms);
+        writeInts(out, secondAtoms);
+
+        ModelSource models = molecules.getModels();
+        if(models != null && tables.size() == 1){
+            out.writeInt(models.size());
+            for (int m = 0; m < models.size(); m++) {
+                out.writeInt(models.getModelNumber(m));
+                out.writeLong(models.getPosition(m));
+            }
+        }
+        else {
+            out.writeInt(0);
+        }
+        out.flush();
+    }
+
+    /**
+     * Check if the given stream contains a snapshot of this version for the given stamp, without reading the molecules.
+     * @param input the stream to read from, is not closed; not null
+     * @param sourceStamp stamp of the current file of the molecules; not null
+     * @return true if the snapshot can be read for this stamp, false if it was written by another version, for another content of the file or is no snapshot at all
+     * @throws IOException if an error occurs reading
+     */
+    public static boolean isCurrent(InputStream input, String sourceStamp) throws IOException {
+        if(input == null || sourceStamp == null){
+            throw new IllegalArgumentException("Snapshot can not be checked from a stream or for a stamp which are null.");
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        try {
+            return in.readInt() == MAGIC && in.readInt() == VERSION && in.readUTF().equals(sourceStamp);
+        }
+        catch (EOFException e){
+            return false;
+        }
+    }
+
+    /**
+     * Read molecules from a snapshot which was written by write.
+     * @param input the stream to read from, is not closed; not null
+     * @param sourceStamp stamp of the current file of the molecules, which needs to match the stamp of the snapshot; not null
+     * @return the molecules of the snapshot, null if the snapshot was written by another version or for another content of the file
+     * @throws IOException if an error occurs reading or the snapshot is damaged
+     */
+    public static Molecules read(InputStream input, String sourceStamp) throws IOException {
+        return read(input, sourceStamp, null);
+    }
+
+    /**
+     * Read molecules from a snapshot which was written by write, including the models of the molecules.
+     * @param input the stream to read from, is not closed; not null
+     * @param sourceStamp stamp of the current file of the molecules, which needs to match the stamp of the snapshot; not null
+     * @param modelIndex creates the source of the models from the number and position of each model in the file,
+     *                   null to read only the first model
+     * @return the molecules of the snapshot, null if the snapshot was written by another version or for another content of the file
+     * @throws IOException if an error occurs reading or the snapshot is damaged
+     */
+    public static Molecules read(InputStream input, String sourceStamp, BiFunction<int[], long[], ModelSource> modelIndex) throws IOException {
+        if(input == null || sourceStamp == null){
+            throw new IllegalArgumentException("Snapshot can not be read from a stream or for a stamp which are null.");
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input, 1 << 16));
+        if(in.readInt() != MAGIC){
+            throw new IOException("Stream does not contain a snapshot of molecules.");
+        }
+        if(in.readInt() != VERSION || !in.readUTF().equals(sourceStamp)){
+            return null;
+        }
+        try {
+            Molecules molecules = new Molecules(in.readUTF());
+            boolean centralized = in.readBoolean();
+            Point3D translation = new Point3D(in.readDouble(), in.readDouble(), in.readDouble());
+
+            AtomTable[] tables = new AtomTable[checkCount(in.readInt())];
+            for (int i = 0; i < tables.length; i++) {
+                tables[i] = AtomTable.readFrom(in);
+            }
+            Monomer[] monomers = new Monomer[checkCount(in.readInt())];
+            for (int i = 0; i < monomers.length; i++) {
+                monomers[i] = new Monomer(in.readInt(), ChemicalComponent.of(in.readUTF()));
+                int table = in.readInt();
+                int[] atoms = readInts(in);
+                for (int atom : atoms) {
+                    monomers[i].addAtom(tables[table], atom);
+                }
+            }
+            StructureType[] structureTypes = StructureType.values();
+            List<Polymer> polymers = new ArrayList<>();
+            int numberOfPolymers = checkCount(in.readInt());
+            for (int p = 0; p < numberOfPolymers; p++) {
+                Polymer polymer = new Polymer(in.readUTF());
+                int numberOfStructures = checkCount(in.readInt());
+                for (int s = 0; s < numberOfStructures; s++) {
+                    Structure structure = new Structure(in.readUTF(), structureTypes[in.readShort()]);
+                    for (int monomer : readInts(in)) {
+                        structure.getMonomers().add(monomers[monomer]);
+                    }
+                    polymer.addStructure(structure);
+                }
+                polymers.add(polymer);
+            }
+            molecules.setPolymers(polymers);
+            molecules.setCentralized(centralized, translation);
+            int[] firstAtoms = readInts(in);
+            int[] secondAtoms = readInts(in);
+            int numberOfAtoms = molecules.getNumberOfAtoms();
+            if(firstAtoms.length != secondAtoms.length){
+                throw new IOException("Snapshot contains bonds without second atom.");
+            }
+            for (int b = 0; b < firstAtoms.length; b++) {
+                if(firstAtoms[b] < 0 || firstAtoms[b] >= numberOfAtoms || secondAtoms[b] < 0 || secondAtoms[b] >= numberOfAtoms){
+                    throw new IOException("Bond " + b + " of snapshot refers to an atom which does not exist.");
+                }
+            }
+            molecules.setBonds(firstAtoms, secondAtoms);
+
+            int numberOfModels = checkCount(in.readInt());
+            int[] modelNumbers = new int[numberOfModels];
+            long[] modelPositions = new long[numberOfModels];
+            for (int m = 0; m < numberOfModels; m++) {
+                modelNumbers[m] = in.readInt();
+                modelPositions[m] = in.readLong();
+            }
+            if(numberOfModels > 1 && modelIndex != null){
+                molecules.setModels(modelIndex.apply(modelNumbers, modelPositions), tables[0]);
+            }
+            return molecules;
+        }
+        catch (RuntimeException e){
+            //e.g. indices of monomers, atoms or types out of range
+            throw new IOException("Snapshot of molecules is damaged: " + e.getMessage(), e);
+        }
+    }
+
+    private static int checkCount(int count) throws IOException {
+        if(count < 0){
+            throw new IOException("Snapshot of molecules contains a negative count.");
+        }
+        return count;
+    }
+
+    /**
+     * Write the length of the given array followed by all values as one block.
+     */
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        ByteBuffer block = ByteBuffer.allocate(values.length * 4);
+        block.asIntBuffer().put(values);
+        out.write(block.array());
+    }
+
+    /**
+     * Read an array written by writeInts with one bulk read.
+     */
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int length = checkCount(in.readInt());
+        if(length > Integer.MAX_VALUE / 4){
+            throw new IOException("Snapshot of molecules contains an array of invalid length " + length + ".");
+        }
+        byte[] block = new byte[length * 4];
+        in.readFully(block);
+        int[] values = new int[length];
+        ByteBuffer.wrap(block).asIntBuffer().get(values);
+        return values;
+    }
+}
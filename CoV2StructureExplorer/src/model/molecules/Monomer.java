@@ -3,11 +3,15 @@ package model.molecules;
 import javafx.geometry.Point3D;
 import javafx.util.Pair;
 import model.atoms.AtomI;
-import model.atoms.Carbon;
+import model.atoms.AtomTable;
 import model.atoms.CarbonPosition;
+import model.atoms.Element;
+import model.atoms.TableAtom;
 
 import java.security.InvalidParameterException;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -17,11 +21,26 @@ import java.util.List;
 public class Monomer {
 
     private final int seqNumber; //can be sheet ID if belongs to structure SHEET, helix ID or chain ID if just nucleotide
-    private final List<AtomI> atoms;
-    private final AminoAcid_Nucleotide type;
-    private final List<Pair<Point3D, Point3D>> bonds;
+    private AtomTable atomTable;        //table which stores the atoms of this monomer, usually shared by the whole molecule
+    private int residue;                //index of this monomer as residue of the atom table
+    private int[] atomIndices;
+    private int numberOfAtoms;
+    private final List<AtomI> atoms;    //view of the atoms of this monomer
+    private final ChemicalComponent component;
+    private BondTable bondTable;
+    private int[] bondIndices;          //bonds of the bond table which belong to this monomer
 
     public Monomer(int sequenceNumber, AminoAcid_Nucleotide type) throws InvalidParameterException{
+        this(sequenceNumber, type != null ? ChemicalComponent.of(type) : null);
+    }
+
+    /**
+     * Create a monomer of the given chemical component, e.g. of a ligand, whose name is kept even though it is no amino acid or nucleotide.
+     * @param sequenceNumber number of this monomer within its polymer; not smaller than zero
+     * @param component component of this monomer; OTHER is used if it is null
+     * @throws InvalidParameterException if the sequence number is smaller than zero
+     */
+    public Monomer(int sequenceNumber, ChemicalComponent component) throws InvalidParameterException{
         if(sequenceNumber >= 0){
             this.seqNumber = sequenceNumber;
         }
@@ -29,15 +48,28 @@ public class Monomer {
             throw new InvalidParameterException("Monomer with sequence Number smaller than zero can not be created.");
         }
 
-        if(type != null){
-            this.type = type;
+        if(component != null){
+            this.component = component;
         }
         else{
-            this.type = AminoAcid_Nucleotide.OTHER;
+            this.component = ChemicalComponent.of(AminoAcid_Nucleotide.OTHER);
             System.err.println("Monomer of type null is not valid, default type was used..");
         }
-        this.atoms = new ArrayList<>();
-        this.bonds = new ArrayList<>();
+        this.atomIndices = new int[0];
+        this.atoms = new AbstractList<>() {
+            @Override
+            public AtomI get(int index) {
+                if(index < 0 || index >= numberOfAtoms){
+                    throw new IndexOutOfBoundsException("Monomer has no atom at position " + index + ".");
+                }
+                return atomTable.getAtom(atomIndices[index]);
+            }
+
+            @Override
+            public int size() {
+                return numberOfAtoms;
+            }
+        };
     }
 
     /**
@@ -52,17 +84,86 @@ public class Monomer {
      * Get the type of this monomer. A monomer can be an Amino Acid or a Nucleotide.
      * @return the type of this monomer, which can be one of the different Amino Acid types or one of the Nucleotide types
      */
-    public AminoAcid_Nucleotide getType(){return this.type;}
+    public AminoAcid_Nucleotide getType(){return this.component.getType();}
+
+    /**
+     * Get the chemical component of this monomer, which is the residue as named in the file, also if it is no amino acid or nucleotide.
+     * @return the component of this monomer
+     */
+    public ChemicalComponent getComponent(){return this.component;}
 
+    /**
+     * Add the given atom to this monomer. If the atom is stored in the same atom table as the other atoms of this monomer, only its index is kept,
+     * otherwise it is copied into the table of this monomer.
+     * @param atom the atom to add; nothing is added if it is null.
+     */
     public void addAtom(AtomI atom){
         if(atom != null){
-            this.atoms.add(atom);
+            if(atom instanceof TableAtom tableAtom && (this.atomTable == null || this.atomTable == tableAtom.getTable())){
+                addAtom(tableAtom.getTable(), tableAtom.getIndex());
+            }
+            else{
+                if(this.atomTable == null){
+                    setAtomTable(new AtomTable());
+                }
+                addAtom(this.atomTable, this.atomTable.addAtom(atom, this.residue));
+            }
+        }
+    }
+
+    /**
+     * Add the atom with the given index of the given atom table to this monomer.
+     * All atoms of one monomer need to be stored in the same table, the table of the first added atom is used.
+     * @param table the table in which the atom is stored; not null
+     * @param atomIndex the index of the atom within the table
+     * @throws IllegalArgumentException if the table is null or another table than the one of the previously added atoms.
+     */
+    public void addAtom(AtomTable table, int atomIndex){
+        if(table == null || (this.atomTable != null && this.atomTable != table)){
+            throw new IllegalArgumentException("Atoms of one monomer need to be stored in the same atom table.");
         }
+        if(this.atomTable == null){
+            setAtomTable(table);
+        }
+        table.setResidue(atomIndex, this.residue);
+        if(this.numberOfAtoms == this.atomIndices.length){
+            this.atomIndices = Arrays.copyOf(this.atomIndices, Math.max(8, this.numberOfAtoms * 2));
+        }
+        this.atomIndices[this.numberOfAtoms++] = atomIndex;
+    }
+
+    private void setAtomTable(AtomTable table){
+        this.atomTable = table;
+        this.residue = table.addResidue();
+    }
+
+    /**
+     * Get the table which stores the atoms of this monomer
+     * @return the atom table, null if no atom was added yet.
+     */
+    public AtomTable getAtomTable() {
+        return atomTable;
+    }
+
+    /**
+     * Get the index of this monomer as residue of its atom table
+     * @return the residue index, which is stored for each atom of this monomer in the atom table
+     */
+    public int getResidueIndex() {
+        return residue;
+    }
+
+    /**
+     * Get the indices of the atoms of this monomer within its atom table
+     * @return a copy of the indices of all atoms
+     */
+    public int[] getAtomIndices() {
+        return Arrays.copyOf(this.atomIndices, this.numberOfAtoms);
     }
 
     /**
      * Get all Atoms, which are part of this Monomer
-     * @return the list of all Atoms
+     * @return an unmodifiable view of all Atoms
      */
     public List<AtomI> getAtoms() {
         return atoms;
@@ -73,33 +174,64 @@ public class Monomer {
      * @return the list of all Points of atoms
      */
     public List<Point3D> getLocations() {
-        List<Point3D> locations = new ArrayList<>();
-        for (AtomI atom : atoms) {
-            locations.add(atom.getLocation().getValue());
+        List<Point3D> locations = new ArrayList<>(this.numberOfAtoms);
+        for (int i = 0; i < this.numberOfAtoms; i++) {
+            locations.add(this.atomTable.getLocation(this.atomIndices[i]));
         }
         return locations;
     }
 
+    /**
+     * Add the locations of all atoms of this monomer to the given bounds. Coordinates are read directly from the atom table.
+     * @param bounds the bounds to add the atoms to
+     */
+    void addLocationsTo(MoleculeBounds bounds){
+        for (int i = 0; i < this.numberOfAtoms; i++) {
+            int atom = this.atomIndices[i];
+            bounds.add(this.atomTable.getX(atom), this.atomTable.getY(atom), this.atomTable.getZ(atom));
+        }
+    }
+
+    /**
+     * Move all atoms of this monomer by the given distances. Coordinates are changed directly in the atom table.
+     */
+    void translate(double dx, double dy, double dz){
+        for (int i = 0; i < this.numberOfAtoms; i++) {
+            int atom = this.atomIndices[i];
+            this.atomTable.setLocation(atom, this.atomTable.getX(atom) + dx, this.atomTable.getY(atom) + dy, this.atomTable.getZ(atom) + dz);
+        }
+    }
+
     /**
      * Get all bonds of this monomers atoms. Each bond is given by a pair of 3D points which define the start and end point of one bond.
+     * If the bonds were detected for the whole Molecules this monomer belongs to, this includes bonds to atoms of neighbouring monomers
+     * like peptide bonds, where the first atom of the bond belongs to this monomer.
+     * Otherwise only bonds between atoms of this monomer are detected, using the bond template of its component if there is one.
      * @return a list of pairs of 3D points where each pair corresponds to a bond between to atoms.
      * Key and Value of each pair are the center points of starting and ending atom of the bond
      */
     public List<Pair<Point3D, Point3D>> getBonds(){
-        if(bonds.size() == 0){
-            for(int i = 0; i<atoms.size(); i++){
-                for(int k = i+1; k< atoms.size(); k++){
-                    AtomI firstAtom = atoms.get(i);
-                    AtomI secondAtom = atoms.get(k);
-                    double distanceThresh = (firstAtom.getRadiusPM().get() + secondAtom.getRadiusPM().get())* Molecules.TOLERANCE;
-                    double distance = firstAtom.getLocation().getValue().distance(secondAtom.getLocation().getValue());
-                    if(distance <= distanceThresh){
-                        this.bonds.add(new Pair<>(firstAtom.getLocation().getValue(), secondAtom.getLocation().getValue()));
-                    }
-                }
-            }
+        if(this.bondTable == null){
+            this.bondTable = BondDetector.detectResidueBonds(List.of(this));
+            this.bondIndices = null;        //all bonds of the table belong to this monomer
+        }
+        int numberOfBonds = this.bondIndices != null ? this.bondIndices.length : this.bondTable.size();
+        List<Pair<Point3D, Point3D>> bonds = new ArrayList<>(numberOfBonds);
+        for(int i = 0; i < numberOfBonds; i++){
+            int bond = this.bondIndices != null ? this.bondIndices[i] : i;
+            bonds.add(new Pair<>(this.bondTable.getFirstAtom(bond).getLocation().getValue(), this.bondTable.getSecondAtom(bond).getLocation().getValue()));
         }
-        return this.bonds;
+        return bonds;
+    }
+
+    /**
+     * Set the bonds of this monomer, which were detected for all atoms of the Molecules this monomer belongs to.
+     * @param bondTable the table of all bonds of the Molecules
+     * @param bondIndices the indices of the bonds within the table, which belong to this monomer
+     */
+    void setBonds(BondTable bondTable, int[] bondIndices){
+        this.bondTable = bondTable;
+        this.bondIndices = bondIndices;
     }
 
     /**
@@ -113,11 +245,12 @@ public class Monomer {
      */
     public Point3D getRibbonPosition(CarbonPosition position){
        if(position != null) {
-           for (AtomI atom : this.getAtoms()) {
-               if (atom.getClass().equals(Carbon.class)) {
+           for (int i = 0; i < this.numberOfAtoms; i++) {
+               int atom = this.atomIndices[i];
+               if (this.atomTable.getElement(atom) == Element.CARBON) {
                    //other atoms are never relevant for ribbon.
-                   if (((Carbon) atom).getPosition().equals(position)) {
-                       return atom.getLocation().getValue();
+                   if (this.atomTable.getCarbonPosition(atom).equals(position)) {
+                       return this.atomTable.getLocation(atom);
                    }
                }
            }
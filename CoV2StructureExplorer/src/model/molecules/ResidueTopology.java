@@ -0,0 +1,102 @@
+package model.molecules;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ResidueTopology holds the bonds between the heavy atoms of the standard amino acids and nucleotides, by the atom names of PDB files.
+ * The bonds are written as pairs of names, e.g. "N-CA", and compiled into one BondTemplate per amino acid or nucleotide when this class is loaded.
+ * Atoms which can bond to the neighbouring residues, e.g. N and C of peptide bonds or P and O3' of phosphodiester bonds, are linking atoms of the template.
+ * Hydrogens are not part of the templates, as their names differ between files. Their bonds are found by distance, like all atoms without template.
+ */
+final class ResidueTopology {
+
+    private static final String AMINO_ACID_BACKBONE = "N-CA CA-C C-O C-OXT ";
+    private static final String AMINO_ACID_LINKS = "N C SG";
+    private static final String SUGAR_PHOSPHATE = "P-OP1 P-OP2 P-OP3 P-O1P P-O2P P-O3P P-O5' O5'-C5' C5'-C4' C4'-O4' C4'-C3' C3'-O3' C3'-C2' C2'-C1' C1'-O4' ";
+    private static final String RIBOSE = "C2'-O2' ";
+    private static final String NUCLEOTIDE_LINKS = "P O3'";
+
+    private static final String ADENINE = "C1'-N9 N9-C8 C8-N7 N7-C5 C5-C6 C6-N6 C6-N1 N1-C2 C2-N3 N3-C4 C4-C5 C4-N9";
+    private static final String GUANINE = "C1'-N9 N9-C8 C8-N7 N7-C5 C5-C6 C6-O6 C6-N1 N1-C2 C2-N2 C2-N3 N3-C4 C4-C5 C4-N9";
+    private static final String HYPOXANTHINE = "C1'-N9 N9-C8 C8-N7 N7-C5 C5-C6 C6-O6 C6-N1 N1-C2 C2-N3 N3-C4 C4-C5 C4-N9";
+    private static final String CYTOSINE = "C1'-N1 N1-C2 C2-O2 C2-N3 N3-C4 C4-N4 C4-C5 C5-C6 C6-N1";
+    private static final String URACIL = "C1'-N1 N1-C2 C2-O2 C2-N3 N3-C4 C4-O4 C4-C5 C5-C6 C6-N1";
+    private static final String THYMINE = URACIL + " C5-C7 C5-C5M";
+
+    private static final String PHENYL = "CA-CB CB-CG CG-CD1 CG-CD2 CD1-CE1 CD2-CE2 CE1-CZ CE2-CZ";
+
+    private static final Map<AminoAcid_Nucleotide, BondTemplate> TEMPLATES = new EnumMap<>(AminoAcid_Nucleotide.class);
+
+    static {
+        aminoAcid(AminoAcid_Nucleotide.ALA, "CA-CB");
+        aminoAcid(AminoAcid_Nucleotide.ARG, "CA-CB CB-CG CG-CD CD-NE NE-CZ CZ-NH1 CZ-NH2");
+        aminoAcid(AminoAcid_Nucleotide.ASN, "CA-CB CB-CG CG-OD1 CG-ND2");
+        aminoAcid(AminoAcid_Nucleotide.ASP, "CA-CB CB-CG CG-OD1 CG-OD2");
+        aminoAcid(AminoAcid_Nucleotide.CYS, "CA-CB CB-SG");
+        aminoAcid(AminoAcid_Nucleotide.GLN, "CA-CB CB-CG CG-CD CD-OE1 CD-NE2");
+        aminoAcid(AminoAcid_Nucleotide.GLU, "CA-CB CB-CG CG-CD CD-OE1 CD-OE2");
+        aminoAcid(AminoAcid_Nucleotide.GLY, "");
+        aminoAcid(AminoAcid_Nucleotide.HIS, "CA-CB CB-CG CG-ND1 CG-CD2 ND1-CE1 CD2-NE2 CE1-NE2");
+        aminoAcid(AminoAcid_Nucleotide.ILE, "CA-CB CB-CG1 CB-CG2 CG1-CD1");
+        aminoAcid(AminoAcid_Nucleotide.LEU, "CA-CB CB-CG CG-CD1 CG-CD2");
+        aminoAcid(AminoAcid_Nucleotide.LYS, "CA-CB CB-CG CG-CD CD-CE CE-NZ");
+        aminoAcid(AminoAcid_Nucleotide.MET, "CA-CB CB-CG CG-SD SD-CE");
+        aminoAcid(AminoAcid_Nucleotide.PHE, PHENYL);
+        aminoAcid(AminoAcid_Nucleotide.PRO, "CA-CB CB-CG CG-CD CD-N");
+        aminoAcid(AminoAcid_Nucleotide.SER, "CA-CB CB-OG");
+        aminoAcid(AminoAcid_Nucleotide.THR, "CA-CB CB-OG1 CB-CG2");
+        aminoAcid(AminoAcid_Nucleotide.TRP, "CA-CB CB-CG CG-CD1 CG-CD2 CD1-NE1 NE1-CE2 CD2-CE2 CD2-CE3 CE2-CZ2 CE3-CZ3 CZ2-CH2 CZ3-CH2");
+        aminoAcid(AminoAcid_Nucleotide.TYR, PHENYL + " CZ-OH");
+        aminoAcid(AminoAcid_Nucleotide.VAL, "CA-CB CB-CG1 CB-CG2");
+
+        nucleotide(AminoAcid_Nucleotide.A, RIBOSE + ADENINE);
+        nucleotide(AminoAcid_Nucleotide.G, RIBOSE + GUANINE);
+        nucleotide(AminoAcid_Nucleotide.C, RIBOSE + CYTOSINE);
+        nucleotide(AminoAcid_Nucleotide.U, RIBOSE + URACIL);
+        nucleotide(AminoAcid_Nucleotide.T, THYMINE);
+        nucleotide(AminoAcid_Nucleotide.DA, ADENINE);
+        nucleotide(AminoAcid_Nucleotide.DG, GUANINE);
+        nucleotide(AminoAcid_Nucleotide.DC, CYTOSINE);
+        nucleotide(AminoAcid_Nucleotide.DT, THYMINE);
+        nucleotide(AminoAcid_Nucleotide.DI, HYPOXANTHINE);
+    }
+
+    private ResidueTopology() {
+    }
+
+    /**
+     * Get the bond template of the given amino acid or nucleotide.
+     * @param type the amino acid or nucleotide
+     * @return the template of its heavy atoms, null for OTHER
+     */
+    static BondTemplate get(AminoAcid_Nucleotide type) {
+        return TEMPLATES.get(type);
+    }
+
+    private static void aminoAcid(AminoAcid_Nucleotide type, String sideChain) {
+        TEMPLATES.put(type, compile(AMINO_ACID_BACKBONE + sideChain, AMINO_ACID_LINKS));
+    }
+
+    private static void nucleotide(AminoAcid_Nucleotide type, String sugarAndBase) {
+        TEMPLATES.put(type, compile(SUGAR_PHOSPHATE + sugarAndBase, NUCLEOTIDE_LINKS));
+    }
+
+    /**
+     * Compile bonds like "N-CA CA-C" into a template.
+     */
+    private static BondTemplate compile(String bonds, String linkingAtoms) {
+        List<String> firstAtomNames = new ArrayList<>();
+        List<String> secondAtomNames = new ArrayList<>();
+        for (String bond : bonds.trim().split(" +")) {
+            int separator = bond.indexOf('-');
+            if(separator > 0){
+                firstAtomNames.add(bond.substring(0, separator));
+                secondAtomNames.add(bond.substring(separator + 1));
+            }
+        }
+        return new BondTemplate(firstAtomNames.toArray(new String[0]), secondAtomNames.toArray(new String[0]), linkingAtoms.split(" "));
+    }
+}
@@ -6,8 +6,9 @@ package model.molecules;
  * SHEET - this polymer is an beta sheet in its secondary structure
  * NUCLEOTIDE - this polymer is neither HELIX nor SHEET
  * OTHER
+ * LIGAND - small molecules bound to the polymer, e.g. HETATM residues which are not part of its sequence
  * INIT - used to show that initialization is not yet completed.
  */
 public enum StructureType {
-    HELIX, SHEET, NUCLEOTIDE, OTHER
+    HELIX, SHEET, NUCLEOTIDE, OTHER, LIGAND
 }
@@ -0,0 +1,394 @@
+package model.pdbaccess;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * BinaryCifDecoder reads the categories of the first data block of a BinaryCIF file, which is the MessagePack encoded, columnar form of mmCIF.
+ * Every column is stored as binary data together with the list of encodings which were applied to it, e.g. delta and run-length encoding,
+ * integer packing and finally the conversion into a little endian byte array. The encodings are reversed directly into primitive arrays,
+ * string columns are decoded into a table of the distinct strings and an array of indices into this table.
+ */
+class BinaryCifDecoder {
+
+    //data types of the ByteArray encoding
+    private static final int INT8 = 1;
+    private static final int INT16 = 2;
+    private static final int INT32 = 3;
+    private static final int UINT8 = 4;
+    private static final int UINT16 = 5;
+    private static final int UINT32 = 6;
+    private static final int FLOAT32 = 32;
+    private static final int FLOAT64 = 33;
+
+    private BinaryCifDecoder() {
+    }
+
+    /**
+     * Read the given categories of the first data block of a BinaryCIF file. The file might be gzip compressed.
+     * @param input the content of the file, it is read completely but not closed; not null
+     * @param categories names of the categories which shall be read, including the leading underscore, e.g. _atom_site; case is ignored
+     * @return the found categories by their name in lower case, categories which are not in the file are missing
+     * @throws IOException if the file can not be read or is no valid BinaryCIF file
+     */
+    static Map<String, CifCategory> read(InputStream input, Set<String> categories) throws IOException {
+        byte[] data = input.readAllBytes();
+        if(data.length > 1 && (data[0] & 0xFF) == 0x1F && (data[1] & 0xFF) == 0x8B){
+            try (InputStream unzipped = new GZIPInputStream(new ByteArrayInputStream(data))) {
+                data = unzipped.readAllBytes();
+            }
+        }
+        Set<String> wanted = new HashSet<>();
+        for (String category : categories) {
+            wanted.add(category.toLowerCase());
+        }
+
+        Map<String, Object> file = asMap(new MessagePackReader(data).read(), "file");
+        List<Object> blocks = asList(file.get("dataBlocks"), "dataBlocks");
+        Map<String, CifCategory> found = new HashMap<>();
+        if(blocks.isEmpty()){
+            return found;
+        }
+        for (Object categoryObject : asList(asMap(blocks.get(0), "data block").get("categories"), "categories")) {
+            Map<String, Object> category = asMap(categoryObject, "category");
+            String name = String.valueOf(category.get("name")).toLowerCase();
+            if(!name.startsWith("_")){
+                name = "_" + name;
+            }
+            if(!wanted.contains(name)){
+                continue;
+            }
+            int rowCount = asInt(category.get("rowCount"));
+            CifCategory decoded = new CifCategory(name, rowCount);
+            for (Object columnObject : asList(category.get("columns"), "columns")) {
+                Map<String, Object> column = asMap(columnObject, "column");
+                try {
+                    Object values = decode(asMap(column.get("data"), "column data"));
+                    int[] mask = column.get("mask") != null ? asInts(decode(asMap(column.get("mask"), "column mask"))) : null;
+                    decoded.addColumn(String.valueOf(column.get("name")), createColumn(values, mask, rowCount));
+                }
+                catch (RuntimeException e){
+                    //e.g. offsets of strings or run lengths which do not match the data
+                    throw new IOException("BinaryCIF column " + name + "." + column.get("name") + " is invalid: " + e.getMessage(), e);
+                }
+            }
+            found.put(name, decoded);
+        }
+        return found;
+    }
+
+    /**
+     * Reverse all encodings of the given encoded data, starting with the last applied encoding.
+     * @param encoded map of the binary data and the list of its encodings
+     * @return int[], double[] or StringTable
+     */
+    private static Object decode(Map<String, Object> encoded) throws IOException {
+        Object data = encoded.get("data");
+        if(!(data instanceof ByteBuffer)){
+            throw new IOException("BinaryCIF data needs to be binary.");
+        }
+        List<Object> encodings = asList(encoded.get("encoding"), "encoding");
+        Object current = data;
+        for (int i = encodings.size() - 1; i >= 0; i--) {
+            current = decodeStep(current, asMap(encodings.get(i), "encoding"));
+        }
+        if(current instanceof ByteBuffer){
+            throw new IOException("BinaryCIF data was not decoded to an array.");
+        }
+        return current;
+    }
+
+    private static Object decodeStep(Object data, Map<String, Object> encoding) throws IOException {
+        String kind = String.valueOf(encoding.get("kind"));
+        switch (kind) {
+            case "ByteArray":
+                return decodeByteArray(asBuffer(data), asInt(encoding.get("type")));
+            case "FixedPoint": {
+                int[] values = asInts(data);
+                double factor = asDouble(encoding.get("factor"));
+                double[] decoded = new double[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    decoded[i] = values[i] / factor;
+                }
+                return decoded;
+            }
+            case "IntervalQuantization": {
+                int[] values = asInts(data);
+                double min = asDouble(encoding.get("min"));
+                double max = asDouble(encoding.get("max"));
+                int steps = asInt(encoding.get("numSteps"));
+                double delta = steps > 1 ? (max - min) / (steps - 1) : 0;
+                double[] decoded = new double[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    decoded[i] = min + delta * values[i];
+                }
+                return decoded;
+            }
+            case "RunLength": {
+                int[] values = asInts(data);
+                int[] decoded = new int[asInt(encoding.get("srcSize"))];
+                int position = 0;
+                for (int i = 0; i + 1 < values.length; i += 2) {
+                    int end = position + values[i + 1];
+                    if(end > decoded.length || values[i + 1] < 0){
+                        throw new IOException("Run-length encoded BinaryCIF data exceeds its size.");
+                    }
+                    Arrays.fill(decoded, position, end, values[i]);
+                    position = end;
+                }
+                return decoded;
+            }
+            case "Delta": {
+                int[] values = asInts(data);
+                int[] decoded = new int[values.length];
+                int value = asInt(encoding.get("origin"));
+                for (int i = 0; i < values.length; i++) {
+                    value += values[i];
+                    decoded[i] = value;
+                }
+                return decoded;
+            }
+            case "IntegerPacking":
+                return unpack(asInts(data), asInt(encoding.get("byteCount")), Boolean.TRUE.equals(encoding.get("isUnsigned")), asInt(encoding.get("srcSize")));
+            case "StringArray": {
+                Map<String, Object> indices = new HashMap<>();
+                indices.put("data", data);
+                indices.put("encoding", encoding.get("dataEncoding"));
+                Map<String, Object> offsets = new HashMap<>();
+                offsets.put("data", encoding.get("offsets"));
+                offsets.put("encoding", encoding.get("offsetEncoding"));
+                int[] stringOffsets = asInts(decode(offsets));
+                String strings = String.valueOf(encoding.get("stringData"));
+                String[] table = new String[Math.max(stringOffsets.length - 1, 0)];
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = strings.substring(stringOffsets[i], stringOffsets[i + 1]);
+                }
+                return new StringTable(table, asInts(decode(indices)));
+            }
+            default:
+                throw new IOException("Unsupported BinaryCIF encoding " + kind + ".");
+        }
+    }
+
+    /**
+     * Convert the little endian bytes into an int or double array.
+     */
+    private static Object decodeByteArray(ByteBuffer bytes, int type) throws IOException {
+        ByteBuffer data = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        switch (type) {
+            case INT8, UINT8: {
+                int[] values = new int[data.remaining()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = type == INT8 ? data.get() : data.get() & 0xFF;
+                }
+                return values;
+            }
+            case INT16, UINT16: {
+                int[] values = new int[data.remaining() / 2];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = type == INT16 ? data.getShort() : data.getShort() & 0xFFFF;
+                }
+                return values;
+            }
+            case INT32, UINT32: {
+                int[] values = new int[data.remaining() / 4];
+                data.asIntBuffer().get(values);
+                return values;
+            }
+            case FLOAT32: {
+                double[] values = new double[data.remaining() / 4];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = data.getFloat();
+                }
+                return values;
+            }
+            case FLOAT64: {
+                double[] values = new double[data.remaining() / 8];
+                data.asDoubleBuffer().get(values);
+                return values;
+            }
+            default:
+                throw new IOException("Unsupported BinaryCIF byte array type " + type + ".");
+        }
+    }
+
+    /**
+     * Reverse integer packing: values which did not fit into one or two bytes are stored as sum of several limit values and the rest.
+     */
+    private static int[] unpack(int[] packed, int byteCount, boolean unsigned, int size) throws IOException {
+        int upperLimit = byteCount == 1 ? (unsigned ? 0xFF : 0x7F) : (unsigned ? 0xFFFF : 0x7FFF);
+        int lowerLimit = unsigned ? 0 : (byteCount == 1 ? -0x80 : -0x8000);
+        int[] values = new int[size];
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            if(j >= packed.length){
+                throw new IOException("Packed BinaryCIF data is shorter than its size.");
+            }
+            int value = 0;
+            int t = packed[j];
+            while(t == upperLimit || (!unsigned && t == lowerLimit)){
+                value += t;
+                if(++j >= packed.length){
+                    throw new IOException("Packed BinaryCIF data ends within a value.");
+                }
+                t = packed[j];
+            }
+            values[i] = value + t;
+            j++;
+        }
+        if(j != packed.length){
+            throw new IOException("Packed BinaryCIF data does not match its size.");
+        }
+        return values;
+    }
+
+    private static CifColumn createColumn(Object values, int[] mask, int rowCount) throws IOException {
+        int size = values instanceof int[] ints ? ints.length : values instanceof double[] doubles ? doubles.length : ((StringTable) values).indices.length;
+        if(size != rowCount || (mask != null && mask.length != rowCount)){
+            throw new IOException("BinaryCIF column has " + size + " values, but its category has " + rowCount + " rows.");
+        }
+        if(values instanceof int[] ints){
+            return new BinaryColumn(mask) {
+                @Override
+                public String getString(int row) {
+                    return isPresent(row) ? Integer.toString(ints[row]) : "";
+                }
+
+                @Override
+                public int getInt(int row) {
+                    return isPresent(row) ? ints[row] : 0;
+                }
+
+                @Override
+                public double getDouble(int row) {
+                    return isPresent(row) ? ints[row] : 0;
+                }
+            };
+        }
+        if(values instanceof double[] doubles){
+            return new BinaryColumn(mask) {
+                @Override
+                public String getString(int row) {
+                    return isPresent(row) ? Double.toString(doubles[row]) : "";
+                }
+
+                @Override
+                public int getInt(int row) {
+                    return isPresent(row) ? (int) Math.round(doubles[row]) : 0;
+                }
+
+                @Override
+                public double getDouble(int row) {
+                    return isPresent(row) ? doubles[row] : 0;
+                }
+            };
+        }
+        StringTable strings = (StringTable) values;
+        return new BinaryColumn(mask) {
+            @Override
+            public boolean isPresent(int row) {
+                return super.isPresent(row) && strings.indices[row] >= 0;
+            }
+
+            @Override
+            public String getString(int row) {
+                return isPresent(row) ? strings.table[strings.indices[row]] : "";
+            }
+
+            @Override
+            public int getInt(int row) {
+                return isPresent(row) ? Integer.parseInt(getString(row)) : 0;
+            }
+
+            @Override
+            public double getDouble(int row) {
+                return isPresent(row) ? Double.parseDouble(getString(row)) : 0;
+            }
+        };
+    }
+
+    /**
+     * Column of a BinaryCIF category, values whose mask is not 0 are absent.
+     */
+    private abstract static class BinaryColumn implements CifColumn {
+
+        private final int[] mask;
+
+        private BinaryColumn(int[] mask) {
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean isPresent(int row) {
+            return this.mask == null || this.mask[row] == 0;
+        }
+    }
+
+    /**
+     * Decoded string column: the distinct strings and the index of the string of each row, negative for absent values.
+     */
+    private static final class StringTable {
+
+        private final String[] table;
+        private final int[] indices;
+
+        private StringTable(String[] table, int[] indices) throws IOException {
+            for (int index : indices) {
+                if(index >= table.length){
+                    throw new IOException("BinaryCIF string index " + index + " exceeds its " + table.length + " strings.");
+                }
+            }
+            this.table = table;
+            this.indices = indices;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value, String name) throws IOException {
+        if(value instanceof Map<?, ?>){
+            return (Map<String, Object>) value;
+        }
+        throw new IOException("BinaryCIF " + name + " needs to be a map.");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asList(Object value, String name) throws IOException {
+        if(value instanceof List<?>){
+            return (List<Object>) value;
+        }
+        throw new IOException("BinaryCIF " + name + " needs to be an array.");
+    }
+
+    private static ByteBuffer asBuffer(Object value) throws IOException {
+        if(value instanceof ByteBuffer buffer){
+            return buffer;
+        }
+        throw new IOException("BinaryCIF byte array encoding needs binary data.");
+    }
+
+    private static int[] asInts(Object value) throws IOException {
+        if(value instanceof int[] ints){
+            return ints;
+        }
+        throw new IOException("BinaryCIF encoding needs integer data.");
+    }
+
+    private static int asInt(Object value) throws IOException {
+        if(value instanceof Number number){
+            return number.intValue();
+        }
+        throw new IOException("BinaryCIF encoding parameter needs to be a number.");
+    }
+
+    private static double asDouble(Object value) throws IOException {
+        if(value instanceof Number number){
+            return number.doubleValue();
+        }
+        throw new IOException("BinaryCIF encoding parameter needs to be a number.");
+    }
+}
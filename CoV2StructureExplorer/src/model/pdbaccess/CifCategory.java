@@ -0,0 +1,61 @@
+package model.pdbaccess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A category of an mmCIF or BinaryCIF file, e.g. _atom_site, which is a table of columns with the same number of rows.
+ */
+class CifCategory {
+
+    private final String name;
+    private final int rowCount;
+    private final Map<String, CifColumn> columns;
+
+    /**
+     * Constructor of a category without columns.
+     * @param name name of the category including the leading underscore, e.g. _atom_site
+     * @param rowCount number of rows of every column of this category
+     */
+    CifCategory(String name, int rowCount) {
+        this.name = name;
+        this.rowCount = rowCount;
+        this.columns = new LinkedHashMap<>();
+    }
+
+    void addColumn(String field, CifColumn column) {
+        this.columns.put(field, column);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Get the column of the given field of this category.
+     * @param field name of the field without category, e.g. Cartn_x
+     * @return the column of this field, CifColumn.MISSING if the category has no such field
+     */
+    CifColumn getColumn(String field) {
+        return this.columns.getOrDefault(field, CifColumn.MISSING);
+    }
+
+    /**
+     * Get the column of the first of the given fields which is part of this category, e.g. to prefer auth_seq_id over label_seq_id.
+     * @param fields names of the fields without category
+     * @return the first column which is part of this category, CifColumn.MISSING if there is none
+     */
+    CifColumn getColumn(String... fields) {
+        for (String field : fields) {
+            CifColumn column = this.columns.get(field);
+            if(column != null){
+                return column;
+            }
+        }
+        return CifColumn.MISSING;
+    }
+}
@@ -0,0 +1,64 @@
+package model.pdbaccess;
+
+/**
+ * A column of a category of an mmCIF or BinaryCIF file, e.g. the x coordinates of _atom_site.
+ * Values are read by row, text columns parse them from the characters of the file, binary columns read them from decoded primitive arrays.
+ * Values which are not present in the file are written as . (inapplicable) or ? (unknown).
+ */
+interface CifColumn {
+
+    /**
+     * Column of a field which is not part of the category, all values are absent.
+     */
+    CifColumn MISSING = new CifColumn() {
+        @Override
+        public boolean isPresent(int row) {
+            return false;
+        }
+
+        @Override
+        public String getString(int row) {
+            return "";
+        }
+
+        @Override
+        public int getInt(int row) {
+            return 0;
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return 0;
+        }
+    };
+
+    /**
+     * Check if the column has a value in the given row.
+     * @param row the row of the category
+     * @return false if the value is . or ? or if the field is not part of the category
+     */
+    boolean isPresent(int row);
+
+    /**
+     * Get the value of the given row as String. Values which repeat often, like atom or monomer names, are not created again for every row.
+     * @param row the row of the category
+     * @return the value, empty if it is absent
+     */
+    String getString(int row);
+
+    /**
+     * Get the value of the given row as integer.
+     * @param row the row of the category
+     * @return the value, 0 if it is absent
+     * @throws NumberFormatException if the value is no integer
+     */
+    int getInt(int row);
+
+    /**
+     * Get the value of the given row as decimal number.
+     * @param row the row of the category
+     * @return the value, 0 if it is absent
+     * @throws NumberFormatException if the value is no number
+     */
+    double getDouble(int row);
+}
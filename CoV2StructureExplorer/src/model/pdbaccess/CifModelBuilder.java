@@ -0,0 +1,283 @@
+package model.pdbaccess;
+
+import model.atoms.AtomTable;
+import model.atoms.CarbonPosition;
+import model.atoms.Element;
+import model.molecules.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * CifModelBuilder creates Molecules from the categories of an mmCIF or BinaryCIF file, like FileParser does for PDB files.
+ * Atoms are taken from the ATOM and HETATM rows of the first model of _atom_site, in which all atoms of one residue follow each other. Water is not parsed.
+ * Residues within the helix and sheet ranges of _struct_conf and _struct_sheet_range belong to the according structure,
+ * consecutive residues outside of these ranges are collected in one structure of type OTHER or NUCLEOTIDE.
+ * HETATM residues without position in the sequence of an entity (label_seq_id) are ligands, each ligand is a structure of type LIGAND.
+ * Chains and residues are identified by the author IDs, which are the ones used in PDB files.
+ */
+class CifModelBuilder {
+
+    static final Set<String> CATEGORIES = Set.of("_atom_site", "_struct_conf", "_struct_sheet_range", "_entity");
+    private static final int PROGRESS_ROWS = 1 << 14;              //number of atoms after which the progress is updated
+
+    private CifModelBuilder() {
+    }
+
+    /**
+     * Create the molecules of an mmCIF or BinaryCIF file.
+     * @param categories categories of the file, as read by CifTokenizer or BinaryCifDecoder, at least the categories of CATEGORIES which are in the file
+     * @param name name of the molecules if the file does not contain descriptions of its polymers, e.g. the entry ID
+     * @param progress receives the progress of creating the molecules from 0 to 100; not null
+     * @return the molecules of the file
+     * @throws IOException if the file contains no atoms or invalid numbers
+     */
+    static Molecules build(Map<String, CifCategory> categories, String name, DoubleConsumer progress) throws IOException {
+        CifCategory atoms = categories.get("_atom_site");
+        if(atoms == null){
+            throw new IOException("File of " + name + " does not contain any atoms.");
+        }
+        Map<String, List<Range>> rangesOfChain = readRanges(categories);
+        CifColumn group = atoms.getColumn("group_PDB");
+        CifColumn model = atoms.getColumn("pdbx_PDB_model_num");
+        CifColumn alternative = atoms.getColumn("label_alt_id");
+        CifColumn element = atoms.getColumn("type_symbol");
+        CifColumn atomName = atoms.getColumn("auth_atom_id", "label_atom_id");
+        CifColumn monomerName = atoms.getColumn("auth_comp_id", "label_comp_id");
+        CifColumn chainID = atoms.getColumn("auth_asym_id", "label_asym_id");
+        CifColumn seqNumber = atoms.getColumn("auth_seq_id", "label_seq_id");
+        CifColumn entitySeqNumber = atoms.getColumn("label_seq_id");
+        CifColumn insertionCode = atoms.getColumn("pdbx_PDB_ins_code");
+        CifColumn x = atoms.getColumn("Cartn_x");
+        CifColumn y = atoms.getColumn("Cartn_y");
+        CifColumn z = atoms.getColumn("Cartn_z");
+        CifColumn tempFactor = atoms.getColumn("B_iso_or_equiv");
+
+        AtomTable atomTable = new AtomTable();
+        Map<String, ChainBuilder> chains = new LinkedHashMap<>();
+        int rows = atoms.getRowCount();
+        int firstModel = rows > 0 && model.isPresent(0) ? model.getInt(0) : 0;
+        String firstAlternative = null;             //only one orientation of the molecule is parsed, like for PDB files
+        ChainBuilder chain = null;
+        Monomer monomer = null;
+        boolean residueStarted = false;
+        String lastMonomerName = null;
+        String lastComponentName = null;
+        ChemicalComponent component = null;
+        boolean ligand = false;
+        String lastInsertionCode = null;
+        int lastSeqNumber = 0;
+
+        try {
+            for (int row = 0; row < rows; row++) {
+                if(row % PROGRESS_ROWS == 0){
+                    progress.accept(5 + 80.0 * row / rows);
+                }
+                boolean hetero = group.isPresent(row) && group.getString(row).equals("HETATM");
+                if((group.isPresent(row) && !hetero && !group.getString(row).equals("ATOM")) || (model.isPresent(row) && model.getInt(row) != firstModel)){
+                    continue;
+                }
+                if(alternative.isPresent(row)){
+                    if(firstAlternative == null){
+                        firstAlternative = alternative.getString(row);
+                    }
+                    else if(!firstAlternative.equals(alternative.getString(row))){
+                        continue;
+                    }
+                }
+                String chainName = chainID.getString(row);
+                String residueName = monomerName.getString(row);
+                if(residueName != lastComponentName){
+                    //names are cached by the columns, so the component is only looked up for a new residue name
+                    lastComponentName = residueName;
+                    component = ChemicalComponent.of(residueName);
+                }
+                if(hetero && component.isWater()){
+                    continue;
+                }
+                String insertion = insertionCode.getString(row);
+                int residueNumber = seqNumber.getInt(row);
+                if(chain == null || !chain.polymer.getUnitID().equals(chainName)){
+                    chain = chains.computeIfAbsent(chainName, id -> new ChainBuilder(id, rangesOfChain.get(id)));
+                    residueStarted = false;
+                }
+                if(!residueStarted || residueNumber != lastSeqNumber || !residueName.equals(lastMonomerName) || !insertion.equals(lastInsertionCode)){
+                    //first atom of this residue
+                    residueStarted = true;
+                    lastSeqNumber = residueNumber;
+                    lastMonomerName = residueName;
+                    lastInsertionCode = insertion;
+                    ligand = hetero && !component.isStandard() && !entitySeqNumber.isPresent(row);
+                    monomer = residueNumber >= 0 ? chain.addMonomer(residueNumber, component, ligand) : null;
+                    if(monomer == null){
+                        System.err.println("Residue " + residueName + " (" + residueNumber + ") of chain " + chainName + " has a negative sequence number and is not parsed.");
+                    }
+                }
+                if(monomer == null){
+                    continue;
+                }
+                String atomLabel = atomName.getString(row);
+                Element atomElement = Element.get(element.getString(row), atomLabel);
+                CarbonPosition position = atomElement == Element.CARBON && !ligand ? CarbonPosition.ofCarbon(atomLabel) : CarbonPosition.RESIDUE;
+                int atom = atomTable.addAtom(atomElement, atomLabel, position, x.getDouble(row), y.getDouble(row), z.getDouble(row), tempFactor.getDouble(row), -1);
+                monomer.addAtom(atomTable, atom);
+            }
+        }
+        catch (NumberFormatException e){
+            throw new IOException("File of " + name + " contains an invalid number: " + e.getMessage(), e);
+        }
+        atomTable.trimToSize();
+        progress.accept(85);
+
+        Molecules molecules = new Molecules(getMoleculesName(categories.get("_entity"), name));
+        if(!chains.isEmpty()){
+            List<Polymer> polymers = new ArrayList<>();
+            chains.values().forEach(builder -> polymers.add(builder.polymer));
+            molecules.setPolymers(polymers);
+            System.out.printf("Molecules %s are created. %n", molecules.getName());
+        }
+        progress.accept(90);
+        return molecules;
+    }
+
+    /**
+     * Get the name of the molecules, which are the descriptions of all polymer entities separated by comma, like the molecule names of PDB files.
+     */
+    private static String getMoleculesName(CifCategory entities, String defaultName) {
+        if(entities == null){
+            return defaultName;
+        }
+        CifColumn type = entities.getColumn("type");
+        CifColumn description = entities.getColumn("pdbx_description");
+        StringJoiner names = new StringJoiner(", ");
+        for (int row = 0; row < entities.getRowCount(); row++) {
+            if(description.isPresent(row) && (!type.isPresent(row) || type.getString(row).equals("polymer"))){
+                names.add(description.getString(row).trim());
+            }
+        }
+        return names.length() > 0 ? names.toString() : defaultName;
+    }
+
+    /**
+     * Read the helix and sheet ranges of all chains, sorted by their first residue.
+     */
+    private static Map<String, List<Range>> readRanges(Map<String, CifCategory> categories) {
+        Map<String, List<Range>> ranges = new HashMap<>();
+        CifCategory helices = categories.get("_struct_conf");
+        if(helices != null){
+            CifColumn type = helices.getColumn("conf_type_id");
+            CifColumn id = helices.getColumn("pdbx_PDB_helix_id", "id");
+            addRanges(ranges, helices, id, StructureType.HELIX, row -> type.getString(row).startsWith("HELX"));
+        }
+        CifCategory sheets = categories.get("_struct_sheet_range");
+        if(sheets != null){
+            addRanges(ranges, sheets, sheets.getColumn("sheet_id"), StructureType.SHEET, row -> true);
+        }
+        for (List<Range> chainRanges : ranges.values()) {
+            chainRanges.sort(Comparator.comparingInt(range -> range.begin));
+        }
+        return ranges;
+    }
+
+    private static void addRanges(Map<String, List<Range>> ranges, CifCategory category, CifColumn id, StructureType type, IntPredicate accepted) {
+        CifColumn chain = category.getColumn("beg_auth_asym_id", "beg_label_asym_id");
+        CifColumn begin = category.getColumn("beg_auth_seq_id", "beg_label_seq_id");
+        CifColumn end = category.getColumn("end_auth_seq_id", "end_label_seq_id");
+        for (int row = 0; row < category.getRowCount(); row++) {
+            if(accepted.test(row) && id.isPresent(row) && chain.isPresent(row) && begin.isPresent(row) && end.isPresent(row)){
+                try {
+                    ranges.computeIfAbsent(chain.getString(row), c -> new ArrayList<>()).add(new Range(id.getString(row), type, begin.getInt(row), end.getInt(row)));
+                }
+                catch (NumberFormatException e){
+                    System.err.println(type + " " + id.getString(row) + " has an invalid range and is ignored: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Residues from begin to end (inclusive) of one chain, which belong to one helix or sheet. The structure is created with the first residue.
+     */
+    private static final class Range {
+
+        private final String id;
+        private final StructureType type;
+        private final int begin;
+        private final int end;
+        private Structure structure;
+
+        private Range(String id, StructureType type, int begin, int end) {
+            this.id = id;
+            this.type = type;
+            this.begin = begin;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Creates the structures of one chain while its residues are added in the order of the file.
+     */
+    private static final class ChainBuilder {
+
+        private final Polymer polymer;
+        private final List<Range> ranges;
+        private Structure currentStructure;          //structure of the last residue, which is not part of a helix or sheet
+
+        private ChainBuilder(String chainID, List<Range> ranges) {
+            this.polymer = new Polymer(chainID);
+            this.ranges = ranges != null ? ranges : List.of();
+        }
+
+        private Monomer addMonomer(int seqNumber, ChemicalComponent component, boolean ligand) {
+            Monomer monomer = new Monomer(seqNumber, component);
+            Range range = ligand ? null : findRange(seqNumber);
+            Structure structure;
+            if(ligand){
+                structure = new Structure(component.getId(), StructureType.LIGAND);
+                this.polymer.addStructure(structure);
+                this.currentStructure = null;
+            }
+            else if(range != null){
+                if(range.structure == null){
+                    range.structure = new Structure(range.id, range.type);
+                    this.polymer.addStructure(range.structure);
+                }
+                structure = range.structure;
+                this.currentStructure = null;
+            }
+            else {
+                //like in PDB files: residues with names of three letters are amino acids, all others nucleotides
+                StructureType type = component.getId().length() == 3 ? StructureType.OTHER : StructureType.NUCLEOTIDE;
+                if(this.currentStructure == null || this.currentStructure.getStructureType() != type){
+                    this.currentStructure = new Structure(type == StructureType.OTHER ? "N" : "DAIJ", type);
+                    this.polymer.addStructure(this.currentStructure);
+                }
+                structure = this.currentStructure;
+            }
+            structure.getMonomers().add(monomer);
+            return monomer;
+        }
+
+        /**
+         * Find the range which contains the given residue by binary search over the first residues of all ranges.
+         */
+        private Range findRange(int seqNumber) {
+            int low = 0, high = this.ranges.size() - 1;
+            Range found = null;
+            while(low <= high){
+                int middle = (low + high) >>> 1;
+                Range range = this.ranges.get(middle);
+                if(range.begin <= seqNumber){
+                    found = range;
+                    low = middle + 1;
+                }
+                else {
+                    high = middle - 1;
+                }
+            }
+            return found != null && found.end >= seqNumber ? found : null;
+        }
+    }
+}
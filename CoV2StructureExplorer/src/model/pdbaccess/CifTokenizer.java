@@ -0,0 +1,322 @@
+package model.pdbaccess;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * CifTokenizer reads the categories of the first data block of an mmCIF file, e.g. _atom_site.
+ * The whole file is read into one character array, for each value only its start and end within this array is stored.
+ * Strings and numbers are only created when they are read from a column, see CifColumn. They are parsed from the array by a ValueParser, like the columns of PDB files.
+ * Only the values of the requested categories are stored, all other categories are skipped.
+ */
+class CifTokenizer {
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final char[] text;
+    private final int length;
+    private final ValueParser values;
+    private int position;
+    private int tokenStart;
+    private int tokenEnd;
+    private boolean tokenQuoted;
+
+    private CifTokenizer(char[] text, int length) {
+        this.text = text;
+        this.length = length;
+        this.values = new ValueParser(text);
+    }
+
+    /**
+     * Read the given categories of the first data block of an mmCIF file.
+     * @param reader the content of the file, it is read completely but not closed; not null
+     * @param categories names of the categories which shall be read, including the leading underscore, e.g. _atom_site; case is ignored
+     * @return the found categories by their name in lower case, categories which are not in the file are missing
+     * @throws IOException if the file can not be read
+     */
+    static Map<String, CifCategory> read(Reader reader, Set<String> categories) throws IOException {
+        char[] text = new char[READ_BUFFER_SIZE];
+        int length = 0;
+        int read;
+        while((read = reader.read(text, length, text.length - length)) >= 0){
+            length += read;
+            if(length == text.length){
+                text = Arrays.copyOf(text, text.length * 2);
+            }
+        }
+        Set<String> wanted = new HashSet<>();
+        for (String category : categories) {
+            wanted.add(category.toLowerCase());
+        }
+        return new CifTokenizer(text, length).readCategories(wanted);
+    }
+
+    private Map<String, CifCategory> readCategories(Set<String> wanted) {
+        Map<String, CifCategory> found = new HashMap<>();
+        Map<String, Map<String, int[]>> singleValues = new LinkedHashMap<>();       //fields and values of items which are not in a loop by category
+        boolean inBlock = false;
+        boolean hasToken = nextToken();
+        while(hasToken){
+            if(isKeyword("data_")){
+                if(inBlock){
+                    break;              //only the first data block is read
+                }
+                inBlock = true;
+                hasToken = nextToken();
+            }
+            else if(isKeyword("loop_")){
+                hasToken = readLoop(wanted, found);
+            }
+            else if(isTag()){
+                String tag = tokenString();
+                if(!nextToken()){
+                    break;
+                }
+                String category = categoryOf(tag);
+                if(wanted.contains(category)){
+                    singleValues.computeIfAbsent(category, c -> new LinkedHashMap<>()).put(fieldOf(tag), new int[]{encodedStart(), this.tokenEnd});
+                }
+                hasToken = nextToken();
+            }
+            else {
+                hasToken = nextToken();             //e.g. save frames, which are not used in files of entries
+            }
+        }
+        for (Map.Entry<String, Map<String, int[]>> entry : singleValues.entrySet()) {
+            CifCategory category = new CifCategory(entry.getKey(), 1);
+            for (Map.Entry<String, int[]> field : entry.getValue().entrySet()) {
+                category.addColumn(field.getKey(), new TextColumn(new int[]{field.getValue()[0]}, new int[]{field.getValue()[1]}, 1, 0));
+            }
+            found.putIfAbsent(entry.getKey(), category);
+        }
+        return found;
+    }
+
+    /**
+     * Read a loop, starting at the loop_ keyword, whose values are stored if its category is wanted.
+     * @return true if there is a token after the loop
+     */
+    private boolean readLoop(Set<String> wanted, Map<String, CifCategory> found) {
+        List<String> fields = new ArrayList<>();
+        String category = null;
+        boolean hasToken = nextToken();
+        while(hasToken && isTag()){
+            String tag = tokenString();
+            category = categoryOf(tag);
+            fields.add(fieldOf(tag));
+            hasToken = nextToken();
+        }
+        boolean keep = category != null && wanted.contains(category);
+        int[] starts = new int[keep ? 1024 : 0];
+        int[] ends = new int[starts.length];
+        int count = 0;
+        while(hasToken && !isTag() && !isKeyword("loop_") && !isKeyword("data_") && !isKeyword("save_") && !isKeyword("global_") && !isKeyword("stop_")){
+            if(keep){
+                if(count == starts.length){
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+                starts[count] = encodedStart();
+                ends[count] = this.tokenEnd;
+            }
+            count++;
+            hasToken = nextToken();
+        }
+        if(keep && !fields.isEmpty()){
+            int rows = count / fields.size();
+            if(count % fields.size() != 0){
+                System.err.println("Loop of category " + category + " has " + count + " values, which is not a multiple of its " + fields.size() + " fields. Last row is ignored.");
+            }
+            CifCategory loop = new CifCategory(category, rows);
+            for (int i = 0; i < fields.size(); i++) {
+                loop.addColumn(fields.get(i), new TextColumn(starts, ends, fields.size(), i));
+            }
+            found.put(category, loop);
+        }
+        return hasToken;
+    }
+
+    /**
+     * Find the next token after the current position. Comments are skipped, quotes and semicolons of text fields are not part of the token.
+     * @return false if the end of the file was reached
+     */
+    private boolean nextToken() {
+        char[] chars = this.text;
+        int pos = this.position;
+        while(pos < this.length){
+            char c = chars[pos];
+            if(c <= ' '){
+                pos++;
+            }
+            else if(c == '#'){
+                while(pos < this.length && chars[pos] != '\n' && chars[pos] != '\r'){
+                    pos++;
+                }
+            }
+            else {
+                break;
+            }
+        }
+        if(pos >= this.length){
+            this.position = pos;
+            return false;
+        }
+        char c = chars[pos];
+        if(c == ';' && (pos == 0 || chars[pos - 1] == '\n' || chars[pos - 1] == '\r')){
+            //text field, ends with a semicolon at the beginning of a line
+            int start = pos + 1;
+            int end = start;
+            while(end < this.length && !(chars[end] == ';' && (chars[end - 1] == '\n' || chars[end - 1] == '\r'))){
+                end++;
+            }
+            this.tokenStart = start;
+            this.tokenEnd = end;
+            while(this.tokenEnd > start && (chars[this.tokenEnd - 1] == '\n' || chars[this.tokenEnd - 1] == '\r')){
+                this.tokenEnd--;
+            }
+            this.tokenQuoted = true;
+            this.position = Math.min(end + 1, this.length);
+        }
+        else if(c == '\'' || c == '"'){
+            //quoted value, ends with the same quote followed by white space
+            int start = pos + 1;
+            int end = start;
+            while(end < this.length && !(chars[end] == c && (end + 1 == this.length || chars[end + 1] <= ' '))){
+                end++;
+            }
+            this.tokenStart = start;
+            this.tokenEnd = end;
+            this.tokenQuoted = true;
+            this.position = Math.min(end + 1, this.length);
+        }
+        else {
+            int end = pos;
+            while(end < this.length && chars[end] > ' '){
+                end++;
+            }
+            this.tokenStart = pos;
+            this.tokenEnd = end;
+            this.tokenQuoted = false;
+            this.position = end;
+        }
+        return true;
+    }
+
+    private boolean isTag() {
+        return !this.tokenQuoted && this.text[this.tokenStart] == '_';
+    }
+
+    /**
+     * Check if the current token is the given keyword or starts with it, like data_ and save_ which are followed by a name. Case is ignored.
+     */
+    private boolean isKeyword(String keyword) {
+        if(this.tokenQuoted || this.tokenEnd - this.tokenStart < keyword.length()){
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if(Character.toLowerCase(this.text[this.tokenStart + i]) != keyword.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start of the current token, which is stored negative for quoted values, so quoted . and ? are not taken as absent values.
+     */
+    private int encodedStart() {
+        return this.tokenQuoted ? -this.tokenStart - 1 : this.tokenStart;
+    }
+
+    private String tokenString() {
+        return new String(this.text, this.tokenStart, this.tokenEnd - this.tokenStart);
+    }
+
+    private static String categoryOf(String tag) {
+        int dot = tag.indexOf('.');
+        return (dot > 0 ? tag.substring(0, dot) : tag).toLowerCase();
+    }
+
+    private static String fieldOf(String tag) {
+        int dot = tag.indexOf('.');
+        return dot > 0 ? tag.substring(dot + 1) : "";
+    }
+
+    /**
+     * Column of a category which was read from the text, values of all columns of a loop are stored row by row in the same arrays.
+     */
+    private final class TextColumn implements CifColumn {
+
+        private final int[] starts;
+        private final int[] ends;
+        private final int stride;           //number of columns of the loop
+        private final int offset;           //position of this column within the loop
+
+        private TextColumn(int[] starts, int[] ends, int stride, int offset) {
+            this.starts = starts;
+            this.ends = ends;
+            this.stride = stride;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean isPresent(int row) {
+            int value = row * this.stride + this.offset;
+            int start = this.starts[value];
+            if(start < 0){
+                return true;
+            }
+            char c = text[start];
+            return this.ends[value] - start != 1 || (c != '.' && c != '?');
+        }
+
+        @Override
+        public String getString(int row) {
+            if(!isPresent(row)){
+                return "";
+            }
+            int value = row * this.stride + this.offset;
+            int start = this.starts[value] < 0 ? -this.starts[value] - 1 : this.starts[value];
+            return values.getName(start, this.ends[value], false);
+        }
+
+        @Override
+        public int getInt(int row) {
+            if(!isPresent(row)){
+                return 0;
+            }
+            int value = row * this.stride + this.offset;
+            int start = this.starts[value] < 0 ? -this.starts[value] - 1 : this.starts[value];
+            return values.parseInt(start, this.ends[value]);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            if(!isPresent(row)){
+                return 0;
+            }
+            int value = row * this.stride + this.offset;
+            int start = this.starts[value] < 0 ? -this.starts[value] - 1 : this.starts[value];
+            try {
+                return values.parseDecimal(start, this.ends[value]);
+            }
+            catch (NumberFormatException e){
+                return parseUncertain(start, this.ends[value], e);
+            }
+        }
+    }
+
+    /**
+     * Parse a number which is followed by its standard uncertainty, like 1.23(4). The uncertainty is ignored.
+     * @param cause the exception of parsing the whole value, which is thrown if the value has no uncertainty
+     */
+    private double parseUncertain(int from, int to, NumberFormatException cause) throws NumberFormatException {
+        String value = this.values.substring(from, to);
+        int uncertainty = value.indexOf('(');
+        if(uncertainty <= 0){
+            throw cause;
+        }
+        return Double.parseDouble(value.substring(0, uncertainty));
+    }
+}
@@ -0,0 +1,397 @@
+package model.pdbaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * EntryIDIndex is an immutable, sorted set of PDB entry IDs in a compact form.
+ * All IDs are stored one after the other in a single char array, an offset array points to the start of each ID,
+ * so about 200 000 IDs need roughly 1 MB instead of one String object per ID. IDs are stored in upper case.
+ * The index keeps the time of the download of its IDs and the validator of the server (ETag or Last-Modified),
+ * so that it can be stored in a file and only needs to be downloaded again if the IDs on the server changed.
+ */
+public class EntryIDIndex {
+
+    private static final int MAGIC = 0x50444249;            //"PDBI"
+    private static final int VERSION = 1;
+
+    private final char[] chars;
+    private final int[] offsets;                //offsets[i] is the start of ID i, offsets[size] the end of the last ID
+    private final long timestamp;
+    private final String validator;
+
+    private EntryIDIndex(char[] chars, int[] offsets, long timestamp, String validator) {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.timestamp = timestamp;
+        this.validator = validator != null ? validator : "";
+    }
+
+    /**
+     * Create an index of the given IDs. IDs are converted to upper case, sorted and duplicates are removed, blank IDs are skipped.
+     * @param ids the entry IDs; not null
+     * @param timestamp time in milliseconds when the IDs were downloaded
+     * @param validator ETag or Last-Modified value of the server response, might be null
+     * @return the index containing all IDs
+     */
+    public static EntryIDIndex of(Collection<String> ids, long timestamp, String validator){
+        if(ids == null){
+            throw new IllegalArgumentException("Entry ID index can not be created from IDs which are null.");
+        }
+        String[] sorted = ids.stream().filter(id -> id != null && !id.isBlank()).map(id -> id.trim().toUpperCase()).sorted().distinct().toArray(String[]::new);
+        int[] offsets = new int[sorted.length + 1];
+        int length = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            offsets[i] = length;
+            length += sorted[i].length();
+        }
+        offsets[sorted.length] = length;
+        char[] chars = new char[length];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i].getChars(0, sorted[i].length(), chars, offsets[i]);
+        }
+        return new EntryIDIndex(chars, offsets, timestamp, validator);
+    }
+
+    /**
+     * Get an index with the same IDs, which was confirmed by the server at the given time.
+     * @param timestamp time in milliseconds when the server confirmed that the IDs did not change
+     * @return an index sharing the IDs of this index
+     */
+    public EntryIDIndex withTimestamp(long timestamp){
+        return new EntryIDIndex(this.chars, this.offsets, timestamp, this.validator);
+    }
+
+    public int size(){
+        return this.offsets.length - 1;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getValidator() {
+        return validator;
+    }
+
+    /**
+     * Get the ID at the given position of the sorted IDs.
+     * @param index position of the ID
+     * @return a new String of the ID
+     */
+    public String get(int index){
+        if(index < 0 || index >= size()){
+            throw new IndexOutOfBoundsException("Entry ID " + index + " is not part of this index with " + size() + " IDs.");
+        }
+        return new String(this.chars, this.offsets[index], this.offsets[index + 1] - this.offsets[index]);
+    }
+
+    /**
+     * Find the position of the given ID by binary search.
+     * @param id the ID to search, case is ignored
+     * @return the position of the ID, or (-(insertion point) - 1) if the ID is not in this index, like Arrays.binarySearch
+     */
+    public int indexOf(String id){
+        if(id == null){
+            return -1;
+        }
+        String key = id.trim().toUpperCase();
+        int low = 0, high = size() - 1;
+        while(low <= high){
+            int middle = (low + high) >>> 1;
+            int comparison = compare(middle, key);
+            if(comparison < 0){
+                low = middle + 1;
+            }
+            else if(comparison > 0){
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    public boolean contains(String id){
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Find the range of all IDs starting with the given prefix by two binary searches.
+     * @param prefix the beginning of the IDs, case is ignored; not null
+     * @return first position and end position (exclusive) of the IDs with this prefix, both are equal if there is no such ID
+     */
+    public int[] prefixRange(String prefix){
+        if(prefix == null){
+            throw new IllegalArgumentException("Prefix of entry IDs can not be null.");
+        }
+        String key = prefix.trim().toUpperCase();
+        int from = lowerBound(key, false);
+        int to = lowerBound(key, true);
+        return new int[]{from, to};
+    }
+
+    /**
+     * Find the positions of all IDs which contain the given part. IDs starting with the part are found by binary search,
+     * all other IDs by one pass over the packed characters of all IDs.
+     * @param part the part of the IDs to search for, case is ignored; not null
+     * @return sorted positions of all IDs containing the part
+     */
+    public int[] findContaining(String part){
+        if(part == null){
+            throw new IllegalArgumentException("Part of entry IDs can not be null.");
+        }
+        char[] key = part.trim().toUpperCase().toCharArray();
+        if(key.length == 0){
+            int[] all = new int[size()];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        int[] range = prefixRange(part);
+        int[] found = new int[16];
+        int count = 0;
+        char first = key[0];
+        for (int i = 0; i < size(); i++) {
+            if(i == range[0] && range[0] < range[1]){
+                //all IDs of the prefix range contain the part
+                int rangeSize = range[1] - range[0];
+                if(count + rangeSize > found.length){
+                    found = Arrays.copyOf(found, Math.max(found.length * 2, count + rangeSize));
+                }
+                for (int j = range[0]; j < range[1]; j++) {
+                    found[count++] = j;
+                }
+                i = range[1] - 1;
+                continue;
+            }
+            int end = this.offsets[i + 1] - key.length;
+            for (int start = this.offsets[i] + 1; start <= end; start++) {      //start at the first character is covered by the prefix range
+                if(this.chars[start] == first && matches(start, key)){
+                    if(count == found.length){
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = i;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private boolean matches(int start, char[] key){
+        for (int k = 1; k < key.length; k++) {
+            if(this.chars[start + k] != key[k]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the first position whose ID is not smaller than the key, or with afterPrefix the first position after all IDs starting with the key.
+     */
+    private int lowerBound(String key, boolean afterPrefix){
+        int low = 0, high = size();
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            int comparison = afterPrefix && startsWith(middle, key) ? -1 : compare(middle, key);
+            if(comparison < 0){
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean startsWith(int index, String prefix){
+        int start = this.offsets[index];
+        if(this.offsets[index + 1] - start < prefix.length()){
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if(this.chars[start + i] != prefix.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get all IDs as a list. Strings are created when they are requested.
+     * @return unmodifiable list view of the sorted IDs
+     */
+    public List<String> asList(){
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return EntryIDIndex.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return EntryIDIndex.this.size();
+            }
+        };
+    }
+
+    /**
+     * Compare the ID at the given position with the given key, like String.compareTo
+     */
+    private int compare(int index, String key){
+        int start = this.offsets[index];
+        int length = this.offsets[index + 1] - start;
+        int common = Math.min(length, key.length());
+        for (int i = 0; i < common; i++) {
+            int difference = this.chars[start + i] - key.charAt(i);
+            if(difference != 0){
+                return difference;
+            }
+        }
+        return length - key.length();
+    }
+
+    /**
+     * Compare the ID at position index of this index with the ID at position otherIndex of the other index, like String.compareTo
+     */
+    private int compare(int index, EntryIDIndex other, int otherIndex){
+        int start = this.offsets[index], otherStart = other.offsets[otherIndex];
+        int length = this.offsets[index + 1] - start, otherLength = other.offsets[otherIndex + 1] - otherStart;
+        int common = Math.min(length, otherLength);
+        for (int i = 0; i < common; i++) {
+            int difference = this.chars[start + i] - other.chars[otherStart + i];
+            if(difference != 0){
+                return difference;
+            }
+        }
+        return length - otherLength;
+    }
+
+    /**
+     * A change which turns a list of the IDs of one index into a list of the IDs of another index.
+     * If added is false, the ID at the position is removed, otherwise the ID is inserted at the position.
+     */
+    public static class Change {
+        private final int position;
+        private final String id;
+        private final boolean added;
+
+        private Change(int position, String id, boolean added) {
+            this.position = position;
+            this.id = id;
+            this.added = added;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public boolean isAdded() {
+            return added;
+        }
+    }
+
+    /**
+     * Get the changes which turn a sorted list of the IDs of this index into a sorted list of the IDs of the newer index.
+     * Changes are in the order they need to be applied, the position of each change refers to the list after all previous changes.
+     * @param newer the index with the current IDs; not null
+     * @return all insertions and removals, empty if both indices contain the same IDs
+     */
+    public List<Change> changesTo(EntryIDIndex newer){
+        if(newer == null){
+            throw new IllegalArgumentException("Changes can not be computed to an index which is null.");
+        }
+        List<Change> changes = new ArrayList<>();
+        int i = 0, j = 0, position = 0;
+        while(i < size() || j < newer.size()){
+            int comparison = i == size() ? 1 : j == newer.size() ? -1 : compare(i, newer, j);
+            if(comparison == 0){
+                i++;
+                j++;
+                position++;
+            }
+            else if(comparison < 0){
+                changes.add(new Change(position, get(i), false));
+                i++;
+            }
+            else {
+                changes.add(new Change(position, newer.get(j), true));
+                j++;
+                position++;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Write this index to the given file. The file is replaced at once, so it is never read partially written.
+     * After a header, the length of each ID is stored in one byte, followed by the characters of all IDs.
+     * @param file the file to write to; not null
+     * @throws IOException if the file can not be written or an ID is longer than 255 characters
+     */
+    public void write(Path file) throws IOException {
+        byte[] validatorBytes = this.validator.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 8 + 4 + validatorBytes.length + 4 + size() + this.chars.length);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(this.timestamp);
+        buffer.putInt(validatorBytes.length).put(validatorBytes);
+        buffer.putInt(size());
+        for (int i = 0; i < size(); i++) {
+            int length = this.offsets[i + 1] - this.offsets[i];
+            if(length > 255){
+                throw new IOException("Entry ID " + get(i) + " is too long to be stored in the index.");
+            }
+            buffer.put((byte) length);
+        }
+        //IDs only contain ASCII letters and digits
+        for (char c : this.chars) {
+            buffer.put((byte) c);
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, buffer.array());
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read an index from the given file, which was written by write.
+     * @param file the file to read from; not null
+     * @return the index, null if the file does not exist or is not a valid index file
+     */
+    public static EntryIDIndex read(Path file){
+        if(!Files.exists(file)){
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION){
+                System.err.println("Entry ID index " + file + " has an unknown format and is ignored.");
+                return null;
+            }
+            long timestamp = buffer.getLong();
+            byte[] validatorBytes = new byte[buffer.getInt()];
+            buffer.get(validatorBytes);
+            int size = buffer.getInt();
+            int[] offsets = new int[size + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[i + 1] = offsets[i] + Byte.toUnsignedInt(buffer.get());
+            }
+            char[] chars = new char[offsets[size]];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) buffer.get();
+            }
+            return new EntryIDIndex(chars, offsets, timestamp, new String(validatorBytes, StandardCharsets.UTF_8));
+        }
+        catch (IOException | RuntimeException e){
+            System.err.println("Entry ID index " + file + " could not be read and is ignored: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package model.pdbaccess;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * EntryIDList is a read only observable list of the IDs in an EntryIDIndex, optionally filtered to the IDs containing a search term.
+ * The list only holds the positions of the matching IDs in the index, the ID strings are created when they are accessed,
+ * so a ListView only creates the strings of its visible cells. Replacing the index or the filter fires one change.
+ */
+public class EntryIDList extends ObservableListBase<String> {
+
+    private EntryIDIndex index;
+    private String filter;
+    private int[] positions;            //positions of the matching IDs in the index, null if no filter is set
+
+    /**
+     * Constructor of an empty list without filter.
+     */
+    public EntryIDList() {
+        this.index = EntryIDIndex.of(List.of(), 0, null);
+    }
+
+    @Override
+    public String get(int i) {
+        if(i < 0 || i >= size()){
+            throw new IndexOutOfBoundsException("Index " + i + " is out of bounds for entry ID list of size " + size() + ".");
+        }
+        return this.index.get(this.positions != null ? this.positions[i] : i);
+    }
+
+    @Override
+    public int size() {
+        return this.positions != null ? this.positions.length : this.index.size();
+    }
+
+    /**
+     * Show the IDs of another index, the current filter is kept.
+     * If no filter is set and the changes between both indices are given, only the changed IDs are reported to listeners.
+     * @param newIndex the index to show; not null
+     * @param changes changes from the current index to the new index, see EntryIDIndex.changesTo; null to replace all IDs
+     */
+    public void setIndex(EntryIDIndex newIndex, List<EntryIDIndex.Change> changes) {
+        if(newIndex == null){
+            throw new IllegalArgumentException("Index of entry ID list can not be null.");
+        }
+        if(this.filter != null || changes == null){
+            update(newIndex, this.filter);
+            return;
+        }
+        this.index = newIndex;
+        beginChange();
+        for (EntryIDIndex.Change change : changes) {
+            if(change.isAdded()){
+                nextAdd(change.getPosition(), change.getPosition() + 1);
+            }
+            else {
+                nextRemove(change.getPosition(), change.getId());
+            }
+        }
+        endChange();
+    }
+
+    /**
+     * Only show the IDs containing the given term, the case of the term is ignored.
+     * @param term the part of the IDs to search for; null or blank to show all IDs
+     */
+    public void setFilter(String term) {
+        update(this.index, term == null || term.isBlank() ? null : term.trim().toUpperCase());
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    public EntryIDIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Replace index and filter and report all IDs as replaced. The removed IDs are a view of the previous state, they are not copied.
+     */
+    private void update(EntryIDIndex newIndex, String newFilter) {
+        EntryIDIndex previousIndex = this.index;
+        int[] previousPositions = this.positions;
+        List<String> removed = new AbstractList<String>() {
+            @Override
+            public String get(int i) {
+                return previousIndex.get(previousPositions != null ? previousPositions[i] : i);
+            }
+
+            @Override
+            public int size() {
+                return previousPositions != null ? previousPositions.length : previousIndex.size();
+            }
+        };
+
+        this.index = newIndex;
+        this.filter = newFilter;
+        this.positions = newFilter != null ? newIndex.findContaining(newFilter) : null;
+        if(removed.isEmpty() && isEmpty()){
+            return;
+        }
+        beginChange();
+        if(!removed.isEmpty()){
+            nextRemove(0, removed);
+        }
+        if(!isEmpty()){
+            nextAdd(0, size());
+        }
+        endChange();
+    }
+}
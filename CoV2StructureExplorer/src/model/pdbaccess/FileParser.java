@@ -2,14 +2,17 @@
 
 package model.pdbaccess;
 
-import javafx.geometry.Point3D;
 import model.atoms.*;
 import model.molecules.*;
 import model.tasks.CreateMoleculeTask;
 import org.apache.commons.lang.NullArgumentException;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.function.DoubleConsumer;
 
 /**
  * This is a helper class providing different methods to write and read PDB files, which were downloaded e.g. by the PDBWebClient.
@@ -18,43 +21,61 @@ public class FileParser {
 
     public static final String DEFAULT_STORING_DIRECTORY = System.getProperty("user.dir") + File.separator + "CoV2StructureExplorer" + File.separator + "resources" + File.separator + "pdbFiles" + File.separator;
     public static final String FILE_EXTENSION = ".pdb"; //in case one would like to change later.
+    public static final String CIF_EXTENSION = ".cif";
+    public static final String BINARY_CIF_EXTENSION = ".bcif";
+    public static final String SNAPSHOT_EXTENSION = ".snapshot";
 
-    private BufferedReader reader;
+    private PDBLineBuffer lines;                        //current line of the file which is parsed
     private List<Polymer> chains;                       //these are the chains from the file
     private Molecules molecules;                //contains all molecules, can also be only one
     private Map<String, List<Monomer>> monomersOfChain;
+    private Map<String, Set<ChemicalComponent>> sequenceOfChain;   //components named in the SEQRES records of each chain
+    private Map<String, Integer> chainPositions;                    //position of each chain in chains by its ID
+    private Map<Integer, List<Structure>> secondaryStructuresOfChain; //helix and sheet structures from the header by chain position
+    private Map<Long, Monomer> residueIndex;                        //monomer of each residue of the ATOM section, see residueKey
+    private long lastResidueKey;                                    //atoms of one residue follow each other, this saves most lookups
+    private Monomer lastResidue;
+    private String lastResidueName;                                 //names are cached by the line buffer, so equal names are the same String
+    private ChemicalComponent lastComponent;
+    private String lastFailedResidue;                               //residue of the last atom which could not be added, see parseAtoms
+    private Map<Integer, Integer> ligandAtomOfSerial;               //atoms of ligands without bond template by their serial number
+    private Map<Integer, ChemicalComponent> ligandOfResidue;        //component of these ligands by their residue in the atom table
+    private Map<Integer, List<String>> templateBondsOfResidue;      //names of the bonded atoms of these ligands from CONECT records
+    private AtomTable atomTable;                                     //stores all atoms of the file
+    private List<Integer> modelNumbers;                             //serial numbers of the MODEL records of the file
+    private List<Long> modelPositions;                              //position of each MODEL record, see PDBModelIndex
 
     /**
-     * Create a file with default fileExtension from the given input Stream. The file will be saved in the default folder with the name of the file will being the pdbID.
-     * @param pdbInputStream - the stream to be written in a file. Shall not be null.
-     * @param pdbID - the entryID of the file, represented in the inputStream; will be the name of the file; shall not be null nor blank
+     * Store the file of the given PDB ID from the given input stream. Downloaded files are stored gzip compressed in the PDBCache,
+     * they are only added to the cache if the stream could be read completely. Nothing is stored if the file is already present.
+     * @param pdbInputStream - the stream to be stored. Shall not be null. The stream is closed afterwards.
+     * @param pdbID - the entryID of the file, represented in the inputStream; shall not be null nor blank
      * @throws IOException - if an error occurs reading the stream or writing the file
      * @throws NullArgumentException - if input stream is null or pdbID is null or blank.
      */
     public static void createFileFromStream(InputStream pdbInputStream, String pdbID) throws IOException, NullArgumentException{
         if(pdbInputStream != null && pdbID != null && !pdbID.isBlank()){
-            //create file
-            String path =  DEFAULT_STORING_DIRECTORY + pdbID + FILE_EXTENSION;
-            File pdbFile = new File(path);
             //if file was non existing before
-            if(pdbFile.createNewFile()){
-                //create reader and writer
-
-                BufferedReader reader = new BufferedReader(new InputStreamReader(pdbInputStream));
-                BufferedWriter writer = new BufferedWriter(new FileWriter(pdbFile));
-
-                //read line by line from input Stream and write to file
-                String nextLine = reader.readLine();
-                while(nextLine != null){
-                    //skip all those lines: HEL, JRNL, REMARK, REVDAT, HETNAM
-                    if(!nextLine.startsWith("HEL") && !nextLine.startsWith("JRNL") && !nextLine.startsWith("REMARK") && !nextLine.startsWith("REVDAT") && !nextLine.startsWith("HETNAM")) {
-                        writer.write(nextLine + "\n");
-                    }
-                    nextLine = reader.readLine();
+            if(!isFileCreated(pdbID)){
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(pdbInputStream))) {
+                    PDBCache.getDefault().put(pdbID, out -> {
+                        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
+                        //read line by line from input Stream and write to file
+                        String nextLine = reader.readLine();
+                        while(nextLine != null){
+                            //skip all those lines: HEL, JRNL, REMARK, REVDAT, HETNAM
+                            if(!nextLine.startsWith("HEL") && !nextLine.startsWith("JRNL") && !nextLine.startsWith("REMARK") && !nextLine.startsWith("REVDAT") && !nextLine.startsWith("HETNAM")) {
+                                writer.write(nextLine + "\n");
+                            }
+                            nextLine = reader.readLine();
+                        }
+                        //end of file was reached
+                        writer.flush();
+                    });
                 }
-                //end of file was reached
-                reader.close();
-                writer.close();
+            }
+            else {
+                pdbInputStream.close();
             }
         }
         else{
@@ -63,33 +84,131 @@ public class FileParser {
     }
 
     /**
-     * Reads a file with file name fileName from the default location and parses it to a string which can be displayed e.g.
-     * @param fileName - the file name of the file to be read without file extension. Default file Extension will be used.
-     *                 not null and not blank
-     * @return a String representation of the file which can be e.g. displayed somewhere, empty string if fileName was null or blank
-     * @throws IOException if the file with given filename was not found in the default directory or if an I/O error occurred while reading.
+     * Store the BinaryCIF file of the given PDB ID from the given input stream in the PDBCache, e.g. for large structures which are not available as PDB file.
+     * The file is only added to the cache if the stream could be read completely. Nothing is stored if a file of this ID is already present.
+     * @param binaryCifInputStream - the stream to be stored. Shall not be null. The stream is closed afterwards.
+     * @param pdbID - the entryID of the file, represented in the inputStream; shall not be null nor blank
+     * @throws IOException - if an error occurs reading the stream or writing the file
+     * @throws NullArgumentException - if input stream is null or pdbID is null or blank.
      */
-    public static String getContentOfFile(String fileName) throws IOException {
-        StringBuilder fileString = new StringBuilder();
+    public static void createBinaryCifFromStream(InputStream binaryCifInputStream, String pdbID) throws IOException, NullArgumentException{
+        if(binaryCifInputStream != null && pdbID != null && !pdbID.isBlank()){
+            try (InputStream input = binaryCifInputStream) {
+                if(!isFileCreated(pdbID)){
+                    PDBCache.getDefault().put(pdbID + BINARY_CIF_EXTENSION, input::transferTo);
+                }
+            }
+        }
+        else{
+            throw new NullArgumentException("File can not be created when input Stream is null or PDB ID is null or blank.");
+        }
+    }
+
+    /**
+     * Open the file with the given name. Files in the default location are preferred, e.g. files which were stored there by the user,
+     * otherwise the file is read from the PDBCache.
+     * @param filename - the file name of the file to be read without file extension; not null and not blank
+     * @return a reader of the content of the file
+     * @throws IOException if the file is neither in the default location nor in the cache or if it can not be opened
+     */
+    public static Reader openFile(String filename) throws IOException {
+        if(filename == null || filename.isBlank()){
+            throw new FileNotFoundException("File can not be opened if its name is null or blank.");
+        }
+        File pdbFile = new File(DEFAULT_STORING_DIRECTORY + filename + FILE_EXTENSION);
+        if(pdbFile.exists()){
+            return new FileReader(pdbFile);
+        }
+        return new InputStreamReader(PDBCache.getDefault().open(filename));
+    }
 
-        if(fileName != null && !fileName.isBlank()){
-            if(!fileName.endsWith(".pdb")){
-                fileName = fileName +FILE_EXTENSION;
+    /**
+     * Open the lines of the file with the given name, like openFile. Files in the default location are mapped into memory,
+     * so their records are scanned in place without being copied; files of the PDBCache are compressed and therefore read.
+     * @param filename - the file name of the file to be read without file extension; not null and not blank
+     * @return a line buffer of the content of the file
+     * @throws IOException if the file is neither in the default location nor in the cache or if it can not be opened
+     */
+    public static PDBLineBuffer openLines(String filename) throws IOException {
+        if(filename == null || filename.isBlank()){
+            throw new FileNotFoundException("File can not be opened if its name is null or blank.");
+        }
+        File pdbFile = new File(DEFAULT_STORING_DIRECTORY + filename + FILE_EXTENSION);
+        if(pdbFile.exists() && pdbFile.length() <= Integer.MAX_VALUE){
+            return PDBLineBuffer.map(pdbFile.toPath());
+        }
+        return new PDBLineBuffer(openFile(filename));
+    }
+
+    /**
+     * Open the file with the given name from the default location or the cache as document, which is shown e.g. in the file tab.
+     * Files in the default location are mapped into memory, files of the PDBCache are decompressed once. Only the offsets of the lines
+     * are read when the document is opened, the lines are created when they are shown.
+     * @param fileName - the file name of the file to be read without file extension; not null and not blank
+     * @return the document of the file, or a document with a message if the entry is only available as BinaryCIF file
+     * @throws IOException if the file is neither in the default location nor in the cache or if it can not be read
+     */
+    public static PDBDocument openDocument(String fileName) throws IOException {
+        if(fileName == null || fileName.isBlank()){
+            throw new FileNotFoundException("File can not be opened if its name is null or blank.");
+        }
+        if(fileName.endsWith(FILE_EXTENSION)){
+            fileName = fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+        }
+        File file = new File(DEFAULT_STORING_DIRECTORY + fileName + FILE_EXTENSION);
+        if(!isPdbFileCreated(fileName) && isCifFileCreated(fileName)){
+            file = new File(DEFAULT_STORING_DIRECTORY + fileName + CIF_EXTENSION);
+            if(!file.exists()){
+                return PDBDocument.of("Entry " + fileName + " is only available as BinaryCIF file, which can not be shown as text.");
             }
-            BufferedReader reader = new BufferedReader(new FileReader(DEFAULT_STORING_DIRECTORY + fileName));
-            String nextLine = reader.readLine();
-            while(nextLine != null) {
-                fileString.append(nextLine).append(" \n ");
-                nextLine = reader.readLine();
+        }
+        if(file.exists() && file.length() <= Integer.MAX_VALUE){
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                return new PDBDocument(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
             }
         }
-        return fileString.toString();
+        try (InputStream input = PDBCache.getDefault().open(fileName)) {
+            return new PDBDocument(ByteBuffer.wrap(input.readAllBytes()));
+        }
     }
 
     private void resetLists(){
         //init
         this.monomersOfChain = new HashMap<>();
+        this.sequenceOfChain = new HashMap<>();
         this.chains = new ArrayList<>();
+        this.chainPositions = new HashMap<>();
+        this.secondaryStructuresOfChain = new HashMap<>();
+        this.residueIndex = new HashMap<>();
+        this.lastResidue = null;
+        this.lastResidueName = null;
+        this.lastFailedResidue = null;
+        this.ligandAtomOfSerial = new HashMap<>();
+        this.ligandOfResidue = new HashMap<>();
+        this.templateBondsOfResidue = new HashMap<>();
+        this.atomTable = new AtomTable();
+        this.modelNumbers = new ArrayList<>();
+        this.modelPositions = new ArrayList<>();
+    }
+
+    /**
+     * Add a new chain with the given ID to the chains of the file and keep its position to find it again by its ID.
+     * @param chainID ID of the chain as mentioned in the COMPND section
+     */
+    private void addChain(String chainID){
+        this.chains.add(new Polymer(chainID));
+        this.chainPositions.putIfAbsent(chainID, this.chains.size() - 1);      //first chain with this ID is the one which will be found
+    }
+
+    /**
+     * Add a helix or sheet structure to the chain at the given position.
+     * These structures are the only ones, in which a monomer of the ATOM section needs to be searched by sequence number.
+     * @param chainPos position of the chain in the list of chains
+     * @param structure the helix or sheet to be added
+     */
+    private void addSecondaryStructure(int chainPos, Structure structure){
+        this.chains.get(chainPos).addStructure(structure);
+        this.secondaryStructuresOfChain.computeIfAbsent(chainPos, pos -> new ArrayList<>()).add(structure);
     }
 
 
@@ -101,24 +220,135 @@ public class FileParser {
      */
     public Molecules getMoleculeFromFile(CreateMoleculeTask task) throws IOException {
         if(task != null) {
-            String filename = task.getFilename();
+            return getMoleculeFromFile(task.getFilename(), task::updateProgressValue);
+        }
+        return null;
+    }
+
+    /**
+     * Load the molecules of the file with the given name ready to be shown: centered at the origin and with detected bonds.
+     * A snapshot of the loaded molecules is kept in the PDBCache next to the file. As long as the file does not change,
+     * the molecules are read from this snapshot afterwards, so the file is neither parsed again nor are bonds detected again.
+     * @param filename - the name of the file without file extension; not null or blank
+     * @param progress - receives the progress of loading from 0 to 100; not null
+     * @return the loaded molecules, null if filename is null or blank
+     * @throws IOException if the file can not be read
+     */
+    public Molecules loadMolecules(String filename, DoubleConsumer progress) throws IOException {
+        if(filename == null || filename.isBlank() || progress == null){
+            return null;
+        }
+        String snapshotKey = filename + SNAPSHOT_EXTENSION;
+        String sourceStamp = getSourceStamp(filename);
+        PDBCache cache = PDBCache.getDefault();
+        if(sourceStamp != null && cache.contains(snapshotKey)){
+            try (InputStream input = cache.open(snapshotKey)) {
+                Molecules snapshot = MoleculesSnapshot.read(input, sourceStamp, (numbers, positions) -> new PDBModelIndex(filename, numbers, positions));
+                if(snapshot != null){
+                    this.molecules = snapshot;
+                    progress.accept(90);
+                    return snapshot;
+                }
+            }
+            catch (IOException e){
+                System.err.println("Snapshot of " + filename + " can not be read, file is parsed instead: " + e.getMessage());
+            }
+        }
+        Molecules parsed = getMoleculeFromFile(filename, progress);
+        if(parsed != null){
+            parsed.centerAtOrigin();
+            parsed.getBonds();               //detect bonds once for all monomers, after atoms were moved
+            if(sourceStamp != null){
+                try {
+                    //another loader of the same file, e.g. the preloading of all entries, might have stored the snapshot in the meantime
+                    if(!hasCurrentSnapshot(cache, snapshotKey, sourceStamp)) {
+                        cache.put(snapshotKey, out -> MoleculesSnapshot.write(parsed, sourceStamp, out));
+                    }
+                }
+                catch (IOException e){
+                    System.err.println("Snapshot of " + filename + " can not be stored: " + e.getMessage());
+                }
+            }
+        }
+        return parsed;
+    }
 
+    /**
+     * Check if the cache contains a snapshot of the current version for the given stamp, so it does not need to be written again.
+     */
+    private static boolean hasCurrentSnapshot(PDBCache cache, String snapshotKey, String sourceStamp) throws IOException {
+        if(!cache.contains(snapshotKey)){
+            return false;
+        }
+        try (InputStream input = cache.open(snapshotKey)) {
+            return MoleculesSnapshot.isCurrent(input, sourceStamp);
+        }
+        catch (FileNotFoundException e){
+            return false;           //removed in the meantime
+        }
+    }
+
+    /**
+     * Get a stamp which identifies the current content of the file with the given name, which is the file a snapshot is created from.
+     * Files in the default location are identified by their size and modification time, files of the PDBCache by their checksum.
+     * @return the stamp of the file, null if there is no such file
+     */
+    private static String getSourceStamp(String filename) throws IOException {
+        //same order in which the sources are parsed
+        File pdbFile = new File(DEFAULT_STORING_DIRECTORY + filename + FILE_EXTENSION);
+        if(pdbFile.exists()){
+            return FILE_EXTENSION + ":" + pdbFile.length() + ":" + pdbFile.lastModified();
+        }
+        PDBCache cache = PDBCache.getDefault();
+        String checksum = cache.getChecksum(filename);
+        if(checksum != null){
+            return FILE_EXTENSION + ":" + checksum;
+        }
+        for (String extension : new String[]{BINARY_CIF_EXTENSION, CIF_EXTENSION}) {
+            File cifFile = new File(DEFAULT_STORING_DIRECTORY + filename + extension);
+            if(cifFile.exists()){
+                return extension + ":" + cifFile.length() + ":" + cifFile.lastModified();
+            }
+        }
+        checksum = cache.getChecksum(filename + BINARY_CIF_EXTENSION);
+        return checksum != null ? BINARY_CIF_EXTENSION + ":" + checksum : null;
+    }
+
+    /**
+     * Create a molecule according to the description given in the file with name filename.
+     * A FileParser parses one file at a time, use one FileParser per thread to parse several files in parallel.
+     * @param filename - the name of a file containing information about single atoms of the molecule to be created, without file extension
+     * @param progress - receives the progress of parsing from 0 to 100; not null
+     * @return - the molecule which contains all atoms mentioned in the specified file, null if filename is null or blank
+     * @throws IOException - if an error occurs reading the file
+     */
+    public Molecules getMoleculeFromFile(String filename, DoubleConsumer progress) throws IOException {
+        if(progress != null) {
+            if (filename != null && !filename.isBlank() && !isPdbFileCreated(filename) && isCifFileCreated(filename)) {
+                //e.g. large structures which are only available as mmCIF or BinaryCIF file
+                progress.accept(0);
+                Molecules cifMolecules = CifModelBuilder.build(readCifCategories(filename), filename, progress);
+                this.molecules = cifMolecules;
+                return cifMolecules;
+            }
             if (filename != null && !filename.isBlank()) {
                 resetLists();
                 this.molecules = new Molecules(filename);
                 List<String> moleculeNames = new ArrayList<>();
-                this.reader = new BufferedReader(new FileReader(DEFAULT_STORING_DIRECTORY + filename + FILE_EXTENSION));
-
-                String nextLine = this.reader.readLine();
-                while (nextLine != null) {
-                    while (nextLine.startsWith("COMPND")) { //get macromolecule names and names of polymers, belonging to each macromolecule
+                this.lines = openLines(filename);
 
+                //only lines of the header are created as String, all other records are read from the line buffer
+                boolean hasNextLine = this.lines.readLine();
+                while (hasNextLine) {
+                    while (this.lines.startsWith("COMPND")) { //get macromolecule names and names of polymers, belonging to each macromolecule
+                        String nextLine = this.lines.toString();
                         if (nextLine.contains("MOLECULE:")) {
                             String moleculeName = nextLine.substring(11, 80).trim().replace(";", "");
-                            while(!nextLine.contains("CHAIN")) {
-                                nextLine = this.reader.readLine();
+                            //names of molecules may contain CHAIN as well, e.g. HEAVY CHAIN OF FAB
+                            while(nextLine != null && nextLine.startsWith("COMPND") && !nextLine.contains("CHAIN:")) {
+                                nextLine = readLine();
                             }
-                            if (nextLine.contains("CHAIN:")) {
+                            if (nextLine != null && nextLine.contains("CHAIN:")) {
                                 // get all monomers by removing end of line sign: ; and splitting at separator: ,
                                 String[] ids = nextLine.substring(18, 80).trim().replace(";", "").split(",");
 
@@ -126,31 +356,35 @@ public class FileParser {
                                 if (!moleculeName.isBlank() && ids.length > 0) {
                                     moleculeNames.add(moleculeName);
                                     for (String id : ids) {//init found chains
-                                        this.chains.add(new Polymer(id.trim())); //init polymers, which are mentioned for later sections
+                                        addChain(id.trim()); //init polymers, which are mentioned for later sections
                                     }
                                 } else {
                                     System.out.println("There was a molecule with empty or null name or chain IDs were empty");
                                 }
                             }
                         }
-                        nextLine = this.reader.readLine();
-                        task.updateProgressValue(5);
+                        hasNextLine = this.lines.readLine();
+                        progress.accept(5);
                     }
                     //records SOURCE, KEYWDS, EXPDTA, NUMMDL, MDLTYP, AUTHOR, REVDAT, SPRSDE, JRNL, DBREF, SEQADV are not considered
 
-                    while (nextLine.startsWith("SEQRES")) {    //parse details of polymers
-                        String chainID = nextLine.substring(11, 12).trim();
-                        this.monomersOfChain.put(chainID, getAllMonomersFromChain(chainID, nextLine));                      // store all monomers, will be put into structures later
-
-                        nextLine = this.reader.readLine(); // next molecule will be read (or start new section)
-                        task.updateProgressValue(15);
+                    while (this.lines.startsWith("SEQRES")) {    //parse details of polymers
+                        String chainID = this.lines.getColumn(11, 12);
+                        if(chainID.isBlank()){
+                            //records without chain ID are not parsed, but they need to be skipped
+                            hasNextLine = this.lines.readLine();
+                            continue;
+                        }
+                        this.monomersOfChain.put(chainID, getAllMonomersFromChain(chainID));                      // store all monomers, will be put into structures later
+                        //line buffer holds the first line of the next molecule (or of the next section)
+                        progress.accept(15);
                     }
 
-                    while (nextLine.startsWith("HELIX")) {
-                        String helixID = nextLine.substring(11, 14).trim();
-                        String initChainID = nextLine.substring(19, 20).trim().toUpperCase();                               //this does not change within one sheet
+                    while (this.lines.startsWith("HELIX")) {
+                        String helixID = this.lines.getColumn(11, 14);
+                        String initChainID = this.lines.getColumn(19, 20);                               //this does not change within one sheet
                         int chainPos = findChainPosition(initChainID);
-                        List<Monomer> helixMonomers = parseHelix(helixID, nextLine, initChainID);
+                        List<Monomer> helixMonomers = parseHelix(helixID, initChainID);
 
                         //                here is additionally -1 because positions p % 2 == 0 define start and p % 2 == 1 define stop Monomer --> always two monomers are processed
                         for(int i = 0; i < helixMonomers.size()-1; i++){
@@ -159,27 +393,27 @@ public class FileParser {
                             if(this.monomersOfChain.containsKey(initChainID) && startMono != null && stopMono != null) {
                                 List<Monomer> allChainMonomers = this.monomersOfChain.get(initChainID);
                                 //find positions of searched monomers in list of according chain
-                                int start = findMatchingMonomerPosition(allChainMonomers, startMono.getType().name(), startMono.getSequenceNumber());
-                                int stop = findMatchingMonomerPosition(allChainMonomers, stopMono.getType().name(), stopMono.getSequenceNumber());
+                                int start = findMatchingMonomerPosition(allChainMonomers, startMono.getComponent(), startMono.getSequenceNumber());
+                                int stop = findMatchingMonomerPosition(allChainMonomers, stopMono.getComponent(), stopMono.getSequenceNumber());
                                 if (start >= 0 && start < stop) {
                                     Structure helix = new Structure(helixID, StructureType.HELIX);
                                     helix.setMonomers(allChainMonomers.subList(start, stop + 1));                      //add all monomers between start and stop to a sheet
 
-                                    this.chains.get(chainPos).addStructure(helix);
+                                    addSecondaryStructure(chainPos, helix);
                                 }
                             }
                             i++; // increase by 2 because Monomers are processed pairwise.
                         }
 
-                        nextLine = this.reader.readLine(); //next helix will be read (or start new section)
-                        task.updateProgressValue(20);
+                        //line buffer holds the next helix (or the start of a new section)
+                        progress.accept(20);
                     }
 
-                    while (nextLine.startsWith("SHEET")) {
-                        String sheetID = nextLine.substring(11, 14).trim().toUpperCase();
-                        String initChainID = nextLine.substring(21, 22).trim().toUpperCase();                               //this does not change within one sheet
+                    while (this.lines.startsWith("SHEET")) {
+                        String sheetID = this.lines.getColumn(11, 14);
+                        String initChainID = this.lines.getColumn(21, 22);                               //this does not change within one sheet
                         int chainPos = findChainPosition(initChainID);
-                        List<Monomer> sheetMonomers = parseSheet(sheetID, nextLine, initChainID);
+                        List<Monomer> sheetMonomers = parseSheet(sheetID, initChainID);
 
                         //here is additionally -1 because positions p % 2 == 0 define start and p % 2 == 1 define stop Monomer --> always two monomers are processed
                         for(int i = 0; i < sheetMonomers.size()-1; i++){
@@ -188,37 +422,59 @@ public class FileParser {
                             if(this.monomersOfChain.containsKey(initChainID) && startMono != null && stopMono != null) {
                                 List<Monomer> allChainMonomers = this.monomersOfChain.get(initChainID);
                                 //find positions of searched monomers in list of according chain
-                                int start = findMatchingMonomerPosition(allChainMonomers, startMono.getType().name(), startMono.getSequenceNumber());
-                                int stop = findMatchingMonomerPosition(allChainMonomers, stopMono.getType().name(), stopMono.getSequenceNumber());
+                                int start = findMatchingMonomerPosition(allChainMonomers, startMono.getComponent(), startMono.getSequenceNumber());
+                                int stop = findMatchingMonomerPosition(allChainMonomers, stopMono.getComponent(), stopMono.getSequenceNumber());
                                 if (start >= 0 && start < stop) {
                                     Structure sheet = new Structure(sheetID, StructureType.SHEET);
                                     sheet.setMonomers(allChainMonomers.subList(start, stop + 1));                      //add all monomers between start and stop to a sheet
 
-                                    this.chains.get(chainPos).addStructure(sheet);
+                                    addSecondaryStructure(chainPos, sheet);
                                 }
                             }
                             i++; // increase by 2 because Monomers are processed pairwise.
                         }
 
-                        nextLine = this.reader.readLine(); //next sheet will be read (or start new section)
-                        task.updateProgressValue(25);
+                        //line buffer holds the next sheet (or the start of a new section)
+                        progress.accept(25);
                     }
 
                     //this part might be skipped completely if there is only one model
-                    //if it is there: only look at first model as they all describe same model.
-                    if (nextLine.startsWith("MODEL")) { //ends when corresponding ENDMDL appears
-                        nextLine = this.reader.readLine(); //to get first ATOM line
-                        task.updateProgressValue(30);
+                    //if it is there: only the atoms of the first model are parsed, all models share its atoms.
+                    //the other models are only indexed, their coordinates are read when the model is shown, see PDBModelIndex
+                    if (this.lines.startsWith("MODEL")) { //ends when corresponding ENDMDL appears
+                        this.modelPositions.add(this.lines.getLineOffset());
+                        this.modelNumbers.add(parseModelNumber());
+                        if (this.modelNumbers.size() == 1) {
+                            hasNextLine = this.lines.readLine(); //to get first ATOM line
+                            progress.accept(30);
+                        }
+                        else {
+                            hasNextLine = skipModel();
+                        }
+                    }
+                    while(this.lines.startsWith("ATOM") || this.lines.startsWith("HETATM")) {
+                        parseAtoms();                   //parses until does not start with ATOM or HETATM anymore
+                        if(this.lines.startsWith("TER")) {
+                            hasNextLine = this.lines.readLine();      //this will bring next line with ATOM again from next chain.
+                        }
+                        //any other line, e.g. ENDMDL or CONECT, is handled below
+                        progress.accept(50);
                     }
-                    while(nextLine.startsWith("ATOM")) {
-                        parseAtoms(nextLine);           //parses until does not start with ATOM anymore
-                        nextLine = reader.readLine();   //if TER, this will bring next line with ATOM again from next sheet.
-                        task.updateProgressValue(50);
+
+                    while(this.lines.startsWith("CONECT")) {
+                        parseConnections();
+                        hasNextLine = this.lines.readLine();
                     }
 
-                    nextLine = this.reader.readLine();
+                    //the MODEL record of the next model is handled by the next iteration, all other lines are skipped
+                    if(!this.lines.startsWith("MODEL")) {
+                        hasNextLine = this.lines.readLine();
+                    }
                 }
-                task.updateProgressValue(70);
+                this.lines.close();
+                this.atomTable.trimToSize();
+                addLigandBondTemplates();
+                progress.accept(70);
                 if (this.chains.size() > 0) {
                     StringBuilder macroMolName = new StringBuilder();
                     for(String molName : moleculeNames){
@@ -229,9 +485,12 @@ public class FileParser {
                     // else: no name stored for macromolecule...
                     molecules = new Molecules(macroMolName.toString());
                     molecules.setPolymers(this.chains);
+                    if (this.modelNumbers.size() > 1) {
+                        molecules.setModels(createModelIndex(filename), this.atomTable);
+                    }
                     System.out.printf("Molecules %s are created. %n", macroMolName);
                 }
-                task.updateProgressValue(90);
+                progress.accept(90);
             }
             return molecules;
         }
@@ -241,35 +500,35 @@ public class FileParser {
     /**
      * Parse all following lines, starting from nextline, which have HELIX in the beginning as long as there is no line starting with anything else.
      * All found Helix monomers are collected in a list which will be returned.
-     * @param helixID - the helix ID for which all following lines shall be parsed.
-     * @param nextLine - the line from which the reader is starting.
+     * The line buffer holds the first line which does not belong to this helix afterwards.
+     * @param helixID - the helix ID for which all following lines shall be parsed, starting with the line in the line buffer.
      * @param initChainID the chainID in which the starting monomer of this sheet is located, if the end monomer of this sheet turns out to be in another chain, the according monomer will be initialized with null.
      * @return a list of all initialized monomers, which could be found, can contain null values if inconsistencies are found like explained above.
      * @throws IOException if an error occurs when reading.
      */
-    private List<Monomer> parseHelix(String helixID, String nextLine, String initChainID) throws IOException {
+    private List<Monomer> parseHelix(String helixID, String initChainID) throws IOException {
         List<Monomer> parsedMonomers = null;
-        if(helixID != null && nextLine != null && initChainID != null){
+        if(helixID != null && initChainID != null){
             parsedMonomers = new ArrayList<>();
             //                                                                         check this, because after sheet comes LINK which might not be realized otherwise.
-            while (nextLine.substring(11, 14).trim().toUpperCase().equals(helixID) && nextLine.startsWith("HELIX")) {       // all monomers belong to this sheet.
-                String initMonomerName = nextLine.substring(15, 18).trim().toUpperCase();
-                int initSeqNumber = Integer.parseInt(nextLine.substring(21, 25).trim());
+            while (this.lines.startsWith("HELIX") && this.lines.getColumn(11, 14).equals(helixID)) {       // all monomers belong to this sheet.
+                String initMonomerName = this.lines.getColumn(15, 18);
+                int initSeqNumber = this.lines.parseInt(21, 25);
                 // add starting monomer of this helix
-                parsedMonomers.add(new Monomer(initSeqNumber, AminoAcid_Nucleotide.get(initMonomerName)));
+                parsedMonomers.add(new Monomer(initSeqNumber, ChemicalComponent.of(initMonomerName)));
 
                 //continue with end monomer if it has same initChainID:
-                if (nextLine.substring(31, 32).trim().toUpperCase().equals(initChainID)) {
-                    String endMonomerName =  nextLine.substring(27, 30).trim().toUpperCase();
-                    int endSeqNumber = Integer.parseInt(nextLine.substring(33, 37).trim());
-                    parsedMonomers.add(new Monomer(endSeqNumber, AminoAcid_Nucleotide.get(endMonomerName)));
+                if (this.lines.getColumn(31, 32).equals(initChainID)) {
+                    String endMonomerName =  this.lines.getColumn(27, 30);
+                    int endSeqNumber = this.lines.parseInt(33, 37);
+                    parsedMonomers.add(new Monomer(endSeqNumber, ChemicalComponent.of(endMonomerName)));
                 }
                 else {
                     //this should not happen; add null to keep list consistent (iterating start and stop monomers)
                     parsedMonomers.add(null);
                     System.err.println("Helix end monomer is supposed to be in the same polymer as the helix start monomer. For helix " + helixID + " polymers IDs differed.");
                 }
-                nextLine = this.reader.readLine();
+                this.lines.readLine();
             }
         }
         return parsedMonomers;
@@ -278,166 +537,334 @@ public class FileParser {
     /**
      * Parse all following lines, starting from nextline, which have SHEET in the beginning as long as there is no line starting with anything else.
      * All found Sheet monomers are collected in a list which will be returned.
-     * @param sheetID - the sheet ID for which all following lines shall be parsed.
-     * @param nextLine - the line from which the reader is starting.
+     * The line buffer holds the first line which does not belong to this sheet afterwards.
+     * @param sheetID - the sheet ID for which all following lines shall be parsed, starting with the line in the line buffer.
      * @param initChainID the chainID in which the starting monomer of this sheet is located, if the end monomer of this sheet turns out to be in another chain, the according monomer will be initialized with null.
      * @return a list of all initialized monomers, which could be found, can contain null values if inconsistencies are found like explained above.
      * @throws IOException if an error occurs when reading.
      */
-    private List<Monomer> parseSheet(String sheetID, String nextLine, String initChainID) throws IOException {
+    private List<Monomer> parseSheet(String sheetID, String initChainID) throws IOException {
         List<Monomer> parsedMonomers = null;
-        if(sheetID != null && nextLine != null && initChainID != null){
+        if(sheetID != null && initChainID != null){
             parsedMonomers = new ArrayList<>();
             //                                                                         check this, because after sheet comes LINK which might not be realized otherwise.
-            while (nextLine.substring(11, 14).trim().toUpperCase().equals(sheetID) && nextLine.startsWith("SHEET")) {       // all monomers belong to this sheet.
-                String monomerName = nextLine.substring(17, 20).trim().toUpperCase();
-                int initSeqNumber = Integer.parseInt(nextLine.substring(22, 26).trim());    // for atom reference
+            while (this.lines.startsWith("SHEET") && this.lines.getColumn(11, 14).equals(sheetID)) {       // all monomers belong to this sheet.
+                String monomerName = this.lines.getColumn(17, 20);
+                int initSeqNumber = this.lines.parseInt(22, 26);    // for atom reference
                 // add starting monomer of this sheet side
-                parsedMonomers.add(new Monomer(initSeqNumber, AminoAcid_Nucleotide.get(monomerName)));
+                parsedMonomers.add(new Monomer(initSeqNumber, ChemicalComponent.of(monomerName)));
 
                 //continue with end monomer if it has same initChainID:
-                if (nextLine.substring(32, 33).trim().toUpperCase().equals(initChainID)) {
-                    String endMonomerName = nextLine.substring(28, 31).trim().toUpperCase();
-                    int endSeqNumber = Integer.parseInt(nextLine.substring(33, 37).trim());
-                    boolean isParallelToPrevious = (Integer.parseInt(nextLine.substring(38, 40).trim()) == 1); // maybe not needed
-                    parsedMonomers.add(new Monomer(endSeqNumber, AminoAcid_Nucleotide.get(endMonomerName)));
+                if (this.lines.getColumn(32, 33).equals(initChainID)) {
+                    String endMonomerName = this.lines.getColumn(28, 31);
+                    int endSeqNumber = this.lines.parseInt(33, 37);
+                    parsedMonomers.add(new Monomer(endSeqNumber, ChemicalComponent.of(endMonomerName)));
                 }
                 else {
                     //this should not happen; add null to keep list consistent (iterating start and stop monomers)
                     parsedMonomers.add(null);
                     System.err.println("Sheets end monomer is supposed to be in the same polymer as the sheets start monomer. For sheet " + sheetID + " polymers IDs differed.");
                 }
-                nextLine = this.reader.readLine();
+                this.lines.readLine();
             }
         }
         return parsedMonomers;
     }
 
     /**
-     * Parse all following lines, starting from nextline, starting with ATOM as long as there is no line starting with anything else.
-     * @param nextLine - the line from where atoms shall be parsed. Must start with ATOM, otherwise nothing will be done.
-     *                 All parsed atoms are then automatically added to the according monomer which matches monomer name and molecule ID, given in the according line.
+     * Check if the current line of the given buffer is an atom which is parsed: an ATOM or HETATM record of the first location of the atom.
+     * If the location is e.g. B, it is the second variant of this atom, which is not parsed. Water is not parsed either.
+     * @param lines line buffer holding the line to check
+     * @return true if the atom of this line is added to the atom table
+     */
+    static boolean isParsedAtom(PDBLineBuffer lines) {
+        boolean hetero = lines.startsWith("HETATM");
+        if(!hetero && !lines.startsWith("ATOM")){
+            return false;
+        }
+        char locationIndicator = lines.charAt(16);
+        if(locationIndicator != 'A' && locationIndicator != ' '){
+            return false;
+        }
+        return !hetero || !ChemicalComponent.of(lines.getColumn(17, 20)).isWater();
+    }
+
+    /**
+     * Get the serial number of the MODEL record in the line buffer, which is its position among the models if the number is missing.
+     */
+    private int parseModelNumber() {
+        try {
+            return this.lines.parseInt(10, 14);
+        }
+        catch (NumberFormatException e){
+            return this.modelNumbers.size() + 1;
+        }
+    }
+
+    /**
+     * Skip all lines of the model which starts with the MODEL record in the line buffer, without parsing them.
+     * The line buffer holds the ENDMDL record of this model afterwards.
+     * @return false if the end of the file was reached before the ENDMDL record
+     * @throws IOException if an error occurs when reading.
+     */
+    private boolean skipModel() throws IOException {
+        boolean hasNextLine = this.lines.readLine();
+        while(hasNextLine && !this.lines.startsWith("ENDMDL")){
+            hasNextLine = this.lines.readLine();
+        }
+        return hasNextLine;
+    }
+
+    /**
+     * Create the index of all models which were found while the file was parsed.
+     */
+    private PDBModelIndex createModelIndex(String filename) {
+        int[] numbers = new int[this.modelNumbers.size()];
+        long[] positions = new long[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = this.modelNumbers.get(i);
+            positions[i] = this.modelPositions.get(i);
+        }
+        return new PDBModelIndex(filename, numbers, positions);
+    }
+
+    /**
+     * Parse all following lines, starting from the line which is currently held in the line buffer, starting with ATOM as long as there is no line starting with anything else.
+     * Columns are read directly from the line buffer, so no Strings are created for whole lines and numbers.
+     * All parsed atoms are stored in the atom table of the file and then automatically added to the according monomer which matches monomer name and molecule ID, given in the according line.
+     * HETATM records of residues which are not part of the sequence of their chain are ligands, each ligand is a structure of type LIGAND.
+     * The element of their atoms is taken from the element columns, as names of ligand atoms do not need to start with their element.
      * @throws IOException if an error occurs while reading.
      */
-    private void parseAtoms(String nextLine) throws IOException {
+    private void parseAtoms() throws IOException {
         // this part is mandatory! All atoms from previous parts: sheets, models, monomers are specified here
-        while(nextLine!= null && nextLine.startsWith("ATOM")) {
-            String atomName = nextLine.substring(12, 16).trim().toUpperCase();
-            char locationIndicator = nextLine.charAt(16);
-            // only parse one orientation of this molecule --> if location orientation is e.g. B it were the second variant and shall not be parsed.
-            if(locationIndicator == 'A' || locationIndicator == ' ') {
-                String monomerName = nextLine.substring(17, 20).trim().toUpperCase();
-                String chainID = nextLine.substring(21, 22).trim().toUpperCase();
-                int resSeqNumber = Integer.parseInt(nextLine.substring(22, 26).trim());
-                double x = Double.parseDouble(nextLine.substring(30, 38).trim());
-                double y = Double.parseDouble(nextLine.substring(38, 46).trim());
-                double z = Double.parseDouble(nextLine.substring(46, 54).trim());
-                double tempFactor = Double.parseDouble(nextLine.substring(60, 66).trim());
-                String element = nextLine.substring(77).trim().toUpperCase();
-
-                AtomI atom;
-                Point3D location = new Point3D(x, y, z);
-                switch (atomName.substring(0, 1)) { //only check first letter here
-                    case "N" -> atom = new Nitrogen(location, tempFactor);
-                    case "C" -> {
-                        CarbonPosition position;
-                        switch (atomName){
-                            case "CA":  //for amino acids
-                            case "C5'": //for nucleotides
-                                position = CarbonPosition.GUIDE;
-                                break;
-                            case "CB": //for amino acids
-                            case "C1'": //for nucleotides
-                                position = CarbonPosition.TWIST;
-                                break;
-                            case "CO": position = CarbonPosition.OPPOSITE;
-                                break;
-                            default: position = CarbonPosition.RESIDUE;
-                        }
-                        atom = new Carbon(atomName, position, location, tempFactor);
-                    }
-                    case "H" -> atom = new Hydrogen(location, tempFactor);
-                    case "O" -> atom = new Oxygen(location, tempFactor);
-                    case "S" -> atom = new Sulfur(location, tempFactor);
-                    case "P" -> atom = new Phosphor(location, tempFactor);
-                    default -> {
-                        System.out.println("GenericAtom " + atomName + " was found and created.");
-                        atom = new GenericAtom(atomName, element, new Point3D(x, y, z), tempFactor);
-                    }
+        boolean hasNextLine = true;
+        while(hasNextLine && (this.lines.startsWith("ATOM") || this.lines.startsWith("HETATM"))) {
+            if(isParsedAtom(this.lines)) {
+                boolean hetero = this.lines.charAt(0) == 'H';
+                String atomName = this.lines.getColumn(12, 16);
+                String monomerName = this.lines.getColumn(17, 20);
+                String chainID = this.lines.getColumn(21, 22);
+                int resSeqNumber = this.lines.parseInt(22, 26);
+                char insertionCode = this.lines.charAt(26);
+                double x = this.lines.parseDecimal(30, 38);
+                double y = this.lines.parseDecimal(38, 46);
+                double z = this.lines.parseDecimal(46, 54);
+                double tempFactor = this.lines.parseDecimal(60, 66);
+                String element = this.lines.getColumn(76, 78);
+
+                if(monomerName != this.lastResidueName){
+                    this.lastResidueName = monomerName;
+                    this.lastComponent = ChemicalComponent.of(monomerName);
+                }
+                ChemicalComponent component = this.lastComponent;
+                boolean ligand = hetero && !component.isStandard() && !isInSequence(chainID, component);
+
+                Element atomElement = hetero ? Element.get(element, atomName) : Element.get(atomName.charAt(0)); //only check first letter of amino acids and nucleotides
+                CarbonPosition position = CarbonPosition.RESIDUE;
+                if(atomElement == Element.CARBON && !ligand){
+                    position = CarbonPosition.ofCarbon(atomName);
+                }
+                else if(atomElement == Element.GENERIC){
+                    System.out.println("GenericAtom " + atomName + " was found and created.");
                 }
-                boolean successful = addAtomToMonomer(chainID, monomerName, resSeqNumber, atom);
+                int atom = this.atomTable.addAtom(atomElement, atomName, position, x, y, z, tempFactor, -1);
+                boolean successful = addAtomToMonomer(chainID, component, resSeqNumber, insertionCode, atom, ligand);
                 if (!successful) {
-                    System.err.println("Atom " + element + " could not be added to chain " + chainID + ", Monomer " + monomerName + " (" + resSeqNumber + ")");
+                    //reported once per residue instead of once per atom
+                    String residue = chainID + resSeqNumber + insertionCode;
+                    if(!residue.equals(this.lastFailedResidue)){
+                        this.lastFailedResidue = residue;
+                        System.err.println("Monomer " + monomerName + " (" + resSeqNumber + ") could not be added to chain " + chainID + ", its atoms are not shown.");
+                    }
+                }
+                else if (ligand && component.getBondTemplate() == null) {
+                    //bonds of this ligand are learned from the CONECT records
+                    int serial = parseSerial(6);
+                    if(serial >= 0){
+                        this.ligandAtomOfSerial.put(serial, atom);
+                        this.ligandOfResidue.put(this.atomTable.getResidue(atom), component);
+                    }
                 }
             }
-            nextLine = reader.readLine();
+            hasNextLine = this.lines.readLine();
+        }
+    }
+
+    /**
+     * Check if the given component is named in the SEQRES records of the chain with the given ID, e.g. a modified amino acid like MSE.
+     */
+    private boolean isInSequence(String chainID, ChemicalComponent component) {
+        Set<ChemicalComponent> sequence = this.sequenceOfChain.get(chainID);
+        return sequence != null && sequence.contains(component);
+    }
+
+    /**
+     * Parse the serial number of an atom, which is right aligned in the five columns starting at the given column.
+     * @return the serial number, -1 if the columns are blank or contain no number, e.g. serial numbers of huge files in base 36.
+     */
+    private int parseSerial(int column) {
+        if(this.lines.length() < column + 5 || this.lines.charAt(column + 4) == ' '){
+            return -1;
+        }
+        try {
+            return this.lines.parseInt(column, column + 5);
+        }
+        catch (NumberFormatException e){
+            return -1;
+        }
+    }
+
+    /**
+     * Parse the CONECT record in the line buffer. Bonds between two atoms of the same ligand are kept by the names of the atoms,
+     * so they become the bond template of the component of this ligand, see addLigandBondTemplates.
+     * Bonds of other atoms, e.g. between a ligand and an amino acid, are not kept.
+     */
+    private void parseConnections() {
+        if(this.ligandAtomOfSerial.isEmpty()){
+            return;
+        }
+        Integer atom = this.ligandAtomOfSerial.get(parseSerial(6));
+        if(atom == null){
+            return;
+        }
+        int residue = this.atomTable.getResidue(atom);
+        for (int column = 11; column < 31; column += 5) {
+            Integer bondedAtom = this.ligandAtomOfSerial.get(parseSerial(column));
+            //each bond is listed for both of its atoms but only kept once
+            if(bondedAtom != null && atom < bondedAtom && this.atomTable.getResidue(bondedAtom) == residue){
+                List<String> names = this.templateBondsOfResidue.computeIfAbsent(residue, r -> new ArrayList<>());
+                names.add(this.atomTable.getAtomName(atom));
+                names.add(this.atomTable.getAtomName(bondedAtom));
+            }
+        }
+    }
+
+    /**
+     * Keep the bonds of each ligand, which were found in the CONECT records, as bond template of its component.
+     * Components are shared by all files, so the bonds of a ligand are known afterwards even for files without CONECT records.
+     */
+    private void addLigandBondTemplates() {
+        for (Map.Entry<Integer, List<String>> bonds : this.templateBondsOfResidue.entrySet()) {
+            List<String> names = bonds.getValue();
+            String[] firstAtomNames = new String[names.size() / 2];
+            String[] secondAtomNames = new String[firstAtomNames.length];
+            for (int b = 0; b < firstAtomNames.length; b++) {
+                firstAtomNames[b] = names.get(2 * b);
+                secondAtomNames[b] = names.get(2 * b + 1);
+            }
+            this.ligandOfResidue.get(bonds.getKey()).setBondTemplateIfAbsent(new BondTemplate(firstAtomNames, secondAtomNames));
         }
     }
 
     /**
      * Adds the given Atom to the monomer which is in chain with ID chain ID and has the name monomerName.
+     * Monomers are found in constant time by the residue index. Only the first atom of each residue needs to search
+     * the helix and sheet structures of the chain, all further atoms of this residue use the monomer which was found then.
      * @param chainID the chain ID in which the given atom can be found
-     * @param monomerName the monomer name of the monomer in which the given atom can be found
-     * @param resSeqNumber sequence number of the monomer with name monomerName in which the given atom can be found according to the ATOM section.
+     * @param component the component of the monomer in which the given atom can be found
+     * @param resSeqNumber sequence number of the monomer of this component in which the given atom can be found according to the ATOM section.
      *                     CAUTION: this number shall be the number of the PDB file, which starts counting at 1,
      *                     therefore in the final Polymer, this monomer will be found at position resSeqNumber -1 but the number within the monomer will always refer to the PDB counting.
      *                     This number might be incorrect as some PDB files contain inconsistencies. If at this position of the stored Monomer names
      *                     no monomer with monomerName can be found, the monomer with the same name which has a sequence Number closest to the given one will be used to add the atom.
-     * @param atom the atom to be added to the monomer specified with the given other parameters
+     * @param insertionCode code for insertion of residues, which distinguishes residues with the same sequence number; blank if there is none.
+     * @param atom index of the atom in the atom table, which shall be added to the monomer specified with the given other parameters
+     * @param ligand true if the monomer is a ligand, which is added as its own structure of type LIGAND.
+     *               Ligands of chains which are not declared in the COMPND records, e.g. glycans, are added to a new chain of this ID.
      * @return a boolean value if the given atom could be added successfully to the specified monomer.
      */
-    private boolean addAtomToMonomer(String chainID, String monomerName, int resSeqNumber, AtomI atom) {
-        if(chainID != null && !chainID.isBlank() && monomerName != null && !monomerName.isBlank() && resSeqNumber > 0 && atom != null) {
-            int chainPos = findChainPosition(chainID);
+    private boolean addAtomToMonomer(String chainID, ChemicalComponent component, int resSeqNumber, char insertionCode, int atom, boolean ligand) {
+        if(chainID != null && !chainID.isBlank() && component != null && (resSeqNumber > 0 || ligand) && atom >= 0) {          //ligands are not searched by their sequence number
+            int chainPos = getChainPosition(chainID);
+            if(chainPos < 0 && ligand){
+                addChain(chainID.trim().toUpperCase());
+                chainPos = this.chains.size() - 1;
+            }
             if(chainPos >= 0){                                                           //otherwise chain was not found
-                List<Structure> structures = this.chains.get(chainPos).getStructures();
-                for (int j = 0; j < structures.size(); j++) {
-                    Structure struct = structures.get(j);
-
-                    List<Monomer> monomers = struct.getMonomers();
-                    int monomerPos = findMatchingMonomerPosition(monomers, monomerName, resSeqNumber);
-                    if(monomerPos >= 0){
-                        //closest monomer in structure was found
-                        if(monomers.get(monomerPos).getSequenceNumber() == resSeqNumber){
-                            //this is exactly the monomer we are looking for
-                            this.chains.get(chainPos).getStructures().get(j).getMonomers().get(monomerPos).addAtom(atom);
-                            return true;
+                long key = residueKey(chainPos, resSeqNumber, insertionCode);
+                Monomer monomer = (this.lastResidue != null && this.lastResidueKey == key) ? this.lastResidue : this.residueIndex.get(key);
+
+                if(monomer == null || monomer.getComponent() != component){
+                    //first atom of this residue
+                    monomer = ligand ? null : findMonomerInSecondaryStructures(chainPos, component, resSeqNumber);
+                    if(monomer == null){
+                        //structure was not yet created:
+                        Structure structure = new Structure("DAIJ", StructureType.NUCLEOTIDE);
+                        if(ligand){
+                            structure = new Structure(component.getId(), StructureType.LIGAND);
+                        }
+                        else if(component.getId().length() == 3){
+                            structure = new Structure("N", StructureType.OTHER);
                         }
-                        //else: this is the closes monomer matching the searched one but not the actual one
+                        monomer = new Monomer(resSeqNumber, component);
+                        structure.getMonomers().add(monomer);
+                        this.chains.get(chainPos).addStructure(structure);
                     }
+                    this.residueIndex.put(key, monomer);
                 }
-                //structure was not yet created:
-                Structure structure = new Structure("DAIJ", StructureType.NUCLEOTIDE);
-                if(monomerName.length() == 3){
-                    structure = new Structure("N", StructureType.OTHER);
-                }
-                Monomer m = new Monomer(resSeqNumber, AminoAcid_Nucleotide.get(monomerName));
-                m.addAtom(atom);
-                structure.getMonomers().add(m);
-                this.chains.get(chainPos).addStructure(structure);
-                 return true;
+                this.lastResidueKey = key;
+                this.lastResidue = monomer;
+                monomer.addAtom(this.atomTable, atom);
+                return true;
             }
         }
         return false;
     }
 
+    /**
+     * Find the monomer of a residue of the ATOM section in the helix and sheet structures of the given chain.
+     * Within each structure the closest matching monomer is searched, see findMatchingMonomerPosition, but it is only used if its sequence number is the searched one.
+     * @param chainPos position of the chain in which the monomer is searched
+     * @param component component of the searched monomer
+     * @param resSeqNumber sequence number of the searched monomer
+     * @return the monomer if it is part of a helix or sheet, null otherwise
+     */
+    private Monomer findMonomerInSecondaryStructures(int chainPos, ChemicalComponent component, int resSeqNumber){
+        List<Structure> structures = this.secondaryStructuresOfChain.get(chainPos);
+        if(structures != null){
+            for (Structure struct : structures) {
+                List<Monomer> monomers = struct.getMonomers();
+                int monomerPos = findMatchingMonomerPosition(monomers, component, resSeqNumber);
+                if(monomerPos >= 0 && monomers.get(monomerPos).getSequenceNumber() == resSeqNumber){
+                    //this is exactly the monomer we are looking for
+                    return monomers.get(monomerPos);
+                }
+                //else: this is the closes monomer matching the searched one but not the actual one
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create the key of a residue in the residue index. It combines the chain position, the insertion code and the sequence number into one value,
+     * so no objects need to be created to look up a residue.
+     * @param chainPos position of the chain in the list of chains
+     * @param resSeqNumber sequence number of the residue
+     * @param insertionCode insertion code of the residue
+     * @return the key of the residue
+     */
+    private static long residueKey(int chainPos, int resSeqNumber, char insertionCode){
+        return ((long) chainPos << 48) | ((long) insertionCode << 32) | (resSeqNumber & 0xFFFFFFFFL);
+    }
 
     /**
-     * Parses the following lines as long as the lines contain the same moleculeID, which was provided.
+     * Parses the following lines, starting with the line in the line buffer, as long as the lines contain the same moleculeID, which was provided.
+     * The line buffer holds the first line of another molecule afterwards.
      * @param moleculeID - the ID referencing a molecule
-     * @param nextLine - the Line from were to start
      * @return a List of all Monomers, which could be found in the following lines.
      * @throws IOException if an error occurs while reading.
      */
-    private List<Monomer> getAllMonomersFromChain(String moleculeID, String nextLine) throws IOException {
+    private List<Monomer> getAllMonomersFromChain(String moleculeID) throws IOException {
         List<Monomer> moleculesMonomers = null;
         Set<String> unknownMonoNames = new HashSet<>();
-        if(nextLine != null && !nextLine.isBlank() && this.reader != null && moleculeID != null && !moleculeID.isBlank()) {
+        if(this.lines != null && moleculeID != null && !moleculeID.isBlank()) {
             moleculesMonomers = new ArrayList<>();
+            Set<ChemicalComponent> sequence = this.sequenceOfChain.computeIfAbsent(moleculeID, id -> new HashSet<>());
             //store all monomers of one molecule in a list and keep them mapped
-            while (nextLine.substring(11, 12).equals(moleculeID)) {
+            while (this.lines.startsWith("SEQRES") && this.lines.getColumn(11, 12).equals(moleculeID)) {
                 // all monomers belong to this molecule.
-                String[] monomerNames = nextLine.substring(19).split(" ");
+                String[] monomerNames = this.lines.toString().substring(19).split(" ");
 
                 //get monomer IDs of this line
                 for (int i = 0; i < monomerNames.length; i++) {
@@ -445,16 +872,17 @@ public class FileParser {
                     // --> empty strings in monomers possible: trim
                     String monomerName = monomerNames[i].trim().toUpperCase();
                     if (!monomerName.isBlank()) {
-                        AminoAcid_Nucleotide monomerType = AminoAcid_Nucleotide.get(monomerName);
+                        ChemicalComponent component = ChemicalComponent.of(monomerName);
+                        sequence.add(component);
                         //                                          only saves some replicated printings
-                        if(monomerType.getName().equals("OTHER") && !unknownMonoNames.contains(monomerName)){
+                        if(!component.isStandard() && !unknownMonoNames.contains(monomerName)){
                             System.out.println("Sorry, there was an amino acid or nucleotide which is unknown to me: " + monomerName + ". Therefore it will not be parsed.");
                             unknownMonoNames.add(monomerName);
-                            moleculesMonomers.add(new Monomer(i, monomerType));
+                            moleculesMonomers.add(new Monomer(i, component));
                         }
                     }
                 }
-                nextLine = this.reader.readLine();
+                this.lines.readLine();
             }
         }
         return moleculesMonomers;
@@ -469,26 +897,25 @@ public class FileParser {
      * In case there is no occurrence of the given name in the chain before seqNumber, the closest position after seqNumber will be given.
      * @param storedMonomerOfChain list of the Monomer which were already parsed to belong to the according chain;
      *                             shall not be null and shall not have a size smaller or equal to zero.
-     * @param monomerName the name of the monomer which can be an amino acid or nucleotide;
-     *                    shall not be null or blank
+     * @param component the component of the monomer which can be an amino acid or nucleotide;
+     *                  shall not be null
      * @param seqNumber number identifying the position of this monomer within the according chain;
      *                        must be greater than zero.
      * @return the position of the monomer in the list of the according chain if any was found,
      *         a negative value otherwise or when any of the given parameter was not valid.
      */
-    private int findMatchingMonomerPosition(List<Monomer> storedMonomerOfChain, String monomerName, int seqNumber) {
-        if(storedMonomerOfChain != null && storedMonomerOfChain.size() > 0 && monomerName != null && !monomerName.isBlank() && seqNumber > 0) {
-            monomerName = monomerName.trim().toUpperCase();
-
+    private int findMatchingMonomerPosition(List<Monomer> storedMonomerOfChain, ChemicalComponent component, int seqNumber) {
+        if(storedMonomerOfChain != null && storedMonomerOfChain.size() > 0 && component != null && seqNumber > 0) {
+            //components are interned, so they are compared by identity instead of their names
             if (seqNumber < storedMonomerOfChain.size()) {
-                if (storedMonomerOfChain.get(seqNumber).getType().name().equals(monomerName)) {
+                if (storedMonomerOfChain.get(seqNumber).getComponent() == component) {
                     return seqNumber; //file is valid.
                 }
             }
             else {
                 //some monomers were not mentioned in file.
                 for (int j = 0; j < storedMonomerOfChain.size(); j++) {
-                    if (storedMonomerOfChain.get(j).getType().name().equals(monomerName)) {
+                    if (storedMonomerOfChain.get(j).getComponent() == component) {
                         return j;
                     }
                 }
@@ -504,29 +931,101 @@ public class FileParser {
      * @return the position of the chain with searched chainID if present, a negative value otherwise.
      */
     private int findChainPosition(String chainID) {
+        int position = getChainPosition(chainID);
+        if(position < 0 && chainID != null && !chainID.isBlank()) {
+            System.err.println("Searching for Chain " + chainID + " failed.");
+        }
+        return position;
+    }
+
+    /**
+     * Get the position of the chain with ID chainID in the local list, like findChainPosition but without reporting missing chains.
+     */
+    private int getChainPosition(String chainID) {
         if(chainID != null && !chainID.isBlank()) {
-            chainID = chainID.trim().toUpperCase();
-            for (int j = 0; j<this.chains.size(); j++) {
-                if (this.chains.get(j).getUnitID().equals(chainID)) {
-                    return j;
-                }
+            Integer position = this.chainPositions.get(chainID.trim().toUpperCase());
+            if(position != null){
+                return position;
             }
-            System.err.println("Searching for Chain " + chainID + " failed.");
         }
         return -1;
     }
 
+    /**
+     * Read the next line of the file which is currently parsed into the line buffer.
+     * @return the next line as String, null if the end of the file was reached.
+     * @throws IOException if an error occurs while reading.
+     */
+    private String readLine() throws IOException {
+        if(this.lines.readLine()){
+            return this.lines.toString();
+        }
+        return null;
+    }
+
+    /**
+     * Read the categories which are needed to create molecules from the mmCIF or BinaryCIF file of the given entry.
+     * BinaryCIF files are preferred, as they are decoded faster than text.
+     * @param filename name of the file without file extension, the file is searched in the default location and the PDBCache
+     * @return categories of the file by their name
+     * @throws IOException if there is no such file or it can not be read
+     */
+    private static Map<String, CifCategory> readCifCategories(String filename) throws IOException {
+        File binaryFile = new File(DEFAULT_STORING_DIRECTORY + filename + BINARY_CIF_EXTENSION);
+        if(binaryFile.exists()){
+            try (InputStream input = new FileInputStream(binaryFile)) {
+                return BinaryCifDecoder.read(input, CifModelBuilder.CATEGORIES);
+            }
+        }
+        File textFile = new File(DEFAULT_STORING_DIRECTORY + filename + CIF_EXTENSION);
+        if(textFile.exists()){
+            try (Reader reader = new FileReader(textFile)) {
+                return CifTokenizer.read(reader, CifModelBuilder.CATEGORIES);
+            }
+        }
+        try (InputStream input = PDBCache.getDefault().open(filename + BINARY_CIF_EXTENSION)) {
+            return BinaryCifDecoder.read(input, CifModelBuilder.CATEGORIES);
+        }
+    }
 
     /**
-     * Checks if filename with provided name was already created on default location with default file extension
+     * Checks if filename with provided name was already created on default location with default file extension or is stored in the PDBCache,
+     * either as PDB file or as mmCIF or BinaryCIF file.
      * @param filename of the file to check for existence, without file extension
      *                 not null or blank
-     * @return true if the file is already present in the default location, false otherwise or if filename is null or blank
+     * @return true if the file is already present in the default location or the cache, false otherwise or if filename is null or blank
      */
     public static boolean isFileCreated(String filename){
+        return isPdbFileCreated(filename) || isCifFileCreated(filename);
+    }
+
+    private static boolean isPdbFileCreated(String filename){
         if(filename != null && !filename.isBlank()) {
             File pdbFile = new File(FileParser.DEFAULT_STORING_DIRECTORY + filename + FileParser.FILE_EXTENSION);
-            return pdbFile.exists();
+            if(pdbFile.exists()){
+                return true;
+            }
+            try {
+                return PDBCache.getDefault().contains(filename);
+            }
+            catch (IOException e){
+                System.err.println("PDB cache can not be accessed: " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCifFileCreated(String filename){
+        if(filename != null && !filename.isBlank()) {
+            if(new File(DEFAULT_STORING_DIRECTORY + filename + BINARY_CIF_EXTENSION).exists() || new File(DEFAULT_STORING_DIRECTORY + filename + CIF_EXTENSION).exists()){
+                return true;
+            }
+            try {
+                return PDBCache.getDefault().contains(filename + BINARY_CIF_EXTENSION);
+            }
+            catch (IOException e){
+                System.err.println("PDB cache can not be accessed: " + e.getMessage());
+            }
         }
         return false;
     }
@@ -0,0 +1,124 @@
+package model.pdbaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MessagePackReader decodes MessagePack data, which is the container format of BinaryCIF files.
+ * Maps are decoded to Map&lt;String, Object&gt;, arrays to List&lt;Object&gt;, binary data to ByteBuffer, which is a view of the data without copying,
+ * strings to String, integers to Long, floating point numbers to Double, booleans to Boolean and nil to null. Extension types are not supported.
+ */
+class MessagePackReader {
+
+    private final ByteBuffer data;
+
+    /**
+     * Constructor of a reader of the given data.
+     * @param data the complete MessagePack data; not null
+     */
+    MessagePackReader(byte[] data) {
+        this.data = ByteBuffer.wrap(data).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Read the next value of the data.
+     * @return the decoded value, see class description
+     * @throws IOException if the data is not valid MessagePack or ends unexpectedly
+     */
+    Object read() throws IOException {
+        try {
+            return readValue();
+        }
+        catch (RuntimeException e){
+            throw new IOException("Invalid MessagePack data at position " + this.data.position() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Object readValue() throws IOException {
+        int type = this.data.get() & 0xFF;
+        if(type <= 0x7F){
+            return (long) type;                                     //positive fixint
+        }
+        if(type >= 0xE0){
+            return (long) (byte) type;                              //negative fixint
+        }
+        if(type <= 0x8F){
+            return readMap(type & 0x0F);
+        }
+        if(type <= 0x9F){
+            return readArray(type & 0x0F);
+        }
+        if(type <= 0xBF){
+            return readString(type & 0x1F);
+        }
+        return switch (type) {
+            case 0xC0 -> null;
+            case 0xC2 -> Boolean.FALSE;
+            case 0xC3 -> Boolean.TRUE;
+            case 0xC4 -> readBinary(this.data.get() & 0xFF);
+            case 0xC5 -> readBinary(this.data.getShort() & 0xFFFF);
+            case 0xC6 -> readBinary(this.data.getInt());
+            case 0xCA -> (double) this.data.getFloat();
+            case 0xCB -> this.data.getDouble();
+            case 0xCC -> (long) (this.data.get() & 0xFF);
+            case 0xCD -> (long) (this.data.getShort() & 0xFFFF);
+            case 0xCE -> this.data.getInt() & 0xFFFFFFFFL;
+            case 0xCF, 0xD3 -> this.data.getLong();
+            case 0xD0 -> (long) this.data.get();
+            case 0xD1 -> (long) this.data.getShort();
+            case 0xD2 -> (long) this.data.getInt();
+            case 0xD9 -> readString(this.data.get() & 0xFF);
+            case 0xDA -> readString(this.data.getShort() & 0xFFFF);
+            case 0xDB -> readString(this.data.getInt());
+            case 0xDC -> readArray(this.data.getShort() & 0xFFFF);
+            case 0xDD -> readArray(this.data.getInt());
+            case 0xDE -> readMap(this.data.getShort() & 0xFFFF);
+            case 0xDF -> readMap(this.data.getInt());
+            default -> throw new IOException("Unsupported MessagePack type 0x" + Integer.toHexString(type) + ".");
+        };
+    }
+
+    private Map<String, Object> readMap(int size) throws IOException {
+        Map<String, Object> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Object key = readValue();
+            map.put(String.valueOf(key), readValue());
+        }
+        return map;
+    }
+
+    private List<Object> readArray(int size) throws IOException {
+        checkLength(size);
+        List<Object> array = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            array.add(readValue());
+        }
+        return array;
+    }
+
+    private String readString(int length) throws IOException {
+        checkLength(length);
+        String string = new String(this.data.array(), this.data.position(), length, StandardCharsets.UTF_8);
+        this.data.position(this.data.position() + length);
+        return string;
+    }
+
+    private ByteBuffer readBinary(int length) throws IOException {
+        checkLength(length);
+        ByteBuffer binary = this.data.slice(this.data.position(), length);
+        this.data.position(this.data.position() + length);
+        return binary;
+    }
+
+    private void checkLength(int length) throws IOException {
+        if(length < 0 || length > this.data.remaining()){
+            throw new IOException("MessagePack value of length " + Integer.toUnsignedString(length) + " exceeds the data.");
+        }
+    }
+}
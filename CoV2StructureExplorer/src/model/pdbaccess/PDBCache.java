@@ -0,0 +1,470 @@
+package model.pdbaccess;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * PDBCache is a local, size limited store of downloaded PDB files, so that files which were opened before do not need to be downloaded again.
+ * Entries are stored gzip compressed and are addressed by the SHA-256 checksum of their content, so equal files are stored only once.
+ * A manifest in the cache directory keeps for each PDB ID the checksum, the compressed size and the time of the last access of its file.
+ * Whenever the total size of all stored files exceeds the disk budget, the least recently used entries are removed.
+ * The checksum of an entry is verified while it is read; entries which do not match their checksum anymore are removed from the cache.
+ */
+public class PDBCache {
+
+    public static final String DEFAULT_CACHE_DIRECTORY = FileParser.DEFAULT_STORING_DIRECTORY + "cache" + File.separator;
+    public static final long DEFAULT_DISK_BUDGET = 512L * 1024 * 1024;
+    private static final String BUDGET_PROPERTY = "pdbcache.budget";           //disk budget in bytes, can be set e.g. by -Dpdbcache.budget=100000000
+    private static final String MANIFEST_NAME = "manifest.tsv";
+    private static final String ENTRY_EXTENSION = FileParser.FILE_EXTENSION + ".gz";
+
+    private static PDBCache defaultCache;
+
+    private final Path directory;
+    private final long diskBudget;
+    private final Map<String, Entry> entries;           //entries by PDB ID in order of their last access, least recent first
+    private long totalSize;
+
+    /**
+     * One PDB file in the cache.
+     */
+    private static class Entry {
+        private final String checksum;
+        private final long size;
+        private long lastAccess;
+
+        private Entry(String checksum, long size, long lastAccess) {
+            this.checksum = checksum;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * Create a cache within the given directory. Entries which are already stored in the directory are read from its manifest.
+     * @param directory the directory of the cache, is created if it does not exist yet; shall not be null
+     * @param diskBudget maximum number of bytes of all entries; needs to be greater than 0
+     * @throws IOException if the directory can not be created or the manifest can not be read.
+     */
+    public PDBCache(Path directory, long diskBudget) throws IOException {
+        if(directory == null){
+            throw new IllegalArgumentException("Cache can not be created in a directory which is null.");
+        }
+        if(diskBudget <= 0){
+            throw new IllegalArgumentException("Cache needs a disk budget greater than 0, but was " + diskBudget + ".");
+        }
+        this.directory = directory;
+        this.diskBudget = diskBudget;
+        this.entries = new LinkedHashMap<>();
+        Files.createDirectories(directory);
+        readManifest();
+    }
+
+    /**
+     * Get the cache in the default cache directory, which is shared by the whole program.
+     * Its disk budget can be set by the system property pdbcache.budget.
+     * @return the default cache
+     * @throws IOException if the default cache directory can not be created or its manifest can not be read.
+     */
+    public static synchronized PDBCache getDefault() throws IOException {
+        if(defaultCache == null){
+            long budget = DEFAULT_DISK_BUDGET;
+            String budgetValue = System.getProperty(BUDGET_PROPERTY);
+            if(budgetValue != null){
+                try {
+                    budget = Long.parseLong(budgetValue.trim());
+                }
+                catch (NumberFormatException e){
+                    System.err.println("Disk budget of PDB cache is not a number: " + budgetValue + ". Default budget is used instead.");
+                }
+            }
+            defaultCache = new PDBCache(Paths.get(DEFAULT_CACHE_DIRECTORY), budget);
+        }
+        return defaultCache;
+    }
+
+    /**
+     * Check if the file of the given PDB ID is stored in this cache. This does not count as access of the entry.
+     * @param pdbID the entry ID of the file
+     * @return true if the file is in the cache, false otherwise or if pdbID is null or blank
+     */
+    public synchronized boolean contains(String pdbID){
+        if(pdbID == null || pdbID.isBlank()){
+            return false;
+        }
+        Entry entry = this.entries.get(keyOf(pdbID));
+        return entry != null && Files.exists(pathOf(entry.checksum));
+    }
+
+    /**
+     * Get the checksum of the content of the file of the given PDB ID, which changes whenever the entry is replaced by other content.
+     * This does not count as access of the entry.
+     * @param pdbID the entry ID of the file
+     * @return the SHA-256 checksum of the uncompressed file as hex string, null if the file is not in this cache or pdbID is null or blank
+     */
+    public synchronized String getChecksum(String pdbID){
+        if(pdbID == null || pdbID.isBlank()){
+            return null;
+        }
+        Entry entry = this.entries.get(keyOf(pdbID));
+        return entry != null ? entry.checksum : null;
+    }
+
+    /**
+     * Open the file of the given PDB ID from this cache. The returned stream delivers the uncompressed file
+     * and throws an IOException at its end if the content does not match the checksum of the entry, the entry is removed in this case.
+     * @param pdbID the entry ID of the file; not null nor blank
+     * @return the uncompressed content of the file
+     * @throws FileNotFoundException if the file is not in this cache
+     * @throws IOException if the file can not be opened
+     */
+    public synchronized InputStream open(String pdbID) throws IOException {
+        String key = keyOf(pdbID);
+        Entry entry = this.entries.get(key);
+        if(entry == null){
+            throw new FileNotFoundException("PDB file " + pdbID + " is not in the cache.");
+        }
+        InputStream compressed;
+        try {
+            compressed = Files.newInputStream(pathOf(entry.checksum));
+        }
+        catch (NoSuchFileException e){
+            //blob was removed from outside
+            remove(key);
+            writeManifest();
+            throw new FileNotFoundException("PDB file " + pdbID + " is not in the cache anymore.");
+        }
+        //move the entry to the end of the access order
+        this.entries.remove(key);
+        this.entries.put(key, entry);
+        entry.lastAccess = System.currentTimeMillis();
+        writeManifest();
+        return new VerifyingInputStream(new GZIPInputStream(new BufferedInputStream(compressed)), key, entry.checksum);
+    }
+
+    /**
+     * Writes the uncompressed content of a new entry.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Add the file of the given PDB ID to this cache. The content is compressed and stored in a temporary file first,
+     * it is only added to the cache if it was written completely. An existing entry of the same ID is replaced.
+     * Least recently used entries are removed afterwards, until all entries fit into the disk budget again.
+     * @param pdbID the entry ID of the file; not null nor blank
+     * @param content writes the uncompressed content of the file to the given stream; not null
+     * @throws IOException if the content can not be written, the cache is not changed in this case.
+     */
+    public void put(String pdbID, ContentWriter content) throws IOException {
+        String key = keyOf(pdbID);
+        if(content == null){
+            throw new IllegalArgumentException("Content of cached PDB file " + key + " can not be written by a writer which is null.");
+        }
+        Path temporary = Files.createTempFile(this.directory, key, ".tmp");
+        try {
+            MessageDigest digest = createDigest();
+            CountingOutputStream compressed = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)));
+            try (OutputStream out = new DigestOutputStream(new GZIPOutputStream(compressed, 1 << 16), digest)) {
+                content.write(out);
+            }
+            commit(key, temporary, toHex(digest.digest()), compressed.getCount());
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Remove the file of the given PDB ID from this cache.
+     * @param pdbID the entry ID of the file
+     * @return true if the file was in the cache
+     * @throws IOException if the manifest can not be written
+     */
+    public synchronized boolean evict(String pdbID) throws IOException {
+        if(pdbID == null || pdbID.isBlank()){
+            return false;
+        }
+        boolean removed = remove(keyOf(pdbID));
+        if(removed){
+            writeManifest();
+        }
+        return removed;
+    }
+
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    public long getDiskBudget() {
+        return diskBudget;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Add the written temporary file as entry and remove least recently used entries until the budget is kept.
+     */
+    private synchronized void commit(String key, Path temporary, String checksum, long size) throws IOException {
+        Path blob = pathOf(checksum);
+        if(!Files.exists(blob)){
+            Files.move(temporary, blob, StandardCopyOption.ATOMIC_MOVE);
+        }
+        //the previous entry of this key is released after the new entry was added, so an unchanged file is neither deleted nor counted twice
+        Entry previous = this.entries.remove(key);
+        boolean unchanged = previous != null && previous.checksum.equals(checksum);
+        if(!unchanged && !isReferenced(checksum)){
+            this.totalSize += size;
+        }
+        this.entries.put(key, new Entry(checksum, size, System.currentTimeMillis()));
+        if(previous != null && !unchanged){
+            release(previous);
+        }
+
+        Iterator<Map.Entry<String, Entry>> leastRecent = this.entries.entrySet().iterator();
+        while(this.totalSize > this.diskBudget && leastRecent.hasNext()){
+            Map.Entry<String, Entry> candidate = leastRecent.next();
+            if(!candidate.getKey().equals(key)){          //the new entry is kept even if it alone exceeds the budget
+                leastRecent.remove();
+                release(candidate.getValue());
+            }
+        }
+        writeManifest();
+    }
+
+    /**
+     * Remove the entry of the given key without writing the manifest.
+     */
+    private boolean remove(String key){
+        Entry entry = this.entries.remove(key);
+        if(entry != null){
+            release(entry);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Delete the file of a removed entry and subtract its size, unless another entry has the same content.
+     */
+    private void release(Entry removed){
+        if(isReferenced(removed.checksum)){
+            return;
+        }
+        this.totalSize -= removed.size;
+        try {
+            Files.deleteIfExists(pathOf(removed.checksum));
+        }
+        catch (IOException e){
+            System.err.println("Cached PDB file " + removed.checksum + " could not be deleted: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check if any entry has the content with the given checksum. Files are shared by all entries with the same content.
+     */
+    private boolean isReferenced(String checksum){
+        for (Entry entry : this.entries.values()) {
+            if(entry.checksum.equals(checksum)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read all entries from the manifest. Entries without file are skipped, lines which can not be parsed as well.
+     */
+    private void readManifest() throws IOException {
+        Path manifest = this.directory.resolve(MANIFEST_NAME);
+        if(!Files.exists(manifest)){
+            return;
+        }
+        List<String[]> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while(line != null){
+                String[] columns = line.split("\t");
+                if(columns.length == 4 && !line.startsWith("#")){
+                    lines.add(columns);
+                }
+                line = reader.readLine();
+            }
+        }
+        //rebuild access order from the time stamps
+        lines.sort(Comparator.comparingLong(columns -> parseLong(columns[3])));
+        for (String[] columns : lines) {
+            long size = parseLong(columns[2]);
+            if(size >= 0 && Files.exists(pathOf(columns[1]))){
+                this.entries.remove(columns[0]);
+                if(!isReferenced(columns[1])){
+                    this.totalSize += size;
+                }
+                this.entries.put(columns[0], new Entry(columns[1], size, parseLong(columns[3])));
+            }
+        }
+    }
+
+    /**
+     * Write all entries to the manifest. The manifest is replaced at once, so it is never read partially written.
+     */
+    private void writeManifest() throws IOException {
+        Path temporary = this.directory.resolve(MANIFEST_NAME + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write("#id\tsha256\tsize\tlastAccess\n");
+            for (Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+                Entry value = entry.getValue();
+                writer.write(entry.getKey() + "\t" + value.checksum + "\t" + value.size + "\t" + value.lastAccess + "\n");
+            }
+        }
+        Files.move(temporary, this.directory.resolve(MANIFEST_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path pathOf(String checksum){
+        return this.directory.resolve(checksum + ENTRY_EXTENSION);
+    }
+
+    private static String keyOf(String pdbID){
+        if(pdbID == null || pdbID.isBlank()){
+            throw new IllegalArgumentException("PDB ID of a cached file can not be null or blank.");
+        }
+        return pdbID.trim().toUpperCase();
+    }
+
+    private static long parseLong(String value){
+        try {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e){
+            return -1;
+        }
+    }
+
+    private static MessageDigest createDigest(){
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e){
+            //every java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes){
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Stream which counts the written bytes, to get the compressed size of an entry.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Stream which compares the checksum of the read content with the checksum of the entry when the end is reached.
+     */
+    private class VerifyingInputStream extends DigestInputStream {
+        private final String key;
+        private final String checksum;
+        private boolean verified;
+
+        private VerifyingInputStream(InputStream in, String key, String checksum) {
+            super(in, createDigest());
+            this.key = key;
+            this.checksum = checksum;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b;
+            try {
+                b = super.read();
+            }
+            catch (EOFException | ZipException e){
+                discard();
+                throw e;
+            }
+            if(b < 0){
+                verify();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n;
+            try {
+                n = super.read(b, off, len);
+            }
+            catch (EOFException | ZipException e){
+                discard();
+                throw e;
+            }
+            if(n < 0){
+                verify();
+            }
+            return n;
+        }
+
+        private void verify() throws IOException {
+            if(!this.verified){
+                this.verified = true;
+                if(!toHex(getMessageDigest().digest()).equals(this.checksum)){
+                    discard();
+                    throw new IOException("Cached PDB file " + this.key + " is corrupted and was removed from the cache.");
+                }
+            }
+        }
+
+        /**
+         * Remove the entry which was read, unless it was replaced by a new file in the meantime.
+         */
+        private void discard() throws IOException {
+            synchronized (PDBCache.this){
+                Entry entry = entries.get(this.key);
+                if(entry != null && entry.checksum.equals(this.checksum)){
+                    remove(this.key);
+                    writeManifest();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package model.pdbaccess;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * PDBDocument is a read only list of the lines of a file, which keeps the content of the file as bytes, e.g. a mapped file,
+ * together with the offsets of all lines. The offsets are found in one pass when the document is created.
+ * Lines are only created as String when they are accessed, so a ListView showing the document only creates the lines of its visible cells,
+ * however large the file is. Records of a PDBRecordType can be found without creating any line.
+ */
+public class PDBDocument extends AbstractList<String> implements RandomAccess {
+
+    private static final int RECORD_NAME_LENGTH = 6;         //columns of the record name of each line
+
+    private final ByteBuffer content;
+    private final int[] lineStarts;             //offset of each line in content and the end of content after the last line
+    private final int lineCount;
+
+    /**
+     * Create a document of the given content and index its lines. Lines can be terminated by \n, \r or \r\n.
+     * @param content the bytes of the file from their current position to their limit, expected to be ASCII like all PDB files; not null
+     */
+    public PDBDocument(ByteBuffer content) {
+        if(content == null){
+            throw new IllegalArgumentException("Document can not be created from content which is null.");
+        }
+        this.content = content.slice();
+        int limit = this.content.limit();
+        int[] starts = new int[Math.max(16, limit / 81 + 2)];       //most PDB lines have 80 characters
+        int count = 0;
+        int position = 0;
+        while(position < limit){
+            if(count + 1 >= starts.length){
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[count++] = position;
+            while(position < limit){
+                byte b = this.content.get(position++);
+                if(b == '\n'){
+                    break;
+                }
+                if(b == '\r'){
+                    if(position < limit && this.content.get(position) == '\n'){
+                        position++;
+                    }
+                    break;
+                }
+            }
+        }
+        starts[count] = limit;
+        this.lineStarts = starts;
+        this.lineCount = count;
+    }
+
+    /**
+     * Create a document of the given text, e.g. a message which is shown instead of a file.
+     * @param text text of the document; not null
+     * @return the document of this text
+     */
+    public static PDBDocument of(String text) {
+        return new PDBDocument(ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    /**
+     * Get the line at the given position, without line terminator.
+     * @param line position of the line, starting at 0
+     * @return the line
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    @Override
+    public String get(int line) {
+        if(line < 0 || line >= this.lineCount){
+            throw new IndexOutOfBoundsException("Line " + line + " is out of bounds for document of " + this.lineCount + " lines.");
+        }
+        int start = this.lineStarts[line];
+        int end = lineEnd(line);
+        byte[] bytes = new byte[end - start];
+        this.content.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public int size() {
+        return this.lineCount;
+    }
+
+    /**
+     * Find the next line of the given record type, starting after the given line. The search continues at the beginning of the document
+     * if there is no such record after the given line, so repeated calls cycle through all records of this type.
+     * @param type the record type to find; not null
+     * @param afterLine the line after which the search starts, -1 to search from the beginning
+     * @return the position of the next line of this record type, -1 if the document contains no such record
+     */
+    public int findNext(PDBRecordType type, int afterLine) {
+        int start = Math.max(0, Math.min(afterLine + 1, this.lineCount));
+        for (int line = start; line < this.lineCount; line++) {
+            if(isRecord(line, type)){
+                return line;
+            }
+        }
+        for (int line = 0; line < start; line++) {
+            if(isRecord(line, type)){
+                return line;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if the given line is a record of the given type. The record name is the field of the first six columns, padded with blanks,
+     * so the name may be directly followed by the serial number, e.g. HETATM12345 or CONECT12345.
+     * @param line position of the line
+     * @param type record type
+     * @return true if the line is a record of this type, false otherwise
+     */
+    public boolean isRecord(int line, PDBRecordType type) {
+        String name = type.name();
+        int start = this.lineStarts[line];
+        int length = lineEnd(line) - start;
+        if(length < name.length()){
+            return false;
+        }
+        for (int i = 0; i < RECORD_NAME_LENGTH; i++) {
+            char expected = i < name.length() ? name.charAt(i) : ' ';
+            char actual = i < length ? (char) this.content.get(start + i) : ' ';
+            if(actual != expected){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the end of the given line without its line terminator.
+     */
+    private int lineEnd(int line) {
+        int start = this.lineStarts[line];
+        int end = this.lineStarts[line + 1];
+        while(end > start && (this.content.get(end - 1) == '\n' || this.content.get(end - 1) == '\r')){
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,362 @@
+package model.pdbaccess;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A reusable character buffer holding one line (record) of a PDB file at a time.
+ * PDB records like ATOM have fixed columns. Those columns can be read directly from this buffer by a ValueParser, so numbers are parsed
+ * without creating intermediate Strings and names are taken from a small cache instead of creating a new String for every atom.
+ * The buffer reads from its source itself, therefore the source does not need to be buffered.
+ * Local files can be mapped into memory instead: then lines are only byte ranges of the mapped file, which are scanned
+ * in place, so large files are parsed without copying their content into the heap.
+ */
+public class PDBLineBuffer {
+
+    private static final int INPUT_BUFFER_SIZE = 1 << 16;
+
+    private final Reader source;                //null if the lines are read from mapped bytes
+    private final ByteBuffer mapped;            //null if the lines are read from the source
+    private int lineStart;                      //position of the current line within mapped
+    private final char[] input;
+    private int inputPosition;
+    private int inputLimit;
+    private long inputOffset;                   //characters of the source which were read before input
+    private long lineOffset;                    //position of the current line within the source
+    private boolean skipLineFeed;
+
+    private char[] line;
+    private int length;
+    private final ValueParser values;
+
+    /**
+     * Create a line buffer reading from the given source.
+     * @param source the reader to read the lines from; shall not be null.
+     */
+    public PDBLineBuffer(Reader source){
+        if(source == null){
+            throw new IllegalArgumentException("Line buffer can not read from a source which is null.");
+        }
+        this.source = source;
+        this.mapped = null;
+        this.input = new char[INPUT_BUFFER_SIZE];
+        this.line = new char[128];
+        this.values = new ValueParser(this.line);
+    }
+
+    /**
+     * Create a line buffer reading the lines of the given bytes, e.g. a mapped file. The bytes are read from their current position
+     * to their limit and are expected to be ASCII like all PDB files. Lines are not copied, the buffer only keeps the range of the current line.
+     * @param data the bytes to read the lines from; shall not be null.
+     */
+    public PDBLineBuffer(ByteBuffer data){
+        if(data == null){
+            throw new IllegalArgumentException("Line buffer can not read from data which is null.");
+        }
+        this.source = null;
+        this.mapped = data.slice();
+        this.input = null;
+        this.line = null;
+        this.values = new ValueParser(this.mapped);
+    }
+
+    /**
+     * Create a line buffer reading the lines of the given file, which is mapped into memory read-only.
+     * The file is only read on access of its lines, so opening even very large files is cheap.
+     * @param file the file to read; not null
+     * @return a line buffer of the mapped file
+     * @throws IOException if the file can not be opened or is too large to be mapped at once, which is more than 2 GB
+     */
+    public static PDBLineBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE){
+                throw new IOException("File " + file + " is too large to be mapped: " + size + " bytes.");
+            }
+            //the mapping stays valid after the channel is closed
+            return new PDBLineBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Read the next line from the source into this buffer. The previous content of the buffer is overwritten.
+     * Lines can be terminated by \n, \r or \r\n, the line terminator is not part of the buffer.
+     * @return true if a line was read, false if the end of the source was reached before any character was read.
+     * @throws IOException if an error occurs reading from the source.
+     */
+    public boolean readLine() throws IOException {
+        if(this.mapped != null){
+            return readMappedLine();
+        }
+        this.length = 0;
+        boolean readAnything = false;
+        while(true){
+            if(this.inputPosition >= this.inputLimit && !fillInput()){
+                return readAnything;
+            }
+            char c = this.input[this.inputPosition++];
+            if(this.skipLineFeed){
+                //last line ended with \r, the following \n belongs to that line ending
+                this.skipLineFeed = false;
+                if(c == '\n'){
+                    continue;
+                }
+            }
+            if(!readAnything){
+                this.lineOffset = this.inputOffset + this.inputPosition - 1;
+            }
+            readAnything = true;
+            if(c == '\n'){
+                return true;
+            }
+            if(c == '\r'){
+                this.skipLineFeed = true;
+                return true;
+            }
+            if(this.length == this.line.length){
+                char[] grown = new char[this.line.length * 2];
+                System.arraycopy(this.line, 0, grown, 0, this.length);
+                this.line = grown;
+                this.values.setChars(grown);
+            }
+            this.line[this.length++] = c;
+        }
+    }
+
+    /**
+     * Read the next block of the source into the input, after all characters of the input were used.
+     * @return false if the end of the source was reached
+     */
+    private boolean fillInput() throws IOException {
+        this.inputOffset += this.inputLimit;
+        this.inputLimit = this.source.read(this.input, 0, this.input.length);
+        this.inputPosition = 0;
+        if(this.inputLimit <= 0){
+            this.inputLimit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the position of the current line within the file, which is the number of characters before this line.
+     * As PDB files are ASCII, this is also the byte offset of the line. It can be given to skipTo to read this line again from a new buffer of the same file.
+     * @return the position of the line which was read last
+     */
+    public long getLineOffset(){
+        return this.mapped != null ? this.lineStart : this.lineOffset;
+    }
+
+    /**
+     * Continue reading at the given position of the file, so that the next call of readLine reads the line starting there.
+     * Mapped bytes are not read at all to get there, a source is read and the skipped characters are discarded.
+     * @param offset position of a line as given by getLineOffset; not before the current position
+     * @throws IOException if the source can not be read or ends before the given position
+     */
+    public void skipTo(long offset) throws IOException {
+        if(this.mapped != null){
+            if(offset < this.lineStart + this.length || offset > this.mapped.limit()){
+                throw new IOException("Line buffer can not skip to position " + offset + " of the file.");
+            }
+            this.lineStart = (int) offset;
+        }
+        else {
+            if(offset < this.inputOffset + this.inputPosition){
+                throw new IOException("Line buffer can not skip back to position " + offset + " of the file.");
+            }
+            while(this.inputOffset + this.inputLimit < offset){
+                this.inputPosition = this.inputLimit;
+                if(!fillInput()){
+                    throw new IOException("File ends before position " + offset + ".");
+                }
+            }
+            this.inputPosition = (int) (offset - this.inputOffset);
+        }
+        this.length = 0;
+        this.skipLineFeed = false;
+    }
+
+    /**
+     * Find the range of the next line of the mapped bytes, like readLine does for a source.
+     */
+    private boolean readMappedLine() {
+        int position = this.lineStart + this.length;
+        int limit = this.mapped.limit();
+        if(position < limit && this.skipLineFeed){
+            //line terminator of the current line, which is \n, \r or \r\n
+            byte terminator = this.mapped.get(position++);
+            if(terminator == '\r' && position < limit && this.mapped.get(position) == '\n'){
+                position++;
+            }
+        }
+        this.lineStart = position;
+        this.length = 0;
+        this.skipLineFeed = false;
+        if(position >= limit){
+            return false;
+        }
+        while(position < limit){
+            byte b = this.mapped.get(position);
+            if(b == '\n' || b == '\r'){
+                this.skipLineFeed = true;
+                break;
+            }
+            position++;
+        }
+        this.length = position - this.lineStart;
+        return true;
+    }
+
+    /**
+     * Close the source of this buffer. Mapped bytes are released as soon as the buffer is not referenced anymore.
+     * @throws IOException if an error occurs closing the source.
+     */
+    public void close() throws IOException {
+        if(this.source != null){
+            this.source.close();
+        }
+    }
+
+    public int length(){
+        return this.length;
+    }
+
+    /**
+     * Get the character at the given column of the current line.
+     * @param index column of the character, starting at 0
+     * @return the character at this column or a blank if the line is shorter, as PDB lines are often not padded up to 80 characters.
+     */
+    public char charAt(int index){
+        if(index >= 0 && index < this.length){
+            return at(index);
+        }
+        return ' ';
+    }
+
+    /**
+     * Get the character at the given column, which needs to be within the current line.
+     */
+    private char at(int index){
+        if(this.mapped != null){
+            return (char) (this.mapped.get(this.lineStart + index) & 0xFF);
+        }
+        return this.line[index];
+    }
+
+    /**
+     * Check if the current line starts with the given prefix, e.g. with a record name like ATOM.
+     * @param prefix the prefix to check for; not null
+     * @return true if the line starts with the given prefix, false otherwise
+     */
+    public boolean startsWith(String prefix){
+        if(prefix == null || prefix.length() > this.length){
+            return false;
+        }
+        for(int i = 0; i < prefix.length(); i++){
+            if(at(i) != prefix.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse the integer which is written in the columns from start (inclusive) to end (exclusive). Surrounding blanks are ignored.
+     * @param start first column of the number
+     * @param end column after the last column of the number
+     * @return the parsed number
+     * @throws NumberFormatException if the columns do not contain a valid integer.
+     */
+    public int parseInt(int start, int end) throws NumberFormatException {
+        int from = trimStart(start, end);
+        try {
+            return this.values.parseInt(base() + from, base() + trimEnd(from, end));
+        }
+        catch (NumberFormatException e){
+            throw new NumberFormatException(e.getMessage() + " in columns " + start + " to " + end + " of line: " + this);
+        }
+    }
+
+    /**
+     * Parse the fixed-point decimal number which is written in the columns from start (inclusive) to end (exclusive), like coordinates or temperature factors.
+     * Surrounding blanks are ignored. The result is exactly the same as Double.parseDouble would return for these columns, see ValueParser.
+     * @param start first column of the number
+     * @param end column after the last column of the number
+     * @return the parsed number
+     * @throws NumberFormatException if the columns do not contain a valid number.
+     */
+    public double parseDecimal(int start, int end) throws NumberFormatException {
+        int from = trimStart(start, end);
+        try {
+            return this.values.parseDecimal(base() + from, base() + trimEnd(from, end));
+        }
+        catch (NumberFormatException e){
+            throw new NumberFormatException(e.getMessage() + " in columns " + start + " to " + end + " of line: " + this);
+        }
+    }
+
+    /**
+     * Get the content of the columns from start (inclusive) to end (exclusive) trimmed and in upper case, e.g. an atom or monomer name.
+     * Those names repeat very often within one file, therefore the resulting String is taken from a cache if the same name was read before.
+     * @param start first column
+     * @param end column after the last column, might be greater than the length of the line to read until the end of the line.
+     * @return the trimmed upper case content of the columns, empty if the columns are blank.
+     */
+    public String getColumn(int start, int end){
+        int from = trimStart(start, end);
+        return this.values.getName(base() + from, base() + trimEnd(from, end), true);
+    }
+
+    /**
+     * Get the position of the first column of the current line within the text of the ValueParser.
+     */
+    private int base(){
+        return this.mapped != null ? this.lineStart : 0;
+    }
+
+    /**
+     * Get the first column within start and end which is not blank, columns beyond the line are considered blank.
+     */
+    private int trimStart(int start, int end){
+        int from = Math.max(start, 0);
+        int to = Math.min(end, this.length);
+        while(from < to && at(from) <= ' '){
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Get the column after the last column within from and end which is not blank, columns beyond the line are considered blank.
+     */
+    private int trimEnd(int from, int end){
+        int to = Math.min(end, this.length);
+        while(to > from && at(to - 1) <= ' '){
+            to--;
+        }
+        return Math.max(to, from);
+    }
+
+    private String substring(int from, int to){
+        if(this.mapped != null){
+            byte[] bytes = new byte[to - from];
+            this.mapped.get(this.lineStart + from, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+        return new String(this.line, from, to - from);
+    }
+
+    /**
+     * Get the current line as String. Should only be used for records which are not read often, as a new String is created.
+     * @return the current line
+     */
+    @Override
+    public String toString() {
+        return substring(0, this.length);
+    }
+}
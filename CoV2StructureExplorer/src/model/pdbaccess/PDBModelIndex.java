@@ -0,0 +1,98 @@
+package model.pdbaccess;
+
+import model.atoms.AtomTable;
+import model.molecules.ModelSource;
+
+import java.io.IOException;
+
+/**
+ * PDBModelIndex keeps the positions of the MODEL records of a PDB file with several models, e.g. an NMR ensemble.
+ * The positions are found while the first model is parsed, without parsing the other models. The coordinates of another model
+ * are read when it is shown: the file is opened at the position of its MODEL record and only this model is read.
+ */
+public class PDBModelIndex implements ModelSource {
+
+    private final String filename;
+    private final int[] modelNumbers;
+    private final long[] positions;
+
+    /**
+     * Create the index of the models of the given file.
+     * @param filename name of the file without file extension, as given to FileParser.openLines; not null or blank
+     * @param modelNumbers serial number of each model as given in its MODEL record; not null
+     * @param positions position of the MODEL record of each model within the file, as given by PDBLineBuffer.getLineOffset; same length as modelNumbers
+     */
+    public PDBModelIndex(String filename, int[] modelNumbers, long[] positions) {
+        if(filename == null || filename.isBlank() || modelNumbers == null || positions == null){
+            throw new IllegalArgumentException("Model index can not be created for a file name, model numbers or positions which are null.");
+        }
+        if(modelNumbers.length != positions.length){
+            throw new IllegalArgumentException("Model index needs one position for each of the " + modelNumbers.length + " models.");
+        }
+        this.filename = filename;
+        this.modelNumbers = modelNumbers.clone();
+        this.positions = positions.clone();
+    }
+
+    @Override
+    public int size() {
+        return this.modelNumbers.length;
+    }
+
+    @Override
+    public int getModelNumber(int model) {
+        checkModel(model);
+        return this.modelNumbers[model];
+    }
+
+    @Override
+    public long getPosition(int model) {
+        checkModel(model);
+        return this.positions[model];
+    }
+
+    /**
+     * Read the coordinates of the atoms of the given model, which are the same atoms that FileParser parses from the first model.
+     * The atoms are compared with the atoms of the table by name, so a model with other atoms or a changed file is not shown with wrong coordinates.
+     */
+    @Override
+    public float[] readCoordinates(int model, AtomTable table) throws IOException {
+        checkModel(model);
+        if(table == null){
+            throw new IllegalArgumentException("Coordinates of a model can not be read for an atom table which is null.");
+        }
+        float[] coordinates = new float[table.size() * 3];
+        int atom = 0;
+        PDBLineBuffer lines = FileParser.openLines(this.filename);
+        try {
+            lines.skipTo(this.positions[model]);
+            if(!lines.readLine() || !lines.startsWith("MODEL")){
+                throw new IOException("Model " + this.modelNumbers[model] + " of " + this.filename + " was not found, the file might have changed.");
+            }
+            while(lines.readLine() && !lines.startsWith("ENDMDL")){
+                if(FileParser.isParsedAtom(lines)){
+                    if(atom == table.size() || !lines.getColumn(12, 16).equals(table.getAtomName(atom))){
+                        throw new IOException("Model " + this.modelNumbers[model] + " of " + this.filename + " does not contain the same atoms as the first model.");
+                    }
+                    coordinates[atom * 3] = (float) lines.parseDecimal(30, 38);
+                    coordinates[atom * 3 + 1] = (float) lines.parseDecimal(38, 46);
+                    coordinates[atom * 3 + 2] = (float) lines.parseDecimal(46, 54);
+                    atom++;
+                }
+            }
+        }
+        finally {
+            lines.close();
+        }
+        if(atom != table.size()){
+            throw new IOException("Model " + this.modelNumbers[model] + " of " + this.filename + " contains " + atom + " atoms, but the first model contains " + table.size() + " atoms.");
+        }
+        return coordinates;
+    }
+
+    private void checkModel(int model){
+        if(model < 0 || model >= this.modelNumbers.length){
+            throw new IllegalArgumentException("There is no model at position " + model + ", the file contains " + this.modelNumbers.length + " models.");
+        }
+    }
+}
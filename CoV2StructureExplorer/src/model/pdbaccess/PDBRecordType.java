@@ -1,6 +1,9 @@
 package model.pdbaccess;
 
+/**
+ * Types of records of a PDB file, named like the record names at the beginning of their lines, in the order they appear in a file.
+ */
 public enum PDBRecordType {
-    ATOM, HETATM, TER, HELIX, SHEET, SSBOND
+    COMPND, SEQRES, HELIX, SHEET, SSBOND, MODEL, ATOM, HETATM, TER, CONECT
 
 }
@@ -1,7 +1,11 @@
 package model.pdbaccess;
 
+import javafx.application.Platform;
 import javafx.beans.property.ListProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
 import javafx.beans.property.SimpleListProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
 
 import javax.json.Json;
@@ -11,62 +15,211 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * PDBWebClient is a class to provide connection to a REST service.
  * Connections are created to two URLs: one to get all entry IDs and the second to request a file of a specific PDB ID, which needs to be within the result of all returned entry IDs.
+ * Entries which are not available as PDB file, e.g. large structures, are requested as BinaryCIF file from a third URL.
+ * All entry IDs are kept in an EntryIDIndex, which is stored in a local file. At startup the IDs are read from this file,
+ * the server is only requested in the background: whenever the index is older than MAX_INDEX_AGE_HOURS, it is requested again with a conditional request,
+ * so the IDs are only downloaded if they changed on the server. Only the IDs which changed are updated in the list of all entry IDs.
  */
 public class PDBWebClient {
 
     private static final String URL_TO_ENTRY_IDS = "https://data.rcsb.org/rest/v1/holdings/current/entry_ids";
     private static final String URL_TO_CIF_FILE = "https://files.rcsb.org/download/%s" + FileParser.FILE_EXTENSION;
+    private static final String URL_TO_BINARY_CIF_FILE = "https://models.rcsb.org/%s" + FileParser.BINARY_CIF_EXTENSION;
+    public static final String DEFAULT_INDEX_FILE = FileParser.DEFAULT_STORING_DIRECTORY + "entryIDs.idx";
+    private static final long MAX_INDEX_AGE_HOURS = 12;
+    private static final long CHECK_PERIOD_MINUTES = 60;
+    private static final int MAX_SINGLE_CHANGES = 100;              //more changed IDs are replaced in the list at once
 
-    private ListProperty<String> entryIDs;
+    private final String urlToEntryIDs;
+    private final String urlToFile;             //format string, where %s is replaced by the PDB ID in lower case
+    private final String urlToBinaryCifFile;    //format string like urlToFile
+    private final PDBCache cache;
+    private final Path indexFile;
+    private final Executor listUpdater;         //all changes of the entry ID list are done by this executor, usually the FX application thread
+    private final ScheduledExecutorService refreshScheduler;
+
+    private volatile EntryIDIndex index;
+    private final EntryIDList allEntryIDs;
+    private final ListProperty<String> entryIDs;
+    private final StringProperty entryIDsError;
     private final ListProperty<String> sarsCovEntryIDs;
 
     /**
-     * Constructor of the class PDBWebClient. Initializes the list of entry IDs from the REST interface of the rcsb server.
-     * @throws IOException - if reading from the URL fails
+     * Constructor of the class PDBWebClient. The list of entry IDs is filled from the local index file in the background,
+     * afterwards the IDs are requested from the REST interface of the rcsb server if the index is outdated.
+     * Files are cached in the default PDBCache.
+     * @throws IOException - if the default cache can not be created
      */
     public PDBWebClient() throws IOException {
-        requestAllPDBIDs();
+        this(URL_TO_ENTRY_IDS, URL_TO_CIF_FILE, URL_TO_BINARY_CIF_FILE, PDBCache.getDefault(), Paths.get(DEFAULT_INDEX_FILE), Platform::runLater);
+    }
+
+    /**
+     * Constructor of the class PDBWebClient for another server than the rcsb server, e.g. a mirror or a local server.
+     * BinaryCIF files are requested from the rcsb server.
+     * @see #PDBWebClient(String, String, String, PDBCache, Path, Executor)
+     */
+    public PDBWebClient(String urlToEntryIDs, String urlToFile, PDBCache cache, Path indexFile, Executor listUpdater) {
+        this(urlToEntryIDs, urlToFile, URL_TO_BINARY_CIF_FILE, cache, indexFile, listUpdater);
+    }
+
+    /**
+     * Constructor of the class PDBWebClient for another server than the rcsb server, e.g. a mirror or a local server.
+     * The list of entry IDs is filled from the given index file in the background, afterwards the IDs are requested from the given URL if the index is outdated.
+     * @param urlToEntryIDs - URL returning a JSON array of all entry IDs; not null
+     * @param urlToFile - URL of a PDB file, where %s is replaced by the PDB ID in lower case; not null
+     * @param urlToBinaryCifFile - URL of a BinaryCIF file, which is requested if there is no PDB file of an entry; %s is replaced like in urlToFile; not null
+     * @param cache - the cache for downloaded files, files in the cache are never downloaded again; not null
+     * @param indexFile - the file in which the index of all entry IDs is stored; not null
+     * @param listUpdater - executor which changes the list of all entry IDs, e.g. Platform::runLater; not null
+     */
+    public PDBWebClient(String urlToEntryIDs, String urlToFile, String urlToBinaryCifFile, PDBCache cache, Path indexFile, Executor listUpdater) {
+        if(urlToEntryIDs == null || urlToFile == null || urlToBinaryCifFile == null || cache == null || indexFile == null || listUpdater == null){
+            throw new IllegalArgumentException("Web client can not be created if URLs, cache, index file or list updater are null.");
+        }
+        this.urlToEntryIDs = urlToEntryIDs;
+        this.urlToFile = urlToFile;
+        this.urlToBinaryCifFile = urlToBinaryCifFile;
+        this.cache = cache;
+        this.indexFile = indexFile;
+        this.listUpdater = listUpdater;
+        this.entryIDsError = new SimpleStringProperty();
+
+        this.allEntryIDs = new EntryIDList();
+        this.entryIDs = new SimpleListProperty<>(this.allEntryIDs);
         //even though its hard coded and wont, ListProperty is chosen instead of List because one could improve the program so that Sars cov 2 IDs are derived from REST server and then the List could change.
         this.sarsCovEntryIDs = new SimpleListProperty<String>(FXCollections.observableArrayList(Arrays.asList("6ZMO", "6ZOJ", "6ZPE", "6ZP5", "6ZP4", "6ZP7", "6ZOX", "6ZOW", "6ZOZ", "6ZOY", "6ZOK", "6ZON", "6ZP1", "6ZP0", "6ZP2",
                 "5R84", "5R83", "5R7Y", "5R80", "5R82", "5R81", "5R8T", "5R7Z", "5REA", "5REC")));
+
+        this.refreshScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Entry ID refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refreshScheduler.execute(this::loadIndex);
+        this.refreshScheduler.scheduleWithFixedDelay(() -> refresh(false), 0, CHECK_PERIOD_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Read the index from the index file and show its IDs in the list of all entry IDs.
+     */
+    private synchronized void loadIndex(){
+        EntryIDIndex stored = EntryIDIndex.read(this.indexFile);
+        if(stored != null){
+            this.index = stored;
+            publishChanges(null, stored);
+        }
     }
 
     /**
-     * Request the REST interface to get all entry IDs, which are then stored in a list.
-     * All entry Ids, which were in the list before are removed.
+     * Request the REST interface to get all entry IDs, if they changed since the last request.
+     * The index file is updated and the changed IDs are updated in the list of all entry IDs by the list updater.
+     * This method blocks until the server answered, use refreshEntryIDs to request the IDs in the background.
      * @throws IOException - if an error occurs when trying to open a connection to the default URL.
      */
-    public void requestAllPDBIDs() throws IOException {
-        List<String> simpleList = new ArrayList<>();
+    public synchronized void requestAllPDBIDs() throws IOException {
+        EntryIDIndex previous = this.index;
+        URLConnection connection = new URL(this.urlToEntryIDs).openConnection();
+        if(previous != null && connection instanceof HttpURLConnection){
+            //validator is stored as header name and value, e.g. ETag:"abc"
+            String validator = previous.getValidator();
+            int separator = validator.indexOf(':');
+            if(separator > 0){
+                String name = validator.substring(0, separator);
+                String value = validator.substring(separator + 1);
+                connection.setRequestProperty(name.equals("ETag") ? "If-None-Match" : "If-Modified-Since", value);
+            }
+        }
+        connection.connect();
+        long now = System.currentTimeMillis();
+        if(connection instanceof HttpURLConnection http && http.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED && previous != null){
+            this.index = previous.withTimestamp(now);
+        }
+        else {
+            // get entry IDs
+            List<String> simpleList = new ArrayList<>();
+            try (JsonReader reader = Json.createReader(new InputStreamReader(connection.getInputStream()))){
+                reader.readArray().stream().map(v -> ((JsonString)v).getString()).forEach(simpleList::add);
+            }
+            String validator = connection.getHeaderField("ETag") != null ? "ETag:" + connection.getHeaderField("ETag")
+                    : connection.getHeaderField("Last-Modified") != null ? "Last-Modified:" + connection.getHeaderField("Last-Modified") : null;
+            EntryIDIndex current = EntryIDIndex.of(simpleList, now, validator);
+            this.index = current;
+            publishChanges(previous, current);
+        }
+        this.index.write(this.indexFile);
+    }
+
+    /**
+     * Request all entry IDs in the background, see requestAllPDBIDs. Errors are reported by the entry IDs error property.
+     */
+    public void refreshEntryIDs(){
+        this.refreshScheduler.execute(() -> refresh(true));
+    }
+
+    /**
+     * Request all entry IDs if forced or if the index is outdated.
+     */
+    private void refresh(boolean force){
+        EntryIDIndex current = this.index;
+        if(force || current == null || System.currentTimeMillis() - current.getTimestamp() > TimeUnit.HOURS.toMillis(MAX_INDEX_AGE_HOURS)){
+            try {
+                requestAllPDBIDs();
+            }
+            catch (IOException | RuntimeException e){
+                String message = "Entry IDs could not be requested from the PDB server: " + e.getMessage();
+                System.err.println(message);
+                this.listUpdater.execute(() -> this.entryIDsError.set(message));
+            }
+        }
+    }
 
-        // get entry IDs
-        URL url = new URL(URL_TO_ENTRY_IDS);
-        try (JsonReader reader = Json.createReader(new InputStreamReader(getFromURL(url)))){
-            reader.readArray().stream().map(v -> ((JsonString)v).getString()).forEach(simpleList::add);
+    /**
+     * Update the list of all entry IDs by the list updater. Few changes are reported one by one, otherwise the whole list is replaced.
+     */
+    private void publishChanges(EntryIDIndex previous, EntryIDIndex current){
+        List<EntryIDIndex.Change> changes = previous != null ? previous.changesTo(current) : null;
+        if(changes != null && changes.isEmpty()){
+            return;
         }
-        this.entryIDs = new SimpleListProperty<>(FXCollections.observableArrayList(simpleList));
+        this.listUpdater.execute(() -> {
+            this.entryIDsError.set(null);
+            boolean single = changes != null && changes.size() <= MAX_SINGLE_CHANGES && this.allEntryIDs.getIndex() == previous;
+            this.allEntryIDs.setIndex(current, single ? changes : null);
+        });
     }
 
     /**
-     * Create a new File containing all information which were retrieved from the REST interface
+     * Get the content of the file of the given PDB ID. Files in the cache are read from the cache without any request,
+     * all other files are requested from the REST interface.
      * @param pdbID
-     * @return the input stream which was read from the REST interface about the given pdbID
+     * @return the input stream of the cached file or the input stream which was read from the REST interface about the given pdbID
      * @throws IOException
      */
     public InputStream getStreamOfID(String pdbID) throws IOException{
         if(pdbID != null && !pdbID.isBlank()){
+            if(this.cache.contains(pdbID)){
+                return this.cache.open(pdbID);
+            }
             pdbID = pdbID.toLowerCase();
 
-            URL url = new URL(String.format(URL_TO_CIF_FILE, pdbID));
+            URL url = new URL(String.format(this.urlToFile, pdbID));
             return getFromURL(url);
         }
         else{
@@ -74,6 +227,48 @@ public class PDBWebClient {
         }
     }
 
+    /**
+     * Get the content of the BinaryCIF file of the given PDB ID, either from the cache or from the REST interface.
+     * @param pdbID - the entry ID; not null or blank
+     * @return the input stream of the cached or requested BinaryCIF file
+     * @throws IOException - if the file is not available or the connection fails
+     */
+    public InputStream getBinaryCifStreamOfID(String pdbID) throws IOException{
+        if(pdbID != null && !pdbID.isBlank()){
+            if(this.cache.contains(pdbID + FileParser.BINARY_CIF_EXTENSION)){
+                return this.cache.open(pdbID + FileParser.BINARY_CIF_EXTENSION);
+            }
+            return getFromURL(new URL(String.format(this.urlToBinaryCifFile, pdbID.toLowerCase())));
+        }
+        else{
+            throw new FileNotFoundException("Error requesting InputStream: PDB ID is not valid if it is null or blank");
+        }
+    }
+
+    /**
+     * Download the file of the given PDB ID into the cache, if it is not stored yet. The PDB file is preferred,
+     * entries which are not available in PDB format, e.g. large structures, are downloaded as BinaryCIF file.
+     * @param pdbID - the entry ID; not null or blank
+     * @throws IOException - if neither the PDB file nor the BinaryCIF file can be downloaded
+     */
+    public void downloadEntry(String pdbID) throws IOException{
+        if(FileParser.isFileCreated(pdbID)){
+            return;
+        }
+        try {
+            FileParser.createFileFromStream(getStreamOfID(pdbID), pdbID);
+        }
+        catch (FileNotFoundException e){
+            try {
+                FileParser.createBinaryCifFromStream(getBinaryCifStreamOfID(pdbID), pdbID);
+            }
+            catch (IOException binaryCifException){
+                binaryCifException.addSuppressed(e);
+                throw binaryCifException;
+            }
+        }
+    }
+
     /**
      * Get the InputStream from URL provided.
      * @param url - the URL to which a connection shall be established and to get the InputStream from. Is not supposed to be null.
@@ -94,14 +289,30 @@ public class PDBWebClient {
 
     /**
      * Get a ListProperty holding all entry IDs, which can be accessed at the REST interface of the base URL of this class.
+     * The list is updated in the background whenever the IDs on the server change, it can not be changed otherwise.
      * @return - a ListProperty of strings, where each String is the ID of one entry.
-     *          The list might be empty, e.g. if an error occurred when reading from the base URL
+     *          The list might be empty, e.g. if the IDs were never requested successfully.
      */
-    public ListProperty<String> allEntryIDsProperty() throws IOException {
-        requestAllPDBIDs();
+    public ListProperty<String> allEntryIDsProperty() {
         return entryIDs;
     }
 
+    /**
+     * Get the index of all entry IDs, which is stored in the index file.
+     * @return the current index, null if the IDs were never requested successfully
+     */
+    public EntryIDIndex getEntryIDIndex() {
+        return index;
+    }
+
+    /**
+     * Get the message of the last error which occurred when requesting the entry IDs in the background.
+     * @return property holding the error message, null if the last request was successful
+     */
+    public ReadOnlyStringProperty entryIDsErrorProperty() {
+        return entryIDsError;
+    }
+
     public ListProperty<String> sarsCovEntryIDsProperty() {
         return sarsCovEntryIDs;
     }
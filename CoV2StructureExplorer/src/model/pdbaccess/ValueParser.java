@@ -0,0 +1,194 @@
+package model.pdbaccess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ValueParser reads numbers and names directly from a text, e.g. the lines of a PDBLineBuffer or the content of an mmCIF file,
+ * without creating intermediate Strings. The text is either an array of characters or ASCII bytes, e.g. of a mapped file.
+ * Names repeat very often within one file, therefore they are taken from a small cache instead of creating a new String for every atom.
+ * Each ValueParser has its own cache and is used by one reader at a time. The given ranges need to be trimmed already, the parser does not skip blanks.
+ */
+final class ValueParser {
+
+    private static final int NAME_CACHE_SIZE = 1024;         //needs to be a power of two
+    private static final int MAX_EXACT_DIGITS = 15;          //every long with 15 digits can be represented exactly as double
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+    private char[] chars;                       //null if the bytes are parsed
+    private final ByteBuffer bytes;             //null if the chars are parsed
+    private final String[] nameCache;
+
+    /**
+     * Create a parser of the given characters.
+     * @param chars the text to parse, positions are indices of this array; not null
+     */
+    ValueParser(char[] chars) {
+        if(chars == null){
+            throw new IllegalArgumentException("Values can not be parsed from characters which are null.");
+        }
+        this.chars = chars;
+        this.bytes = null;
+        this.nameCache = new String[NAME_CACHE_SIZE];
+    }
+
+    /**
+     * Create a parser of the given ASCII bytes.
+     * @param bytes the text to parse, positions are absolute indices of this buffer; not null
+     */
+    ValueParser(ByteBuffer bytes) {
+        if(bytes == null){
+            throw new IllegalArgumentException("Values can not be parsed from bytes which are null.");
+        }
+        this.chars = null;
+        this.bytes = bytes;
+        this.nameCache = new String[NAME_CACHE_SIZE];
+    }
+
+    /**
+     * Parse the given characters from now on, e.g. after the array of a line was grown. The cached names are kept.
+     * @param chars the text to parse; not null
+     */
+    void setChars(char[] chars) {
+        if(chars == null || this.bytes != null){
+            throw new IllegalArgumentException("Parser of bytes can not parse characters.");
+        }
+        this.chars = chars;
+    }
+
+    /**
+     * Parse the integer between from (inclusive) and to (exclusive).
+     * @return the parsed number
+     * @throws NumberFormatException if the range does not contain a valid integer.
+     */
+    int parseInt(int from, int to) throws NumberFormatException {
+        int position = from;
+        boolean negative = false;
+        if(position < to && (at(position) == '-' || at(position) == '+')){
+            negative = at(position) == '-';
+            position++;
+        }
+        if(position >= to){
+            throw new NumberFormatException("No integer found in value: " + substring(from, to));
+        }
+        long value = 0;
+        for(; position < to; position++){
+            char c = at(position);
+            if(c < '0' || c > '9'){
+                throw new NumberFormatException("Invalid integer: " + substring(from, to));
+            }
+            value = value * 10 + (c - '0');
+            if(value > (long) Integer.MAX_VALUE + 1){
+                throw new NumberFormatException("Integer out of range: " + substring(from, to));
+            }
+        }
+        value = negative ? -value : value;
+        if(value > Integer.MAX_VALUE){
+            throw new NumberFormatException("Integer out of range: " + substring(from, to));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parse the fixed-point decimal number between from (inclusive) and to (exclusive), like coordinates or temperature factors.
+     * The result is exactly the same as Double.parseDouble would return for this range, because digits are collected as an integer first,
+     * which is then divided once by the according power of ten. Numbers which are not written in simple fixed-point notation are handed over to Double.parseDouble.
+     * @return the parsed number
+     * @throws NumberFormatException if the range does not contain a valid number.
+     */
+    double parseDecimal(int from, int to) throws NumberFormatException {
+        int position = from;
+        boolean negative = false;
+        if(position < to && (at(position) == '-' || at(position) == '+')){
+            negative = at(position) == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;        //stays negative as long as no decimal point was found
+        for(; position < to; position++){
+            char c = at(position);
+            if(c >= '0' && c <= '9'){
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if(fractionDigits >= 0){
+                    fractionDigits++;
+                }
+            }
+            else if(c == '.' && fractionDigits < 0){
+                fractionDigits = 0;
+            }
+            else{
+                //e.g. exponent or invalid character
+                return Double.parseDouble(substring(from, to));
+            }
+        }
+        if(digits == 0){
+            throw new NumberFormatException("No number found in value: " + substring(from, to));
+        }
+        if(digits > MAX_EXACT_DIGITS){
+            return Double.parseDouble(substring(from, to));
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Get the name between from (inclusive) and to (exclusive), e.g. an atom or monomer name.
+     * The resulting String is taken from the cache if the same name was read before.
+     * @param upperCase true to convert the name to upper case
+     * @return the name, empty if the range is empty
+     */
+    String getName(int from, int to, boolean upperCase) {
+        int hash = 0;
+        for(int i = from; i < to; i++){
+            hash = 31 * hash + charAt(i, upperCase);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+        String cached = this.nameCache[slot];
+        if(cached != null && matches(cached, from, to, upperCase)){
+            return cached;
+        }
+        char[] name = new char[to - from];
+        for(int i = from; i < to; i++){
+            name[i - from] = charAt(i, upperCase);
+        }
+        String string = new String(name);
+        this.nameCache[slot] = string;
+        return string;
+    }
+
+    /**
+     * Get the characters between from (inclusive) and to (exclusive) as new String, e.g. for messages.
+     */
+    String substring(int from, int to) {
+        char[] chars = new char[to - from];
+        for(int i = from; i < to; i++){
+            chars[i - from] = at(i);
+        }
+        return new String(chars);
+    }
+
+    private char at(int index) {
+        return this.chars != null ? this.chars[index] : (char) (this.bytes.get(index) & 0xFF);
+    }
+
+    private char charAt(int index, boolean upperCase) {
+        char c = at(index);
+        return upperCase ? Character.toUpperCase(c) : c;
+    }
+
+    /**
+     * Check if the given name equals the content between from and to.
+     */
+    private boolean matches(String name, int from, int to, boolean upperCase) {
+        if(name.length() != to - from){
+            return false;
+        }
+        for(int i = from; i < to; i++){
+            if(name.charAt(i - from) != charAt(i, upperCase)){
+                return false;
+            }
+        }
+        return true;
+    }
+}
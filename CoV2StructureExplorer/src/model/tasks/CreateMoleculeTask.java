@@ -52,16 +52,14 @@ public class CreateMoleculeTask extends Task<Molecules> {
         updateProgress(0, 100);                 //progress is starting
 
         try{
-            this.molecules = this.fileParser.getMoleculeFromFile(this);
+            //centered molecules with bonds, read from their snapshot if the file was loaded before
+            this.molecules = this.fileParser.loadMolecules(getFilename(), this::updateProgressValue);
         }
         catch (IOException e){
             setException(e);
         }
         updateProgress(90, 100);
-        if(molecules != null){
-            molecules.centerAtOrigin();
-        }
-        else{
+        if(molecules == null){
             setException(new NullArgumentException("No molecule could be created from the given file. \n Sorry, please try again later."));
             cancel(true);
         }
@@ -0,0 +1,227 @@
+package model.tasks;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableMap;
+import javafx.concurrent.Task;
+import model.molecules.Molecules;
+import model.pdbaccess.FileParser;
+import model.pdbaccess.PDBWebClient;
+import org.apache.commons.lang.NullArgumentException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is a Task which downloads, caches and parses several PDB entries at once, e.g. all SARS-CoV-2 entries.
+ * Entries are downloaded by a small pool of threads, because downloading is bound by the connection, and parsed by one thread per processor.
+ * Only a limited number of entries may be downloaded but not yet parsed, downloads wait for the parsers if parsing is slower.
+ * The progress of each entry is shown in the entry progress map, the progress of the task is the number of finished entries.
+ * The resulting map contains the molecules of all entries which could be loaded, in the order of the given IDs.
+ */
+public class LoadEntriesTask extends Task<Map<String, Molecules>> {
+
+    public static final int DEFAULT_DOWNLOADS = 6;             //concurrent connections to the server
+    private static final double DOWNLOADED = 0.5;              //progress of an entry when its file is in the cache
+
+    private final List<String> entryIDs;
+    private final PDBWebClient webClient;
+    private final int downloads;
+    private final int parsers;
+
+    private final ObservableMap<String, Double> entryProgress;         //changed on the FX application thread only
+    private final Map<String, Double> latestProgress;                  //progress which was not yet shown in entryProgress
+    private final AtomicBoolean progressUpdateScheduled;
+    private final Map<String, Exception> failures;
+
+    /**
+     * Constructor of a task loading the given entries with DEFAULT_DOWNLOADS downloads and one parser per processor.
+     * @param entryIDs - IDs of the entries to load, duplicates are loaded once; not null
+     * @param webClient - client to download files which are not in the cache yet; not null
+     */
+    public LoadEntriesTask(Collection<String> entryIDs, PDBWebClient webClient){
+        this(entryIDs, webClient, DEFAULT_DOWNLOADS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor of a task loading the given entries.
+     * @param entryIDs - IDs of the entries to load, duplicates are loaded once; not null
+     * @param webClient - client to download files which are not in the cache yet; not null
+     * @param downloads - number of entries which are downloaded at the same time; greater than 0
+     * @param parsers - number of entries which are parsed at the same time; greater than 0
+     */
+    public LoadEntriesTask(Collection<String> entryIDs, PDBWebClient webClient, int downloads, int parsers){
+        if(entryIDs == null || webClient == null){
+            throw new NullArgumentException("Entries can not be loaded if the entry IDs or the web client are null.");
+        }
+        if(downloads <= 0 || parsers <= 0){
+            throw new IllegalArgumentException("Entries can only be loaded with at least one download and one parser.");
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for(String id : entryIDs){
+            if(id != null && !id.isBlank()){
+                distinct.add(id.trim().toUpperCase());
+            }
+        }
+        this.entryIDs = List.copyOf(distinct);
+        this.webClient = webClient;
+        this.downloads = downloads;
+        this.parsers = parsers;
+        this.entryProgress = FXCollections.observableHashMap();
+        this.latestProgress = new ConcurrentHashMap<>();
+        this.progressUpdateScheduled = new AtomicBoolean();
+        this.failures = new ConcurrentHashMap<>();
+        for(String id : this.entryIDs){
+            this.entryProgress.put(id, 0.0);
+        }
+    }
+
+    @Override
+    protected Map<String, Molecules> call() throws InterruptedException {
+        Map<String, Molecules> loaded = new ConcurrentHashMap<>();
+        int total = this.entryIDs.size();
+        AtomicInteger finished = new AtomicInteger();
+        CountDownLatch allFinished = new CountDownLatch(total);
+        Semaphore waitingForParser = new Semaphore(2 * this.parsers);          //downloaded entries, which are not parsed yet
+        ExecutorService downloadPool = Executors.newFixedThreadPool(this.downloads, createThreadFactory("Entry download"));
+        ExecutorService parsePool = Executors.newFixedThreadPool(this.parsers, createThreadFactory("Entry parsing"));
+        updateProgress(0, total);
+        updateMessage(String.format("Loading %d entries...", total));
+
+        try {
+            for(String id : this.entryIDs){
+                downloadPool.execute(() -> {
+                    try {
+                        waitingForParser.acquire();                 //wait for the parsers if too many entries are waiting
+                        download(id);
+                        parsePool.execute(() -> {
+                            try {
+                                loaded.put(id, parse(id));
+                            }
+                            catch (Exception e){
+                                fail(id, e);
+                            }
+                            finally {
+                                waitingForParser.release();
+                                finish(finished, allFinished, total);
+                            }
+                        });
+                    }
+                    catch (InterruptedException e){
+                        Thread.currentThread().interrupt();         //only happens if the task was cancelled
+                    }
+                    catch (Exception e){
+                        fail(id, e);
+                        waitingForParser.release();
+                        finish(finished, allFinished, total);
+                    }
+                });
+            }
+            allFinished.await();
+        }
+        finally {
+            downloadPool.shutdownNow();
+            parsePool.shutdownNow();
+        }
+
+        Map<String, Molecules> result = new LinkedHashMap<>();
+        for(String id : this.entryIDs){
+            if(loaded.containsKey(id)){
+                result.put(id, loaded.get(id));
+            }
+        }
+        updateMessage(this.failures.isEmpty() ? String.format("Loaded %d entries.", result.size())
+                : String.format("Loaded %d of %d entries, %d could not be loaded.", result.size(), total, this.failures.size()));
+        return result;
+    }
+
+    /**
+     * Store the file of the entry in the cache, if it is not present yet.
+     */
+    private void download(String id) throws Exception {
+        if(isCancelled()){
+            throw new CancellationException("Loading entries was cancelled.");
+        }
+        if(!FileParser.isFileCreated(id)){
+            updateEntryProgress(id, 0.1);
+            this.webClient.downloadEntry(id);
+        }
+        updateEntryProgress(id, DOWNLOADED);
+    }
+
+    /**
+     * Parse the file of the entry from the cache or read the snapshot of a previous parse, every entry gets its own FileParser.
+     */
+    private Molecules parse(String id) throws Exception {
+        if(isCancelled()){
+            throw new CancellationException("Loading entries was cancelled.");
+        }
+        Molecules molecules = new FileParser().loadMolecules(id, value -> updateEntryProgress(id, DOWNLOADED + (1 - DOWNLOADED) * value / 100));
+        if(molecules == null){
+            throw new NullArgumentException("No molecule could be created from the file of entry " + id + ".");
+        }
+        updateEntryProgress(id, 1.0);
+        return molecules;
+    }
+
+    private void fail(String id, Exception e){
+        this.failures.put(id, e);
+        System.err.printf("Entry %s could not be loaded: %s%n", id, e.getMessage());
+    }
+
+    private void finish(AtomicInteger finished, CountDownLatch allFinished, int total){
+        updateProgress(finished.incrementAndGet(), total);
+        allFinished.countDown();
+    }
+
+    /**
+     * Show the progress of an entry in the entry progress map. Like the progress of the task, several updates between two pulses
+     * of the FX application thread are shown at once.
+     */
+    private void updateEntryProgress(String id, double progress){
+        this.latestProgress.put(id, progress);
+        if(this.progressUpdateScheduled.compareAndSet(false, true)){
+            Platform.runLater(() -> {
+                this.progressUpdateScheduled.set(false);
+                for(String entry : this.latestProgress.keySet()){
+                    Double value = this.latestProgress.remove(entry);
+                    if(value != null){
+                        this.entryProgress.put(entry, value);
+                    }
+                }
+            });
+        }
+    }
+
+    private static ThreadFactory createThreadFactory(String name){
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + " " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Get the progress of each entry from 0 (waiting) over 0.5 (file is cached) to 1 (parsed).
+     * The map is changed on the FX application thread only.
+     * @return map of the progress by entry ID
+     */
+    public ObservableMap<String, Double> getEntryProgress() {
+        return entryProgress;
+    }
+
+    /**
+     * Get the entries which could not be loaded.
+     * @return map of the error by entry ID
+     */
+    public Map<String, Exception> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public List<String> getEntryIDs() {
+        return entryIDs;
+    }
+}
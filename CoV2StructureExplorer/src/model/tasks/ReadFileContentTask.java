@@ -3,12 +3,17 @@ package model.tasks;
 import javafx.beans.property.StringProperty;
 import javafx.concurrent.Task;
 import model.pdbaccess.FileParser;
+import model.pdbaccess.PDBDocument;
 import model.pdbaccess.PDBWebClient;
 import org.apache.commons.lang.NullArgumentException;
 
 import java.io.IOException;
 
-public class ReadFileContentTask extends Task<String> {
+/**
+ * ReadFileContentTask downloads the file of the given entry if it is not present yet and opens it as PDBDocument.
+ * Only the offsets of the lines are read, so the task finishes quickly regardless of the size of the file.
+ */
+public class ReadFileContentTask extends Task<PDBDocument> {
 
     StringProperty filename;
     PDBWebClient webClient;
@@ -34,13 +39,13 @@ public class ReadFileContentTask extends Task<String> {
 
 
     @Override
-    protected String call() throws Exception {
+    protected PDBDocument call() throws Exception {
         // filename can not be null or blank
         if(!FileParser.isFileCreated(this.filename.getValue())){
             updateProgress(10, 100);
             //only create file if it is not present in the default directory.
             try{
-                FileParser.createFileFromStream(webClient.getStreamOfID(filename.getValue()), filename.getValue());
+                webClient.downloadEntry(filename.getValue());
             }
             catch (IOException e){
                 this.setException(e);
@@ -48,14 +53,11 @@ public class ReadFileContentTask extends Task<String> {
             }
         }
         updateProgress(30, 100);
-        String output = FileParser.getContentOfFile(filename.getValue());
+        PDBDocument output = FileParser.openDocument(filename.getValue());
         updateProgress(90, 100);
-        if(output == null){
+        if(output.isEmpty()){
             //shall not cause an error but just be displayed in output area instead.
-            output = "Content of file could not be read.";
-        }
-        else if(output.isBlank()){
-            output = "Nothing to show because the selected file was empty.";
+            output = PDBDocument.of("Nothing to show because the selected file was empty.");
         }
         updateProgress(99, 100);
         return output;
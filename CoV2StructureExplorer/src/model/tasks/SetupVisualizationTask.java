@@ -1,9 +1,11 @@
 package model.tasks;
 
-import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
 import javafx.concurrent.Task;
 import javafx.geometry.Point3D;
 import javafx.scene.Group;
+import javafx.scene.Node;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.CullFace;
@@ -14,20 +16,30 @@ import javafx.util.Pair;
 import model.MoleculeAnalyzer;
 import model.atoms.AtomI;
 import model.atoms.CarbonPosition;
+import model.molecules.MoleculeBounds;
 import model.molecules.Molecules;
 import model.molecules.Monomer;
 import model.molecules.Polymer;
 import model.molecules.Structure;
 import org.apache.commons.lang.NullArgumentException;
 import selection.SelectionModel;
+import view.AtomColoring;
+import view.AtomMesh;
 import view.AtomSphere;
+import view.BondMesh;
+import view.LevelOfDetail;
+import view.LevelOfDetailManager;
+import view.SceneUpdateQueue;
 import view.Window;
 import view.helper.Shape3DUtils;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * This class is a Task which sets up a visualization of the molecules class.
@@ -37,6 +49,12 @@ import java.util.Set;
  * One where each given atom from the Molecules class will be assoziated with the according sphere that was created
  * Another one, where for each Structuring group (like Chain, Sheet, Helix, Monomer, ...) the according spheres are listed.
  * The first one will be the return value of this task, the second one will be set in the view.
+ * Additionally, all atoms and bonds of each polymer are merged into one AtomMesh and one BondMesh for the batched drawing style,
+ * which renders large molecules much faster than single nodes. The batched style is created in several levels of detail
+ * (see LevelOfDetail), levels with too many triangles for the size of the molecule are left out.
+ * Spheres and cylinders are only created if they are requested: when the molecule is set up in the batched style, the maps of spheres stay empty.
+ * The view is not changed at once when all shapes are created: each polymer is appended to the view by its SceneUpdateQueue as soon as its shapes
+ * are created, so the first polymers of large molecules are shown while the other polymers are still set up. The task finishes once all polymers are shown.
  */
 public class SetupVisualizationTask extends Task<HashMap<AtomI, AtomSphere>> {
 
@@ -44,22 +62,30 @@ public class SetupVisualizationTask extends Task<HashMap<AtomI, AtomSphere>> {
 
     private Window view;
     private PhongMaterial cylinderMaterial;
-    private Group moleculeGroup;
-    private Group polymersRibbonMeshes;
+    private Group polymerGroup;                 //spheres and cylinders of the polymer which is currently set up
 
-    private SelectionModel selectionModel;
+    private static final int LOW_POLY_DIVISIONS = 4;
+    private static final int LOW_POLY_BOND_SIDES = 3;
+    private static final double TRACE_RADIUS = 0.4;
+    private static final double MAX_TRACE_DISTANCE = 8;     //guiding carbons which are further apart belong to different fragments of a chain
+
+    private SelectionModel<AtomI> selectionModel;
+    private final boolean createSpheres;        //single nodes for each atom and bond, not needed by the batched style
 
     private HashMap<AtomI, AtomSphere> atom2sphere;
     private HashMap<String, List<Cylinder>> polymersCylinder;
     private HashMap<String, List<AtomSphere>> shapeReferences;
+    private final List<AtomSphere> coloredSpheres;          //all spheres in the order of the atom coloring
+    private final List<AtomMesh> coloredMeshes;
 
     /**
      * Constructor of the Task to set up the visualization of molecules
      * @param molecule the molecules to be visualized
      * @param window the window in which to be visualized
      * @param selectionModel the selection model, which will handle spheres selection.
+     * @param createSpheres true to create a sphere for each atom and a cylinder for each bond, false if only the batched and the ribbon style are shown
      */
-    public SetupVisualizationTask(Molecules molecule, Window window, SelectionModel selectionModel){
+    public SetupVisualizationTask(Molecules molecule, Window window, SelectionModel<AtomI> selectionModel, boolean createSpheres){
         scheduled();
         if(molecule != null){
             this.molecules = molecule;
@@ -85,17 +111,17 @@ public class SetupVisualizationTask extends Task<HashMap<AtomI, AtomSphere>> {
             this.setException(new NullArgumentException("Molecules visualization can not be set up with a selection model which is null."));
             cancel(true);
         }
+        this.createSpheres = createSpheres;
         //shall be always the same and therefore is set only once.
         cylinderMaterial = new PhongMaterial();
         cylinderMaterial.setDiffuseColor(Color.GREEN.darker());
         cylinderMaterial.setSpecularColor(Color.GREEN.brighter());
 
-        moleculeGroup = new Group();
-        polymersRibbonMeshes = new Group();
-
         this.shapeReferences = new HashMap<>();
         this.atom2sphere = new HashMap<>();
         this.polymersCylinder = new HashMap<>();
+        this.coloredSpheres = new ArrayList<>();
+        this.coloredMeshes = new ArrayList<>();
         running();
     }
 
@@ -115,10 +141,49 @@ public class SetupVisualizationTask extends Task<HashMap<AtomI, AtomSphere>> {
                 this.shapeReferences.put(structGroup, new ArrayList<>());
             }
             updateProgressValue(20);
+            //levels of detail which are too expensive for this molecule are not created at all
+            int numberOfAtoms = molecules.getNumberOfAtoms();
+            int numberOfBonds = molecules.getBonds().size();
+            molecules.getAtomOwners();          //index the owners of the atoms before they can be selected
+            int sphereDivisions = AtomMesh.getDivisionsForAtoms(numberOfAtoms);
+            int bondSides = sphereDivisions > 8 ? 6 : 4;
+            boolean createFull = LevelOfDetailManager.isAffordable((long) numberOfAtoms * AtomMesh.getFacesPerAtom(sphereDivisions) + 2L * numberOfBonds * bondSides);
+            boolean createLowPoly = (sphereDivisions > LOW_POLY_DIVISIONS || !createFull)
+                    && LevelOfDetailManager.isAffordable((long) numberOfAtoms * AtomMesh.getFacesPerAtom(LOW_POLY_DIVISIONS) + 2L * numberOfBonds * LOW_POLY_BOND_SIDES);
+            Map<LevelOfDetail, Group> levels = new EnumMap<>(LevelOfDetail.class);
+            for (LevelOfDetail level : LevelOfDetail.values()) {
+                levels.put(level, new Group());
+            }
+            if(!createLowPoly && createFull){
+                //spheres of the full level have as few divisions as low poly spheres
+                levels.put(LevelOfDetail.LOW_POLY, levels.get(LevelOfDetail.FULL));
+            }
+            MoleculeBounds bounds = molecules.getBounds();
+            double moleculeRadius = Math.max(bounds.getMin().magnitude(), bounds.getMax().magnitude());
+            //colors of all schemes, the atoms are visited in the same order as below
+            AtomColoring coloring = new AtomColoring(polymers, bounds);
+            int firstAtomOfPolymer = 0;
+
+            //the previous molecule is removed from the view, the polymers are shown one by one as soon as they are set up
+            SceneUpdateQueue sceneUpdates = this.view.getSceneUpdates();
+            sceneUpdates.submit(() -> {
+                if(!isCancelled()) {
+                    this.view.setMoleculeGroup(new Group());
+                    this.view.clearPolymers();
+                    this.view.setPolymersRibbonMeshGroup(new Group());
+                    this.view.setMoleculeMeshLevels(levels, moleculeRadius);
+                }
+            });
 
             for (int i = 0; i < polymers.size(); i++) {
+                if(isCancelled()){
+                    return null;
+                }
+                this.polymerGroup = new Group();
                 String polyType = polymers.get(i).getUnitID().trim().toUpperCase();
                 List<Structure> structures = polymers.get(i).getStructures();
+                List<AtomI> polymersAtoms = new ArrayList<>();
+                List<Pair<Point3D, Point3D>> polymersBonds = new ArrayList<>();
 
                 for (int j = 0; j < structures.size(); j++) {
                     List<Monomer> monomers = structures.get(j).getMonomers();
@@ -127,8 +192,15 @@ public class SetupVisualizationTask extends Task<HashMap<AtomI, AtomSphere>> {
 
                     for (int k = 0; k < monomers.size(); k++) {
                         Monomer m = monomers.get(k);
+                        List<Pair<Point3D, Point3D>> monomersBonds = m.getBonds();
+                        polymersAtoms.addAll(m.getAtoms());
+                        polymersBonds.addAll(monomersBonds);
+                        if(!this.createSpheres){
+                            continue;
+                        }
                         //Balls and Sticks visualization
                         List<AtomSphere> monomersSpheres = createMonomerSpheres(i, j, k, m.getAtoms(), this.selectionModel);
+                        this.coloredSpheres.addAll(monomersSpheres);
 
                         //keep references for this monomer type
                         String monoType = m.getType().name().trim().toUpperCase();
@@ -163,16 +235,28 @@ public class SetupVisualizationTask extends Task<HashMap<AtomI, AtomSphere>> {
                         polyRef.addAll(monomersSpheres); //should be initialized with empty list --> no check needed
                         this.shapeReferences.put(polyType, polyRef);
 
-                        List<Cylinder> polymersCylinder = createMonomersBonds(i, j, k, m.getBonds());
+                        List<Cylinder> polymersCylinder = createMonomersBonds(i, j, k, monomersBonds);
                         List<Cylinder> polysCylinder = this.polymersCylinder.get(polyType);
                         if (polysCylinder == null) {
                             polysCylinder = new ArrayList<>();
                         }
                         polysCylinder.addAll(polymersCylinder);
                         this.polymersCylinder.put(polyType, polymersCylinder);
-
                     }
                 }
+                //Batched visualization, one node for each level of detail
+                Map<LevelOfDetail, Node> polymerLevels = new EnumMap<>(LevelOfDetail.class);
+                if(createFull) {
+                    polymerLevels.put(LevelOfDetail.FULL, createPolymerMeshes(polymersAtoms, firstAtomOfPolymer, polymersBonds, sphereDivisions, bondSides, this.selectionModel));
+                }
+                if(createLowPoly) {
+                    polymerLevels.put(LevelOfDetail.LOW_POLY, createPolymerMeshes(polymersAtoms, firstAtomOfPolymer, polymersBonds, LOW_POLY_DIVISIONS, LOW_POLY_BOND_SIDES, this.selectionModel));
+                }
+                firstAtomOfPolymer += polymersAtoms.size();
+                BondMesh trace = createPolymerTrace(polymers.get(i).getMonomers());
+                if(trace != null) {
+                    polymerLevels.put(LevelOfDetail.TRACE, trace);
+                }
 
                 //Ribbon visualization
                 List<Monomer> allMonosOfPoly = polymers.get(i).getMonomers();
@@ -185,24 +269,53 @@ public class SetupVisualizationTask extends Task<HashMap<AtomI, AtomSphere>> {
                             polysMeshes.getChildren().add(ribbonMesh);
                         }
                 }
+                Group polymerRibbons = null;
                 if(polysMeshes.getChildren().size() > 0) {
-                    polymersRibbonMeshes.getChildren().add(polysMeshes);
-                }
-                if (i == Math.floorDiv(polymers.size(), 2)) {
-                    updateProgressValue(50);
+                    polymerRibbons = polysMeshes;
+                    List<MeshView> ribbonParts = new ArrayList<>();
+                    for (Node ribbonPart : polysMeshes.getChildren()) {
+                        ribbonParts.add((MeshView) ribbonPart);
+                    }
+                    polymerLevels.put(LevelOfDetail.RIBBON, Shape3DUtils.mergeMeshes(ribbonParts));
                 }
+
+                //the shapes of this polymer are not changed by this task anymore, so they can be shown
+                Group polymerSpheres = this.polymerGroup;
+                Group ribbons = polymerRibbons;
+                Point3D polymerCenter = getCenter(polymersAtoms);
+                sceneUpdates.submit(() -> {
+                    if(!isCancelled()) {
+                        this.view.appendPolymer(polymerSpheres, ribbons, polymerLevels, polymerCenter);
+                    }
+                });
+                updateProgressValue(20 + 79.0 * (i + 1) / polymers.size());
             }
-            Platform.runLater(() -> {
-                this.view.setMoleculeGroup(this.moleculeGroup);
-                this.view.setPolymersRibbonMeshGroup(this.polymersRibbonMeshes);
-                this.view.resetMoleculeView();
-                this.view.setSpheresReferences(this.shapeReferences);
-                this.view.setPolymersCylinder(this.polymersCylinder);
+
+            CountDownLatch shown = new CountDownLatch(1);
+            sceneUpdates.submit(() -> {
+                try {
+                    if(!isCancelled()) {
+                        levels.values().removeIf(level -> level.getChildren().isEmpty());     //e.g. no ribbons for molecules without amino acids
+                        //the finest affordable level is known once all polymers were added
+                        this.view.setMoleculeMeshLevels(levels, moleculeRadius);
+                        this.view.setSpheresReferences(this.shapeReferences);
+                        this.view.setPolymersCylinder(this.polymersCylinder);
+                        this.view.setAtomColoring(coloring, this.coloredSpheres, this.coloredMeshes);
+                    }
+                }
+                finally {
+                    shown.countDown();
+                }
             });
+            shown.await();          //the molecules are set up once all polymers are shown
             updateProgress(100, 100);
 
             return atom2sphere;
         }
+        catch (InterruptedException e){
+            //task was cancelled while the last polymers were shown
+            Thread.currentThread().interrupt();
+        }
         catch (Exception e){
             this.setException(e);
             cancel();
@@ -219,7 +332,7 @@ public class SetupVisualizationTask extends Task<HashMap<AtomI, AtomSphere>> {
      * @param selectionModel the model handling selection events
      * @return the list of AtomSpheres which have been created from the list of atoms.
      */
-    public List<AtomSphere> createMonomerSpheres(int polymerNumber, int structureNumber, int monomerNumber, List<AtomI> monomersAtoms, SelectionModel selectionModel){
+    public List<AtomSphere> createMonomerSpheres(int polymerNumber, int structureNumber, int monomerNumber, List<AtomI> monomersAtoms, SelectionModel<AtomI> selectionModel){
         if(polymerNumber >= 0 && structureNumber >= 0 && monomerNumber >= 0 && monomersAtoms != null && selectionModel != null) {
             List<AtomSphere> monomersSpheres = new ArrayList<>();
 
@@ -233,7 +346,7 @@ public class SetupVisualizationTask extends Task<HashMap<AtomI, AtomSphere>> {
             monomerAtomsGroup.visibleProperty().bind(this.view.getController().getShowBallsCheckbox().selectedProperty());
 
             // add spheres to groups
-            addShapeToMonomerGroup(polymerNumber, structureNumber, monomerNumber, monomerAtomsGroup);
+            addShapeToMonomerGroup(structureNumber, monomerNumber, monomerAtomsGroup);
             return monomersSpheres;
         }
         return null;
@@ -272,24 +385,108 @@ public class SetupVisualizationTask extends Task<HashMap<AtomI, AtomSphere>> {
             monomerBondGroup.visibleProperty().bind(this.view.getController().getShowBondsCheckbox().selectedProperty());
 
             // add bonds to groups
-            addShapeToMonomerGroup(polymerNumber, structureNumber, monomerNumber, monomerBondGroup);
+            addShapeToMonomerGroup(structureNumber, monomerNumber, monomerBondGroup);
             return monomerCylinders;
         }
         return null;
     }
 
+    /**
+     * Create one mesh for all atoms and one mesh for all bonds of a polymer. Both are updated when the size sliders or the shown atoms change.
+     * A click on the atom mesh selects the atom of the clicked face.
+     * @param polymersAtoms all atoms of the polymer
+     * @param firstAtom position of the first atom of the polymer within the atom coloring
+     * @param polymersBonds all bonds of the polymer, given by the centers of both atoms
+     * @param sphereDivisions number of divisions of each atoms sphere
+     * @param bondSides number of sides of each bond
+     * @param selectionModel the model handling selection events
+     * @return a group containing the atom mesh and the bond mesh of the polymer
+     */
+    private Group createPolymerMeshes(List<AtomI> polymersAtoms, int firstAtom, List<Pair<Point3D, Point3D>> polymersBonds, int sphereDivisions, int bondSides, SelectionModel<AtomI> selectionModel){
+        AtomMesh atomMesh = new AtomMesh(polymersAtoms, sphereDivisions, firstAtom);
+        this.coloredMeshes.add(atomMesh);
+        atomMesh.visibleProperty().bind(this.view.getController().getShowBallsCheckbox().selectedProperty());
+        atomMesh.setOnMouseClicked(e -> {
+            AtomI atom = atomMesh.getAtomOfFace(e.getPickResult().getIntersectedFace());
+            if(atom != null){
+                if(!e.isShiftDown()){
+                    selectionModel.clearSelection();
+                }
+                selectionModel.select(atom);
+            }
+        });
+        BondMesh bondMesh = new BondMesh(polymersBonds, bondSides, cylinderMaterial);
+        bondMesh.visibleProperty().bind(this.view.getController().getShowBondsCheckbox().selectedProperty());
+
+        //same sizes as spheres and cylinders
+        InvalidationListener atomSizeListener = v -> atomMesh.setRadiusScale(this.view.getController().getMoleculeSizeSlider().getValue() * 0.01);
+        InvalidationListener bondSizeListener = v -> bondMesh.setRadius(this.view.getController().getBondsSizeSlider().getValue() * 0.05 * 0.1);
+        InvalidationListener atomKindListener = v -> {
+            String atomKind = this.view.getController().getAtomChoiceBox().getValue();
+            atomMesh.setVisibleAtoms(atomKind == null || atomKind.equals("All") ? null : atom -> atomKind.equals(atom.getName().get()));
+        };
+        atomSizeListener.invalidated(null);
+        bondSizeListener.invalidated(null);
+        atomMesh.setUserData(new InvalidationListener[]{atomSizeListener, bondSizeListener, atomKindListener}); //keep references
+        this.view.getController().getMoleculeSizeSlider().valueProperty().addListener(new WeakInvalidationListener(atomSizeListener));
+        this.view.getController().getBondsSizeSlider().valueProperty().addListener(new WeakInvalidationListener(bondSizeListener));
+        this.view.getController().getAtomChoiceBox().valueProperty().addListener(new WeakInvalidationListener(atomKindListener));
+        return new Group(atomMesh, bondMesh);
+    }
+
+    /**
+     * Get the mean location of the given atoms, which is the direction of the polymer in explosions.
+     * @param atoms atoms of the polymer
+     * @return the center of the atoms, the origin if there are no atoms
+     */
+    private static Point3D getCenter(List<AtomI> atoms){
+        double sumX = 0, sumY = 0, sumZ = 0;
+        for (AtomI atom : atoms) {
+            Point3D location = atom.getLocation().getValue();
+            sumX += location.getX();
+            sumY += location.getY();
+            sumZ += location.getZ();
+        }
+        return atoms.isEmpty() ? Point3D.ZERO : new Point3D(sumX / atoms.size(), sumY / atoms.size(), sumZ / atoms.size());
+    }
+
+    /**
+     * Create the backbone trace of a polymer: one thick bond between the guiding carbons of each pair of neighbouring monomers.
+     * @param monomers all monomers of the polymer in the order of the chain
+     * @return a mesh containing the trace, null if the polymer has less than two monomers with a guiding carbon.
+     */
+    private BondMesh createPolymerTrace(List<Monomer> monomers){
+        List<Pair<Point3D, Point3D>> traceBonds = new ArrayList<>();
+        Point3D previous = null;
+        for (Monomer monomer : monomers) {
+            Point3D current = monomer.getRibbonPosition(CarbonPosition.GUIDE);
+            if(current != null){
+                if(previous != null && previous.distance(current) <= MAX_TRACE_DISTANCE){
+                    traceBonds.add(new Pair<>(previous, current));
+                }
+                previous = current;
+            }
+        }
+        if(traceBonds.isEmpty()){
+            return null;
+        }
+        BondMesh trace = new BondMesh(traceBonds, LOW_POLY_BOND_SIDES + 1, cylinderMaterial);
+        trace.setRadius(TRACE_RADIUS);
+        return trace;
+    }
+
     /**
      * Create the according sphere which will represent the given atom and prepare selection of that atoms sphere.
      * @param atom the atom to be represented by a sphere
      * @param selectionModel handling the selection of the created sphere
      * @return a sphere representing the given atom.
      */
-    private AtomSphere createAtomSphere(AtomI atom, SelectionModel selectionModel) {
+    private AtomSphere createAtomSphere(AtomI atom, SelectionModel<AtomI> selectionModel) {
         AtomSphere sphere = null;
         if(atom != null && selectionModel != null){
             sphere = new AtomSphere(atom.getName(), atom.getLetter(), atom.getLocation(), atom.getRadiusPM(), atom.getColor(), atom.getTempFactor());
             sphere.radiusProperty().bind(this.view.getController().getMoleculeSizeSlider().valueProperty().multiply(sphere.getRadius() * 0.01));
-            sphere.visibleProperty().bind(this.view.getController().getAtomChoiceBox().selectionModelProperty().get().selectedItemProperty().isEqualTo("All").or(this.view.getController().getAtomChoiceBox().selectionModelProperty().get().selectedItemProperty().isEqualTo(atom.getName())));
+            sphere.visibleProperty().bind(this.view.getController().getAtomChoiceBox().selectionModelProperty().get().selectedItemProperty().isEqualTo("All").or(this.view.getController().getAtomChoiceBox().selectionModelProperty().get().selectedItemProperty().isEqualTo(atom.getName())).and(sphere.filteredProperty().not()));
             sphere.setOnMouseClicked(e -> {
                 if(!e.isShiftDown()){
                     selectionModel.clearSelection();
@@ -395,28 +592,23 @@ public class SetupVisualizationTask extends Task<HashMap<AtomI, AtomSphere>> {
     }
 
     /**
-     * Add the given group of shapes to the Group of monomer with monomerNumber in structure with structureNumber of polymer with polymerNumber
-     * @param polymerNumber index of the polymers group which is searched, and where it can be found in the molecule group.
+     * Add the given group of shapes to the Group of monomer with monomerNumber in structure with structureNumber of the polymer which is currently set up
      * @param structureNumber index of the structure group which is searched, and where it can be found in the polymer group.
      * @param monomerNumber index of the monomer group which is searched, and where it can be found in the structure group.
      * @param shapes group of shapes to be added.
      */
-    private void addShapeToMonomerGroup(int polymerNumber, int structureNumber, int monomerNumber, Group shapes){
-        if(polymerNumber >= 0 && structureNumber >= 0 && monomerNumber >= 0) {
+    private void addShapeToMonomerGroup(int structureNumber, int monomerNumber, Group shapes){
+        if(structureNumber >= 0 && monomerNumber >= 0) {
             //check if according groups already exist
-            while (moleculeGroup.getChildren().size() <= polymerNumber) {
-                moleculeGroup.getChildren().add(new Group());
-            }
-
-            while (((Group) moleculeGroup.getChildren().get(polymerNumber)).getChildren().size() <= structureNumber) {
-                ((Group) moleculeGroup.getChildren().get(polymerNumber)).getChildren().add(new Group());
+            while (polymerGroup.getChildren().size() <= structureNumber) {
+                polymerGroup.getChildren().add(new Group());
             }
 
-            while (((Group) ((Group) moleculeGroup.getChildren().get(polymerNumber)).getChildren().get(structureNumber)).getChildren().size() <= monomerNumber) {
-                ((Group) ((Group) moleculeGroup.getChildren().get(polymerNumber)).getChildren().get(structureNumber)).getChildren().add(new Group());
+            while (((Group) polymerGroup.getChildren().get(structureNumber)).getChildren().size() <= monomerNumber) {
+                ((Group) polymerGroup.getChildren().get(structureNumber)).getChildren().add(new Group());
             }
 
-            ((Group) ((Group) ((Group) moleculeGroup.getChildren().get(polymerNumber)).getChildren().get(structureNumber)).getChildren().get(monomerNumber)).getChildren().add(shapes);
+            ((Group) ((Group) polymerGroup.getChildren().get(structureNumber)).getChildren().get(monomerNumber)).getChildren().add(shapes);
         }
     }
 
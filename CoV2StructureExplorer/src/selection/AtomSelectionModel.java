@@ -2,43 +2,94 @@ package selection;
 
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableSet;
 import model.atoms.AtomI;
+import model.atoms.AtomTable;
+import model.atoms.TableAtom;
 
-import java.util.Collection;
+import java.util.*;
+import java.util.function.Consumer;
 
+/**
+ * This class keeps the selected atoms. Atoms of an atom table are stored as bits of their index within the table, so selecting all atoms of a
+ * molecules only sets bits instead of filling a set of atom objects. Atoms which are not stored in a table are kept in a set.
+ * Each operation notifies the listeners once with all atoms it selected and unselected, e.g. selectAll with all atoms of the molecules.
+ */
 public class AtomSelectionModel implements SelectionModel<AtomI>{
 
-    private final ObservableSet<AtomI> selectedAtoms;
+    private final Map<AtomTable, BitSet> selectedIndices;
+    private final Set<AtomI> selectedOtherAtoms;          //selected atoms which are not stored in an atom table
+    private int numberOfSelectedAtoms;
+    private final Set<AtomI> selectedAtoms;               //view of all selected atoms
+    private final IntegerProperty selectedAtomsSize;
+    private final List<Consumer<SelectionChange<AtomI>>> listeners;
 
     public AtomSelectionModel(){
-        this.selectedAtoms = FXCollections.observableSet();
+        this.selectedIndices = new IdentityHashMap<>();
+        this.selectedOtherAtoms = new LinkedHashSet<>();
+        this.numberOfSelectedAtoms = 0;
+        this.selectedAtomsSize = new SimpleIntegerProperty(0);
+        this.listeners = new ArrayList<>();
+        this.selectedAtoms = new AbstractSet<>() {
+            @Override
+            public boolean contains(Object o) {
+                if(o instanceof TableAtom atom){
+                    BitSet indices = selectedIndices.get(atom.getTable());
+                    return indices != null && indices.get(atom.getIndex());
+                }
+                return selectedOtherAtoms.contains(o);
+            }
+
+            @Override
+            public Iterator<AtomI> iterator() {
+                List<AtomI> atoms = new ArrayList<>(numberOfSelectedAtoms);
+                selectedIndices.forEach((table, indices) -> addAtomsOfIndices(table, indices, atoms));
+                atoms.addAll(selectedOtherAtoms);
+                return Collections.unmodifiableList(atoms).iterator();
+            }
+
+            @Override
+            public int size() {
+                return numberOfSelectedAtoms;
+            }
+        };
     }
 
     @Override
     public boolean select(AtomI atomI) {
         if(atomI != null){
-            this.selectedAtoms.add(atomI);
+            if(add(atomI)){
+                notifyListeners(List.of(atomI), List.of());
+            }
             return true;
         }
         return false;
     }
 
     @Override
-    public boolean setSelected(AtomI atomI, boolean select) {
-        if(atomI != null && selectedAtoms.size() > 0){
-            if(selectedAtoms.contains(atomI)){
-                //part of set but shall be unselected
-                if(!select) {
-                    selectedAtoms.remove(atomI);
+    public boolean select(Collection<AtomI> list) {
+        if(list != null && !list.isEmpty()){
+            List<AtomI> added = new ArrayList<>();
+            for (AtomI atom : list) {
+                if(atom != null && add(atom)){
+                    added.add(atom);
                 }
             }
-            else{
+            notifyListeners(added, List.of());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean setSelected(AtomI atomI, boolean select) {
+        if(atomI != null && this.numberOfSelectedAtoms > 0){
+            if(select){
                 //not yet part but shall be selected
-                if(select){
-                    selectedAtoms.add(atomI);
-                }
+                select(atomI);
+            }
+            else{
+                //part of set but shall be unselected
+                clearSelection(atomI);
             }
             return true;
         }
@@ -47,23 +98,63 @@ public class AtomSelectionModel implements SelectionModel<AtomI>{
 
     @Override
     public boolean selectAll(Collection<AtomI> list) {
-        clearSelection();
-        if(list != null && !list.isEmpty()){
-            this.selectedAtoms.addAll(list);
-            return true;
+        //the previous selection is replaced, listeners are only told about atoms whose selection changed
+        Map<AtomTable, BitSet> previousIndices = new IdentityHashMap<>(this.selectedIndices);
+        Set<AtomI> previousOtherAtoms = new LinkedHashSet<>(this.selectedOtherAtoms);
+        this.selectedIndices.clear();
+        this.selectedOtherAtoms.clear();
+        this.numberOfSelectedAtoms = 0;
+        if(list != null){
+            for (AtomI atom : list) {
+                if(atom != null){
+                    add(atom);
+                }
+            }
         }
-        return false;
+        List<AtomI> added = new ArrayList<>();
+        List<AtomI> removed = new ArrayList<>();
+        this.selectedIndices.forEach((table, indices) -> {
+            BitSet newIndices = (BitSet) indices.clone();
+            BitSet oldIndices = previousIndices.get(table);
+            if(oldIndices != null){
+                newIndices.andNot(oldIndices);
+            }
+            addAtomsOfIndices(table, newIndices, added);
+        });
+        previousIndices.forEach((table, indices) -> {
+            BitSet oldIndices = (BitSet) indices.clone();
+            BitSet newIndices = this.selectedIndices.get(table);
+            if(newIndices != null){
+                oldIndices.andNot(newIndices);
+            }
+            addAtomsOfIndices(table, oldIndices, removed);
+        });
+        for (AtomI atom : this.selectedOtherAtoms) {
+            if(!previousOtherAtoms.remove(atom)){
+                added.add(atom);
+            }
+        }
+        removed.addAll(previousOtherAtoms);
+        notifyListeners(added, removed);
+        return list != null && !list.isEmpty();
     }
 
     @Override
     public void clearSelection() {
-        this.selectedAtoms.clear();
+        if(this.numberOfSelectedAtoms > 0){
+            List<AtomI> removed = new ArrayList<>(this.selectedAtoms);
+            this.selectedIndices.clear();
+            this.selectedOtherAtoms.clear();
+            this.numberOfSelectedAtoms = 0;
+            notifyListeners(List.of(), removed);
+        }
     }
 
     @Override
     public boolean clearSelection(AtomI atomI) {
-        if(atomI != null){
-            return this.selectedAtoms.remove(atomI);
+        if(atomI != null && remove(atomI)){
+            notifyListeners(List.of(), List.of(atomI));
+            return true;
         }
         return false;
     }
@@ -71,18 +162,96 @@ public class AtomSelectionModel implements SelectionModel<AtomI>{
     @Override
     public boolean clearSelection(Collection<AtomI> list) {
         if(list != null && list.size() > 0) {
-            this.selectedAtoms.removeAll(list);
+            List<AtomI> removed = new ArrayList<>();
+            for (AtomI atom : list) {
+                if(atom != null && remove(atom)){
+                    removed.add(atom);
+                }
+            }
+            notifyListeners(List.of(), removed);
+            return !removed.isEmpty();
         }
         return false;
     }
 
     @Override
-    public ObservableSet<AtomI> getSelectedItems() {
+    public Set<AtomI> getSelectedItems() {
         return this.selectedAtoms;
     }
 
     @Override
     public IntegerProperty getSelectedItemsSizeProperty(){
-        return new SimpleIntegerProperty(this.selectedAtoms.size());
+        return this.selectedAtomsSize;
+    }
+
+    @Override
+    public void addSelectionListener(Consumer<SelectionChange<AtomI>> listener) {
+        if(listener == null){
+            throw new IllegalArgumentException("Selection listener can not be null.");
+        }
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public void removeSelectionListener(Consumer<SelectionChange<AtomI>> listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Mark the given atom as selected without notifying the listeners.
+     * @return true if the atom was not selected before
+     */
+    private boolean add(AtomI atom){
+        boolean added;
+        if(atom instanceof TableAtom tableAtom){
+            BitSet indices = this.selectedIndices.computeIfAbsent(tableAtom.getTable(), table -> new BitSet(table.size()));
+            added = !indices.get(tableAtom.getIndex());
+            indices.set(tableAtom.getIndex());
+        }
+        else{
+            added = this.selectedOtherAtoms.add(atom);
+        }
+        if(added){
+            this.numberOfSelectedAtoms++;
+        }
+        return added;
+    }
+
+    /**
+     * Mark the given atom as unselected without notifying the listeners.
+     * @return true if the atom was selected before
+     */
+    private boolean remove(AtomI atom){
+        boolean removed;
+        if(atom instanceof TableAtom tableAtom){
+            BitSet indices = this.selectedIndices.get(tableAtom.getTable());
+            removed = indices != null && indices.get(tableAtom.getIndex());
+            if(removed){
+                indices.clear(tableAtom.getIndex());
+            }
+        }
+        else{
+            removed = this.selectedOtherAtoms.remove(atom);
+        }
+        if(removed){
+            this.numberOfSelectedAtoms--;
+        }
+        return removed;
+    }
+
+    private static void addAtomsOfIndices(AtomTable table, BitSet indices, List<AtomI> atoms){
+        for (int index = indices.nextSetBit(0); index >= 0; index = indices.nextSetBit(index + 1)) {
+            atoms.add(table.getAtom(index));
+        }
+    }
+
+    private void notifyListeners(List<AtomI> added, List<AtomI> removed){
+        if(!added.isEmpty() || !removed.isEmpty()){
+            this.selectedAtomsSize.set(this.numberOfSelectedAtoms);
+            SelectionChange<AtomI> change = new SelectionChange<>(added, removed, this.numberOfSelectedAtoms);
+            for (Consumer<SelectionChange<AtomI>> listener : new ArrayList<>(this.listeners)) {
+                listener.accept(change);
+            }
+        }
     }
 }
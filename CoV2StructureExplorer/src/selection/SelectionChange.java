@@ -0,0 +1,51 @@
+package selection;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A SelectionChange reports all items which were selected or unselected by one operation of a selection model, e.g. all atoms of selectAll.
+ * Listeners are notified once per operation instead of once per item, so they can update the view once for all items together.
+ * @param <T> type of the selected items
+ */
+public class SelectionChange<T> {
+
+    private final List<T> added;
+    private final List<T> removed;
+    private final int selectionSize;
+
+    /**
+     * Create a change of the selection.
+     * @param added items which are selected now but were not before; not null
+     * @param removed items which were selected before but are not anymore; not null
+     * @param selectionSize number of selected items after the change
+     */
+    public SelectionChange(List<T> added, List<T> removed, int selectionSize) {
+        if(added == null || removed == null){
+            throw new IllegalArgumentException("Selection change can not be created of items which are null.");
+        }
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.selectionSize = selectionSize;
+    }
+
+    public List<T> getAdded() {
+        return added;
+    }
+
+    public List<T> getRemoved() {
+        return removed;
+    }
+
+    public boolean wasAdded() {
+        return !added.isEmpty();
+    }
+
+    public boolean wasRemoved() {
+        return !removed.isEmpty();
+    }
+
+    public int getSelectionSize() {
+        return selectionSize;
+    }
+}
@@ -0,0 +1,209 @@
+package selection;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import model.atoms.AtomI;
+import view.AtomMesh;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * This class marks the selected atoms within the 3D scene, instead of drawing a rectangle around each of them on top of the scene.
+ * Selected atoms are drawn as meshes of slightly bigger spheres, of which only the inner faces are shown, so each atom gets a golden outline.
+ * The meshes are part of the scene and are rotated with the molecule, so nothing needs to be updated while the molecule is rotated,
+ * regardless of the number of selected atoms.
+ * <p>
+ * Each change of the selection only touches the atoms it contains: the atoms which were selected together get one new mesh,
+ * unselected atoms are hidden within their mesh. A mesh is only created again once most of its atoms are unselected,
+ * and all meshes are merged into one when there are too many of them. Atoms which are not shown, e.g. atoms of another kind
+ * or above the threshold of the temperature factor, are not outlined.
+ */
+public class SelectionHighlight {
+
+    private static final double OUTLINE_SCALE = 1.25;       //radius of the outline relative to the radius of the atom
+    private static final int OUTLINE_DIVISIONS = 10;
+    private static final int MAX_OUTLINES = 16;             //meshes are merged into one when there are more
+
+    private final Group highlightGroup;
+    private final PhongMaterial outlineMaterial;
+    private final Map<AtomI, Outline> outlineOfAtom;        //outline of each highlighted atom, in the order of selection
+    private final List<Outline> outlines;
+    private double radiusScale;
+    private Predicate<AtomI> isOfKind;                      //atoms of the chosen kind, all atoms if null
+    private double maxTempFactor;                           //atoms with a higher temperature factor are filtered
+
+    /**
+     * Mesh of the outlines of atoms which were selected together, together with the position of each atom within the mesh.
+     */
+    private static final class Outline {
+        private final AtomMesh mesh;
+        private final Map<AtomI, Integer> indexOfAtom;
+        private int numberOfSelectedAtoms;
+
+        private Outline(AtomMesh mesh) {
+            this.mesh = mesh;
+            this.indexOfAtom = new HashMap<>();
+            List<AtomI> atoms = mesh.getAtoms();
+            for (int i = 0; i < atoms.size(); i++) {
+                this.indexOfAtom.put(atoms.get(i), i);
+            }
+            this.numberOfSelectedAtoms = atoms.size();
+        }
+    }
+
+    /**
+     * Create the highlight of selected atoms.
+     * @param highlightGroup group within the 3D scene, which is transformed like the atoms of the molecule; not null
+     */
+    public SelectionHighlight(Group highlightGroup) {
+        if(highlightGroup == null){
+            throw new IllegalArgumentException("Selection highlight can not be created without group of the scene.");
+        }
+        this.highlightGroup = highlightGroup;
+        this.outlineMaterial = new PhongMaterial(Color.GOLD);
+        this.outlineMaterial.setSpecularColor(Color.TRANSPARENT);
+        this.outlineOfAtom = new LinkedHashMap<>();
+        this.outlines = new ArrayList<>();
+        this.radiusScale = 0.5;
+        this.isOfKind = null;
+        this.maxTempFactor = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Update the highlighted atoms by the given change of the selection. Only the outlines of the atoms of this change are updated.
+     * @param change atoms which were selected and unselected; not null
+     */
+    public void update(SelectionChange<AtomI> change) {
+        Map<Outline, List<Integer>> unselectedOfOutline = new HashMap<>();
+        for (AtomI atom : change.getRemoved()) {
+            Outline outline = this.outlineOfAtom.remove(atom);
+            if(outline != null){
+                unselectedOfOutline.computeIfAbsent(outline, o -> new ArrayList<>()).add(outline.indexOfAtom.get(atom));
+            }
+        }
+        unselectedOfOutline.forEach(this::unselect);
+
+        List<AtomI> selected = new ArrayList<>();
+        for (AtomI atom : change.getAdded()) {
+            if(!this.outlineOfAtom.containsKey(atom)){
+                selected.add(atom);
+            }
+        }
+        if(!selected.isEmpty()){
+            addOutline(selected);
+        }
+        if(this.outlines.size() > MAX_OUTLINES){
+            setAtoms(new ArrayList<>(this.outlineOfAtom.keySet()));
+        }
+    }
+
+    /**
+     * Highlight exactly the given atoms, e.g. after the atoms were moved to the coordinates of another model.
+     * All atoms are outlined by one mesh.
+     * @param atoms the selected atoms; not null
+     */
+    public void setAtoms(Collection<AtomI> atoms) {
+        this.outlineOfAtom.clear();
+        this.outlines.clear();
+        this.highlightGroup.getChildren().clear();
+        if(!atoms.isEmpty()){
+            addOutline(new ArrayList<>(atoms));
+        }
+    }
+
+    /**
+     * Scale the outlines like the spheres of the atoms.
+     * @param radiusScale factor for the radius of each atom, as given to AtomMesh
+     */
+    public void setRadiusScale(double radiusScale) {
+        this.radiusScale = radiusScale;
+        for (Outline outline : this.outlines) {
+            outline.mesh.setRadiusScale(radiusScale * OUTLINE_SCALE);
+        }
+    }
+
+    /**
+     * Only outline the selected atoms of the chosen kind.
+     * @param isVisible condition for each atom to be shown; all atoms are shown if null
+     */
+    public void setVisibleAtoms(Predicate<AtomI> isVisible) {
+        this.isOfKind = isVisible;
+        for (Outline outline : this.outlines) {
+            outline.mesh.setVisibleAtoms(this::isShown);
+        }
+    }
+
+    /**
+     * Only outline the selected atoms which are not filtered by their temperature factor, see Window.filterTempFactors.
+     * @param maxTempFactor the highest temperature factor of the atoms which are shown
+     */
+    public void setMaxTempFactor(double maxTempFactor) {
+        if(maxTempFactor != this.maxTempFactor){
+            this.maxTempFactor = maxTempFactor;
+            for (Outline outline : this.outlines) {
+                outline.mesh.setVisibleAtoms(this::isShown);
+            }
+        }
+    }
+
+    /**
+     * Check if the given atom is shown in the scene. Temperature factors are compared like by the TempFactorIndex.
+     */
+    private boolean isShown(AtomI atom) {
+        return (this.isOfKind == null || this.isOfKind.test(atom)) && (float) atom.getTempFactor() <= this.maxTempFactor;
+    }
+
+    /**
+     * Hide the outlines of the given atoms of the given mesh, or create the mesh again for its remaining atoms if most of them are unselected.
+     * @param outline the mesh of the atoms
+     * @param unselected positions of the unselected atoms within the mesh
+     */
+    private void unselect(Outline outline, List<Integer> unselected) {
+        outline.numberOfSelectedAtoms -= unselected.size();
+        if(2 * outline.numberOfSelectedAtoms < outline.indexOfAtom.size()){
+            removeOutline(outline);
+            List<AtomI> remaining = new ArrayList<>(outline.numberOfSelectedAtoms);
+            for (AtomI atom : outline.mesh.getAtoms()) {
+                if(this.outlineOfAtom.get(atom) == outline){
+                    remaining.add(atom);
+                }
+            }
+            if(!remaining.isEmpty()){
+                addOutline(remaining);
+            }
+        }
+        else{
+            int[] indices = unselected.stream().mapToInt(Integer::intValue).sorted().toArray();
+            outline.mesh.setFilteredAtoms(indices, true);
+        }
+    }
+
+    private void addOutline(List<AtomI> atoms) {
+        AtomMesh mesh = new AtomMesh(atoms, OUTLINE_DIVISIONS);
+        //the inner faces of the bigger sphere are only visible around the atom
+        mesh.setCullFace(CullFace.FRONT);
+        mesh.setMaterial(this.outlineMaterial);
+        mesh.setMouseTransparent(true);
+        mesh.setVisibleAtoms(this::isShown);
+        mesh.setRadiusScale(this.radiusScale * OUTLINE_SCALE);
+        Outline outline = new Outline(mesh);
+        for (AtomI atom : atoms) {
+            this.outlineOfAtom.put(atom, outline);
+        }
+        this.outlines.add(outline);
+        this.highlightGroup.getChildren().add(mesh);
+    }
+
+    private void removeOutline(Outline outline) {
+        this.outlines.remove(outline);
+        this.highlightGroup.getChildren().remove(outline.mesh);
+    }
+}
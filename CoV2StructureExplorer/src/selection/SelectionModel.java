@@ -1,16 +1,29 @@
 package selection;
 
 import javafx.beans.property.IntegerProperty;
-import javafx.collections.ObservableSet;
 
 import java.util.Collection;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface SelectionModel<T> {
 
     boolean select(T t);
 
+    /**
+     * Add the given items to the selection, listeners are notified once for all of them.
+     * @param list items to select
+     * @return true if the list contained items
+     */
+    boolean select(Collection<T> list);
+
     boolean setSelected(T t, boolean select);
 
+    /**
+     * Select exactly the given items, all other items are unselected. Listeners are notified once for the whole change.
+     * @param list items to select
+     * @return true if the list contained items
+     */
     boolean selectAll(Collection<T> list);
 
     void clearSelection();
@@ -19,8 +32,20 @@ public interface SelectionModel<T> {
 
     boolean clearSelection(Collection<T> list);
 
-    ObservableSet<T> getSelectedItems();
+    /**
+     * Get the selected items
+     * @return an unmodifiable view of the selected items
+     */
+    Set<T> getSelectedItems();
 
     IntegerProperty getSelectedItemsSizeProperty();
 
+    /**
+     * Add a listener, which is notified once per operation which changes the selection.
+     * @param listener receives the items which were selected and unselected by the operation; not null
+     */
+    void addSelectionListener(Consumer<SelectionChange<T>> listener);
+
+    void removeSelectionListener(Consumer<SelectionChange<T>> listener);
+
 }
@@ -0,0 +1,134 @@
+package selection;
+
+import model.atoms.AtomI;
+import model.molecules.AtomOwnerIndex;
+import model.molecules.Monomer;
+import model.molecules.Polymer;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class keeps the text which reports the selected atoms together with their monomer and polymer, e.g. "CA, CB in ALA (Polymer A) ".
+ * Atoms of the same monomer are reported together, monomers are reported in the order in which their first atom was selected.
+ * The text is updated by each atom which is added to or removed from the selection, so the owners of an atom are only looked up once by the
+ * AtomOwnerIndex. As the text is limited to a maximal length, only the first monomers are visited to create it, regardless of the size of the selection.
+ */
+public class SelectionSummary {
+
+    public static final int MAX_LENGTH = 100;
+    private static final String STARTING = "Selected atoms: ";
+
+    private AtomOwnerIndex owners;
+    private final Map<Monomer, Set<AtomI>> selectedAtomsOfMonomers;
+    private int numberOfAtoms;
+    private String text;            //null if the selection changed since the text was created
+
+    public SelectionSummary() {
+        this.selectedAtomsOfMonomers = new LinkedHashMap<>();
+        this.text = null;
+    }
+
+    /**
+     * Set the index of the owners of the atoms which can be selected, e.g. when another molecules is shown. The summary is cleared.
+     * @param owners index of the monomer and polymer of each atom; not null
+     */
+    public void setOwners(AtomOwnerIndex owners) {
+        if(owners == null){
+            throw new IllegalArgumentException("Selection summary can not be created without atom owner index.");
+        }
+        this.owners = owners;
+        clear();
+    }
+
+    /**
+     * Report the given atom as selected.
+     * @param atom the newly selected atom; atoms without owner are not reported
+     */
+    public void add(AtomI atom) {
+        Monomer monomer = this.owners != null ? this.owners.getMonomer(atom) : null;
+        if(monomer != null && this.selectedAtomsOfMonomers.computeIfAbsent(monomer, m -> new LinkedHashSet<>()).add(atom)){
+            this.numberOfAtoms++;
+            this.text = null;
+        }
+    }
+
+    /**
+     * Report the given atom as unselected.
+     * @param atom the atom which is no longer selected
+     */
+    public void remove(AtomI atom) {
+        Monomer monomer = this.owners != null ? this.owners.getMonomer(atom) : null;
+        Set<AtomI> atoms = monomer != null ? this.selectedAtomsOfMonomers.get(monomer) : null;
+        if(atoms != null && atoms.remove(atom)){
+            if(atoms.isEmpty()){
+                this.selectedAtomsOfMonomers.remove(monomer);
+            }
+            this.numberOfAtoms--;
+            this.text = null;
+        }
+    }
+
+    public void clear() {
+        this.selectedAtomsOfMonomers.clear();
+        this.numberOfAtoms = 0;
+        this.text = null;
+    }
+
+    public int getNumberOfAtoms() {
+        return numberOfAtoms;
+    }
+
+    /**
+     * Get the text which reports the selected atoms. Monomers which do not fit into the maximal length of the text are left out.
+     * @return the text of the selected atoms
+     */
+    public String getText() {
+        if(this.text == null){
+            this.text = createText();
+        }
+        return this.text;
+    }
+
+    private String createText() {
+        if(this.numberOfAtoms == 0){
+            return "All atoms are unselected.";
+        }
+        StringBuilder selectionText = new StringBuilder();
+        for (Map.Entry<Monomer, Set<AtomI>> entry : this.selectedAtomsOfMonomers.entrySet()) {
+            int start = selectionText.length();
+            if(start > 0){
+                selectionText.append("; ");
+            }
+            boolean first = true;
+            for (AtomI atom : entry.getValue()) {
+                if(!first){
+                    selectionText.append(", ");
+                }
+                first = false;
+                selectionText.append(atom.getName().get());
+                if(selectionText.length() > MAX_LENGTH){
+                    break;
+                }
+            }
+            Polymer polymer = this.owners.getPolymer(entry.getKey());
+            selectionText.append(" in ").append(entry.getKey().getComponent().getId())
+                    .append(" (Polymer ").append(polymer != null ? polymer.getUnitID() : "?").append(") ");
+            if(selectionText.length() > MAX_LENGTH){
+                //the report of this monomer does not fit anymore, the following ones are left out as well
+                if(start > 0){
+                    selectionText.setLength(start);
+                }
+                else{
+                    //the first monomer is reported in part
+                    selectionText.setLength(MAX_LENGTH);
+                    selectionText.append("...");
+                }
+                break;
+            }
+        }
+        return STARTING + selectionText;
+    }
+}
@@ -0,0 +1,229 @@
+package view;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import model.atoms.AtomI;
+import model.molecules.MoleculeBounds;
+import model.molecules.Monomer;
+import model.molecules.Polymer;
+import model.molecules.Structure;
+import model.molecules.StructureType;
+import view.helper.WindowConstants;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The AtomColoring holds the color of each atom for all coloring schemes, so another scheme can be shown without visiting the groups of the molecules again.
+ * The colors are computed in one pass over all atoms, in the order in which the atoms are shown: polymer by polymer, structure by structure and monomer by monomer,
+ * where atoms of monomers which are part of several structures are contained once per structure. This is the position of an atom in this coloring.
+ * <p>
+ * For each scheme, there is a palette of colors and the palette entry of each atom, so a scheme is shown by assigning one shared material per palette entry to the spheres,
+ * or by pointing the texture coordinate of each atom of an AtomMesh to the pixel of its palette entry.
+ * Schemes which color groups of atoms, e.g. the chains, use the first palette entry for atoms which do not belong to any group of this scheme.
+ */
+public final class AtomColoring {
+
+    /**
+     * The coloring schemes, in the order in which they are offered by the coloring combo box.
+     */
+    public enum Scheme {
+        ATOMS, STRUCTURE_TYPES, MONOMERS, NUCLEOTIDES, AMINO_ACIDS, SHEETS, HELIX, MOLECULES, RAINBOW, B_FACTOR;
+
+        /**
+         * Get the scheme of the given name, as shown in the coloring combo box, e.g. "Structure Types" or "B-Factor".
+         * @param name name of the scheme; ATOMS is used for unknown names
+         * @return the scheme of this name
+         */
+        public static Scheme of(String name) {
+            if(name != null){
+                for (Scheme scheme : values()) {
+                    if(scheme.name().replace('_', ' ').equalsIgnoreCase(name.trim().replace('-', ' '))){
+                        return scheme;
+                    }
+                }
+            }
+            return ATOMS;
+        }
+    }
+
+    private static final Color NOT_IN_GROUP = new Color(1, 1, 1, 0.1);
+    private static final int TEMP_FACTOR_COLORS = 16;              //from blue for rigid to red for flexible atoms
+
+    private final int numberOfAtoms;
+    private final Map<Scheme, short[]> colorIndices;
+    private final Map<Scheme, List<Color>> palettes;
+    private final Map<Scheme, PhongMaterial[]> materials;        //created when the scheme is shown for the first time
+    private final TempFactorIndex tempFactorIndex;
+
+    /**
+     * Compute the colors of all atoms of the given polymers for all schemes.
+     * @param polymers all polymers of the molecules which are shown; not null
+     * @param bounds bounds of all atoms, the rainbow divides their range along the x-axis; not null
+     */
+    public AtomColoring(List<Polymer> polymers, MoleculeBounds bounds) {
+        if(polymers == null || bounds == null){
+            throw new IllegalArgumentException("Atom coloring can not be computed of polymers or bounds which are null.");
+        }
+        int size = 0;
+        for (Polymer polymer : polymers) {
+            for (Structure structure : polymer.getStructures()) {
+                for (Monomer monomer : structure.getMonomers()) {
+                    size += monomer.getAtoms().size();
+                }
+            }
+        }
+        this.numberOfAtoms = size;
+        this.colorIndices = new EnumMap<>(Scheme.class);
+        this.palettes = new EnumMap<>(Scheme.class);
+        this.materials = new EnumMap<>(Scheme.class);
+        Map<Scheme, Map<Object, Short>> groups = new EnumMap<>(Scheme.class);
+        for (Scheme scheme : Scheme.values()) {
+            this.colorIndices.put(scheme, new short[size]);
+            this.palettes.put(scheme, new ArrayList<>());
+            groups.put(scheme, new HashMap<>());
+            if(scheme != Scheme.ATOMS && scheme != Scheme.RAINBOW && scheme != Scheme.B_FACTOR){
+                this.palettes.get(scheme).add(NOT_IN_GROUP);
+            }
+        }
+        Color[] rainbowColors = WindowConstants.getRainbowColors();
+        this.palettes.get(Scheme.RAINBOW).addAll(List.of(rainbowColors));
+        double minX = bounds.isEmpty() ? 0 : bounds.getMin().getX();
+        double rangeWidth = bounds.isEmpty() ? 1 : Math.max(bounds.getMax().getX() - minX, 1e-6) / rainbowColors.length;
+
+        float[] tempFactors = new float[size];
+        int atom = 0;
+        for (Polymer polymer : polymers) {
+            short chain = groupOf(Scheme.MOLECULES, polymer.getUnitID(), groups);
+            for (Structure structure : polymer.getStructures()) {
+                StructureType structureType = structure.getStructureType();
+                short type = groupOf(Scheme.STRUCTURE_TYPES, structureType, groups);
+                short sheet = structureType == StructureType.SHEET ? groupOf(Scheme.SHEETS, structure.getId(), groups) : 0;
+                short helix = structureType == StructureType.HELIX ? groupOf(Scheme.HELIX, structure.getId(), groups) : 0;
+                for (Monomer monomer : structure.getMonomers()) {
+                    //groups are looked up once per monomer, only the atom colors and the rainbow differ between the atoms of a monomer
+                    String monomerName = monomer.getType().name();
+                    short monomerGroup = groupOf(Scheme.MONOMERS, monomerName, groups);
+                    short nucleotide = monomerName.length() < 3 ? groupOf(Scheme.NUCLEOTIDES, monomerName, groups) : 0;
+                    short aminoAcid = monomerName.length() == 3 ? groupOf(Scheme.AMINO_ACIDS, monomerName, groups) : 0;
+                    for (AtomI atomI : monomer.getAtoms()) {
+                        this.colorIndices.get(Scheme.ATOMS)[atom] = groupOf(Scheme.ATOMS, atomI.getColor(), groups);
+                        this.colorIndices.get(Scheme.STRUCTURE_TYPES)[atom] = type;
+                        this.colorIndices.get(Scheme.MONOMERS)[atom] = monomerGroup;
+                        this.colorIndices.get(Scheme.NUCLEOTIDES)[atom] = nucleotide;
+                        this.colorIndices.get(Scheme.AMINO_ACIDS)[atom] = aminoAcid;
+                        this.colorIndices.get(Scheme.SHEETS)[atom] = sheet;
+                        this.colorIndices.get(Scheme.HELIX)[atom] = helix;
+                        this.colorIndices.get(Scheme.MOLECULES)[atom] = chain;
+                        int band = (int) ((atomI.getLocation().getValue().getX() - minX) / rangeWidth);
+                        this.colorIndices.get(Scheme.RAINBOW)[atom] = (short) Math.max(0, Math.min(rainbowColors.length - 1, band));
+                        tempFactors[atom] = (float) atomI.getTempFactor();
+                        atom++;
+                    }
+                }
+            }
+        }
+
+        //atoms are colored by the rank of their temperature factor, so each color is used by the same number of atoms
+        this.tempFactorIndex = new TempFactorIndex(tempFactors);
+        for (int color = 0; color < TEMP_FACTOR_COLORS; color++) {
+            double flexibility = color / (TEMP_FACTOR_COLORS - 1.0);
+            this.palettes.get(Scheme.B_FACTOR).add(flexibility < 0.5 ? Color.BLUE.interpolate(Color.WHITE, flexibility * 2) : Color.WHITE.interpolate(Color.RED, flexibility * 2 - 1));
+        }
+        short[] tempFactorColors = this.colorIndices.get(Scheme.B_FACTOR);
+        for (int rank = 0; rank < size; rank++) {
+            tempFactorColors[this.tempFactorIndex.getAtom(rank)] = (short) ((long) rank * TEMP_FACTOR_COLORS / size);
+        }
+    }
+
+    /**
+     * Get the palette entry of the given group of the given scheme. A new group gets the next color of the group colors,
+     * except for ATOMS, where each group is the color of the atom.
+     */
+    private short groupOf(Scheme scheme, Object group, Map<Scheme, Map<Object, Short>> groups){
+        List<Color> palette = this.palettes.get(scheme);
+        return groups.get(scheme).computeIfAbsent(group, g -> {
+            palette.add(scheme == Scheme.ATOMS ? (Color) group : createGroupColor(palette.size() - 1));
+            return (short) (palette.size() - 1);
+        });
+    }
+
+    /**
+     * Create the color of the group with the given number. Hues of following groups are apart by the golden angle,
+     * so neighbouring groups are easy to distinguish and every group keeps its color whenever the scheme is shown.
+     */
+    private static Color createGroupColor(int group){
+        return Color.hsb((group * 137.508) % 360, 0.75, 0.9);
+    }
+
+    /**
+     * Get the number of atoms of this coloring
+     * @return number of positions of atoms, including atoms which are shown once per structure
+     */
+    public int getNumberOfAtoms() {
+        return numberOfAtoms;
+    }
+
+    /**
+     * Get the number of groups which are colored by the given scheme, e.g. the number of chains for MOLECULES.
+     * @param scheme the coloring scheme
+     * @return number of distinct colors of the atoms which belong to a group, or of all atoms for ATOMS, RAINBOW and B_FACTOR
+     */
+    public int getNumberOfGroups(Scheme scheme) {
+        int size = this.palettes.get(scheme).size();
+        return scheme == Scheme.ATOMS || scheme == Scheme.RAINBOW || scheme == Scheme.B_FACTOR ? size : size - 1;
+    }
+
+    /**
+     * Get the index of the temperature factors of the atoms, by their position in this coloring.
+     * @return the atoms sorted by temperature factor
+     */
+    public TempFactorIndex getTempFactorIndex() {
+        return tempFactorIndex;
+    }
+
+    public List<Color> getPalette(Scheme scheme) {
+        return List.copyOf(this.palettes.get(scheme));
+    }
+
+    /**
+     * Get the palette entry of the atom at the given position for the given scheme.
+     * @param scheme the coloring scheme
+     * @param atom position of the atom within this coloring
+     * @return the entry of the palette of this scheme
+     */
+    public int getColorIndex(Scheme scheme, int atom) {
+        return this.colorIndices.get(scheme)[atom];
+    }
+
+    /**
+     * Get the palette entries of all atoms for the given scheme, the array must not be changed.
+     */
+    short[] getColorIndices(Scheme scheme) {
+        return this.colorIndices.get(scheme);
+    }
+
+    /**
+     * Get one material for each entry of the palette of the given scheme, which are shared by all spheres of this color.
+     * Needs to be called on the JavaFX application thread.
+     * @param scheme the coloring scheme
+     * @return the materials in the order of the palette
+     */
+    public PhongMaterial[] getMaterials(Scheme scheme) {
+        return this.materials.computeIfAbsent(scheme, s -> {
+            List<Color> palette = this.palettes.get(s);
+            PhongMaterial[] schemeMaterials = new PhongMaterial[palette.size()];
+            for (int i = 0; i < palette.size(); i++) {
+                //same material as AtomSphere.setColor
+                Color color = palette.get(i);
+                schemeMaterials[i] = new PhongMaterial(color.darker());
+                schemeMaterials[i].setSpecularPower(3.4);
+                schemeMaterials[i].setSpecularColor(color.brighter());
+            }
+            return schemeMaterials;
+        });
+    }
+}
@@ -0,0 +1,330 @@
+package view;
+
+import javafx.collections.ObservableFloatArray;
+import javafx.geometry.Point3D;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import model.atoms.AtomI;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * This MeshView shows many atoms as spheres within one single TriangleMesh, instead of one Sphere node per atom.
+ * Each atom is a copy of the same low-poly sphere, whose number of divisions depends on the number of atoms (level of detail).
+ * Atoms are colored by a small palette texture: all faces of an atom use the texture coordinate of this atom, which lies on the pixel of the palette entry of its color,
+ * so only one material is needed for all colors. Another coloring only moves the texture coordinates of the atoms, the faces stay the same.
+ * The atom of a picked face can be found by getAtomOfFace, as each atom has the same number of faces.
+ */
+public class AtomMesh extends MeshView {
+
+    private final List<AtomI> atoms;
+    private final float[] centers;              //x, y, z of each atom
+    private final float[] radii;                //radius of each atom, 0 if the atom is hidden
+    private final float[] unitSphere;           //points of a sphere with radius 1 around the origin
+    private final int pointsPerAtom;
+    private final int facesPerAtom;
+    private final int[] sphereFaces;            //point indices of the faces of one sphere
+    private List<Color> palette;
+    private final int[] colorOfAtom;            //palette entry of each atom
+    private final int firstAtom;                //position of the first atom of this mesh within the AtomColoring of the molecules
+    private final boolean[] filteredAtoms;      //atoms which are hidden by a filter, e.g. of their temperature factor
+    private Predicate<AtomI> isVisible;         //atoms of the chosen kind, all atoms if null
+    private double radiusScale;
+
+    /**
+     * Create one mesh for all given atoms, colored in their atom color.
+     * @param atoms the atoms to be shown; not null
+     * @param divisions number of divisions of each sphere around its axis, at least 4. See getDivisionsForAtoms.
+     */
+    public AtomMesh(List<AtomI> atoms, int divisions) {
+        this(atoms, divisions, 0);
+    }
+
+    /**
+     * Create one mesh for the given atoms of a molecules, colored in their atom color, which can be colored by the schemes of an AtomColoring of the molecules.
+     * @param atoms the atoms to be shown; not null
+     * @param divisions number of divisions of each sphere around its axis, at least 4. See getDivisionsForAtoms.
+     * @param firstAtom position of the first of the given atoms within the AtomColoring, the other atoms follow in the same order
+     */
+    public AtomMesh(List<AtomI> atoms, int divisions, int firstAtom) {
+        if(atoms == null){
+            throw new IllegalArgumentException("Atom mesh can not be created for atoms which are null.");
+        }
+        this.atoms = new ArrayList<>(atoms);
+        this.firstAtom = firstAtom;
+        int numberOfAtoms = this.atoms.size();
+        this.centers = new float[numberOfAtoms * 3];
+        this.radii = new float[numberOfAtoms];
+        this.colorOfAtom = new int[numberOfAtoms];
+        this.filteredAtoms = new boolean[numberOfAtoms];
+        this.palette = new ArrayList<>();
+        Map<Color, Integer> paletteEntries = new HashMap<>();
+        for (int i = 0; i < numberOfAtoms; i++) {
+            AtomI atom = this.atoms.get(i);
+            Point3D location = atom.getLocation().getValue();
+            this.centers[i * 3] = (float) location.getX();
+            this.centers[i * 3 + 1] = (float) location.getY();
+            this.centers[i * 3 + 2] = (float) location.getZ();
+            this.radii[i] = atom.getRadiusPM().get() / 50f;          //same size as AtomSphere
+            this.colorOfAtom[i] = paletteEntries.computeIfAbsent(atom.getColor(), c -> {
+                this.palette.add(c);
+                return this.palette.size() - 1;
+            });
+        }
+
+        //sphere with divisions around its axis and divisions / 2 rings from pole to pole
+        int sectors = Math.max(4, divisions);
+        int rings = Math.max(2, sectors / 2);
+        this.unitSphere = createUnitSphere(sectors, rings);
+        this.pointsPerAtom = this.unitSphere.length / 3;
+        this.sphereFaces = createSphereFaces(sectors, rings);
+        this.facesPerAtom = this.sphereFaces.length / 3;
+        this.radiusScale = 1;
+
+        TriangleMesh mesh = new TriangleMesh();
+        mesh.getTexCoords().setAll(createTexCoords());
+        mesh.getPoints().setAll(createPoints());
+        mesh.getFaces().setAll(createFaces());
+        this.setMesh(mesh);
+        this.setCullFace(CullFace.BACK);
+
+        PhongMaterial material = new PhongMaterial();
+        material.setDiffuseMap(createPaletteImage(this.palette));
+        material.setSpecularColor(Color.gray(0.3));
+        this.setMaterial(material);
+    }
+
+    /**
+     * Show the atoms in the colors of the given scheme. Only the palette image and the texture coordinates of the atoms are replaced.
+     * @param coloring colors of all atoms of the molecules, which contains the atoms of this mesh at the position given when the mesh was created; not null
+     * @param scheme the scheme to show; not null
+     */
+    public void setColoring(AtomColoring coloring, AtomColoring.Scheme scheme){
+        if(coloring == null || scheme == null || this.firstAtom + this.atoms.size() > coloring.getNumberOfAtoms()){
+            throw new IllegalArgumentException("Atom mesh can not be colored by a coloring which does not contain its atoms.");
+        }
+        short[] colorIndices = coloring.getColorIndices(scheme);
+        for (int i = 0; i < this.atoms.size(); i++) {
+            this.colorOfAtom[i] = colorIndices[this.firstAtom + i];
+        }
+        this.palette = coloring.getPalette(scheme);
+        ((PhongMaterial) this.getMaterial()).setDiffuseMap(createPaletteImage(this.palette));
+        ((TriangleMesh) this.getMesh()).getTexCoords().setAll(createTexCoords());
+    }
+
+    /**
+     * Get the number of divisions of each sphere which still allows to render the given number of atoms at an interactive frame rate.
+     * @param numberOfAtoms number of atoms which are shown in total
+     * @return number of divisions around the axis of each sphere
+     */
+    public static int getDivisionsForAtoms(int numberOfAtoms){
+        if(numberOfAtoms <= 2000){
+            return 16;
+        }
+        if(numberOfAtoms <= 10000){
+            return 10;
+        }
+        if(numberOfAtoms <= 50000){
+            return 8;
+        }
+        return 4;
+    }
+
+    /**
+     * Get the number of triangles of each sphere with the given number of divisions.
+     * @param divisions number of divisions of each sphere around its axis
+     * @return number of faces per atom
+     */
+    public static int getFacesPerAtom(int divisions){
+        int sectors = Math.max(4, divisions);
+        int rings = Math.max(2, sectors / 2);
+        return 2 * sectors * (rings - 1);
+    }
+
+    /**
+     * Get the atom to which the face with the given index belongs, e.g. the intersected face of a pick result.
+     * @param face index of the face in this mesh
+     * @return the atom of this face, null if the index is not a valid face index.
+     */
+    public AtomI getAtomOfFace(int face){
+        if(face >= 0 && face < this.atoms.size() * this.facesPerAtom){
+            return this.atoms.get(face / this.facesPerAtom);
+        }
+        return null;
+    }
+
+    public List<AtomI> getAtoms() {
+        return atoms;
+    }
+
+    /**
+     * Scale the radius of all spheres. All points of the mesh are updated at once.
+     * @param radiusScale factor for the radius of each atom, a factor of 1 shows atoms with the same radius as an AtomSphere.
+     */
+    public void setRadiusScale(double radiusScale){
+        this.radiusScale = radiusScale;
+        ((TriangleMesh) this.getMesh()).getPoints().setAll(createPoints());
+    }
+
+    /**
+     * Show only the atoms which fulfil the given condition. Hidden atoms are collapsed to a point, so the mesh does not need to be rebuilt.
+     * @param isVisible condition for each atom to be shown; all atoms are shown if null
+     */
+    public void setVisibleAtoms(Predicate<AtomI> isVisible){
+        this.isVisible = isVisible;
+        for (int i = 0; i < this.atoms.size(); i++) {
+            updateRadius(i);
+        }
+        ((TriangleMesh) this.getMesh()).getPoints().setAll(createPoints());
+    }
+
+    /**
+     * Hide or show the given atoms regardless of their kind, e.g. atoms above a threshold of their temperature factor.
+     * Only the points of these atoms are replaced, so the cost depends on the number of given atoms and not on the size of the mesh.
+     * @param atoms positions of atoms within the AtomColoring in ascending order, atoms of other meshes are skipped; not null
+     * @param filtered true to hide the atoms, false to show them again
+     */
+    public void setFilteredAtoms(int[] atoms, boolean filtered){
+        int from = Arrays.binarySearch(atoms, this.firstAtom);
+        int to = Arrays.binarySearch(atoms, this.firstAtom + this.atoms.size());
+        from = from < 0 ? -from - 1 : from;
+        to = to < 0 ? -to - 1 : to;
+        ObservableFloatArray points = ((TriangleMesh) this.getMesh()).getPoints();
+        int a = from;
+        while(a < to){
+            //consecutive atoms, e.g. of one flexible loop, are replaced together
+            int runEnd = a + 1;
+            while(runEnd < to && atoms[runEnd] == atoms[runEnd - 1] + 1){
+                runEnd++;
+            }
+            int first = atoms[a] - this.firstAtom;
+            int length = runEnd - a;
+            for (int i = first; i < first + length; i++) {
+                this.filteredAtoms[i] = filtered;
+                updateRadius(i);
+            }
+            float[] runPoints = new float[length * this.unitSphere.length];
+            for (int i = 0; i < length; i++) {
+                writePoints(first + i, runPoints, i * this.unitSphere.length);
+            }
+            points.set(first * this.unitSphere.length, runPoints, 0, runPoints.length);
+            a = runEnd;
+        }
+    }
+
+    private void updateRadius(int i){
+        AtomI atom = this.atoms.get(i);
+        boolean visible = !this.filteredAtoms[i] && (this.isVisible == null || this.isVisible.test(atom));
+        this.radii[i] = visible ? atom.getRadiusPM().get() / 50f : 0;
+    }
+
+    private float[] createPoints(){
+        float[] points = new float[this.atoms.size() * this.unitSphere.length];
+        for (int i = 0; i < this.atoms.size(); i++) {
+            writePoints(i, points, i * this.unitSphere.length);
+        }
+        return points;
+    }
+
+    /**
+     * Write the points of the sphere of the given atom into the given array, starting at the given offset.
+     */
+    private void writePoints(int i, float[] points, int offset){
+        float radius = (float) (this.radii[i] * this.radiusScale);
+        float x = this.centers[i * 3], y = this.centers[i * 3 + 1], z = this.centers[i * 3 + 2];
+        int p = offset;
+        for (int k = 0; k < this.unitSphere.length; k += 3) {
+            points[p++] = x + radius * this.unitSphere[k];
+            points[p++] = y + radius * this.unitSphere[k + 1];
+            points[p++] = z + radius * this.unitSphere[k + 2];
+        }
+    }
+
+    private int[] createFaces(){
+        int[] faces = new int[this.atoms.size() * this.facesPerAtom * 6];
+        int f = 0;
+        for (int i = 0; i < this.atoms.size(); i++) {
+            int firstPoint = i * this.pointsPerAtom;
+            for (int pointOfSphere : this.sphereFaces) {
+                faces[f++] = firstPoint + pointOfSphere;
+                faces[f++] = i;
+            }
+        }
+        return faces;
+    }
+
+    /**
+     * Create the points of a sphere with radius 1: both poles and the given number of rings in between.
+     */
+    private static float[] createUnitSphere(int sectors, int rings){
+        float[] points = new float[((rings - 1) * sectors + 2) * 3];
+        int p = 0;
+        points[p++] = 0; points[p++] = -1; points[p++] = 0;            //bottom pole
+        for (int ring = 1; ring < rings; ring++) {
+            double latitude = Math.PI * ring / rings - Math.PI / 2;
+            for (int sector = 0; sector < sectors; sector++) {
+                double longitude = 2 * Math.PI * sector / sectors;
+                points[p++] = (float) (Math.cos(latitude) * Math.cos(longitude));
+                points[p++] = (float) Math.sin(latitude);
+                points[p++] = (float) (Math.cos(latitude) * Math.sin(longitude));
+            }
+        }
+        points[p++] = 0; points[p++] = 1; points[p] = 0;               //top pole
+        return points;
+    }
+
+    /**
+     * Create the faces of the sphere of createUnitSphere as indices of its points, three per triangle, facing outwards.
+     */
+    private static int[] createSphereFaces(int sectors, int rings){
+        int top = (rings - 1) * sectors + 1;
+        int[] faces = new int[2 * sectors * (rings - 1) * 3];
+        int f = 0;
+        for (int sector = 0; sector < sectors; sector++) {
+            int next = (sector + 1) % sectors;
+            //triangles at the poles
+            faces[f++] = 0; faces[f++] = 1 + sector; faces[f++] = 1 + next;
+            int lastRing = 1 + (rings - 2) * sectors;
+            faces[f++] = top; faces[f++] = lastRing + next; faces[f++] = lastRing + sector;
+            //two triangles between each pair of rings
+            for (int ring = 0; ring < rings - 2; ring++) {
+                int lower = 1 + ring * sectors, upper = lower + sectors;
+                faces[f++] = lower + sector; faces[f++] = upper + sector; faces[f++] = upper + next;
+                faces[f++] = lower + sector; faces[f++] = upper + next; faces[f++] = lower + next;
+            }
+        }
+        return faces;
+    }
+
+    /**
+     * Create the texture coordinate of each atom in the middle of the pixel of its palette entry.
+     */
+    private float[] createTexCoords(){
+        int size = Math.max(this.palette.size(), 1);
+        float[] texCoords = new float[Math.max(this.atoms.size(), 1) * 2];
+        for (int i = 0; i < this.atoms.size(); i++) {
+            texCoords[i * 2] = (this.colorOfAtom[i] + 0.5f) / size;
+            texCoords[i * 2 + 1] = 0.5f;
+        }
+        return texCoords;
+    }
+
+    private static WritableImage createPaletteImage(List<Color> palette){
+        WritableImage image = new WritableImage(Math.max(palette.size(), 1), 1);
+        PixelWriter writer = image.getPixelWriter();
+        for (int i = 0; i < palette.size(); i++) {
+            writer.setColor(i, 0, palette.get(i));
+        }
+        return image;
+    }
+}
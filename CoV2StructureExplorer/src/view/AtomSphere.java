@@ -11,6 +11,7 @@ public class AtomSphere extends Sphere {
     private StringProperty letter;
     private DoubleProperty radius = new SimpleDoubleProperty();
     private ObjectProperty<Point3D> location = new SimpleObjectProperty<>();
+    private final BooleanProperty filtered = new SimpleBooleanProperty(false);     //hidden by a filter, e.g. of its temperature factor
     public final Color originalAtomColor;
     private double tempFactor;
 
@@ -75,6 +76,10 @@ public class AtomSphere extends Sphere {
         return this.tempFactor;
     }
 
+    public BooleanProperty filteredProperty() {
+        return filtered;
+    }
+
     /**
      * Set the color of this spheres material to the provided color value.
      * @param color
@@ -0,0 +1,111 @@
+package view;
+
+import javafx.geometry.Point3D;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import javafx.util.Pair;
+
+import java.util.List;
+
+/**
+ * This MeshView shows many bonds as thin prisms within one single TriangleMesh, instead of one Cylinder node per bond.
+ * Prisms have no caps, as their ends are hidden within the spheres of the bonded atoms.
+ */
+public class BondMesh extends MeshView {
+
+    private final float[] axes;             //start point, end point and two unit vectors perpendicular to the bond for each bond
+    private final int sides;
+    private final int numberOfBonds;
+    private double radius;
+
+    /**
+     * Create one mesh for all given bonds.
+     * @param bonds pairs of the centers of the two atoms of each bond; not null
+     * @param sides number of sides of each prism, at least 3.
+     * @param material material of all bonds
+     */
+    public BondMesh(List<Pair<Point3D, Point3D>> bonds, int sides, PhongMaterial material) {
+        if(bonds == null){
+            throw new IllegalArgumentException("Bond mesh can not be created for bonds which are null.");
+        }
+        this.sides = Math.max(3, sides);
+        this.numberOfBonds = bonds.size();
+        this.axes = new float[this.numberOfBonds * 12];
+        int a = 0;
+        for (Pair<Point3D, Point3D> bond : bonds) {
+            Point3D start = bond.getKey();
+            Point3D end = bond.getValue();
+            Point3D direction = end.subtract(start).normalize();
+            Point3D reference = Math.abs(direction.getY()) < 0.9 ? Point3D.ZERO.add(0, 1, 0) : Point3D.ZERO.add(1, 0, 0);
+            Point3D u = direction.crossProduct(reference).normalize();
+            Point3D v = direction.crossProduct(u);
+            for (Point3D point : new Point3D[]{start, end, u, v}) {
+                this.axes[a++] = (float) point.getX();
+                this.axes[a++] = (float) point.getY();
+                this.axes[a++] = (float) point.getZ();
+            }
+        }
+        this.radius = 0.1;
+
+        TriangleMesh mesh = new TriangleMesh();
+        mesh.getTexCoords().setAll(0, 0);
+        mesh.getPoints().setAll(createPoints());
+        mesh.getFaces().setAll(createFaces());
+        this.setMesh(mesh);
+        this.setCullFace(CullFace.BACK);
+        this.setMaterial(material);
+    }
+
+    public int getNumberOfBonds() {
+        return numberOfBonds;
+    }
+
+    /**
+     * Set the radius of all bonds. All points of the mesh are updated at once.
+     * @param radius the new radius of each bond
+     */
+    public void setRadius(double radius){
+        this.radius = radius;
+        ((TriangleMesh) this.getMesh()).getPoints().setAll(createPoints());
+    }
+
+    private float[] createPoints(){
+        float[] points = new float[this.numberOfBonds * this.sides * 2 * 3];
+        float[] cos = new float[this.sides], sin = new float[this.sides];
+        for (int s = 0; s < this.sides; s++) {
+            cos[s] = (float) (this.radius * Math.cos(2 * Math.PI * s / this.sides));
+            sin[s] = (float) (this.radius * Math.sin(2 * Math.PI * s / this.sides));
+        }
+        int p = 0;
+        for (int b = 0; b < this.numberOfBonds; b++) {
+            int a = b * 12;
+            for (int end = 0; end < 2; end++) {
+                int center = a + end * 3;
+                for (int s = 0; s < this.sides; s++) {
+                    for (int k = 0; k < 3; k++) {
+                        points[p++] = this.axes[center + k] + cos[s] * this.axes[a + 6 + k] + sin[s] * this.axes[a + 9 + k];
+                    }
+                }
+            }
+        }
+        return points;
+    }
+
+    private int[] createFaces(){
+        int[] faces = new int[this.numberOfBonds * this.sides * 2 * 6];
+        int f = 0;
+        for (int b = 0; b < this.numberOfBonds; b++) {
+            int start = b * this.sides * 2;
+            int end = start + this.sides;
+            for (int s = 0; s < this.sides; s++) {
+                int next = (s + 1) % this.sides;
+                //texture coordinate is always 0
+                faces[f++] = start + s; faces[f++] = 0; faces[f++] = end + next; faces[f++] = 0; faces[f++] = end + s; faces[f++] = 0;
+                faces[f++] = start + s; faces[f++] = 0; faces[f++] = start + next; faces[f++] = 0; faces[f++] = end + next; faces[f++] = 0;
+            }
+        }
+        return faces;
+    }
+}
@@ -0,0 +1,12 @@
+package view;
+
+/**
+ * This enumeration provides the levels of detail in which a molecule can be drawn, from the finest to the coarsest level.
+ * FULL - all atoms as smooth spheres and all bonds
+ * LOW_POLY - all atoms as spheres with very few faces and all bonds
+ * TRACE - only the backbone, as a line between the guiding carbons (C-alpha) of neighbouring monomers
+ * RIBBON - only the ribbon of each polymer
+ */
+public enum LevelOfDetail {
+    FULL, LOW_POLY, TRACE, RIBBON
+}
@@ -0,0 +1,172 @@
+package view;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.scene.Camera;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * This class switches between the levels of detail of a molecule depending on the distance of the camera and on the number of triangles.
+ * Each level is shown by one node, which is created once. Switching a level only changes which of these nodes is visible,
+ * so the scene is never rebuilt while zooming.
+ * The camera is expected to look at the origin, where the molecule is centered.
+ * Levels which contain more triangles than can be rendered fluently are never shown, coarser levels are used instead.
+ */
+public class LevelOfDetailManager {
+
+    private static final long TRIANGLE_BUDGET = 3_000_000;
+    //camera distance divided by molecule radius, from which on the next coarser level is used
+    private static final double[] DISTANCE_RATIOS = new double[]{4, 8, 16};
+    private static final double HYSTERESIS = 0.1;           //avoids flickering when zooming around a threshold
+
+    private final Camera camera;
+    private final BooleanProperty enabled;
+    private final ObjectProperty<LevelOfDetail> level;
+    private final Map<LevelOfDetail, Node> levelNodes;
+    private LevelOfDetail finestLevel;
+    private double moleculeRadius;
+
+    /**
+     * Create a manager which follows the distance of the given camera. No levels are known until setLevels is called.
+     * @param camera the camera looking at the molecule; not null
+     */
+    public LevelOfDetailManager(Camera camera) {
+        if(camera == null){
+            throw new IllegalArgumentException("Level of detail can not be managed for a camera which is null.");
+        }
+        this.camera = camera;
+        this.enabled = new SimpleBooleanProperty(false);
+        this.level = new SimpleObjectProperty<>(LevelOfDetail.FULL);
+        this.levelNodes = new EnumMap<>(LevelOfDetail.class);
+        this.finestLevel = LevelOfDetail.FULL;
+        this.moleculeRadius = 1;
+
+        InvalidationListener updateListener = v -> update();
+        this.camera.translateZProperty().addListener(updateListener);
+        this.enabled.addListener(updateListener);
+    }
+
+    /**
+     * Check whether the given number of triangles can be rendered at an interactive frame rate.
+     * @param triangles number of triangles of one level
+     * @return true if the triangles fit into the budget of one level.
+     */
+    public static boolean isAffordable(long triangles){
+        return triangles <= TRIANGLE_BUDGET;
+    }
+
+    /**
+     * Set the nodes which show the molecule in each level of detail. Several levels might share the same node,
+     * levels without node are skipped. The finest affordable level is determined by the number of triangles of each node.
+     * @param levelNodes node of each level; not null
+     * @param moleculeRadius radius of the sphere around the origin which contains the whole molecule
+     */
+    public void setLevels(Map<LevelOfDetail, ? extends Node> levelNodes, double moleculeRadius){
+        if(levelNodes == null){
+            throw new IllegalArgumentException("Levels of detail can not be set from nodes which are null.");
+        }
+        this.levelNodes.clear();
+        this.levelNodes.putAll(levelNodes);
+        this.moleculeRadius = Math.max(moleculeRadius, 1);
+        this.finestLevel = LevelOfDetail.RIBBON;
+        for (LevelOfDetail candidate : LevelOfDetail.values()) {
+            Node node = this.levelNodes.get(candidate);
+            if(node != null && isAffordable(countTriangles(node))){
+                this.finestLevel = candidate;
+                break;
+            }
+        }
+        this.level.set(this.finestLevel);
+        update();
+        apply();
+    }
+
+    /**
+     * Choose the level for the current camera distance and show only its node.
+     */
+    private void update(){
+        if(!this.enabled.get() || this.levelNodes.isEmpty()){
+            return;
+        }
+        double ratio = Math.abs(this.camera.getTranslateZ()) / this.moleculeRadius;
+        int current = this.level.get().ordinal();
+        int wanted = 0;
+        for (int i = 0; i < DISTANCE_RATIOS.length; i++) {
+            //the boundary between level i and i + 1 is moved away from the current level
+            double boundary = DISTANCE_RATIOS[i] * (current > i ? 1 - HYSTERESIS : 1 + HYSTERESIS);
+            if(ratio > boundary){
+                wanted = i + 1;
+            }
+        }
+        LevelOfDetail newLevel = findAvailableLevel(Math.max(wanted, this.finestLevel.ordinal()));
+        if(newLevel != this.level.get()){
+            this.level.set(newLevel);
+            apply();
+        }
+    }
+
+    /**
+     * Find the level closest to the wanted level which has a node, coarser levels are preferred.
+     */
+    private LevelOfDetail findAvailableLevel(int wanted){
+        LevelOfDetail[] levels = LevelOfDetail.values();
+        for (int i = wanted; i < levels.length; i++) {
+            if(this.levelNodes.get(levels[i]) != null){
+                return levels[i];
+            }
+        }
+        for (int i = wanted - 1; i >= this.finestLevel.ordinal(); i--) {
+            if(this.levelNodes.get(levels[i]) != null){
+                return levels[i];
+            }
+        }
+        return this.finestLevel;
+    }
+
+    private void apply(){
+        Node shown = this.levelNodes.get(this.level.get());
+        for (Node node : this.levelNodes.values()) {
+            node.setVisible(node == shown);
+        }
+    }
+
+    /**
+     * Count the triangles of all mesh views within the given node.
+     * @param node a mesh view or a group containing mesh views
+     * @return the number of triangles
+     */
+    public static long countTriangles(Node node){
+        if(node instanceof MeshView meshView && meshView.getMesh() instanceof TriangleMesh mesh){
+            return mesh.getFaces().size() / mesh.getFaceElementSize();
+        }
+        long triangles = 0;
+        if(node instanceof Parent parent){
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                triangles += countTriangles(child);
+            }
+        }
+        return triangles;
+    }
+
+    public BooleanProperty enabledProperty() {
+        return enabled;
+    }
+
+    public ReadOnlyObjectProperty<LevelOfDetail> levelProperty() {
+        return level;
+    }
+
+    public LevelOfDetail getLevel(){
+        return this.level.get();
+    }
+}
@@ -0,0 +1,167 @@
+package view;
+
+import javafx.animation.AnimationTimer;
+import javafx.animation.Interpolator;
+import javafx.geometry.Point3D;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Translate;
+import view.helper.Shape3DUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The MoleculeAnimator runs all animations of the shown molecule with one timer: the rotation of the whole molecule and the explosion of its polymers.
+ * Instead of animating each sphere and cylinder, the animations only change transforms which are shared by the nodes of the molecule:
+ * one rotation for the whole molecule and one translation for each polymer, which is applied to all nodes of this polymer, e.g. its spheres and meshes.
+ * Each frame therefore costs one update per polymer, regardless of the number of atoms. Animations advance by the time since the previous frame,
+ * so their speed does not depend on the frame rate. The timer only runs while an animation is running.
+ */
+public class MoleculeAnimator {
+
+    private static final double DEGREES_PER_SECOND = 120;            //one turn in 3 seconds
+    private static final double EXPLOSION_SECONDS = 3;               //to move the polymers outwards, and again to move them back
+    private static final double EXPLOSION_DISTANCE = 2;              //distance of each polymer at the peak of the explosion
+
+    private final Rotate rotation;
+    private final List<Translate> polymerTranslations;
+    private final List<Point3D> polymerDirections;                   //normalized direction from the origin to the center of each polymer
+    private final AnimationTimer timer;
+    private boolean rotating;
+    private double explosionTime;                                    //seconds since the explosion started, negative if there is no explosion
+    private Runnable onExplosionFinished;
+    private long previousFrame;                                      //time of the previous frame in nanoseconds, negative if the timer was stopped
+
+    /**
+     * Create the animator, needs to be called on the JavaFX application thread.
+     */
+    public MoleculeAnimator() {
+        this.rotation = new Rotate(0, Shape3DUtils.YAXIS);
+        this.polymerTranslations = new ArrayList<>();
+        this.polymerDirections = new ArrayList<>();
+        this.rotating = false;
+        this.explosionTime = -1;
+        this.previousFrame = -1;
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                double seconds = previousFrame < 0 ? 0 : (now - previousFrame) / 1e9;
+                previousFrame = now;
+                nextFrame(seconds);
+            }
+        };
+    }
+
+    /**
+     * Get the rotation of the whole molecule, which needs to be the outermost transform of the nodes of the molecule.
+     * @return the rotation around the y-axis through the origin
+     */
+    public Rotate getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Add a polymer, which is moved away from the origin by explosions.
+     * @param center center of the atoms of the polymer; not null
+     * @return the translation of the polymer, which needs to be added to the transforms of all nodes of this polymer
+     */
+    public Translate addPolymer(Point3D center) {
+        if(center == null){
+            throw new IllegalArgumentException("Polymer without center can not be animated.");
+        }
+        Translate translation = new Translate();
+        this.polymerTranslations.add(translation);
+        this.polymerDirections.add(center.magnitude() > 0 ? center.normalize() : Point3D.ZERO);
+        return translation;
+    }
+
+    /**
+     * Remove all polymers, e.g. before another molecule is shown. A running explosion is finished.
+     */
+    public void clearPolymers() {
+        finishExplosion();
+        this.polymerTranslations.clear();
+        this.polymerDirections.clear();
+    }
+
+    /**
+     * Start or stop the rotation of the molecule. A stopped rotation keeps its angle and continues from there.
+     * @param rotating true to rotate the molecule
+     */
+    public void setRotating(boolean rotating) {
+        this.rotating = rotating;
+        if(rotating){
+            this.timer.start();
+        }
+    }
+
+    public boolean isRotating() {
+        return rotating;
+    }
+
+    /**
+     * Move all polymers away from the origin and back again.
+     * @param onFinished called once the polymers are back at their position, null if nothing needs to be done
+     * @return true if the explosion was started, false if another explosion is still running
+     */
+    public boolean explode(Runnable onFinished) {
+        if(isExploding()){
+            return false;
+        }
+        this.explosionTime = 0;
+        this.onExplosionFinished = onFinished;
+        this.timer.start();
+        return true;
+    }
+
+    public boolean isExploding() {
+        return this.explosionTime >= 0;
+    }
+
+    /**
+     * Advance all running animations by the given time and stop the timer if none is running anymore.
+     * @param seconds time since the previous frame
+     */
+    private void nextFrame(double seconds) {
+        if(this.rotating){
+            this.rotation.setAngle((this.rotation.getAngle() + seconds * DEGREES_PER_SECOND) % 360);
+        }
+        if(isExploding()){
+            this.explosionTime += seconds;
+            if(this.explosionTime >= 2 * EXPLOSION_SECONDS){
+                finishExplosion();
+            }
+            else{
+                //outwards during the first half, back during the second half
+                double progress = this.explosionTime < EXPLOSION_SECONDS ? this.explosionTime / EXPLOSION_SECONDS : 2 - this.explosionTime / EXPLOSION_SECONDS;
+                moveAlongDirections(Interpolator.EASE_BOTH.interpolate(0.0, EXPLOSION_DISTANCE, progress));
+            }
+        }
+        if(!this.rotating && !isExploding()){
+            this.timer.stop();
+            this.previousFrame = -1;
+        }
+    }
+
+    private void finishExplosion() {
+        if(isExploding()){
+            moveAlongDirections(0);
+            this.explosionTime = -1;
+            Runnable onFinished = this.onExplosionFinished;
+            this.onExplosionFinished = null;
+            if(onFinished != null){
+                onFinished.run();
+            }
+        }
+    }
+
+    private void moveAlongDirections(double distance) {
+        for (int i = 0; i < this.polymerTranslations.size(); i++) {
+            Point3D direction = this.polymerDirections.get(i);
+            Translate translation = this.polymerTranslations.get(i);
+            translation.setX(direction.getX() * distance);
+            translation.setY(direction.getY() * distance);
+            translation.setZ(direction.getZ() * distance);
+        }
+    }
+}
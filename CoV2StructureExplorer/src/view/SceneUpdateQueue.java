@@ -0,0 +1,120 @@
+package view;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class collects changes of the scene, which are created by background tasks, e.g. the shapes of one polymer after another,
+ * and applies them on the JavaFX application thread once per pulse. All changes which arrived until a pulse are applied together,
+ * so the scene is laid out and rendered once for all of them instead of once per change. If applying the changes takes longer than
+ * a frame, the remaining changes are applied in the next pulse, so the view stays responsive while a big molecule is shown.
+ * Changes are applied in the order they were submitted. The timer only runs while there are changes to apply.
+ */
+public class SceneUpdateQueue {
+
+    private static final long FRAME_BUDGET_NANOS = 8_000_000;      //half a frame at 60 frames per second
+
+    private final Queue<Runnable> updates;
+    private final AtomicBoolean scheduled;
+    private final Pulses pulses;
+    private final long frameBudgetNanos;
+
+    /**
+     * Starts and stops the calls of pulse, which are the pulses of the JavaFX application thread in the view.
+     */
+    interface Pulses {
+        /**
+         * Call pulse with the following pulses, can be called from any thread.
+         */
+        void start();
+
+        /**
+         * Stop calling pulse, is called from within pulse.
+         */
+        void stop();
+    }
+
+    /**
+     * Create the queue, needs to be called on the JavaFX application thread.
+     */
+    public SceneUpdateQueue() {
+        AnimationTimer timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                pulse();
+            }
+        };
+        this.updates = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean(false);
+        this.frameBudgetNanos = FRAME_BUDGET_NANOS;
+        this.pulses = new Pulses() {
+            @Override
+            public void start() {
+                Platform.runLater(timer::start);
+            }
+
+            @Override
+            public void stop() {
+                timer.stop();
+            }
+        };
+    }
+
+    /**
+     * Create a queue whose changes are applied by the given pulses, e.g. to check the order and batching of the changes without a JavaFX application thread.
+     * @param pulses starts and stops the calls of pulse; not null
+     * @param frameBudgetNanos time to apply changes within one pulse
+     */
+    SceneUpdateQueue(Pulses pulses, long frameBudgetNanos) {
+        if(pulses == null){
+            throw new IllegalArgumentException("Scene updates can not be applied without pulses.");
+        }
+        this.updates = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean(false);
+        this.pulses = pulses;
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * Apply the given change of the scene with the next pulse. Can be called from any thread.
+     * @param update the change of the scene, which is run on the JavaFX application thread; not null
+     */
+    public void submit(Runnable update) {
+        if(update == null){
+            throw new IllegalArgumentException("Scene update can not be null.");
+        }
+        this.updates.add(update);
+        if(this.scheduled.compareAndSet(false, true)){
+            this.pulses.start();
+        }
+    }
+
+    /**
+     * Apply the waiting changes until the budget of this frame is used up.
+     */
+    void pulse() {
+        long start = System.nanoTime();
+        Runnable update;
+        while((update = this.updates.poll()) != null){
+            try {
+                update.run();
+            }
+            catch (RuntimeException e){
+                System.err.println("Scene update failed: " + e.getMessage());
+            }
+            if(System.nanoTime() - start > this.frameBudgetNanos){
+                return;         //continue with the next pulse
+            }
+        }
+        this.pulses.stop();
+        this.scheduled.set(false);
+        //changes which were submitted while the timer was stopped
+        if(!this.updates.isEmpty() && this.scheduled.compareAndSet(false, true)){
+            this.pulses.start();
+        }
+    }
+}
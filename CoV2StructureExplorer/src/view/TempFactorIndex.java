@@ -0,0 +1,113 @@
+package view;
+
+import java.util.Arrays;
+
+/**
+ * The TempFactorIndex sorts atoms by their temperature factor (B-factor), which is high for flexible atoms, e.g. of disordered loops.
+ * Atoms are given by their position in the AtomColoring. As the atoms are sorted, all atoms above a threshold are one range of the index,
+ * so moving the threshold only visits the atoms between the old and the new threshold instead of all atoms.
+ */
+public final class TempFactorIndex {
+
+    private final float[] sortedTempFactors;
+    private final int[] atomsOfRanks;           //position of the atom of each rank, ascending by temperature factor
+    private final int[] ranksOfAtoms;
+
+    /**
+     * Sort the atoms by the given temperature factors.
+     * @param tempFactors temperature factor of each atom by its position; not null
+     */
+    public TempFactorIndex(float[] tempFactors) {
+        if(tempFactors == null){
+            throw new IllegalArgumentException("Temperature factor index can not be created of factors which are null.");
+        }
+        int size = tempFactors.length;
+        //sort the factor together with the position as one key, the sortable bits of the factor first
+        long[] keys = new long[size];
+        for (int atom = 0; atom < size; atom++) {
+            int bits = Float.floatToIntBits(tempFactors[atom]);
+            bits ^= (bits >> 31) & 0x7fffffff;          //negative factors in ascending order
+            keys[atom] = ((long) bits << 32) | atom;
+        }
+        Arrays.sort(keys);
+        this.sortedTempFactors = new float[size];
+        this.atomsOfRanks = new int[size];
+        this.ranksOfAtoms = new int[size];
+        for (int rank = 0; rank < size; rank++) {
+            int atom = (int) keys[rank];
+            this.atomsOfRanks[rank] = atom;
+            this.ranksOfAtoms[atom] = rank;
+            this.sortedTempFactors[rank] = tempFactors[atom];
+        }
+    }
+
+    public int size() {
+        return this.atomsOfRanks.length;
+    }
+
+    /**
+     * Get the lowest temperature factor
+     * @return the lowest factor, 0 if there are no atoms
+     */
+    public double getMin() {
+        return size() > 0 ? this.sortedTempFactors[0] : 0;
+    }
+
+    /**
+     * Get the highest temperature factor
+     * @return the highest factor, 0 if there are no atoms
+     */
+    public double getMax() {
+        return size() > 0 ? this.sortedTempFactors[size() - 1] : 0;
+    }
+
+    /**
+     * Get the number of atoms whose temperature factor is not higher than the given threshold.
+     * This is the rank of the first atom above the threshold.
+     * @param threshold the highest temperature factor of the counted atoms
+     * @return the number of atoms up to the threshold
+     */
+    public int countAtMost(double threshold) {
+        int low = 0, high = size();
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(this.sortedTempFactors[middle] <= threshold){
+                low = middle + 1;
+            }
+            else{
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the atom with the given rank.
+     * @param rank rank of the atom, 0 for the atom with the lowest temperature factor
+     * @return the position of this atom
+     */
+    public int getAtom(int rank) {
+        return this.atomsOfRanks[rank];
+    }
+
+    /**
+     * Get the rank of the given atom.
+     * @param atom position of the atom
+     * @return the number of atoms which are before this atom in the order of their temperature factors
+     */
+    public int getRank(int atom) {
+        return this.ranksOfAtoms[atom];
+    }
+
+    /**
+     * Get the atoms of the given range of ranks, sorted by their position.
+     * @param fromRank first rank of the range
+     * @param toRank rank after the range
+     * @return the positions of the atoms in ascending order
+     */
+    public int[] getAtoms(int fromRank, int toRank) {
+        int[] atoms = Arrays.copyOfRange(this.atomsOfRanks, fromRank, toRank);
+        Arrays.sort(atoms);
+        return atoms;
+    }
+}
@@ -1,23 +1,24 @@
 package view;
 
-import javafx.animation.Interpolator;
-import javafx.animation.RotateTransition;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
+import javafx.geometry.Point3D;
 import javafx.scene.*;
+import javafx.scene.control.Slider;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.Tooltip;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.Cylinder;
 import javafx.scene.transform.Rotate;
 import javafx.scene.transform.Transform;
+import javafx.scene.transform.Translate;
 import javafx.stage.Stage;
-import javafx.util.Duration;
+import model.pdbaccess.PDBRecordType;
 import org.biojava.nbio.structure.Structure;
 import org.biojava.nbio.structure.StructureIO;
 import org.biojava.nbio.structure.gui.BiojavaJmol;
-import view.helper.Shape3DUtils;
 import view.helper.WindowConstants;
 
 import java.util.*;
@@ -31,8 +32,9 @@ public class Window extends AbstractWindow{
     private final Property<Transform> figureTransformProperty = new SimpleObjectProperty<>(new Rotate());
 
     //to show molecule
-    private Group allSpahesGroup, moleculeGroup, polymersRibbonMeshes, rectangleGroup;// contain 3D objects
-    private RotateTransition animation;
+    private Group allSpahesGroup, moleculeGroup, polymersRibbonMeshes, moleculeMeshes, rectangleGroup;// contain 3D objects
+    private final Group highlightGroup;                                  //outlines of the selected atoms within the scene
+    private final MoleculeAnimator animator;                             //rotation of the molecule and explosion of its polymers
 
     private PerspectiveCamera moleculeCamera;
     private SubScene cameraScene;
@@ -40,8 +42,16 @@ public class Window extends AbstractWindow{
     private StringProperty moleculeInfo;
     private final BooleanProperty isAnimationRunningProperty;
     private final BooleanProperty ribbonsAreVisible;
+    private final BooleanProperty meshesAreVisible;              //batched drawing style, where each polymer is one mesh
+    private final LevelOfDetailManager levelOfDetail;
+    private final Map<LevelOfDetail, Group> meshLevels;                  //group of each level of detail, polymers are appended to them
+    private final SceneUpdateQueue sceneUpdates;
     private HashMap<String, List<AtomSphere>> spheresReferences;         //keep references to all groups which might be needed: Nucleotides, Helix, Sheets
     private HashMap<String, List<Cylinder>> polymersCylinder;
+    private AtomColoring atomColoring;                                   //colors of all schemes, null while the molecule is set up
+    private List<AtomSphere> coloredSpheres;                             //spheres in the order of the atom coloring
+    private List<AtomMesh> coloredMeshes;
+    private int numberOfShownTempFactors;                                //atoms up to this rank of the temperature factor index are not filtered
 
     public Window(){
         super(); //contains WindowController
@@ -50,6 +60,11 @@ public class Window extends AbstractWindow{
         this.allSpahesGroup = new Group();
         this.moleculeGroup = new Group();
         this.polymersRibbonMeshes = new Group();
+        this.moleculeMeshes = new Group();
+        this.highlightGroup = new Group();
+        this.meshLevels = new EnumMap<>(LevelOfDetail.class);
+        this.sceneUpdates = new SceneUpdateQueue();
+        this.animator = new MoleculeAnimator();
 
         resetMoleculeView();
         initViewElements();
@@ -60,6 +75,9 @@ public class Window extends AbstractWindow{
         MouseInteraction.installRotate(this.getController().getMoleculeViewPane(), this.figureTransformProperty);
         this.isAnimationRunningProperty = new SimpleBooleanProperty(false);
         this.ribbonsAreVisible = new SimpleBooleanProperty(false);
+        this.meshesAreVisible = new SimpleBooleanProperty(false);
+        this.levelOfDetail = new LevelOfDetailManager(this.moleculeCamera);
+        applyFigureTransform(this.figureTransformProperty.getValue());
 
         addListener();
         addBindings();
@@ -97,14 +115,12 @@ public class Window extends AbstractWindow{
         this.getController().getStyleComboBox().setTooltip(new Tooltip("Select a drawing style"));
         this.getController().getColoringComboBox().setItems(FXCollections.observableArrayList(WindowConstants.getColoring()));
         this.getController().getColoringComboBox().setTooltip(new Tooltip("Select a coloring criteria"));
-
-        this.animation = new RotateTransition();
-        this.animation.setDuration(Duration.seconds(3));
-        this.animation.setInterpolator(Interpolator.LINEAR);
-        this.animation.setAxis(Shape3DUtils.YAXIS);
-        this.animation.setFromAngle(0);
-        this.animation.setToAngle(360);
-        this.animation.setCycleCount(RotateTransition.INDEFINITE);
+        this.getController().getRecordTypeChoiceBox().setItems(FXCollections.observableArrayList(PDBRecordType.values()));
+        this.getController().getRecordTypeChoiceBox().setValue(PDBRecordType.ATOM);
+        this.getController().getRecordTypeChoiceBox().setTooltip(new Tooltip("Choose the records to jump to"));
+        //all lines have the same height, so the list does not need to measure the lines of the file
+        this.getController().getFileOutputListView().setFixedCellSize(24);
+        this.getController().getFileOutputListView().setStyle("-fx-font-family: monospace;");
     }
 
     /**
@@ -118,6 +134,8 @@ public class Window extends AbstractWindow{
         this.spheresReferences.put("NUCLEOTIDE", new ArrayList<>());
         this.spheresReferences.put("OTHER", new ArrayList<>());
         this.polymersCylinder = new HashMap<>();
+        this.coloredSpheres = new ArrayList<>();
+        this.coloredMeshes = new ArrayList<>();
     }
 
     /**
@@ -125,11 +143,17 @@ public class Window extends AbstractWindow{
      * This method shall be called as preparation for another molecule, which shall be drawn of for clearing the current views molecule.
      */
     public void resetMoleculeView(){
+        this.atomColoring = null;
+        this.animator.clearPolymers();
+        this.numberOfShownTempFactors = 0;
+        this.getController().getTempFactorSlider().setDisable(true);
+        this.coloredSpheres = new ArrayList<>();
+        this.coloredMeshes = new ArrayList<>();
         if(this.cameraScene != null){this.cameraScene.setRoot(this.allSpahesGroup);} //to clear stage, but when constructing, this is still null and not needed.
         if(this.allSpahesGroup.getChildren().size() != 0){
             this.allSpahesGroup.getChildren().clear();
         }
-        this.allSpahesGroup.getChildren().addAll(this.moleculeGroup, this.polymersRibbonMeshes);
+        this.allSpahesGroup.getChildren().addAll(this.moleculeGroup, this.polymersRibbonMeshes, this.moleculeMeshes, this.highlightGroup);
 
         this.getController().getMoleculeSizeSlider().setValue(50);
         this.getController().getBondsSizeSlider().setValue(50);
@@ -159,7 +183,10 @@ public class Window extends AbstractWindow{
         this.getController().getStatusLabelB().textProperty().bind(moleculeInfo);
 
         this.polymersRibbonMeshes.visibleProperty().bind(this.ribbonsAreVisible);
-        this.moleculeGroup.visibleProperty().bind(this.ribbonsAreVisible.not());
+        this.moleculeGroup.visibleProperty().bind(this.ribbonsAreVisible.not().and(this.meshesAreVisible.not()));
+        this.moleculeMeshes.visibleProperty().bind(this.ribbonsAreVisible.not().and(this.meshesAreVisible));
+        this.levelOfDetail.enabledProperty().bind(this.moleculeMeshes.visibleProperty());
+        this.highlightGroup.visibleProperty().bind(this.ribbonsAreVisible.not().and(this.getController().getHighlightSelectionMI().selectedProperty()));
     }
 
     /**
@@ -185,34 +212,49 @@ public class Window extends AbstractWindow{
 
         // listener for mouse scrolling
         this.getController().getMoleculeViewPane().setOnScroll(s -> moleculeCamera.setTranslateZ(moleculeCamera.getTranslateZ() + s.getDeltaY()));
-        //listen for rotation
-        this.figureTransformProperty.addListener((v, o, n) -> {
-            if(this.ribbonsAreVisible.get()){
-                this.polymersRibbonMeshes.getTransforms().setAll(n);
-            }else{
-                this.moleculeGroup.getTransforms().setAll(n);
+        //hide flexible atoms
+        this.getController().getTempFactorSlider().valueProperty().addListener((v, o, n) -> {
+            if(this.atomColoring != null){
+                int hidden = filterTempFactors(n.doubleValue());
+                this.setMoleculeInfo(String.format("%d atoms with a B-factor above %.1f are hidden.", hidden, n.doubleValue()));
             }
         });
+        //listen for rotation
+        this.figureTransformProperty.addListener((v, o, n) -> applyFigureTransform(n));
 
         //________________________________________________________________________________Control Elements on right side
         //animation
         this.getController().getAnimationButton().setOnAction(a -> {
             if(this.isAnimationRunningProperty.get()){
                 //stop animation
-                this.animation.stop();
+                this.animator.setRotating(false);
                 this.getController().getAnimationButton().setText("Start Animation");
                 this.isAnimationRunningProperty.set(false);
             }
             else{
                 //start animation
-                this.animation.setNode(this.moleculeGroup);
-                this.animation.play();
+                this.animator.setRotating(true);
                 this.getController().getAnimationButton().setText("Stop Animation");
                 this.isAnimationRunningProperty.set(true);
             }
         });
     }
 
+    /**
+     * Rotate the molecule by the given transform of the mouse interaction, within the rotation of the animation.
+     * @param figureTransform rotation by the mouse
+     */
+    private void applyFigureTransform(Transform figureTransform){
+        if(this.ribbonsAreVisible.get()){
+            this.polymersRibbonMeshes.getTransforms().setAll(this.animator.getRotation(), figureTransform);
+        }else{
+            //spheres are rotated as well in batched style, so that selection rectangles stay at the right position
+            this.moleculeGroup.getTransforms().setAll(this.animator.getRotation(), figureTransform);
+            this.moleculeMeshes.getTransforms().setAll(this.animator.getRotation(), figureTransform);
+            this.highlightGroup.getTransforms().setAll(this.animator.getRotation(), figureTransform);
+        }
+    }
+
     /**
      * create a new Stage to display the about text.
      * @return Stage to be displayed.
@@ -227,173 +269,83 @@ public class Window extends AbstractWindow{
     }
 
 
-    //___________________________________________________________________________________________________SPHERE COLORING
     /**
-     * Draw all given spheres in the provided color
-     * @param spheres list of spheres which shall be shown in same color
-     * @param color the color which all spheres material shall have.
+     * Hide all atoms whose temperature factor is above the given threshold, e.g. to hide disordered loops, and show all other atoms.
+     * Only the atoms between the previous and the new threshold are shown or hidden.
+     * @param threshold the highest temperature factor of the atoms which are shown
+     * @return the number of hidden atoms, 0 if the molecule is not set up yet
      */
-    private void drawSpheresInColor(List<AtomSphere> spheres, Color color){
-        if(spheres != null && spheres.size() > 0 && color != null){
-            for(AtomSphere s : spheres){
-                s.setColor(color);
-            }
+    public int filterTempFactors(double threshold){
+        if(this.atomColoring == null){
+            return 0;
         }
-    }
-
-    /**
-     * Draw all spheres in the scene in their color according to which atom they represent.
-     */
-    public void drawSpheresInAtomColor(){
-        List<Node> polyGroups = this.moleculeGroup.getChildren();
-        if(polyGroups.size() > 0) {
-            for (Node polyGroup : polyGroups) {
-                if (polyGroup.getClass().equals(Group.class)) {//it is safe to cast
-                    List<Node> structGroups = ((Group) polyGroup).getChildren();
-                    for (Node structGroup : structGroups) {
-                        if (structGroup.getClass().equals(Group.class)) {//it is safe to cast
-                            List<Node> monoGroups = ((Group) structGroup).getChildren();
-                            for (Node monomerGroup : monoGroups) {
-                                if (monomerGroup.getClass().equals(Group.class)) {//it is safe to cast
-                                    List<Node> single3DobjectsGroup = ((Group) monomerGroup).getChildren();
-                                    for (Node objectGroup : single3DobjectsGroup) {
-                                        if (objectGroup.getClass().equals(Group.class)) {//it is safe to cast
-                                            Group atomGroup = (Group) ((Group) monomerGroup).getChildren().get(0);
-                                            for (Node sphere : atomGroup.getChildren()) {
-                                                if (sphere.getClass().equals(AtomSphere.class)) {
-                                                    ((AtomSphere) sphere).setColor(((AtomSphere) sphere).originalAtomColor);
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
+        TempFactorIndex tempFactors = this.atomColoring.getTempFactorIndex();
+        int numberOfShown = tempFactors.countAtMost(threshold);
+        if(numberOfShown != this.numberOfShownTempFactors){
+            boolean filtered = numberOfShown < this.numberOfShownTempFactors;
+            int[] changedAtoms = tempFactors.getAtoms(Math.min(numberOfShown, this.numberOfShownTempFactors), Math.max(numberOfShown, this.numberOfShownTempFactors));
+            if(!this.coloredSpheres.isEmpty()){
+                for (int atom : changedAtoms) {
+                    this.coloredSpheres.get(atom).filteredProperty().set(filtered);
                 }
             }
+            for (AtomMesh mesh : this.coloredMeshes) {
+                mesh.setFilteredAtoms(changedAtoms, filtered);
+            }
+            this.numberOfShownTempFactors = numberOfShown;
         }
+        return tempFactors.size() - numberOfShown;
     }
 
+    //___________________________________________________________________________________________________SPHERE COLORING
     /**
-     * Colors all Spheres in one color. This method should be called before any other selection because otherwise
-     * all spheres that dont appear in next coloring mode would be confusing to see the new coloring well.
+     * Set the colors of the atoms which are shown, together with the spheres and meshes of these atoms.
+     * @param atomColoring colors of all atoms for all schemes; not null
+     * @param spheres sphere of each atom in the order of the coloring, empty if no spheres were created for the batched style; not null
+     * @param meshes atom meshes of the batched style, which know the position of their atoms within the coloring; not null
      */
-    public void colorAllSpheresInLightBlack(){
-        List<Node> polyGroups = this.moleculeGroup.getChildren();
-        Color c = new Color(1, 1, 1, 0.1);
-        if(polyGroups.size() > 0) {
-            for (Node polyGroup : polyGroups) {
-                if (polyGroup.getClass().equals(Group.class)) {//it is safe to cast
-                    List<Node> structGroups = ((Group) polyGroup).getChildren();
-                    for (Node structGroup : structGroups) {
-                        if (structGroup.getClass().equals(Group.class)) {//it is safe to cast
-                            List<Node> monoGroups = ((Group) structGroup).getChildren();
-                            for (Node monomerGroup : monoGroups) {
-                                if (monomerGroup.getClass().equals(Group.class)) {//it is safe to cast
-                                    List<Node> single3DobjectsGroup = ((Group) monomerGroup).getChildren();
-                                    for (Node objectGroup : single3DobjectsGroup) {
-                                        if (objectGroup.getClass().equals(Group.class)) {//it is safe to cast
-                                            Group atomGroup = (Group) ((Group) monomerGroup).getChildren().get(0);
-                                            for (Node sphere : atomGroup.getChildren()) {
-                                                if (sphere.getClass().equals(AtomSphere.class)) {
-                                                    ((AtomSphere) sphere).setColor(c);
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+    public void setAtomColoring(AtomColoring atomColoring, List<AtomSphere> spheres, List<AtomMesh> meshes){
+        if(atomColoring == null || spheres == null || meshes == null || (!spheres.isEmpty() && spheres.size() != atomColoring.getNumberOfAtoms())){
+            throw new IllegalArgumentException("Atom coloring needs to contain the colors of all spheres.");
         }
+        //the slider is prepared before the coloring is set, so changes of its range do not filter any atoms
+        this.atomColoring = null;
+        TempFactorIndex tempFactors = atomColoring.getTempFactorIndex();
+        Slider tempFactorSlider = this.getController().getTempFactorSlider();
+        tempFactorSlider.setMax(tempFactors.getMax());
+        tempFactorSlider.setValue(tempFactors.getMax());
+        tempFactorSlider.setMin(tempFactors.getMin());
+        tempFactorSlider.setDisable(tempFactors.getMin() >= tempFactors.getMax());
+        this.numberOfShownTempFactors = tempFactors.size();
+        this.atomColoring = atomColoring;
+        this.coloredSpheres = spheres;
+        this.coloredMeshes = meshes;
     }
 
-    /**
-     * Draw all spheres of one Group in the same color.
-     * Each group is specified by a name, which can be the Polymer / Chain ID, Structure ID or Monomer ID
-     * Each of those groups will have a randomly generated color assigned. All Spheres which do not belong to any mentioned group will have the same color.
-     * @param sheetNames specifies the different groups of the Molecules, which shall be shown in different colors.
-     */
-    public void drawSpheresForGrouping(Set<String> sheetNames){
-        if(sheetNames != null) {
-            if(sheetNames.size() > 0) {
-                colorAllSpheresInLightBlack();
-                for (String name : sheetNames) {
-                    List<AtomSphere> moleculesSpheres = spheresReferences.get(name);
-                    drawSpheresInColor(moleculesSpheres, createRandomColor());
-                }
-            }
-            else{
-                this.setMoleculeInfo("This type is not appearing in the current Molecules.");
-            }
-        }
+    public AtomColoring getAtomColoring() {
+        return atomColoring;
     }
 
     /**
-     * Draw all spheres in the scene in rainbow colors where spheres in same x sub range have the same color.
-     * y and z positions are not considered. The total x range of the molecules will be divided into 6 sub ranges in which all spheres have the same color.
-     * @param minX the minimum x value within the molecules for any atoms location. Needs to be smaller than maxX
-     * @param maxX the maximum x value within the molecules for any atoms location. Needs to be greater than minX
+     * Draw all atoms in the colors of the given scheme. Each sphere gets the shared material of its color, and the texture coordinates of each atom mesh
+     * are replaced at once. The colors were computed before, so no groups of the molecules are visited.
+     * @param scheme the coloring scheme to show
+     * @return false if the colors of the atoms are not known yet, e.g. while the molecule is set up
      */
-    public void drawSpheresInRainbow(double minX, double maxX){
-        Color[] rainbowColors = WindowConstants.getRainbowColors();
-        int rainbowColorNumber = rainbowColors.length;
-        double rangeWidth = (maxX - minX)/rainbowColorNumber;
-
-        List<Node> polyGroups = this.moleculeGroup.getChildren();
-        if(polyGroups.size() > 0) {
-            for (Node polyGroup : polyGroups) {
-                if (polyGroup.getClass().equals(Group.class)) {//it is safe to cast
-                    List<Node> structGroups = ((Group) polyGroup).getChildren();
-                    for (Node structGroup : structGroups) {
-                        if (structGroup.getClass().equals(Group.class)) {//it is safe to cast
-                            List<Node> monoGroups = ((Group) structGroup).getChildren();
-                            for (Node monomerGroup : monoGroups) {
-                                if (monomerGroup.getClass().equals(Group.class)) {//it is safe to cast
-                                    List<Node> single3DobjectsGroup = ((Group) monomerGroup).getChildren();
-                                    for (Node objectGroup : single3DobjectsGroup) {
-                                        if (objectGroup.getClass().equals(Group.class)) {//it is safe to cast
-                                            Group atomGroup = (Group) ((Group) monomerGroup).getChildren().get(0);
-                                            for (Node sphere : atomGroup.getChildren()) {
-                                                if (sphere.getClass().equals(AtomSphere.class)) {
-                                                    double xVal = sphere.getTranslateX();
-                                                    int color = Math.floorDiv((int) xVal, (int) rangeWidth) +2;
-                                                    if(color < 0){
-                                                        color = rainbowColorNumber + color;
-                                                    }
-                                                    else if(color >= rainbowColorNumber){
-                                                        color -= rainbowColorNumber;
-                                                    }
-                                                    ((AtomSphere) sphere).setColor(rainbowColors[color]);
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+    public boolean drawAtoms(AtomColoring.Scheme scheme){
+        if(this.atomColoring == null || scheme == null){
+            return false;
+        }
+        PhongMaterial[] materials = this.atomColoring.getMaterials(scheme);
+        for (int atom = 0; atom < this.coloredSpheres.size(); atom++) {
+            this.coloredSpheres.get(atom).setMaterial(materials[this.atomColoring.getColorIndex(scheme, atom)]);
+        }
+        for (AtomMesh mesh : this.coloredMeshes) {
+            mesh.setColoring(this.atomColoring, scheme);
         }
+        return true;
     }
 
-    /**
-     * Create random R, G and B values which are then used to generate a random color.
-     * @return a color object with random RGB values.
-     */
-    private Color createRandomColor(){
-        Random rand = new Random();
-        double r = rand.nextDouble();
-        double g = rand.nextDouble();
-        double b = rand.nextDouble();
-        return Color.color(r, g, b);
-    }
-
-
     /**
      * Shows a new Window with the structure of the selected file in an extra window.
      */
@@ -443,6 +395,76 @@ public class Window extends AbstractWindow{
             this.moleculeGroup.getChildren().setAll(moleculeGroup.getChildren());
         }
     }
+    /**
+     * Set the meshes of the batched drawing style. Only the level matching the camera distance is shown.
+     * @param levels group of meshes for each level of detail, several levels might share one group
+     * @param moleculeRadius radius of the sphere around the origin which contains the whole molecule
+     */
+    public void setMoleculeMeshLevels(Map<LevelOfDetail, Group> levels, double moleculeRadius) {
+        if(levels != null){
+            this.meshLevels.clear();
+            this.meshLevels.putAll(levels);
+            this.moleculeMeshes.getChildren().setAll(new LinkedHashSet<>(levels.values()));
+            this.levelOfDetail.setLevels(levels, moleculeRadius);
+        }
+    }
+
+    /**
+     * Append the shapes of one polymer to the molecule which is currently shown, e.g. while the shapes of the other polymers are still created.
+     * The groups of the levels of detail need to be set by setMoleculeMeshLevels before.
+     * @param spheres spheres and cylinders of the polymer; not null
+     * @param ribbons ribbon meshes of the polymer, null if it has no ribbon
+     * @param levelNodes node of the polymer for each level of detail, which is appended to the group of this level
+     * @param center center of the atoms of the polymer, polymers are moved away from the origin in this direction by explosions; not null
+     */
+    public void appendPolymer(Node spheres, Node ribbons, Map<LevelOfDetail, ? extends Node> levelNodes, Point3D center) {
+        //all nodes of the polymer share one translation, so explosions only move the polymer instead of each of its shapes
+        Translate explosion = this.animator.addPolymer(center);
+        spheres.getTransforms().add(explosion);
+        this.moleculeGroup.getChildren().add(spheres);
+        if(ribbons != null){
+            ribbons.getTransforms().add(explosion);
+            this.polymersRibbonMeshes.getChildren().add(ribbons);
+        }
+        levelNodes.forEach((level, node) -> {
+            Group levelGroup = this.meshLevels.get(level);
+            if(levelGroup != null){
+                node.getTransforms().add(explosion);
+                levelGroup.getChildren().add(node);
+            }
+        });
+    }
+
+    /**
+     * Remove the polymers of the shown molecule from the animations, before the polymers are appended again.
+     */
+    public void clearPolymers() {
+        this.animator.clearPolymers();
+    }
+
+    /**
+     * Move all polymers away from the center of the molecule and back again. Atoms can not be clicked while the polymers are moved,
+     * as the outlines of selected atoms stay at the original positions of the atoms.
+     * @param onFinished called once the polymers are back at their position, null if nothing needs to be done
+     * @return true if the explosion was started, false if another explosion is still running
+     */
+    public boolean explodePolymers(Runnable onFinished) {
+        boolean started = this.animator.explode(() -> {
+            this.moleculeGroup.setMouseTransparent(false);
+            this.moleculeMeshes.setMouseTransparent(false);
+            if(onFinished != null){
+                onFinished.run();
+            }
+        });
+        if(started){
+            this.moleculeGroup.setMouseTransparent(true);
+            this.moleculeMeshes.setMouseTransparent(true);
+        }
+        return started;
+    }
+    public void setMeshesAreVisible(boolean meshesAreVisible) {
+        this.meshesAreVisible.set(meshesAreVisible);
+    }
     public void setRibbonsAreVisible(boolean ribbonsAreVisible) {
         this.ribbonsAreVisible.set(ribbonsAreVisible);
         this.getController().getShowBallsCheckbox().setSelected(!ribbonsAreVisible);
@@ -461,6 +483,7 @@ public class Window extends AbstractWindow{
     }
 
     public Group getRectangleGroup(){return this.rectangleGroup;}
+    public Group getHighlightGroup(){return this.highlightGroup;}
     public Property<Transform> figureTransformPropertyProperty() {
         return figureTransformProperty;
     }
@@ -472,6 +495,22 @@ public class Window extends AbstractWindow{
         return ribbonsAreVisible;
     }
 
+    /**
+     * Get the queue by which background tasks change the scene, see SceneUpdateQueue.
+     * @return the queue of scene updates of this window
+     */
+    public SceneUpdateQueue getSceneUpdates() {
+        return sceneUpdates;
+    }
+
+    public LevelOfDetailManager getLevelOfDetail() {
+        return levelOfDetail;
+    }
+
+    public BooleanProperty meshesAreVisibleProperty() {
+        return meshesAreVisible;
+    }
+
     public BooleanProperty isAnimationRunningPropertyProperty() {
         return isAnimationRunningProperty;
     }
@@ -10,6 +10,7 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
+import model.pdbaccess.PDBRecordType;
 
 public class WindowController {
 
@@ -49,6 +50,9 @@ public class WindowController {
     @FXML
     private MenuItem showBiojava;
 
+    @FXML
+    private CheckMenuItem highlightSelectionMI;
+
     @FXML
     private CheckMenuItem darkThemeMI;
 
@@ -91,6 +95,12 @@ public class WindowController {
     @FXML
     private ChoiceBox<String> atomChoiceBox;
 
+    @FXML
+    private Slider tempFactorSlider;
+
+    @FXML
+    private ChoiceBox<Integer> modelChoiceBox;
+
     @FXML
     private Button explosionButton;
 
@@ -125,7 +135,13 @@ public class WindowController {
     private ProgressBar fileProgressBar;
 
     @FXML
-    private TextArea fileOutputTextArea;
+    private ListView<String> fileOutputListView;
+
+    @FXML
+    private ChoiceBox<PDBRecordType> recordTypeChoiceBox;
+
+    @FXML
+    private Button nextRecordButton;
 
     @FXML
     private Label chartsTitle;
@@ -262,6 +278,14 @@ public class WindowController {
         this.showBiojava = showBiojava;
     }
 
+    public CheckMenuItem getHighlightSelectionMI() {
+        return highlightSelectionMI;
+    }
+
+    public void setHighlightSelectionMI(CheckMenuItem highlightSelectionMI) {
+        this.highlightSelectionMI = highlightSelectionMI;
+    }
+
     public CheckMenuItem getDarkThemeMI() {
         return darkThemeMI;
     }
@@ -374,6 +398,22 @@ public class WindowController {
         this.atomChoiceBox = atomChoiceBox;
     }
 
+    public Slider getTempFactorSlider() {
+        return tempFactorSlider;
+    }
+
+    public void setTempFactorSlider(Slider tempFactorSlider) {
+        this.tempFactorSlider = tempFactorSlider;
+    }
+
+    public ChoiceBox<Integer> getModelChoiceBox() {
+        return modelChoiceBox;
+    }
+
+    public void setModelChoiceBox(ChoiceBox<Integer> modelChoiceBox) {
+        this.modelChoiceBox = modelChoiceBox;
+    }
+
     public Button getExplosionButton() {
         return explosionButton;
     }
@@ -462,12 +502,28 @@ public class WindowController {
         this.fileProgressBar = fileProgressBar;
     }
 
-    public TextArea getFileOutputTextArea() {
-        return fileOutputTextArea;
+    public ListView<String> getFileOutputListView() {
+        return fileOutputListView;
+    }
+
+    public void setFileOutputListView(ListView<String> fileOutputListView) {
+        this.fileOutputListView = fileOutputListView;
+    }
+
+    public ChoiceBox<PDBRecordType> getRecordTypeChoiceBox() {
+        return recordTypeChoiceBox;
+    }
+
+    public void setRecordTypeChoiceBox(ChoiceBox<PDBRecordType> recordTypeChoiceBox) {
+        this.recordTypeChoiceBox = recordTypeChoiceBox;
+    }
+
+    public Button getNextRecordButton() {
+        return nextRecordButton;
     }
 
-    public void setFileOutputTextArea(TextArea fileOutputTextArea) {
-        this.fileOutputTextArea = fileOutputTextArea;
+    public void setNextRecordButton(Button nextRecordButton) {
+        this.nextRecordButton = nextRecordButton;
     }
 
     public Label getChartsTitle() {
@@ -10,6 +10,8 @@ import javafx.scene.shape.Cylinder;
 import javafx.scene.shape.MeshView;
 import javafx.scene.shape.TriangleMesh;
 
+import java.util.List;
+
 /**
  * utilities for 3D shapes
  * Daniel Huson, 6.2021
@@ -125,6 +127,58 @@ public class Shape3DUtils {
         return meshView;
     }
 
+    /**
+     * merges the triangle meshes of several mesh views into one mesh view, e.g. all ribbon parts of a polymer
+     * all mesh views are expected to have the same material, the material of the first one is used
+     *
+     * @param meshViews mesh views with triangle meshes
+     * @return one mesh view containing all triangles, null if there are no mesh views
+     */
+    public static MeshView mergeMeshes(List<MeshView> meshViews) {
+        if (meshViews == null || meshViews.isEmpty()) {
+            return null;
+        }
+        int numberOfPoints = 0, numberOfTexCoords = 0, numberOfFaces = 0;
+        for (MeshView meshView : meshViews) {
+            TriangleMesh mesh = (TriangleMesh) meshView.getMesh();
+            numberOfPoints += mesh.getPoints().size();
+            numberOfTexCoords += mesh.getTexCoords().size();
+            numberOfFaces += mesh.getFaces().size();
+        }
+        var points = new float[numberOfPoints];
+        var texCoords = new float[numberOfTexCoords];
+        var faces = new int[numberOfFaces];
+        var smoothing = new int[numberOfFaces / 6];
+        int p = 0, t = 0, f = 0, s = 0;
+        for (MeshView meshView : meshViews) {
+            TriangleMesh mesh = (TriangleMesh) meshView.getMesh();
+            int pointOffset = p / 3, texCoordOffset = t / 2;
+            mesh.getPoints().copyTo(0, points, p, mesh.getPoints().size());
+            mesh.getTexCoords().copyTo(0, texCoords, t, mesh.getTexCoords().size());
+            p += mesh.getPoints().size();
+            t += mesh.getTexCoords().size();
+            for (int i = 0; i < mesh.getFaces().size(); i += 2) {
+                faces[f++] = mesh.getFaces().get(i) + pointOffset;
+                faces[f++] = mesh.getFaces().get(i + 1) + texCoordOffset;
+            }
+            int meshFaces = mesh.getFaces().size() / 6;
+            if (mesh.getFaceSmoothingGroups().size() == meshFaces) {
+                mesh.getFaceSmoothingGroups().copyTo(0, smoothing, s, meshFaces);
+            }
+            s += meshFaces;
+        }
+
+        TriangleMesh mesh = new TriangleMesh();
+        mesh.getPoints().setAll(points);
+        mesh.getTexCoords().setAll(texCoords);
+        mesh.getFaces().setAll(faces);
+        mesh.getFaceSmoothingGroups().setAll(smoothing);
+
+        MeshView merged = new MeshView(mesh);
+        merged.setMaterial(meshViews.get(0).getMaterial());
+        return merged;
+    }
+
     /**
      * compute the other point (mirror image of b over a)
      *
@@ -18,8 +18,9 @@ public class WindowConstants {
             "Apart from the molecule view, which was described above, there are two other tabs: One showing the content of the file, which was parsed to show the molecules and another one showing a summary of the file using charts.\n\n"+
             "This program is part of the Advanced Java for Bioinformatics course at University Tübingen in Germany and was created by Debora Jutz";
     private static final String[] atoms = new String[]{"All", "Carbon", "Hydrogen", "Nitrogen", "Oxygen", "Phosphor", "Sulfur", "Other"};
-    private static final String[] coloring = new String[]{"Atoms", "Structure Types", "Monomers", "Nucleotides", "Amino Acids", "Sheets", "Helix", "Molecules", "Rainbow"};
-    private static final String[] drawingStyle = new String[]{"Balls and Sticks", "Ribbon"};
+    private static final String[] coloring = new String[]{"Atoms", "Structure Types", "Monomers", "Nucleotides", "Amino Acids", "Sheets", "Helix", "Molecules", "Rainbow", "B-Factor"};
+    private static final String[] drawingStyle = new String[]{"Balls and Sticks", "Ribbon", "Batched Mesh"};
+    private static final int batchedMeshAtomLimit = 10000;             //molecules with more atoms are shown as batched meshes by default
     private static final Color[] rainbowColors = new Color[]{Color.PURPLE, Color.BLUE, Color.GREEN, Color.YELLOW, Color.ORANGE, Color.RED};
 
     public static String getAbout() {
@@ -38,6 +39,10 @@ public class WindowConstants {
         return drawingStyle;
     }
 
+    public static int getBatchedMeshAtomLimit() {
+        return batchedMeshAtomLimit;
+    }
+
     public static Color[] getRainbowColors() {
         return rainbowColors;
     }
@@ -0,0 +1,130 @@
+package model.pdbaccess;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Benchmark of parsing the PDB files in the default location, e.g. the bundled files of resources/pdbFiles.
+ * For each file, the columns of all ATOM and HETATM records are read twice: as Strings which are trimmed and parsed,
+ * like the parser did before the PDBLineBuffer, and directly from the line buffer. Afterwards the whole file is parsed by the FileParser.
+ * Each measurement is the best of several rounds after warming up. Run from the root of the repository:
+ * <pre>java -cp &lt;classes of src and test&gt; model.pdbaccess.FileParserBenchmark [rounds]</pre>
+ */
+public class FileParserBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int DEFAULT_ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROUNDS;
+        File[] files = new File(FileParser.DEFAULT_STORING_DIRECTORY).listFiles((dir, name) -> name.endsWith(FileParser.FILE_EXTENSION));
+        if(files == null || files.length == 0){
+            System.err.println("No PDB files found in " + FileParser.DEFAULT_STORING_DIRECTORY);
+            return;
+        }
+        Arrays.sort(files);
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        long totalStrings = 0, totalBuffer = 0, totalParser = 0;
+        out.printf("%-6s %10s %12s %12s %8s %12s%n", "file", "atoms", "strings ms", "buffer ms", "speedup", "parser ms");
+        for (File file : files) {
+            String filename = file.getName().substring(0, file.getName().length() - FileParser.FILE_EXTENSION.length());
+            long strings = Long.MAX_VALUE, buffer = Long.MAX_VALUE, parser = Long.MAX_VALUE;
+            int atoms = 0;
+            for (int round = 0; round < WARMUP_ROUNDS + rounds; round++) {
+                long start = System.nanoTime();
+                atoms = parseColumnsOfStrings(file);
+                long stringsTime = System.nanoTime() - start;
+                start = System.nanoTime();
+                int bufferAtoms = parseColumnsOfBuffer(file);
+                long bufferTime = System.nanoTime() - start;
+                if(bufferAtoms != atoms){
+                    throw new IllegalStateException("Different number of atoms in " + filename + ": " + atoms + " and " + bufferAtoms);
+                }
+                //the parser reports its progress on the console
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                System.setErr(System.out);
+                start = System.nanoTime();
+                try {
+                    new FileParser().getMoleculeFromFile(filename, progress -> {});
+                }
+                finally {
+                    System.setOut(out);
+                    System.setErr(err);
+                }
+                long parserTime = System.nanoTime() - start;
+                if(round >= WARMUP_ROUNDS){
+                    strings = Math.min(strings, stringsTime);
+                    buffer = Math.min(buffer, bufferTime);
+                    parser = Math.min(parser, parserTime);
+                }
+            }
+            totalStrings += strings;
+            totalBuffer += buffer;
+            totalParser += parser;
+            out.printf("%-6s %10d %12.2f %12.2f %7.2fx %12.2f%n", filename, atoms, strings / 1e6, buffer / 1e6, (double) strings / buffer, parser / 1e6);
+        }
+        out.printf("%-6s %10s %12.2f %12.2f %7.2fx %12.2f%n", "total", "", totalStrings / 1e6, totalBuffer / 1e6, (double) totalStrings / totalBuffer, totalParser / 1e6);
+    }
+
+    /**
+     * Read the columns of all atom records as trimmed Strings and parse the numbers from them.
+     * @return the number of atom records
+     */
+    private static int parseColumnsOfStrings(File file) throws IOException {
+        int atoms = 0;
+        double checksum = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line = reader.readLine();
+            while(line != null){
+                if(line.startsWith("ATOM") || line.startsWith("HETATM")){
+                    String atomName = line.substring(12, 16).trim().toUpperCase();
+                    String monomerName = line.substring(17, 20).trim().toUpperCase();
+                    String chainID = line.substring(21, 22).trim().toUpperCase();
+                    int resSeqNumber = Integer.parseInt(line.substring(22, 26).trim());
+                    double x = Double.parseDouble(line.substring(30, 38).trim());
+                    double y = Double.parseDouble(line.substring(38, 46).trim());
+                    double z = Double.parseDouble(line.substring(46, 54).trim());
+                    double tempFactor = Double.parseDouble(line.substring(60, 66).trim());
+                    String element = line.substring(76, 78).trim().toUpperCase();
+                    checksum += x + y + z + tempFactor + resSeqNumber + atomName.length() + monomerName.length() + chainID.length() + element.length();
+                    atoms++;
+                }
+                line = reader.readLine();
+            }
+        }
+        return checksum == 0 ? 0 : atoms;
+    }
+
+    /**
+     * Read the same columns of all atom records directly from the line buffer.
+     * @return the number of atom records
+     */
+    private static int parseColumnsOfBuffer(File file) throws IOException {
+        int atoms = 0;
+        double checksum = 0;
+        PDBLineBuffer lines = PDBLineBuffer.map(file.toPath());
+        while(lines.readLine()){
+            if(lines.startsWith("ATOM") || lines.startsWith("HETATM")){
+                String atomName = lines.getColumn(12, 16);
+                String monomerName = lines.getColumn(17, 20);
+                String chainID = lines.getColumn(21, 22);
+                int resSeqNumber = lines.parseInt(22, 26);
+                double x = lines.parseDecimal(30, 38);
+                double y = lines.parseDecimal(38, 46);
+                double z = lines.parseDecimal(46, 54);
+                double tempFactor = lines.parseDecimal(60, 66);
+                String element = lines.getColumn(76, 78);
+                checksum += x + y + z + tempFactor + resSeqNumber + atomName.length() + monomerName.length() + chainID.length() + element.length();
+                atoms++;
+            }
+        }
+        lines.close();
+        return checksum == 0 ? 0 : atoms;
+    }
+}
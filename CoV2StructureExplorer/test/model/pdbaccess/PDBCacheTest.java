@@ -0,0 +1,73 @@
+package model.pdbaccess;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of replacing entries of the PDBCache, each test uses a new cache in a temporary directory.
+ */
+public class PDBCacheTest {
+
+    private static final byte[] CONTENT = "HEADER    TEST ENTRY\nEND\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OTHER_CONTENT = "HEADER    OTHER ENTRY\nEND\n".getBytes(StandardCharsets.US_ASCII);
+
+    private Path directory;
+    private PDBCache cache;
+
+    @Before
+    public void createCache() throws IOException {
+        this.directory = Files.createTempDirectory("pdbcache");
+        this.cache = new PDBCache(this.directory, 1024 * 1024);
+    }
+
+    @After
+    public void deleteCache() throws IOException {
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void putSameContentTwiceKeepsFile() throws IOException {
+        this.cache.put("1ABC", out -> out.write(CONTENT));
+        long totalSize = this.cache.getTotalSize();
+        this.cache.put("1ABC", out -> out.write(CONTENT));
+
+        assertTrue(this.cache.contains("1ABC"));
+        assertEquals(totalSize, this.cache.getTotalSize());
+        try (InputStream in = this.cache.open("1ABC")) {
+            assertArrayEquals(CONTENT, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void putOtherContentReplacesFile() throws IOException {
+        this.cache.put("1ABC", out -> out.write(CONTENT));
+        String checksum = this.cache.getChecksum("1ABC");
+        this.cache.put("1ABC", out -> out.write(OTHER_CONTENT));
+
+        assertFalse(checksum.equals(this.cache.getChecksum("1ABC")));
+        try (Stream<Path> files = Files.list(this.directory)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(".gz")).count());
+        }
+        try (InputStream in = this.cache.open("1ABC")) {
+            assertArrayEquals(OTHER_CONTENT, in.readAllBytes());
+        }
+        this.cache.evict("1ABC");
+        assertEquals(0, this.cache.getTotalSize());
+    }
+}
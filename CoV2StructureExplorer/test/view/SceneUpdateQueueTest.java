@@ -0,0 +1,151 @@
+package view;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the order and batching of the SceneUpdateQueue. Pulses are called by the test instead of the JavaFX application thread,
+ * so no scene is needed.
+ */
+public class SceneUpdateQueueTest {
+
+    private static final long TIMEOUT_NANOS = 10_000_000_000L;
+
+    /**
+     * Pulses which are only counted, the test calls pulse itself while they are started.
+     */
+    private static class CountedPulses implements SceneUpdateQueue.Pulses {
+        private final AtomicInteger starts = new AtomicInteger();
+        private volatile boolean running;
+
+        @Override
+        public void start() {
+            this.starts.incrementAndGet();
+            this.running = true;
+        }
+
+        @Override
+        public void stop() {
+            this.running = false;
+        }
+    }
+
+    @Test
+    public void updatesUntilPulseAreAppliedTogether() {
+        CountedPulses pulses = new CountedPulses();
+        SceneUpdateQueue queue = new SceneUpdateQueue(pulses, Long.MAX_VALUE);
+        List<Integer> applied = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int update = i;
+            queue.submit(() -> applied.add(update));
+        }
+        assertEquals(1, pulses.starts.get());
+        assertTrue(applied.isEmpty());
+
+        queue.pulse();
+        assertEquals(List.of(0, 1, 2), applied);
+        assertFalse(pulses.running);
+
+        queue.submit(() -> applied.add(3));
+        assertEquals(2, pulses.starts.get());
+    }
+
+    @Test
+    public void updatesBeyondBudgetWaitForNextPulse() {
+        CountedPulses pulses = new CountedPulses();
+        SceneUpdateQueue queue = new SceneUpdateQueue(pulses, 0);
+        List<Integer> applied = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int update = i;
+            queue.submit(() -> applied.add(update));
+        }
+        queue.pulse();
+        assertEquals(List.of(0), applied);
+        assertTrue(pulses.running);
+        queue.pulse();
+        queue.pulse();
+        assertEquals(List.of(0, 1, 2), applied);
+        queue.pulse();
+        assertFalse(pulses.running);
+        assertEquals(1, pulses.starts.get());
+    }
+
+    @Test
+    public void failedUpdateDoesNotStopOthers() {
+        CountedPulses pulses = new CountedPulses();
+        SceneUpdateQueue queue = new SceneUpdateQueue(pulses, Long.MAX_VALUE);
+        List<Integer> applied = new ArrayList<>();
+        queue.submit(() -> applied.add(0));
+        queue.submit(() -> {
+            throw new IllegalStateException("update of test fails");
+        });
+        queue.submit(() -> applied.add(2));
+        queue.pulse();
+        assertEquals(List.of(0, 2), applied);
+    }
+
+    /**
+     * Submit the updates like SetupVisualizationTask: the previous molecule is removed, each polymer is appended as soon as it is set up,
+     * and the task waits until its last update was applied.
+     */
+    @Test
+    public void polymersAreShownInOrderBeforeTaskFinishes() throws InterruptedException {
+        int numberOfPolymers = 200;
+        CountedPulses pulses = new CountedPulses();
+        SceneUpdateQueue queue = new SceneUpdateQueue(pulses, 8_000_000);
+        List<String> scene = Collections.synchronizedList(new ArrayList<>());
+        Thread task = new Thread(() -> {
+            queue.submit(() -> scene.add("clear"));
+            for (int i = 0; i < numberOfPolymers; i++) {
+                String polymer = "polymer " + i;
+                queue.submit(() -> scene.add(polymer));
+                if(i % 10 == 0){
+                    Thread.yield();         //polymers arrive while earlier ones are applied
+                }
+            }
+            CountDownLatch shown = new CountDownLatch(1);
+            queue.submit(() -> {
+                scene.add("levels");
+                shown.countDown();
+            });
+            try {
+                shown.await();
+            }
+            catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            scene.add("finished");
+        });
+        task.start();
+
+        long start = System.nanoTime();
+        while(task.isAlive() && System.nanoTime() - start < TIMEOUT_NANOS){
+            if(pulses.running){
+                queue.pulse();
+            }
+            else {
+                Thread.onSpinWait();
+            }
+        }
+        task.join(TIMEOUT_NANOS / 1_000_000);
+        assertFalse(task.isAlive());
+
+        assertEquals(numberOfPolymers + 3, scene.size());
+        assertEquals("clear", scene.get(0));
+        for (int i = 0; i < numberOfPolymers; i++) {
+            assertEquals("polymer " + i, scene.get(i + 1));
+        }
+        assertEquals("levels", scene.get(numberOfPolymers + 1));
+        assertEquals("finished", scene.get(numberOfPolymers + 2));
+        assertFalse(pulses.running);
+    }
+}